@@ -0,0 +1,115 @@
+package com.gooddaytolearn;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loading audio through {@link AudioManager}, for WAV files of different lengths.
+ *
+ * The files are generated once per trial as 16-bit stereo at 44.1 kHz, the format
+ * users most often pick. Opening a clip needs an audio device; without one the
+ * benchmark only measures parsing and the failed line lookup.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class AudioLoadBenchmark {
+    
+    private static final float SAMPLE_RATE = 44100f;
+    
+    // Length of the generated file in seconds
+    @Param({"1", "10", "60"})
+    public int seconds;
+    
+    private Path directory;
+    private Path wavFile;
+    private Path otherWavFile;
+    private AudioManager audioManager;
+    private boolean useOther;
+    
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("gooddaytolearn-bench");
+        wavFile = writeWav(directory.resolve("a.wav"), seconds);
+        otherWavFile = writeWav(directory.resolve("b.wav"), seconds);
+        
+        audioManager = new AudioManager();
+        audioManager.loadAudioFiles();
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        audioManager.cleanup();
+        Files.deleteIfExists(wavFile);
+        Files.deleteIfExists(otherWavFile);
+        Files.deleteIfExists(directory);
+    }
+    
+    /**
+     * Switch the music to a user-selected file, as saving the settings does.
+     * Alternates between two files, since selecting the current file is a no-op.
+     */
+    @Benchmark
+    public void switchMusicFile() {
+        useOther = !useOther;
+        audioManager.setCustomMusicFile((useOther ? otherWavFile : wavFile).toString());
+    }
+    
+    /**
+     * A cold start: a new manager loading both the music and the alarm from the file.
+     */
+    @Benchmark
+    public AudioManager coldLoad() {
+        AudioManager manager = new AudioManager();
+        manager.setCustomMusicFile(wavFile.toString());
+        manager.setCustomAlarmFile(wavFile.toString());
+        manager.loadAudioFiles();
+        manager.cleanup();
+        return manager;
+    }
+    
+    /**
+     * Write a WAV file holding a quiet sine tone.
+     */
+    private static Path writeWav(Path path, int seconds) throws IOException {
+        AudioFormat format = new AudioFormat(SAMPLE_RATE, 16, 2, true, false);
+        int frames = (int) (SAMPLE_RATE * seconds);
+        byte[] data = new byte[frames * format.getFrameSize()];
+        for (int frame = 0; frame < frames; frame++) {
+            short sample = (short) (Math.sin(2 * Math.PI * 440 * frame / SAMPLE_RATE) * 2000);
+            int offset = frame * 4;
+            data[offset] = (byte) sample;
+            data[offset + 1] = (byte) (sample >> 8);
+            data[offset + 2] = (byte) sample;
+            data[offset + 3] = (byte) (sample >> 8);
+        }
+        try (AudioInputStream stream = new AudioInputStream(new ByteArrayInputStream(data), format, frames)) {
+            AudioSystem.write(stream, AudioFileFormat.Type.WAVE, path.toFile());
+        }
+        return path;
+    }
+}
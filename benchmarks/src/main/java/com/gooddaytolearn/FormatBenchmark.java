@@ -0,0 +1,75 @@
+package com.gooddaytolearn;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Text the timer produces for the display: the time string, the status line,
+ * and the allocation-free path the renderers use.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FormatBenchmark {
+    
+    @Param({"WORK", "SHORT_BREAK", "LONG_BREAK"})
+    public Phase phase;
+    
+    private PomodoroTimer timer;
+    private final char[] buffer = new char[8];
+    private final TimeRenderer renderer = new TimeRenderer();
+    private int seconds;
+    
+    @Setup
+    public void setup() {
+        timer = new PomodoroTimer(null, null);
+        if (phase.isBreak()) {
+            // Finish the work interval that leads into the requested break
+            int interval = phase == Phase.LONG_BREAK ? 3 : 0;
+            timer.restore(null, new TimerCheckpoint.State(Phase.WORK, true, interval, 0,
+                AppConfig.DEFAULT_WORK_TIME, 0, 1, 1, 0));
+        }
+    }
+    
+    @Benchmark
+    public String timeDisplay() {
+        return timer.getTimeDisplay();
+    }
+    
+    @Benchmark
+    public String statusText() {
+        return timer.getStatusText();
+    }
+    
+    /**
+     * Formatting into a reused buffer, as the time renderer does.
+     */
+    @Benchmark
+    public int formatTimeIntoBuffer() {
+        seconds = (seconds + 1) % (AppConfig.MAX_WORK_TIME * 60);
+        return PomodoroTimer.formatTime(seconds, buffer, 0);
+    }
+    
+    /**
+     * A renderer text update, which only commits when a digit changed.
+     */
+    @Benchmark
+    public boolean rendererCountdown() {
+        seconds = (seconds + 1) % (AppConfig.MAX_WORK_TIME * 60);
+        return renderer.setCountdown(seconds);
+    }
+}
@@ -0,0 +1,143 @@
+package com.gooddaytolearn;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.swing.JLabel;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The custom paint routines of the main and statistics windows, drawn headlessly
+ * into an offscreen image the size of the main window.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class PaintBenchmark {
+    
+    private static final int HEATMAP_YEARS = 3;
+    
+    private BufferedImage image;
+    private Graphics2D g2d;
+    private JLabel timerLabel;
+    private final RenderCache renderCache = new RenderCache();
+    private final TimeRenderer timeRenderer = new TimeRenderer();
+    private Font timerFont;
+    private Color timerColor;
+    private PomodoroTimer timer;
+    private ProgressRing progressRing;
+    private HeatmapCalendar heatmap;
+    private BufferedImage heatmapImage;
+    private Graphics2D heatmapGraphics;
+    private int seconds;
+    
+    @Setup(Level.Trial)
+    public void setup() {
+        image = new BufferedImage(AppConfig.WINDOW_WIDTH, AppConfig.WINDOW_HEIGHT, BufferedImage.TYPE_INT_RGB);
+        g2d = image.createGraphics();
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        
+        timerFont = new Font("SF Pro Display", Font.BOLD, 64);
+        timerColor = ThemeManager.current().color(ThemeColor.WORK_TIME);
+        timerLabel = new JLabel();
+        timerLabel.setFont(timerFont);
+        timerLabel.setSize(AppConfig.WINDOW_WIDTH, 240);
+        
+        // Halfway through a work phase, so the ring draws an arc
+        timer = new PomodoroTimer(null, null);
+        timer.restore(null, new TimerCheckpoint.State(Phase.WORK, false, 0, 0, AppConfig.DEFAULT_WORK_TIME,
+            AppConfig.DEFAULT_WORK_TIME * 500L, 0, 1, 0));
+        progressRing = new ProgressRing(timerLabel, timer);
+        
+        // A few years of history with every day filled in
+        int firstYear = LocalDate.now().getYear() - HEATMAP_YEARS + 1;
+        int days = (int) (LocalDate.of(firstYear + HEATMAP_YEARS, 1, 1).toEpochDay()
+            - LocalDate.of(firstYear, 1, 1).toEpochDay());
+        int[] minutes = new int[days];
+        for (int i = 0; i < days; i++) {
+            minutes[i] = (i * 37) % 240;
+        }
+        heatmap = new HeatmapCalendar();
+        heatmap.setData(firstYear, firstYear + HEATMAP_YEARS - 1, minutes);
+        heatmap.setSize(heatmap.getPreferredSize());
+        heatmapImage = new BufferedImage(heatmap.getWidth(), heatmap.getHeight(), BufferedImage.TYPE_INT_RGB);
+        heatmapGraphics = heatmapImage.createGraphics();
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        g2d.dispose();
+        heatmapGraphics.dispose();
+    }
+    
+    /**
+     * Main panel background from the cached gradient.
+     */
+    @Benchmark
+    public void background() {
+        renderCache.drawBackground(g2d, timerLabel);
+    }
+    
+    /**
+     * Timer glow from the cached layer.
+     */
+    @Benchmark
+    public void glow() {
+        renderCache.drawGlow(g2d, timerLabel, false);
+    }
+    
+    /**
+     * Progress ring with its arc.
+     */
+    @Benchmark
+    public void progressRing() {
+        progressRing.paint(g2d);
+    }
+    
+    /**
+     * Countdown text through the glyph atlas, with a new value each call.
+     */
+    @Benchmark
+    public void timeText() {
+        seconds = (seconds + 1) % AppConfig.DEFAULT_WORK_TIME;
+        timeRenderer.setCountdown(seconds);
+        timeRenderer.paint(g2d, timerLabel, timerFont, timerColor);
+    }
+    
+    /**
+     * Everything the timer label paints for one frame.
+     */
+    @Benchmark
+    public void timerLabelFrame() {
+        progressRing.paint(g2d);
+        renderCache.drawGlow(g2d, timerLabel, timer.isBreak());
+        timeRenderer.paint(g2d, timerLabel, timerFont, timerColor);
+    }
+    
+    /**
+     * A full repaint of the heatmap calendar from its cached month tiles.
+     */
+    @Benchmark
+    public void heatmapCalendar() {
+        heatmap.paint(heatmapGraphics);
+    }
+}
@@ -0,0 +1,70 @@
+package com.gooddaytolearn;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.EnumSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mixing one block of the soundscape, for different numbers of layers.
+ *
+ * Half the layers loop a ten-second sine tone and half generate brown noise. A block
+ * plays for about 11.6 ms, so the score divided by that is the share of a core the
+ * mixing thread needs. No audio device is used.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SoundscapeBenchmark {
+    
+    @Param({"1", "4", "10"})
+    public int layers;
+    
+    private SoundscapeMixer mixer;
+    private byte[] block;
+    
+    @Setup(Level.Trial)
+    public void setup() {
+        short[] tone = new short[44100 * 10 * 2];
+        for (int frame = 0; frame < tone.length / 2; frame++) {
+            short sample = (short) (Math.sin(2 * Math.PI * 440 * frame / 44100.0) * 2000);
+            tone[frame * 2] = sample;
+            tone[frame * 2 + 1] = sample;
+        }
+        
+        SoundscapeMixer.Voice[] voices = new SoundscapeMixer.Voice[layers];
+        for (int i = 0; i < layers; i++) {
+            boolean noise = i % 2 == 1;
+            SoundscapeLayer layer = new SoundscapeLayer(noise ? SoundscapeLayer.BROWN_NOISE : "tone" + i,
+                1.0 / layers, EnumSet.of(Phase.WORK));
+            voices[i] = new SoundscapeMixer.Voice(layer, layer.getSource(), noise ? null : tone);
+        }
+        mixer = new SoundscapeMixer();
+        mixer.setVoices(voices);
+        mixer.cue(Phase.WORK);
+        block = new byte[SoundscapeMixer.BLOCK_FRAMES * 4];
+    }
+    
+    /**
+     * Mix the next block, as the mixing thread does before each write.
+     */
+    @Benchmark
+    public byte[] mixBlock() {
+        mixer.mixBlock(block);
+        return block;
+    }
+}
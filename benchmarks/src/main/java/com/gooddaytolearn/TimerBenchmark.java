@@ -0,0 +1,82 @@
+package com.gooddaytolearn;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The timer engine: a countdown tick, the reads the UI makes on every frame,
+ * and the transition from one phase to the next.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TimerBenchmark {
+    
+    private PomodoroTimer runningTimer;
+    private PomodoroTimer idleTimer;
+    private TimerCheckpoint.State expiredWork;
+    private Blackhole blackhole;
+    
+    @Setup(Level.Trial)
+    public void setup(Blackhole blackhole) {
+        this.blackhole = blackhole;
+        
+        // A long phase that never ends during the run; its own tick thread fires once a second
+        runningTimer = new PomodoroTimer(null, blackhole::consume);
+        runningTimer.setWorkTime(AppConfig.MAX_WORK_TIME);
+        runningTimer.start();
+        
+        // Work phase whose deadline has passed, so restoring it completes the phase
+        idleTimer = new PomodoroTimer(null, null);
+        idleTimer.addPhaseListener(blackhole::consume);
+        expiredWork = new TimerCheckpoint.State(Phase.WORK, true, 1, 0, AppConfig.DEFAULT_WORK_TIME,
+            0, 1, 1, 0);
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        runningTimer.stop();
+    }
+    
+    /**
+     * One countdown tick while running, including the update callback.
+     */
+    @Benchmark
+    public void countdownTick() {
+        runningTimer.countdown();
+    }
+    
+    /**
+     * What the progress ring and time display read on each frame.
+     */
+    @Benchmark
+    public void frameReads(Blackhole blackhole) {
+        blackhole.consume(runningTimer.getProgress());
+        blackhole.consume(runningTimer.getRemainingNanos());
+        blackhole.consume(runningTimer.getTimeLeft());
+    }
+    
+    /**
+     * Complete a work phase and move to the short break, notifying phase listeners.
+     */
+    @Benchmark
+    public PhaseEvent phaseTransition() {
+        return idleTimer.restore(null, expiredWork);
+    }
+}
@@ -1,8 +1,6 @@
 package com.gooddaytolearn;
 
-import java.awt.Color;
-import java.util.HashMap;
-import java.util.Map;
+import java.io.File;
 
 /**
  * Configuration settings for the Good Day To Learn application.
@@ -14,55 +12,7 @@ public class AppConfig {
     public static final int WINDOW_WIDTH = 700;
     public static final int WINDOW_HEIGHT = 450;
     public static final boolean WINDOW_RESIZABLE = false;
-    
-    // Modern Dark Theme Color Scheme
-    public static final Map<String, Color> COLORS = new HashMap<>();
-    static {
-        // Background colors - Deep dark with subtle blue undertones
-        COLORS.put("background", new Color(18, 18, 20));           // Almost black with slight blue
-        COLORS.put("settings_bg", new Color(22, 22, 25));          // Slightly lighter for settings
-        COLORS.put("panel_bg", new Color(28, 28, 32));             // Card/panel background
-        COLORS.put("button_bg", new Color(38, 38, 42));            // Button base background
-        
-        // Text colors - High contrast with modern hierarchy
-        COLORS.put("text_primary", new Color(255, 255, 255));      // Pure white for main text
-        COLORS.put("text_secondary", new Color(200, 200, 205));    // Slightly dimmed white
-        COLORS.put("text_muted", new Color(140, 140, 150));        // Muted gray for secondary info
-        COLORS.put("text_accent", new Color(120, 120, 128));       // Very muted for hints
-        
-        // Timer state colors - Vibrant but not harsh
-        COLORS.put("work_time", new Color(255, 95, 95));           // Soft red for work time
-        COLORS.put("break_time", new Color(100, 210, 255));        // Bright blue for break time
-        COLORS.put("timer_glow", new Color(80, 200, 255, 20));     // Subtle glow effect
-        
-        // Modern button colors with better accessibility
-        COLORS.put("button_green", new Color(46, 204, 113));       // Bright green
-        COLORS.put("button_green_active", new Color(39, 174, 96)); // Darker on hover
-        COLORS.put("button_green_text", new Color(255, 255, 255)); // White text
-        
-        COLORS.put("button_red", new Color(255, 95, 95));          // Soft red
-        COLORS.put("button_red_active", new Color(230, 70, 70));   // Darker on hover
-        COLORS.put("button_red_text", new Color(255, 255, 255));   // White text
-        
-        COLORS.put("button_blue", new Color(100, 170, 255));       // Modern blue
-        COLORS.put("button_blue_active", new Color(80, 150, 235)); // Darker on hover
-        COLORS.put("button_blue_text", new Color(255, 255, 255));  // White text
-        
-        COLORS.put("button_purple", new Color(155, 135, 255));     // Modern purple
-        COLORS.put("button_purple_active", new Color(135, 115, 235)); // Darker on hover
-        COLORS.put("button_purple_text", new Color(255, 255, 255)); // White text
-        
-        // Accent and highlight colors
-        COLORS.put("accent_primary", new Color(100, 170, 255));    // Primary brand blue
-        COLORS.put("accent_secondary", new Color(155, 135, 255));  // Secondary purple
-        COLORS.put("border_color", new Color(55, 55, 60));         // Subtle borders
-        COLORS.put("hover_overlay", new Color(255, 255, 255, 8)); // Subtle hover effect
-        
-        // Slider colors
-        COLORS.put("slider_active_blue", new Color(100, 170, 255));
-        COLORS.put("slider_active_red", new Color(255, 95, 95));
-        COLORS.put("slider_track", new Color(45, 45, 50));         // Slider track background
-    }
+    public static final float MINI_WINDOW_OPACITY = 0.8f; // When the mini timer is set to translucent
     
     // Timer defaults (in seconds)
     public static final int DEFAULT_WORK_TIME = 25 * 60;      // 25 minutes
@@ -77,13 +27,53 @@ public class AppConfig {
     public static final String DEFAULT_MUSIC_FILE = "/rain.wav";
     public static final String DEFAULT_ALARM_FILE = "/alarm.wav";
     
-    // Audio files - can be overridden by user settings
-    public static String MUSIC_FILE = DEFAULT_MUSIC_FILE;
-    public static String ALARM_FILE = DEFAULT_ALARM_FILE;
+    // Low-memory mode: stopped music is released after this long, and restored this long before a break ends
+    public static final int MUSIC_RELEASE_DELAY_SECONDS = 30;
+    public static final int MUSIC_PREFETCH_SECONDS = 15;
+    
+    // Decoded audio files kept in the disk cache; the least recently used are deleted beyond this
+    public static final int AUDIO_CACHE_MAX_FILES = 16;
+    
+    // Most soundscape layers, music included, that can be mixed at once
+    public static final int MAX_SOUNDSCAPE_LAYERS = 10;
     
     // Timer validation limits
     public static final int MIN_WORK_TIME = 1;      // minutes
     public static final int MAX_WORK_TIME = 120;    // minutes
+    public static final int MIN_BREAK_TIME = 1;     // minutes
+    public static final int MAX_SHORT_BREAK = 30;   // minutes
+    public static final int MAX_LONG_BREAK = 60;    // minutes
+    
+    // Directory for session history and other app data
+    public static final String DATA_DIR = System.getProperty("gooddaytolearn.dataDir",
+        System.getProperty("user.home") + File.separator + ".gooddaytolearn");
+    public static final String JOURNAL_FILE = "sessions.journal";
+    public static final String STATS_FILE = "stats.snapshot";
+    public static final String SETTINGS_FILE = "settings.properties";
+    public static final String TASKS_FILE = "tasks.snapshot";
+    public static final String AUDIO_CACHE_DIR = "audio-cache";
+    public static final String FLIGHT_RECORDING_DIR = "flight-recordings";
+    public static final String CHECKPOINT_FILE = "timer.checkpoint";
+    
+    // Local port for the Prometheus metrics endpoint; 0 leaves it off
+    public static final int METRICS_PORT = Integer.getInteger("gooddaytolearn.metricsPort", 0);
+    
+    // Matches listed by the task picker as the user types
+    public static final int TASK_PICKER_RESULTS = 8;
+    
+    // Calendar: how often the file is checked for changes, and how far ahead meetings are looked up
+    public static final int CALENDAR_POLL_SECONDS = 30;
+    public static final int CALENDAR_HORIZON_DAYS = 7;
+    // Work intervals end this long before a meeting, and are not started with less time than this left
+    public static final int MEETING_LEAD_SECONDS = 120;
+    public static final int MIN_WORK_BEFORE_MEETING_SECONDS = 300;
+    
+    // Phase hooks: worker threads, runs that may wait for one, and how long each may take
+    public static final String HOOKS_FILE = "hooks.properties";
+    public static final int HOOK_THREADS = 2;
+    public static final int HOOK_QUEUE_CAPACITY = 16;
+    public static final int HOOK_TIMEOUT_SECONDS = 10;
+    public static final int MAX_HOOK_TIMEOUT_SECONDS = 300;
     
     // Settings window dimensions
     public static final int SETTINGS_WINDOW_WIDTH = 450;
@@ -0,0 +1,273 @@
+package com.gooddaytolearn;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.ref.SoftReference;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Decoded audio that can be dropped from memory and brought back quickly.
+ *
+ * Audio loaded through the cache is kept in two places: a soft reference, which the
+ * garbage collector clears when the heap gets tight, and a raw PCM copy in
+ * {@value AppConfig#AUDIO_CACHE_DIR} under the data directory. Getting it back is then
+ * free while the soft reference survives, and a single sequential file read otherwise,
+ * without opening or decoding the original file again.
+ *
+ * Each source has one cache file, named after a 64-bit hash of its path. The file's
+ * header holds the full key, including the source's size and modification time, and is
+ * checked on every read, so a stale copy or a hash collision is never used; the next
+ * write simply replaces it. Files not read for the longest time are deleted once there
+ * are more than {@value AppConfig#AUDIO_CACHE_MAX_FILES}.
+ */
+public class AudioCache {
+    
+    /**
+     * PCM audio ready to hand to a line or clip.
+     */
+    public static final class Decoded {
+        private final AudioFormat format;
+        private final byte[] data;
+        
+        Decoded(AudioFormat format, byte[] data) {
+            this.format = format;
+            this.data = data;
+        }
+        
+        public AudioFormat getFormat() {
+            return format;
+        }
+        
+        public byte[] getData() {
+            return data;
+        }
+    }
+    
+    private static final int FILE_MAGIC = 0x47504341; // "GPCA"
+    private static final int FILE_VERSION = 1;
+    
+    private final Path directory;
+    private final Map<String, SoftReference<Decoded>> memory = new HashMap<>();
+    
+    /**
+     * Create a cache that keeps its files in the given directory, created on first write.
+     */
+    public AudioCache(Path directory) {
+        this.directory = directory;
+    }
+    
+    /**
+     * Get decoded audio from memory, the disk cache or, failing both, the source file.
+     * Decoded sources are written to the disk cache for next time.
+     *
+     * @param source Path of an external file, or a classpath resource name
+     * @param external True if {@code source} is a file path
+     */
+    public synchronized Decoded load(String source, boolean external)
+            throws IOException, UnsupportedAudioFileException {
+        String key = cacheKey(source, external);
+        SoftReference<Decoded> reference = memory.get(key);
+        Decoded decoded = reference != null ? reference.get() : null;
+        if (decoded != null) {
+            Metrics.AUDIO_CACHE_MEMORY_HITS.incrementAndGet();
+            return decoded;
+        }
+        
+        Path file = directory.resolve(fileName(source, external));
+        decoded = read(file, key);
+        if (decoded != null) {
+            Metrics.AUDIO_CACHE_DISK_HITS.incrementAndGet();
+            touch(file);
+        } else {
+            decoded = decode(source, external);
+            write(file, key, decoded);
+            prune();
+        }
+        memory.put(key, new SoftReference<>(decoded));
+        return decoded;
+    }
+    
+    /**
+     * Decode an audio file to PCM without caching it. Compressed encodings are converted
+     * to 16-bit signed PCM.
+     *
+     * @param source Path of an external file, or a classpath resource name
+     * @param external True if {@code source} is a file path
+     */
+    public static Decoded decode(String source, boolean external)
+            throws IOException, UnsupportedAudioFileException {
+        AudioInputStream stream;
+        if (external) {
+            File file = new File(source);
+            if (!file.exists()) {
+                throw new NoSuchFileException(source);
+            }
+            stream = AudioSystem.getAudioInputStream(file);
+        } else {
+            InputStream resource = AudioCache.class.getResourceAsStream(source);
+            if (resource == null) {
+                throw new NoSuchFileException(source);
+            }
+            // Format detection needs mark/reset
+            stream = AudioSystem.getAudioInputStream(new BufferedInputStream(resource));
+        }
+        
+        try (AudioInputStream in = toPcm(stream)) {
+            return new Decoded(in.getFormat(), in.readAllBytes());
+        }
+    }
+    
+    private static AudioInputStream toPcm(AudioInputStream stream) {
+        AudioFormat format = stream.getFormat();
+        if (format.getEncoding() == AudioFormat.Encoding.PCM_SIGNED
+                || format.getEncoding() == AudioFormat.Encoding.PCM_UNSIGNED) {
+            return stream;
+        }
+        AudioFormat pcm = new AudioFormat(format.getSampleRate(), 16, format.getChannels(), true, false);
+        return AudioSystem.getAudioInputStream(pcm, stream);
+    }
+    
+    /**
+     * Name the cache file after the source alone, so a changed source replaces its old copy.
+     */
+    private static String fileName(String source, boolean external) {
+        String name = external ? "file:" + new File(source).getAbsolutePath() : "resource:" + source;
+        long hash = 0xcbf29ce484222325L; // 64-bit FNV-1a
+        for (int i = 0; i < name.length(); i++) {
+            hash = (hash ^ name.charAt(i)) * 0x100000001b3L;
+        }
+        return String.format("%016x.pcm", hash);
+    }
+    
+    /**
+     * Build a key that changes whenever the source does, so stale cache files are never used.
+     */
+    private static String cacheKey(String source, boolean external) throws IOException {
+        if (external) {
+            Path path = new File(source).toPath().toAbsolutePath();
+            try {
+                return "file:" + path + ":" + Files.size(path) + ":" + Files.getLastModifiedTime(path).toMillis();
+            } catch (NoSuchFileException e) {
+                return "file:" + path; // Fails in decode with a clear message
+            }
+        }
+        URL resource = AudioCache.class.getResource(source);
+        long length = resource != null ? resource.openConnection().getContentLengthLong() : -1;
+        return "resource:" + source + ":" + length;
+    }
+    
+    /**
+     * Read a cache file, or return null if it is missing, for another key or unreadable.
+     */
+    private static Decoded read(Path file, String key) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != FILE_MAGIC || in.readInt() != FILE_VERSION || !in.readUTF().equals(key)) {
+                return null;
+            }
+            AudioFormat.Encoding encoding = in.readBoolean() ? AudioFormat.Encoding.PCM_SIGNED
+                : AudioFormat.Encoding.PCM_UNSIGNED;
+            AudioFormat format = new AudioFormat(encoding, in.readFloat(), in.readInt(), in.readInt(), in.readInt(),
+                in.readFloat(), in.readBoolean());
+            byte[] data = new byte[in.readInt()];
+            in.readFully(data);
+            return new Decoded(format, data);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Ignoring unreadable audio cache file " + file.getFileName() + ": " + e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Write a cache file to a temporary file and atomically replace the old one.
+     */
+    private void write(Path file, String key, Decoded decoded) {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        AudioFormat format = decoded.getFormat();
+        try {
+            Files.createDirectories(directory);
+            try (OutputStream stream = Files.newOutputStream(temp);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream))) {
+                out.writeInt(FILE_MAGIC);
+                out.writeInt(FILE_VERSION);
+                out.writeUTF(key);
+                out.writeBoolean(format.getEncoding() == AudioFormat.Encoding.PCM_SIGNED);
+                out.writeFloat(format.getSampleRate());
+                out.writeInt(format.getSampleSizeInBits());
+                out.writeInt(format.getChannels());
+                out.writeInt(format.getFrameSize());
+                out.writeFloat(format.getFrameRate());
+                out.writeBoolean(format.isBigEndian());
+                out.writeInt(decoded.getData().length);
+                out.write(decoded.getData());
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Error writing audio cache: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Mark a cache file as recently used, for pruning.
+     */
+    private static void touch(Path file) {
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // Only affects which file is pruned first
+        }
+    }
+    
+    /**
+     * Delete the least recently used cache files beyond {@value AppConfig#AUDIO_CACHE_MAX_FILES}.
+     */
+    private void prune() {
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(path -> path.getFileName().toString().endsWith(".pcm"))
+                .sorted(Comparator.comparing(AudioCache::lastModified).reversed())
+                .collect(Collectors.toList());
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("Error listing audio cache: " + e.getMessage());
+            return;
+        }
+        for (Path file : files.subList(Math.min(files.size(), AppConfig.AUDIO_CACHE_MAX_FILES), files.size())) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                System.err.println("Error pruning audio cache: " + e.getMessage());
+            }
+        }
+    }
+    
+    private static FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
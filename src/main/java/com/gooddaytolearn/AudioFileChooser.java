@@ -0,0 +1,88 @@
+package com.gooddaytolearn;
+
+import javax.swing.JFileChooser;
+import javax.swing.SwingUtilities;
+import javax.swing.filechooser.FileNameExtensionFilter;
+import javax.swing.filechooser.FileSystemView;
+import java.io.File;
+
+/**
+ * Shared file chooser for audio files.
+ *
+ * The first JFileChooser in a process is slow because it has to query the platform
+ * file system and shell folders. {@link #prewarm()} does that work on a background
+ * thread after startup and then builds the chooser on the EDT, so opening it later is fast.
+ * The chooser is reused, which also keeps the last visited directory.
+ */
+public class AudioFileChooser {
+    
+    private static JFileChooser chooser;
+    
+    private AudioFileChooser() {
+    }
+    
+    /**
+     * Warm up the file system view in the background, then build the shared chooser.
+     */
+    public static void prewarm() {
+        Thread thread = new Thread(() -> {
+            long phase = StartupTimer.phaseStart();
+            try {
+                FileSystemView view = FileSystemView.getFileSystemView();
+                view.getRoots();
+                view.getHomeDirectory();
+                File start = view.getDefaultDirectory();
+                if (start != null) {
+                    view.getFiles(start, true);
+                }
+            } catch (Exception e) {
+                System.err.println("Could not prewarm file chooser: " + e.getMessage());
+            }
+            SwingUtilities.invokeLater(() -> {
+                get();
+                StartupTimer.phaseEnd("File chooser prewarm", phase);
+            });
+        }, "FileChooser-Prewarm");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+    
+    /**
+     * Get the shared chooser, creating it now if prewarming has not finished. EDT only.
+     */
+    public static JFileChooser get() {
+        if (chooser == null) {
+            chooser = create();
+        }
+        chooser.setSelectedFile(null);
+        return chooser;
+    }
+    
+    /**
+     * Create a file chooser configured for audio files.
+     */
+    private static JFileChooser create() {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setFileSelectionMode(JFileChooser.FILES_ONLY);
+        
+        // Add audio file filters
+        FileNameExtensionFilter audioFilter = new FileNameExtensionFilter(
+            "Audio Files (*.wav, *.mp3, *.aiff, *.au)",
+            "wav", "mp3", "aiff", "au"
+        );
+        FileNameExtensionFilter wavFilter = new FileNameExtensionFilter("WAV Files (*.wav)", "wav");
+        FileNameExtensionFilter mp3Filter = new FileNameExtensionFilter("MP3 Files (*.mp3)", "mp3");
+        FileNameExtensionFilter aiffFilter = new FileNameExtensionFilter("AIFF Files (*.aiff)", "aiff");
+        FileNameExtensionFilter auFilter = new FileNameExtensionFilter("AU Files (*.au)", "au");
+        
+        fileChooser.addChoosableFileFilter(audioFilter);
+        fileChooser.addChoosableFileFilter(wavFilter);
+        fileChooser.addChoosableFileFilter(mp3Filter);
+        fileChooser.addChoosableFileFilter(aiffFilter);
+        fileChooser.addChoosableFileFilter(auFilter);
+        fileChooser.setFileFilter(audioFilter);
+        
+        return fileChooser;
+    }
+}
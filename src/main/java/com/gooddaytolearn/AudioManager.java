@@ -1,93 +1,241 @@
 package com.gooddaytolearn;
 
 import javax.sound.sampled.*;
-import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
- * Manages audio playback for music and alarm sounds.
+ * Manages audio playback for the soundscape and alarm sounds.
+ *
+ * The music is one layer of a soundscape played by a {@link SoundscapeMixer}; the
+ * other layers are further sound files or generated noise, each with its own gain and
+ * the phases it plays in. The music volume setting scales the whole soundscape.
+ *
+ * In low-memory mode the decoded layers are released {@value AppConfig#MUSIC_RELEASE_DELAY_SECONDS}
+ * seconds after the soundscape stops, whether for a break, a pause or because it was never
+ * started, and come back from the {@link AudioCache} when next needed. {@link #prepareMusic()}
+ * restores them ahead of time so the next work interval still starts instantly. The alarm is
+ * small and must start without delay, so it always stays loaded.
  */
 public class AudioManager {
     
     private double musicVolume;
     private double alarmVolume;
-    private Clip musicClip;
-    private Clip alarmClip;
+    private volatile Clip alarmClip;
+    private final SoundscapeMixer mixer = new SoundscapeMixer();
+    private volatile List<SoundscapeLayer> soundscape = Collections.singletonList(SoundscapeLayer.defaultMusic());
+    
+    // Loading happens in the background; the mixer picks the layers up as soon as they are ready
+    private volatile boolean loaded;
+    private volatile boolean musicRequested;
     
     // Custom file paths for user-selected sounds
-    private String customMusicFile;
-    private String customAlarmFile;
+    private volatile String customMusicFile;
+    private volatile String customAlarmFile;
+    
+    // When the alarm was last requested, cleared once its line starts
+    private volatile long alarmRequestedNanos;
+    
+    // Low-memory mode: releasing and restoring the layers happens on the loader thread
+    private final AudioCache audioCache = new AudioCache(Paths.get(AppConfig.DATA_DIR, AppConfig.AUDIO_CACHE_DIR));
+    private final ScheduledExecutorService loader = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "AudioManager-Loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Object musicLock = new Object();
+    private volatile boolean lowMemory;
+    private boolean musicReleased; // Guarded by musicLock
+    private ScheduledFuture<?> pendingRelease; // Guarded by musicLock
     
     /**
-     * Initialize the audio manager.
+     * Initialize the audio manager. Nothing is decoded until {@link #loadAudioFiles()} runs.
      */
     public AudioManager() {
         this.musicVolume = AppConfig.DEFAULT_MUSIC_VOLUME;
         this.alarmVolume = AppConfig.DEFAULT_ALARM_VOLUME;
-        loadAudioFiles();
+        mixer.setMasterGain(musicVolume);
     }
     
     /**
-     * Load audio files for music and alarm.
+     * Load the soundscape layers and the alarm. Safe to call from a background thread;
+     * music requested before loading finished starts as soon as it is ready.
      */
-    private void loadAudioFiles() {
+    public synchronized void loadAudioFiles() {
         try {
-            // Load background music (try custom file first, then default)
-            String musicPath = customMusicFile != null ? customMusicFile : AppConfig.MUSIC_FILE;
-            musicClip = loadAudioClip(musicPath, customMusicFile != null);
-            if (musicClip != null) {
-                setClipVolume(musicClip, musicVolume);
-            }
+            // Load the soundscape, including the custom or default music
+            loadSoundscape();
             
             // Load alarm sound (try custom file first, then default)
-            String alarmPath = customAlarmFile != null ? customAlarmFile : AppConfig.ALARM_FILE;
-            alarmClip = loadAudioClip(alarmPath, customAlarmFile != null);
+            String alarmPath = customAlarmFile != null ? customAlarmFile : AppConfig.DEFAULT_ALARM_FILE;
+            alarmClip = loadAlarmClip(alarmPath, customAlarmFile != null);
             if (alarmClip != null) {
                 setClipVolume(alarmClip, alarmVolume);
             }
         } catch (Exception e) {
+            FlightRecorder.record(FlightRecorder.Type.ERROR, "Audio files failed to load");
             System.err.println("Error loading audio files: " + e.getMessage());
         }
+        
+        loaded = true;
+        if (!musicRequested) {
+            scheduleRelease();
+        }
+    }
+    
+    /**
+     * Check whether the audio files have finished loading.
+     */
+    public boolean isLoaded() {
+        return loaded;
     }
     
     /**
-     * Load an audio clip from resources or external file.
+     * Load and decode an audio file from resources or an external file.
+     * Load and decode times go to {@link Metrics#AUDIO_LOAD_TIME} and the flight recorder.
+     *
+     * @param cached True to go through the {@link AudioCache}, for layers that may be released
+     * @return the decoded audio, or null if it could not be loaded
      */
-    private Clip loadAudioClip(String audioPath, boolean isExternalFile) {
+    private AudioCache.Decoded loadAudio(String audioPath, boolean isExternalFile, boolean cached) {
+        long loadStart = System.nanoTime();
+        JfrEvents.AudioLoad event = new JfrEvents.AudioLoad();
+        event.begin();
+        event.path = audioPath;
+        event.external = isExternalFile;
         try {
-            AudioInputStream audioInputStream;
-            
-            if (isExternalFile) {
-                // Load from external file
-                File audioFile = new File(audioPath);
-                if (!audioFile.exists()) {
-                    System.err.println("External audio file not found: " + audioPath);
-                    return null;
-                }
-                audioInputStream = AudioSystem.getAudioInputStream(audioFile);
-            } else {
-                // Load from resources
-                InputStream audioStream = getClass().getResourceAsStream(audioPath);
-                if (audioStream == null) {
-                    System.err.println("Resource audio file not found: " + audioPath);
-                    return null;
+            AudioCache.Decoded decoded = cached ? audioCache.load(audioPath, isExternalFile)
+                : AudioCache.decode(audioPath, isExternalFile);
+            event.decodeNanos = System.nanoTime() - loadStart;
+            event.bytes = decoded.getData().length;
+            event.success = true;
+            return decoded;
+        } catch (NoSuchFileException e) {
+            String source = isExternalFile ? "External" : "Resource";
+            FlightRecorder.record(FlightRecorder.Type.ERROR, source + " audio file not found");
+            System.err.println(source + " audio file not found: " + audioPath);
+            return null;
+        } catch (UnsupportedAudioFileException | IOException | IllegalArgumentException e) {
+            // IllegalArgumentException: no converter to PCM for the file's encoding
+            FlightRecorder.record(FlightRecorder.Type.ERROR, "Audio file failed to load");
+            System.err.println("Error loading audio file " + audioPath + ": " + e.getMessage());
+            return null;
+        } finally {
+            Metrics.AUDIO_LOAD_TIME.record(System.nanoTime() - loadStart);
+            if (!event.success) {
+                Metrics.AUDIO_LOAD_FAILURES.incrementAndGet();
+            }
+            event.commit();
+        }
+    }
+    
+    /**
+     * Build the mixer's voices for the current soundscape, decoding the file layers.
+     * Layers whose audio is already loaded keep it, so changing a gain decodes nothing.
+     */
+    private synchronized void loadSoundscape() {
+        SoundscapeMixer.Voice[] current = mixer.getVoices();
+        List<SoundscapeLayer> layers = soundscape;
+        SoundscapeMixer.Voice[] voices = new SoundscapeMixer.Voice[layers.size()];
+        for (int i = 0; i < voices.length; i++) {
+            SoundscapeLayer layer = layers.get(i);
+            String key = keyOf(layer);
+            short[] samples = null;
+            if (!layer.isGenerated()) {
+                samples = findSamples(current, key);
+                if (samples == null) {
+                    samples = loadSamples(layer);
                 }
-                
-                // Create a BufferedInputStream to support mark/reset
-                InputStream bufferedStream = audioStream.markSupported() ? 
-                    audioStream : new java.io.BufferedInputStream(audioStream);
-                
-                audioInputStream = AudioSystem.getAudioInputStream(bufferedStream);
             }
-            
-            Clip clip = AudioSystem.getClip();
-            clip.open(audioInputStream);
-            return clip;
-        } catch (UnsupportedAudioFileException | IOException | LineUnavailableException e) {
-            System.err.println("Error loading audio clip " + audioPath + ": " + e.getMessage());
+            voices[i] = new SoundscapeMixer.Voice(layer, key, samples);
+        }
+        synchronized (musicLock) {
+            cancelRelease();
+            musicReleased = false;
+        }
+        mixer.setVoices(voices);
+    }
+    
+    /**
+     * Decode one file layer into mixer samples, through the cache in low-memory mode.
+     *
+     * @return the samples, or null if the file could not be loaded
+     */
+    private short[] loadSamples(SoundscapeLayer layer) {
+        boolean music = SoundscapeLayer.MUSIC.equals(layer.getSource());
+        String path = music ? (customMusicFile != null ? customMusicFile : AppConfig.DEFAULT_MUSIC_FILE)
+            : layer.getSource();
+        AudioCache.Decoded decoded = loadAudio(path, !music || customMusicFile != null, lowMemory);
+        return decoded != null ? SoundscapeMixer.toMixSamples(decoded) : null;
+    }
+    
+    /**
+     * Identify the audio a layer plays. The music layer follows the chosen music file.
+     */
+    private String keyOf(SoundscapeLayer layer) {
+        if (SoundscapeLayer.MUSIC.equals(layer.getSource())) {
+            return customMusicFile != null ? "file:" + customMusicFile : "resource:" + AppConfig.DEFAULT_MUSIC_FILE;
+        }
+        return layer.isGenerated() ? layer.getSource() : "file:" + layer.getSource();
+    }
+    
+    private static short[] findSamples(SoundscapeMixer.Voice[] voices, String key) {
+        for (SoundscapeMixer.Voice voice : voices) {
+            short[] samples = voice.samples;
+            if (voice.key.equals(key) && samples != null) {
+                return samples;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Load the alarm clip and have it report how long it takes to start playing.
+     */
+    private Clip loadAlarmClip(String alarmPath, boolean isExternalFile) {
+        AudioCache.Decoded decoded = loadAudio(alarmPath, isExternalFile, false);
+        if (decoded == null) {
+            return null;
+        }
+        Clip clip;
+        try {
+            clip = AudioSystem.getClip();
+            clip.open(decoded.getFormat(), decoded.getData(), 0, decoded.getData().length);
+        } catch (LineUnavailableException | IllegalArgumentException e) {
+            // IllegalArgumentException: no mixer on this system can play the format
+            FlightRecorder.record(FlightRecorder.Type.ERROR, "Alarm clip failed to open");
+            System.err.println("Error opening alarm clip " + alarmPath + ": " + e.getMessage());
             return null;
         }
+        clip.addLineListener(event -> {
+            long requested = alarmRequestedNanos;
+            if (event.getType() == LineEvent.Type.START && requested != 0) {
+                alarmRequestedNanos = 0;
+                recordAlarmStart(System.nanoTime() - requested);
+            }
+        });
+        return clip;
+    }
+    
+    /**
+     * Record the delay between {@link #playAlarm()} and the alarm line starting.
+     */
+    private static void recordAlarmStart(long latencyNanos) {
+        Metrics.ALARM_START_LATENCY.record(latencyNanos);
+        JfrEvents.AlarmStart event = new JfrEvents.AlarmStart();
+        if (event.shouldCommit()) {
+            event.latency = latencyNanos;
+            event.commit();
+        }
     }
     
     /**
@@ -102,13 +250,11 @@ public class AudioManager {
     }
     
     /**
-     * Set the music volume (0.0 to 1.0).
+     * Set the music volume (0.0 to 1.0), which scales every soundscape layer.
      */
     public void setMusicVolume(double volume) {
         this.musicVolume = Math.max(0.0, Math.min(1.0, volume));
-        if (musicClip != null) {
-            setClipVolume(musicClip, this.musicVolume);
-        }
+        mixer.setMasterGain(this.musicVolume);
     }
     
     /**
@@ -122,25 +268,150 @@ public class AudioManager {
     }
     
     /**
-     * Start playing background music on loop.
+     * Set the soundscape layers. Before {@link #loadAudioFiles()} has run this only
+     * records them; afterwards new file layers are decoded, so call it off the EDT.
      */
-    public void startMusic() {
-        if (musicClip != null) {
-            try {
-                musicClip.setFramePosition(0);
-                musicClip.loop(Clip.LOOP_CONTINUOUSLY);
-            } catch (Exception e) {
-                System.err.println("Error starting music: " + e.getMessage());
+    public synchronized void setSoundscape(List<SoundscapeLayer> layers) {
+        if (layers.equals(soundscape)) {
+            return;
+        }
+        soundscape = Collections.unmodifiableList(new ArrayList<>(layers));
+        if (loaded) {
+            loadSoundscape();
+            if (!musicRequested) {
+                scheduleRelease();
+            }
+        }
+    }
+    
+    public List<SoundscapeLayer> getSoundscape() {
+        return soundscape;
+    }
+    
+    /**
+     * Start the soundscape layers that play during the given phase, fading them in.
+     * Released layers are restored first and fade in once they are back.
+     */
+    public void startMusic(Phase phase) {
+        musicRequested = true;
+        boolean released;
+        synchronized (musicLock) {
+            cancelRelease();
+            released = musicReleased;
+            if (released) {
+                loader.execute(this::restoreMusic);
             }
         }
+        // 0 means the layers are not loaded (yet) and stay silent until they are
+        FlightRecorder.record(FlightRecorder.Type.MUSIC_START, loaded && !released ? 1 : 0, loaded ? 1 : 0);
+        mixer.play(phase);
     }
     
     /**
-     * Stop playing background music.
+     * Stop the soundscape, fading it out.
      */
     public void stopMusic() {
-        if (musicClip != null && musicClip.isRunning()) {
-            musicClip.stop();
+        musicRequested = false;
+        FlightRecorder.record(FlightRecorder.Type.MUSIC_STOP);
+        mixer.stop();
+        scheduleRelease();
+    }
+    
+    /**
+     * Turn low-memory mode on or off. Turning it off brings released layers back.
+     */
+    public void setLowMemory(boolean lowMemory) {
+        this.lowMemory = lowMemory;
+        if (lowMemory) {
+            if (!musicRequested) {
+                scheduleRelease();
+            }
+        } else {
+            prepareMusic();
+        }
+    }
+    
+    public boolean isLowMemory() {
+        return lowMemory;
+    }
+    
+    /**
+     * Bring released layers back in the background, ahead of the next work interval.
+     * Cheap when they are already loaded, so it can be called on every tick.
+     */
+    public void prepareMusic() {
+        synchronized (musicLock) {
+            cancelRelease();
+            if (musicReleased) {
+                loader.execute(this::restoreMusic);
+            }
+        }
+    }
+    
+    /**
+     * Release the layers after {@value AppConfig#MUSIC_RELEASE_DELAY_SECONDS} seconds
+     * unless the soundscape is started again first. Does nothing outside low-memory mode.
+     */
+    private void scheduleRelease() {
+        synchronized (musicLock) {
+            if (lowMemory && loaded && pendingRelease == null && !musicReleased && !loader.isShutdown()) {
+                pendingRelease = loader.schedule(this::releaseMusic, AppConfig.MUSIC_RELEASE_DELAY_SECONDS,
+                    TimeUnit.SECONDS);
+            }
+        }
+    }
+    
+    private void cancelRelease() {
+        if (pendingRelease != null) {
+            pendingRelease.cancel(false);
+            pendingRelease = null;
+        }
+    }
+    
+    /**
+     * Drop the decoded samples of every file layer. Runs on the loader thread, by which
+     * time the mixer has long faded the layers out.
+     */
+    private void releaseMusic() {
+        synchronized (musicLock) {
+            pendingRelease = null;
+            if (!lowMemory || musicRequested || musicReleased) {
+                return;
+            }
+            for (SoundscapeMixer.Voice voice : mixer.getVoices()) {
+                voice.samples = null;
+            }
+            musicReleased = true;
+        }
+        Metrics.MUSIC_RELEASES.incrementAndGet();
+        FlightRecorder.record(FlightRecorder.Type.ACTION, "release music");
+    }
+    
+    /**
+     * Load released layers again, from memory or the disk cache when possible.
+     * The mixer fades them in if the soundscape is playing. Runs on the loader thread.
+     */
+    private void restoreMusic() {
+        synchronized (musicLock) {
+            if (!musicReleased) {
+                return;
+            }
+        }
+        synchronized (this) {
+            for (SoundscapeMixer.Voice voice : mixer.getVoices()) {
+                if (!voice.layer.isGenerated() && voice.samples == null) {
+                    short[] samples = loadSamples(voice.layer);
+                    if (samples != null) {
+                        mixer.restoreSamples(voice, samples);
+                    }
+                }
+            }
+            synchronized (musicLock) {
+                musicReleased = false;
+            }
+        }
+        if (!musicRequested) {
+            scheduleRelease();
         }
     }
     
@@ -148,11 +419,19 @@ public class AudioManager {
      * Play the alarm sound.
      */
     public void playAlarm() {
+        Clip alarmClip = this.alarmClip;
+        // 0 means there is no alarm clip and nothing is heard
+        FlightRecorder.record(FlightRecorder.Type.ALARM, alarmClip != null ? 1 : 0, loaded ? 1 : 0);
         if (alarmClip != null) {
             try {
+                Metrics.ALARMS_PLAYED.incrementAndGet();
+                if (!alarmClip.isRunning()) {
+                    alarmRequestedNanos = System.nanoTime(); // A running clip sends no START event
+                }
                 alarmClip.setFramePosition(0);
                 alarmClip.start();
             } catch (Exception e) {
+                FlightRecorder.record(FlightRecorder.Type.ERROR, "Alarm failed to play");
                 System.err.println("Error playing alarm: " + e.getMessage());
             }
         }
@@ -173,19 +452,31 @@ public class AudioManager {
     }
     
     /**
-     * Set custom music file path.
+     * Set custom music file path, or null for the default.
+     * Before {@link #loadAudioFiles()} has run this only records the path.
      */
-    public void setCustomMusicFile(String filePath) {
+    public synchronized void setCustomMusicFile(String filePath) {
+        if (Objects.equals(filePath, customMusicFile)) {
+            return; // Nothing to decode
+        }
         this.customMusicFile = filePath;
-        reloadMusicFile();
+        if (loaded) {
+            reloadMusicFile();
+        }
     }
     
     /**
-     * Set custom alarm file path.
+     * Set custom alarm file path, or null for the default.
+     * Before {@link #loadAudioFiles()} has run this only records the path.
      */
-    public void setCustomAlarmFile(String filePath) {
+    public synchronized void setCustomAlarmFile(String filePath) {
+        if (Objects.equals(filePath, customAlarmFile)) {
+            return; // Nothing to decode
+        }
         this.customAlarmFile = filePath;
-        reloadAlarmFile();
+        if (loaded) {
+            reloadAlarmFile();
+        }
     }
     
     /**
@@ -206,52 +497,39 @@ public class AudioManager {
      * Reset music file to default.
      */
     public void resetMusicToDefault() {
-        this.customMusicFile = null;
-        reloadMusicFile();
+        setCustomMusicFile(null);
     }
     
     /**
      * Reset alarm file to default.
      */
     public void resetAlarmToDefault() {
-        this.customAlarmFile = null;
-        reloadAlarmFile();
+        setCustomAlarmFile(null);
     }
     
     /**
-     * Reload the music file.
+     * Reload the music file. Only the music layer is decoded again; the mixer fades
+     * from the old music to the new one if it is playing.
      */
-    private void reloadMusicFile() {
-        // Stop current music if playing
-        if (musicClip != null && musicClip.isRunning()) {
-            musicClip.stop();
-        }
-        
-        // Close old clip
-        if (musicClip != null) {
-            musicClip.close();
-        }
-        
-        // Load new music file
-        String musicPath = customMusicFile != null ? customMusicFile : AppConfig.MUSIC_FILE;
-        musicClip = loadAudioClip(musicPath, customMusicFile != null);
-        if (musicClip != null) {
-            setClipVolume(musicClip, musicVolume);
+    private synchronized void reloadMusicFile() {
+        loadSoundscape();
+        if (!musicRequested) {
+            scheduleRelease();
         }
     }
     
     /**
      * Reload the alarm file.
      */
-    private void reloadAlarmFile() {
+    private synchronized void reloadAlarmFile() {
         // Close old clip
         if (alarmClip != null) {
             alarmClip.close();
         }
         
         // Load new alarm file
-        String alarmPath = customAlarmFile != null ? customAlarmFile : AppConfig.ALARM_FILE;
-        alarmClip = loadAudioClip(alarmPath, customAlarmFile != null);
+        String alarmPath = customAlarmFile != null ? customAlarmFile : AppConfig.DEFAULT_ALARM_FILE;
+        alarmClip = loadAlarmClip(alarmPath, customAlarmFile != null);
         if (alarmClip != null) {
             setClipVolume(alarmClip, alarmVolume);
         }
@@ -260,10 +538,9 @@ public class AudioManager {
     /**
      * Clean up audio resources.
      */
-    public void cleanup() {
-        if (musicClip != null) {
-            musicClip.close();
-        }
+    public synchronized void cleanup() {
+        loader.shutdownNow();
+        mixer.close();
         if (alarmClip != null) {
             alarmClip.close();
         }
@@ -0,0 +1,209 @@
+package com.gooddaytolearn;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Busy time from a local .ics calendar, for fitting work intervals around meetings.
+ *
+ * A background thread checks the file's modification time and size every
+ * {@value AppConfig#CALENDAR_POLL_SECONDS} seconds and parses it again only when either
+ * changed. The events are expanded for a window from a day ago to
+ * {@value AppConfig#CALENDAR_HORIZON_DAYS} days ahead into an {@link IntervalTree},
+ * which is published whole, so {@link #firstBusy} never blocks and costs O(log n).
+ * The window moves forward from the parsed events as time passes, without re-reading the file.
+ */
+public class CalendarSchedule {
+    
+    private static final long DAY_MILLIS = 24 * 3600_000L;
+    
+    /**
+     * A busy block found by a lookup.
+     */
+    public static final class Busy {
+        private final long startMillis;
+        private final long endMillis;
+        private final String summary;
+        
+        Busy(long startMillis, long endMillis, String summary) {
+            this.startMillis = startMillis;
+            this.endMillis = endMillis;
+            this.summary = summary;
+        }
+        
+        public long getStartMillis() {
+            return startMillis;
+        }
+        
+        public long getEndMillis() {
+            return endMillis;
+        }
+        
+        public String getSummary() {
+            return summary;
+        }
+    }
+    
+    private final List<Runnable> changeListeners = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService watcher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "CalendarSchedule-Watcher");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile Path path;
+    private volatile IntervalTree busy = IntervalTree.empty();
+    
+    // Only touched on the watcher thread
+    private Path loadedPath;
+    private FileTime loadedModified;
+    private long loadedSize = -1;
+    private List<IcsParser.Entry> entries = Collections.emptyList();
+    private long windowEnd;
+    
+    /**
+     * Start watching the calendar file.
+     *
+     * @param file Path of the .ics file, or null for no calendar
+     */
+    public void start(String file) {
+        path = file != null ? Paths.get(file) : null;
+        watcher.scheduleWithFixedDelay(this::refresh, 0, AppConfig.CALENDAR_POLL_SECONDS, TimeUnit.SECONDS);
+    }
+    
+    /**
+     * Switch to another calendar file, reading it right away.
+     *
+     * @param file Path of the .ics file, or null for no calendar
+     */
+    public void setFile(String file) {
+        path = file != null ? Paths.get(file) : null;
+        if (!watcher.isShutdown()) {
+            watcher.execute(this::refresh);
+        }
+    }
+    
+    /**
+     * Register a listener called after the busy time changes. Runs on the watcher thread.
+     */
+    public void addChangeListener(Runnable listener) {
+        changeListeners.add(listener);
+    }
+    
+    /**
+     * Find the earliest busy block overlapping [fromMillis, toMillis). Safe on any thread.
+     *
+     * @return the block, or null if that time is free
+     */
+    public Busy firstBusy(long fromMillis, long toMillis) {
+        IntervalTree tree = busy;
+        int index = tree.firstOverlap(fromMillis, toMillis);
+        if (index < 0) {
+            return null;
+        }
+        return new Busy(tree.getStart(index), tree.getEnd(index), tree.getLabel(index));
+    }
+    
+    /**
+     * Stop watching the file.
+     */
+    public void close() {
+        watcher.shutdownNow();
+    }
+    
+    /**
+     * Re-read the file if it changed, and move the window forward when it is running out.
+     */
+    private void refresh() {
+        try {
+            Path current = path;
+            long now = System.currentTimeMillis();
+            if (current == null) {
+                if (loadedPath != null) {
+                    loadedPath = null;
+                    entries = Collections.emptyList();
+                    publish(now);
+                }
+                return;
+            }
+            
+            BasicFileAttributes attributes;
+            try {
+                attributes = Files.readAttributes(current, BasicFileAttributes.class);
+            } catch (NoSuchFileException e) {
+                if (loadedPath != null || loadedSize >= 0) {
+                    System.err.println("Calendar file not found: " + current);
+                    loadedPath = null;
+                    loadedSize = -1;
+                    entries = Collections.emptyList();
+                    publish(now);
+                }
+                return;
+            }
+            
+            if (!current.equals(loadedPath) || !attributes.lastModifiedTime().equals(loadedModified)
+                    || attributes.size() != loadedSize) {
+                entries = IcsParser.parse(current, now - DAY_MILLIS);
+                loadedPath = current;
+                loadedModified = attributes.lastModifiedTime();
+                loadedSize = attributes.size();
+                publish(now);
+            } else if (now + DAY_MILLIS > windowEnd) {
+                publish(now);
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error reading calendar: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Expand the events for the window starting a day before now and publish the new tree.
+     */
+    private void publish(long now) {
+        long from = now - DAY_MILLIS;
+        long to = now + AppConfig.CALENDAR_HORIZON_DAYS * DAY_MILLIS;
+        Blocks blocks = new Blocks();
+        for (IcsParser.Entry entry : entries) {
+            entry.expand(from, to, blocks);
+        }
+        busy = new IntervalTree(blocks.starts, blocks.ends, blocks.summaries, blocks.count);
+        windowEnd = to;
+        for (Runnable listener : changeListeners) {
+            listener.run();
+        }
+    }
+    
+    /**
+     * Growable arrays collecting expanded blocks.
+     */
+    private static final class Blocks implements IcsParser.BusyConsumer {
+        long[] starts = new long[64];
+        long[] ends = new long[64];
+        String[] summaries = new String[64];
+        int count;
+        
+        @Override
+        public void accept(long startMillis, long endMillis, String summary) {
+            if (count == starts.length) {
+                starts = Arrays.copyOf(starts, count * 2);
+                ends = Arrays.copyOf(ends, count * 2);
+                summaries = Arrays.copyOf(summaries, count * 2);
+            }
+            starts[count] = startMillis;
+            ends[count] = endMillis;
+            summaries[count] = summary;
+            count++;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.gooddaytolearn;
+
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import java.awt.*;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.lang.management.ThreadMXBean;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Hidden diagnostics window showing live EDT, paint, timer, memory and thread statistics.
+ * Opened with Ctrl+Shift+D from the main window.
+ */
+public class DiagnosticsPanel extends JDialog {
+    
+    private static final int REFRESH_MS = 500;
+    private static final int STACK_DEPTH = 6;
+    
+    private final EdtWatchdog watchdog;
+    private final JTextArea textArea;
+    private final Timer refreshTimer;
+    private final SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm:ss");
+    
+    /**
+     * Initialize the diagnostics window.
+     *
+     * @param parent Parent window
+     * @param watchdog Watchdog providing the long EDT task samples
+     */
+    public DiagnosticsPanel(JFrame parent, EdtWatchdog watchdog) {
+        super(parent, "Diagnostics", false);
+        this.watchdog = watchdog;
+        
+        ThemeManager.bindBackground((JComponent) getContentPane(), ThemeColor.SETTINGS_BG);
+        setDefaultCloseOperation(HIDE_ON_CLOSE);
+        
+        textArea = new JTextArea(32, 78);
+        textArea.setEditable(false);
+        textArea.setFont(new Font("SF Mono", Font.PLAIN, 12));
+        ThemeManager.bindBackground(textArea, ThemeColor.PANEL_BG);
+        ThemeManager.bindForeground(textArea, ThemeColor.TEXT_SECONDARY);
+        textArea.setBorder(new EmptyBorder(10, 12, 10, 12));
+        
+        JScrollPane scrollPane = new JScrollPane(textArea);
+        ThemeManager.bindLineBorder(scrollPane, ThemeColor.BORDER);
+        add(scrollPane, BorderLayout.CENTER);
+        
+        // Only refresh while visible
+        refreshTimer = new Timer(REFRESH_MS, e -> refresh());
+        pack();
+        setLocationRelativeTo(parent);
+    }
+    
+    @Override
+    public void setVisible(boolean visible) {
+        if (visible) {
+            refresh();
+            refreshTimer.start();
+        } else {
+            refreshTimer.stop();
+        }
+        super.setVisible(visible);
+    }
+    
+    /**
+     * Rebuild the report text.
+     */
+    private void refresh() {
+        StringBuilder text = new StringBuilder();
+        
+        text.append("LATENCY\n");
+        text.append(String.format("  %-15s%10s%10s%10s%10s%10s%n", "", "p50", "p90", "p99", "max", "count"));
+        appendHistogram(text, Metrics.EDT_LATENCY);
+        appendHistogram(text, Metrics.PAINT_TIME);
+        appendHistogram(text, Metrics.TICK_LATENESS);
+        appendHistogram(text, Metrics.AUDIO_LOAD_TIME);
+        appendHistogram(text, Metrics.ALARM_START_LATENCY);
+        appendHistogram(text, Metrics.MIX_BLOCK_TIME);
+        appendHistogram(text, Metrics.HOOK_QUEUE_DELAY);
+        appendHistogram(text, Metrics.HOOK_RUN_TIME);
+        
+        text.append("\nAUDIO\n");
+        text.append(String.format("  music released %d, restored from memory %d, from disk %d%n",
+            Metrics.MUSIC_RELEASES.get(), Metrics.AUDIO_CACHE_MEMORY_HITS.get(), Metrics.AUDIO_CACHE_DISK_HITS.get()));
+        text.append(String.format("  output buffer %.1f ms, underruns %d%n",
+            Metrics.AUDIO_BUFFER_MICROS.get() / 1000.0, Metrics.AUDIO_UNDERRUNS.get()));
+        
+        text.append("\nHOOKS\n");
+        text.append(String.format("  run %d, failed %d, timed out %d, dropped %d%n", Metrics.HOOKS_RUN.get(),
+            Metrics.HOOKS_FAILED.get(), Metrics.HOOKS_TIMED_OUT.get(), Metrics.HOOKS_DROPPED.get()));
+        
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        text.append("\nHEAP\n");
+        text.append(String.format("  used %.1f MB, committed %.1f MB, max %.1f MB%n",
+            heap.getUsed() / 1048576.0, heap.getCommitted() / 1048576.0, heap.getMax() / 1048576.0));
+        
+        text.append("\nGARBAGE COLLECTION\n");
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            text.append(String.format("  %-24s %6d collections, %6d ms%n",
+                gc.getName(), gc.getCollectionCount(), gc.getCollectionTime()));
+        }
+        
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        text.append("\nTHREADS\n");
+        text.append(String.format("  live %d, daemon %d, peak %d%n",
+            threads.getThreadCount(), threads.getDaemonThreadCount(), threads.getPeakThreadCount()));
+        
+        List<EdtWatchdog.LongTask> longTasks = watchdog.getLongTasks();
+        text.append("\nLONG EDT TASKS (").append(longTasks.size()).append(")\n");
+        for (EdtWatchdog.LongTask task : longTasks) {
+            long duration = task.getDurationNanos();
+            text.append(String.format("  %s  %s%n", timeFormat.format(new Date(task.getStartMillis())),
+                duration < 0 ? "still blocked" : formatNanos(duration).trim()));
+            StackTraceElement[] stack = task.getStack();
+            for (int i = 0; i < Math.min(STACK_DEPTH, stack.length); i++) {
+                text.append("      at ").append(stack[i]).append('\n');
+            }
+        }
+        
+        // Keep the scroll position while the text is replaced
+        int caret = textArea.getCaretPosition();
+        textArea.setText(text.toString());
+        textArea.setCaretPosition(Math.min(caret, textArea.getDocument().getLength()));
+    }
+    
+    /**
+     * Append one histogram row.
+     */
+    private void appendHistogram(StringBuilder text, LatencyHistogram histogram) {
+        text.append(String.format("  %-15s%s%s%s%s%10d%n", histogram.getName(),
+            formatNanos(histogram.getPercentile(0.50)),
+            formatNanos(histogram.getPercentile(0.90)),
+            formatNanos(histogram.getPercentile(0.99)),
+            formatNanos(histogram.getMax()),
+            histogram.getCount()));
+    }
+    
+    /**
+     * Format a duration in a fixed-width column.
+     */
+    private static String formatNanos(long nanos) {
+        if (nanos < 1_000_000L) {
+            return String.format("%7.0f us", nanos / 1000.0);
+        }
+        return String.format("%7.1f ms", nanos / 1_000_000.0);
+    }
+}
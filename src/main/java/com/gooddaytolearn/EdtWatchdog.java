@@ -0,0 +1,159 @@
+package com.gooddaytolearn;
+
+import java.awt.EventQueue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Watches the Event Dispatch Thread for stalls.
+ *
+ * A background thread posts a probe to the EDT every {@value #PROBE_INTERVAL_MS} ms and
+ * records how long it waits to run in {@link Metrics#EDT_LATENCY}. If a probe is still
+ * waiting after {@value #LONG_TASK_MS} ms, the EDT stack is sampled so the task that
+ * blocked it can be identified.
+ */
+public class EdtWatchdog {
+    
+    private static final long PROBE_INTERVAL_MS = 100;
+    private static final long LONG_TASK_MS = 250;
+    private static final int MAX_LONG_TASKS = 20;
+    
+    private final Deque<LongTask> longTasks = new ArrayDeque<>();
+    private final Runnable probe = this::onProbe;
+    
+    private volatile Thread edtThread;
+    private volatile long probePostedNanos;
+    private volatile boolean probePending;
+    private volatile LongTask currentStall;
+    private volatile boolean running;
+    
+    /**
+     * An EDT stall longer than the long task threshold.
+     */
+    public static class LongTask {
+        private final long startMillis;
+        private final StackTraceElement[] stack;
+        private volatile long durationNanos = -1;
+        
+        LongTask(long startMillis, StackTraceElement[] stack) {
+            this.startMillis = startMillis;
+            this.stack = stack;
+        }
+        
+        public long getStartMillis() {
+            return startMillis;
+        }
+        
+        public StackTraceElement[] getStack() {
+            return stack;
+        }
+        
+        /**
+         * Get how long the EDT was blocked, or -1 if it still is.
+         */
+        public long getDurationNanos() {
+            return durationNanos;
+        }
+    }
+    
+    /**
+     * Start watching the EDT.
+     */
+    public void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        Thread thread = new Thread(this::watch, "EDT-Watchdog");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MAX_PRIORITY);
+        thread.start();
+    }
+    
+    /**
+     * Stop watching the EDT.
+     */
+    public void stop() {
+        running = false;
+    }
+    
+    /**
+     * Get the most recent long tasks, newest first.
+     */
+    public List<LongTask> getLongTasks() {
+        synchronized (longTasks) {
+            return new ArrayList<>(longTasks);
+        }
+    }
+    
+    /**
+     * Watchdog loop: post probes and sample the EDT when one is overdue.
+     */
+    private void watch() {
+        while (running) {
+            try {
+                Thread.sleep(PROBE_INTERVAL_MS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            
+            if (!probePending) {
+                probePostedNanos = System.nanoTime();
+                probePending = true;
+                EventQueue.invokeLater(probe);
+            } else {
+                long waitingMs = (System.nanoTime() - probePostedNanos) / 1_000_000L;
+                Thread edt = edtThread;
+                if (waitingMs >= LONG_TASK_MS && currentStall == null && edt != null) {
+                    recordStall(edt, waitingMs);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Runs on the EDT: record how long the probe waited.
+     */
+    private void onProbe() {
+        long latency = System.nanoTime() - probePostedNanos;
+        edtThread = Thread.currentThread();
+        Metrics.EDT_LATENCY.record(latency);
+        
+        LongTask stall = currentStall;
+        if (stall != null) {
+            stall.durationNanos = latency;
+            currentStall = null;
+            logStall(stall);
+        }
+        probePending = false;
+    }
+    
+    /**
+     * Capture the EDT stack while it is blocked.
+     */
+    private void recordStall(Thread edt, long waitingMs) {
+        LongTask stall = new LongTask(System.currentTimeMillis() - waitingMs, edt.getStackTrace());
+        currentStall = stall;
+        synchronized (longTasks) {
+            longTasks.addFirst(stall);
+            if (longTasks.size() > MAX_LONG_TASKS) {
+                longTasks.removeLast();
+            }
+        }
+    }
+    
+    /**
+     * Print a finished stall with the top of the sampled stack.
+     */
+    private void logStall(LongTask stall) {
+        StringBuilder message = new StringBuilder(String.format("[edt] Event dispatch blocked for %.0f ms",
+            stall.durationNanos / 1_000_000.0));
+        StackTraceElement[] stack = stall.stack;
+        for (int i = 0; i < Math.min(5, stack.length); i++) {
+            message.append("\n\tat ").append(stack[i]);
+        }
+        System.err.println(message);
+    }
+}
@@ -0,0 +1,206 @@
+package com.gooddaytolearn;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.invoke.VarHandle;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Always-on, fixed-size ring buffer of timestamped timer, UI and audio events.
+ *
+ * Recording claims a slot with one atomic increment and writes a few array elements,
+ * so it takes nanoseconds, never blocks and never allocates. Once the ring is full the
+ * oldest events are overwritten. Each slot carries a stamp that is cleared while it is
+ * written and set to its sequence number afterwards, so {@link #dump} can skip slots that
+ * a writer is changing underneath it. Dumps can be fed to {@link FlightReplay}.
+ */
+public final class FlightRecorder {
+    
+    /**
+     * Kinds of recorded events. The meaning of the two arguments depends on the kind.
+     */
+    public enum Type {
+        TICK,      // time left in seconds, exact time left in milliseconds
+        START,     // remaining milliseconds, packed state (see packState)
+        STOP,      // remaining milliseconds, packed state
+        RESET,     // -, -
+        PHASE_END, // phase ordinal, 1 if completed
+        DURATION,  // phase ordinal, minutes
+        ACTION,    // -, -; the note names the action
+        MUSIC_START,
+        MUSIC_STOP,
+        ALARM,
+        ERROR,     // -, -; the note describes the error
+        SHORTEN,   // longest time left requested in seconds, new phase length in seconds
+        UNDERRUN   // soundscape lead before in microseconds, lead after in microseconds
+    }
+    
+    static final String DUMP_HEADER = "# Good Day To Learn flight recording v1";
+    
+    private static final Type[] TYPES = Type.values();
+    private static final int CAPACITY = 1 << 14;
+    private static final int MASK = CAPACITY - 1;
+    private static final long CRASH_DUMP_INTERVAL_MS = 60_000;
+    
+    private static final AtomicLong next = new AtomicLong();
+    private static final AtomicLongArray stamps = new AtomicLongArray(CAPACITY);
+    private static final long[] times = new long[CAPACITY];
+    private static final byte[] types = new byte[CAPACITY];
+    private static final long[] firstArgs = new long[CAPACITY];
+    private static final long[] secondArgs = new long[CAPACITY];
+    private static final String[] notes = new String[CAPACITY];
+    
+    private static volatile long lastCrashDumpMillis;
+    
+    private FlightRecorder() {
+    }
+    
+    /**
+     * Record an event without arguments.
+     */
+    public static void record(Type type) {
+        record(type, 0, 0, null);
+    }
+    
+    /**
+     * Record an event with a note. Pass constants or existing strings, so nothing is allocated.
+     */
+    public static void record(Type type, String note) {
+        record(type, 0, 0, note);
+    }
+    
+    /**
+     * Record an event with two arguments.
+     */
+    public static void record(Type type, long first, long second) {
+        record(type, first, second, null);
+    }
+    
+    /**
+     * Record an event. Safe to call from any thread.
+     */
+    public static void record(Type type, long first, long second, String note) {
+        long sequence = next.getAndIncrement();
+        int slot = (int) (sequence & MASK);
+        stamps.lazySet(slot, 0);
+        VarHandle.storeStoreFence(); // Readers must see the cleared stamp before any new field
+        times[slot] = System.nanoTime();
+        types[slot] = (byte) type.ordinal();
+        firstArgs[slot] = first;
+        secondArgs[slot] = second;
+        notes[slot] = note;
+        stamps.lazySet(slot, sequence + 1);
+    }
+    
+    /**
+     * Pack the timer position into one argument for START and STOP events.
+     */
+    static long packState(Phase phase, int currentInterval, int completedCycles, int phaseDuration) {
+        return ((long) phaseDuration << 32) | ((long) (completedCycles & 0xFFFF) << 16)
+            | ((currentInterval & 0xFF) << 8) | phase.ordinal();
+    }
+    
+    static Phase unpackPhase(long state) {
+        return Phase.values()[(int) (state & 0xFF)];
+    }
+    
+    static int unpackInterval(long state) {
+        return (int) ((state >>> 8) & 0xFF);
+    }
+    
+    static int unpackCycles(long state) {
+        return (int) ((state >>> 16) & 0xFFFF);
+    }
+    
+    static int unpackDuration(long state) {
+        return (int) (state >>> 32);
+    }
+    
+    /**
+     * Get a new file in the flight recording directory, named by kind and time.
+     *
+     * @param kind Short tag such as "manual" or "crash"
+     */
+    public static Path newDumpFile(String kind) {
+        String time = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+        return Paths.get(AppConfig.DATA_DIR, AppConfig.FLIGHT_RECORDING_DIR, "flight-" + time + "-" + kind + ".log");
+    }
+    
+    /**
+     * Dump after an uncaught exception. A burst of failures produces at most one dump a minute.
+     *
+     * @return the file written, or null if none was
+     */
+    public static Path dumpCrash() {
+        long now = System.currentTimeMillis();
+        if (now - lastCrashDumpMillis < CRASH_DUMP_INTERVAL_MS) {
+            return null;
+        }
+        lastCrashDumpMillis = now;
+        Path file = newDumpFile("crash");
+        try {
+            dump(file, null);
+            return file;
+        } catch (IOException e) {
+            System.err.println("Could not write flight recording: " + e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Write the buffered events, oldest first, to a text file that {@link FlightReplay} reads.
+     * The file is written to a temporary name and moved into place.
+     *
+     * @param timer Timer whose current durations are written to the header, or null
+     */
+    public static void dump(Path file, PomodoroTimer timer) throws IOException {
+        long end = next.get();
+        long start = Math.max(0, end - CAPACITY);
+        
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (BufferedWriter out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            out.write(DUMP_HEADER);
+            out.newLine();
+            // Anchor for turning event times into wall-clock times
+            out.write("# clock " + System.nanoTime() + " " + System.currentTimeMillis());
+            out.newLine();
+            if (timer != null) {
+                out.write("# durations " + timer.getWorkTimeMinutes() + " " + timer.getShortBreakMinutes()
+                    + " " + timer.getLongBreakMinutes());
+                out.newLine();
+            }
+            
+            for (long sequence = start; sequence < end; sequence++) {
+                int slot = (int) (sequence & MASK);
+                if (stamps.get(slot) != sequence + 1) {
+                    continue; // Being written, or already overwritten
+                }
+                long time = times[slot];
+                Type type = TYPES[types[slot]];
+                long first = firstArgs[slot];
+                long second = secondArgs[slot];
+                String note = notes[slot];
+                VarHandle.loadLoadFence(); // Finish the field reads before checking the stamp again
+                if (stamps.get(slot) != sequence + 1) {
+                    continue;
+                }
+                
+                out.write(time + " " + type + " " + first + " " + second);
+                if (note != null) {
+                    out.write(" " + note.replace('\n', ' ').replace('\r', ' '));
+                }
+                out.newLine();
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,363 @@
+package com.gooddaytolearn;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Re-drives the timer engine through a {@link FlightRecorder} dump to reproduce a reported problem.
+ *
+ * A fresh {@link PomodoroTimer} runs on a clock that jumps to each recorded event time and
+ * is ticked exactly where the app ticked. Starts, stops, resets and duration changes are
+ * applied as recorded. The replay then reports where the recorded session parts ways with
+ * what the engine does: ticks that never came, phases that should have ended, phase ends
+ * the engine does not reproduce, and alarms that were late, silent or missing.
+ *
+ * Usage: {@code java -cp GoodDayToLearn.jar com.gooddaytolearn.FlightReplay <dump file>}
+ */
+public class FlightReplay {
+    
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+    private static final long MAX_TICK_GAP_NANOS = 1_500 * NANOS_PER_MILLI;
+    private static final long MAX_ALARM_DELAY_NANOS = 1_000 * NANOS_PER_MILLI;
+    private static final long TIME_TOLERANCE_MILLIS = 1_000;
+    
+    /**
+     * One line of a dump.
+     */
+    static class Entry {
+        final long nanos;
+        final FlightRecorder.Type type;
+        final long first;
+        final long second;
+        final String note;
+        
+        Entry(long nanos, FlightRecorder.Type type, long first, long second, String note) {
+            this.nanos = nanos;
+            this.type = type;
+            this.first = first;
+            this.second = second;
+            this.note = note;
+        }
+    }
+    
+    /**
+     * Clock the replayed timer reads; set to each event's time before it is applied.
+     */
+    private static class ReplayClock implements PomodoroTimer.Clock {
+        private final long anchorNanos;
+        private final long anchorMillis;
+        private long nanos;
+        
+        ReplayClock(long anchorNanos, long anchorMillis) {
+            this.anchorNanos = anchorNanos;
+            this.anchorMillis = anchorMillis;
+        }
+        
+        @Override
+        public long nanoTime() {
+            return nanos;
+        }
+        
+        @Override
+        public long currentTimeMillis() {
+            return anchorMillis + (nanos - anchorNanos) / NANOS_PER_MILLI;
+        }
+    }
+    
+    private final List<Entry> entries;
+    private final int[] durations; // Minutes from the header, or null
+    private final ReplayClock clock;
+    private final PomodoroTimer timer;
+    private final List<PhaseEvent> replayedEnds = new ArrayList<>();
+    private final List<String> findings = new ArrayList<>();
+    private final long baseNanos;
+    
+    private boolean seeded;
+    private long lastTickNanos;
+    private long alarmDueNanos = -1;
+    private long reportedDeadlineNanos = -1;
+    private int phaseEnds;
+    private int alarms;
+    
+    FlightReplay(List<Entry> entries, int[] durations, long anchorNanos, long anchorMillis) {
+        this.entries = entries;
+        this.durations = durations;
+        this.clock = new ReplayClock(anchorNanos, anchorMillis);
+        this.timer = new PomodoroTimer(null, null, clock, false);
+        this.timer.addPhaseListener(replayedEnds::add);
+        this.baseNanos = entries.isEmpty() ? anchorNanos : entries.get(0).nanos;
+    }
+    
+    /**
+     * Replay a dump file and print the timeline and findings.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: FlightReplay <flight recording file>");
+            System.exit(2);
+        }
+        FlightReplay replay = load(Paths.get(args[0]));
+        replay.run();
+        replay.printReport();
+    }
+    
+    /**
+     * Parse a dump written by {@link FlightRecorder#dump}.
+     */
+    static FlightReplay load(Path file) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        int[] durations = null;
+        long anchorNanos = 0;
+        long anchorMillis = System.currentTimeMillis();
+        
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line = in.readLine();
+            if (!FlightRecorder.DUMP_HEADER.equals(line)) {
+                throw new IOException("Not a flight recording: " + file);
+            }
+            while ((line = in.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                String[] parts = line.split(" ", line.startsWith("#") ? 0 : 5);
+                try {
+                    if (line.startsWith("# clock ")) {
+                        anchorNanos = Long.parseLong(parts[2]);
+                        anchorMillis = Long.parseLong(parts[3]);
+                    } else if (line.startsWith("# durations ")) {
+                        durations = new int[] {
+                            Integer.parseInt(parts[2]), Integer.parseInt(parts[3]), Integer.parseInt(parts[4])
+                        };
+                    } else if (!line.startsWith("#")) {
+                        entries.add(new Entry(Long.parseLong(parts[0]), FlightRecorder.Type.valueOf(parts[1]),
+                            Long.parseLong(parts[2]), Long.parseLong(parts[3]), parts.length > 4 ? parts[4] : null));
+                    }
+                } catch (RuntimeException e) {
+                    System.err.println("Skipping malformed line: " + line);
+                }
+            }
+        }
+        return new FlightReplay(entries, durations, anchorNanos, anchorMillis);
+    }
+    
+    /**
+     * Apply every event to the replayed timer and collect findings.
+     */
+    void run() {
+        if (durations != null) {
+            timer.setWorkTime(durations[0]);
+            timer.setShortBreakTime(durations[1]);
+            timer.setLongBreakTime(durations[2]);
+        }
+        
+        for (Entry entry : entries) {
+            checkMissedDeadline(entry.nanos);
+            clock.nanos = entry.nanos;
+            apply(entry);
+        }
+        if (alarmDueNanos >= 0) {
+            finding(alarmDueNanos, "phase completed but no alarm was recorded afterwards");
+        }
+    }
+    
+    /**
+     * Apply one recorded event.
+     */
+    private void apply(Entry entry) {
+        switch (entry.type) {
+            case DURATION:
+                applyDuration((int) entry.first, (int) entry.second);
+                break;
+            case START:
+                if (!seeded) {
+                    seed(entry);
+                } else {
+                    compareState(entry);
+                }
+                timer.start();
+                lastTickNanos = entry.nanos;
+                break;
+            case STOP:
+                if (seeded) {
+                    timer.stop();
+                    compareState(entry);
+                }
+                break;
+            case RESET:
+                timer.reset();
+                seeded = true;
+                break;
+            case TICK:
+                if (entry.first == 0) {
+                    alarmDueNanos = entry.nanos; // The app ends the phase on this tick
+                }
+                applyTick(entry);
+                break;
+            case PHASE_END:
+                comparePhaseEnd(entry);
+                break;
+            case ALARM:
+                alarms++;
+                if (entry.first == 0) {
+                    finding(entry.nanos, "alarm requested but no alarm clip was loaded"
+                        + (entry.second == 0 ? " (audio still loading)" : ""));
+                }
+                if (alarmDueNanos >= 0 && entry.nanos - alarmDueNanos > MAX_ALARM_DELAY_NANOS) {
+                    finding(entry.nanos, String.format("alarm came %.1f s after the phase ended",
+                        (entry.nanos - alarmDueNanos) / 1e9));
+                }
+                alarmDueNanos = -1;
+                break;
+            case ERROR:
+                finding(entry.nanos, "error: " + entry.note);
+                break;
+            case SHORTEN:
+                timer.shortenPhase((int) entry.first);
+                break;
+            case UNDERRUN:
+                finding(entry.nanos, String.format("soundscape output ran dry with %.0f ms queued ahead",
+                    entry.first / 1000.0));
+                break;
+            default:
+                break;
+        }
+    }
+    
+    private void applyDuration(int phase, int minutes) {
+        if (phase == Phase.WORK.ordinal()) {
+            timer.setWorkTime(minutes);
+        } else if (phase == Phase.SHORT_BREAK.ordinal()) {
+            timer.setShortBreakTime(minutes);
+        } else {
+            timer.setLongBreakTime(minutes);
+        }
+    }
+    
+    /**
+     * Put the timer where the first recorded start found it.
+     */
+    private void seed(Entry start) {
+        long state = start.second;
+        timer.restore(null, new TimerCheckpoint.State(FlightRecorder.unpackPhase(state), false,
+            FlightRecorder.unpackInterval(state), FlightRecorder.unpackCycles(state),
+            FlightRecorder.unpackDuration(state), start.first, 0, 0, 0));
+        seeded = true;
+    }
+    
+    /**
+     * Drive one tick and check the replayed time left against the recorded one.
+     */
+    private void applyTick(Entry entry) {
+        if (!seeded || !timer.isRunning()) {
+            return;
+        }
+        if (entry.nanos - lastTickNanos > MAX_TICK_GAP_NANOS) {
+            finding(entry.nanos, String.format("no tick for %.1f s while running",
+                (entry.nanos - lastTickNanos) / 1e9));
+        }
+        lastTickNanos = entry.nanos;
+        
+        int before = replayedEnds.size();
+        long remainingMillis = timer.getRemainingNanos() / NANOS_PER_MILLI;
+        timer.countdown();
+        if (Math.abs(remainingMillis - entry.second) > TIME_TOLERANCE_MILLIS) {
+            finding(entry.nanos, "recorded " + entry.second + " ms left, replay has " + remainingMillis + " ms");
+        }
+        if (replayedEnds.size() > before && entry.first > 0) {
+            finding(entry.nanos, "replay ended the phase on a tick that recorded " + entry.first + " s left");
+        }
+    }
+    
+    /**
+     * Check the replayed position in the cycle against a recorded start or stop, then follow the recording.
+     */
+    private void compareState(Entry entry) {
+        Phase recorded = FlightRecorder.unpackPhase(entry.second);
+        long remainingMillis = timer.getRemainingNanos() / NANOS_PER_MILLI;
+        if (recorded != timer.getPhase()) {
+            finding(entry.nanos, entry.type + " recorded in " + recorded.getDisplayName()
+                + ", replay is in " + timer.getPhase().getDisplayName());
+            seed(entry);
+        } else if (Math.abs(remainingMillis - entry.first) > TIME_TOLERANCE_MILLIS) {
+            finding(entry.nanos, entry.type + " recorded " + entry.first + " ms left, replay has "
+                + remainingMillis + " ms");
+        }
+    }
+    
+    /**
+     * Match a recorded phase end with one produced by the replay.
+     */
+    private void comparePhaseEnd(Entry entry) {
+        phaseEnds++;
+        boolean completed = entry.second == 1;
+        Phase phase = Phase.values()[(int) entry.first];
+        if (!seeded) {
+            return;
+        }
+        PhaseEvent match = null;
+        for (PhaseEvent event : replayedEnds) {
+            if (event.getPhase() == phase && event.isCompleted() == completed) {
+                match = event;
+                break;
+            }
+        }
+        if (match == null) {
+            finding(entry.nanos, phase.getDisplayName() + (completed ? " completed" : " abandoned")
+                + " in the recording but not in the replay");
+        } else {
+            replayedEnds.remove(match);
+        }
+    }
+    
+    /**
+     * Report a running phase whose deadline passed before the next event without ending.
+     */
+    private void checkMissedDeadline(long nextNanos) {
+        if (!seeded || !timer.isRunning()) {
+            return;
+        }
+        long deadline = clock.nanos + timer.getRemainingNanos();
+        if (nextNanos - deadline > MAX_TICK_GAP_NANOS && deadline != reportedDeadlineNanos) {
+            reportedDeadlineNanos = deadline;
+            finding(deadline, timer.getPhase().getDisplayName() + " should have ended here, "
+                + String.format("%.1f s before the next event", (nextNanos - deadline) / 1e9));
+        }
+    }
+    
+    private void finding(long nanos, String message) {
+        findings.add(String.format("%+10.3f s  %s", (nanos - baseNanos) / 1e9, message));
+    }
+    
+    List<String> getFindings() {
+        return findings;
+    }
+    
+    /**
+     * Print the event timeline, skipping ticks, followed by the findings.
+     */
+    void printReport() {
+        System.out.println("TIMELINE (" + entries.size() + " events, ticks omitted)");
+        for (Entry entry : entries) {
+            if (entry.type == FlightRecorder.Type.TICK) {
+                continue;
+            }
+            System.out.println(String.format("%+10.3f s  %-11s %d %d%s", (entry.nanos - baseNanos) / 1e9,
+                entry.type, entry.first, entry.second, entry.note != null ? "  " + entry.note : ""));
+        }
+        
+        System.out.println();
+        System.out.println("FINDINGS (" + findings.size() + ", " + phaseEnds + " phase ends, " + alarms + " alarms)");
+        for (String finding : findings) {
+            System.out.println(finding);
+        }
+        if (findings.isEmpty()) {
+            System.out.println("  The replay matches the recording.");
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.gooddaytolearn;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+/**
+ * A strip of pre-rendered glyphs for a fixed font, color and character set.
+ *
+ * Drawing text from the atlas is a series of image blits: no text layout, no glyph
+ * lookup and no allocation. Digits share one advance width so the text does not
+ * shift as they change.
+ */
+public class GlyphAtlas {
+    
+    private static final String DIGITS = "0123456789";
+    
+    private final Font font;
+    private final Color color;
+    private final double scale;
+    
+    private final BufferedImage image;
+    private final int[] glyphIndex = new int[128]; // char -> glyph, -1 if missing
+    private final int[] sourceX; // glyph cell start in the strip, in pixels
+    private final int[] advance; // glyph advance, in user space
+    private final int pad; // transparent margin around each glyph for overhang
+    private final int cellWidth; // widest glyph cell including padding, in user space
+    private final int ascent;
+    private final int height;
+    
+    /**
+     * Render an atlas for the given characters. Characters must be ASCII.
+     *
+     * @param font Font to render with
+     * @param color Glyph color
+     * @param chars Characters to include
+     * @param scale Display scale, so glyphs stay sharp on HiDPI screens
+     */
+    public GlyphAtlas(Font font, Color color, String chars, double scale) {
+        this.font = font;
+        this.color = color;
+        this.scale = scale;
+        
+        // Measure with the same hints used for rendering
+        BufferedImage scratch = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D measure = scratch.createGraphics();
+        applyHints(measure);
+        FontMetrics fm = measure.getFontMetrics(font);
+        measure.dispose();
+        
+        int digitAdvance = 0;
+        for (int i = 0; i < DIGITS.length(); i++) {
+            digitAdvance = Math.max(digitAdvance, fm.charWidth(DIGITS.charAt(i)));
+        }
+        
+        Arrays.fill(glyphIndex, -1);
+        int count = chars.length();
+        this.sourceX = new int[count];
+        this.advance = new int[count];
+        this.pad = Math.max(2, font.getSize() / 8);
+        this.ascent = fm.getAscent();
+        this.height = fm.getAscent() + fm.getDescent();
+        
+        int widest = 0;
+        for (int i = 0; i < count; i++) {
+            char c = chars.charAt(i);
+            glyphIndex[c] = i;
+            advance[i] = Character.isDigit(c) ? digitAdvance : fm.charWidth(c);
+            widest = Math.max(widest, advance[i]);
+        }
+        this.cellWidth = widest + pad * 2;
+        
+        int cellPixels = (int) Math.ceil(cellWidth * scale);
+        int heightPixels = (int) Math.ceil((height + pad * 2) * scale);
+        this.image = new BufferedImage(cellPixels * count, heightPixels, BufferedImage.TYPE_INT_ARGB_PRE);
+        
+        Graphics2D g2d = image.createGraphics();
+        applyHints(g2d);
+        g2d.scale(scale, scale);
+        g2d.setFont(font);
+        g2d.setColor(color);
+        for (int i = 0; i < count; i++) {
+            sourceX[i] = i * cellPixels;
+            char c = chars.charAt(i);
+            
+            // Center narrow digits in the shared digit cell
+            float cellStart = (float) (sourceX[i] / scale);
+            g2d.drawString(String.valueOf(c), cellStart + pad + (advance[i] - fm.charWidth(c)) / 2f, pad + ascent);
+        }
+        g2d.dispose();
+    }
+    
+    /**
+     * Check whether this atlas was rendered for the given parameters.
+     */
+    public boolean matches(Font font, Color color, double scale) {
+        return this.font.equals(font) && this.color.equals(color) && this.scale == scale;
+    }
+    
+    /**
+     * Measure the advance width of the given text in user space.
+     */
+    public int measure(char[] text, int length) {
+        int width = 0;
+        for (int i = 0; i < length; i++) {
+            int glyph = lookup(text[i]);
+            if (glyph >= 0) {
+                width += advance[glyph];
+            }
+        }
+        return width;
+    }
+    
+    /**
+     * Draw the given text with its baseline at (x, baseline). Characters missing from the atlas are skipped.
+     */
+    public void draw(Graphics g, char[] text, int length, int x, int baseline) {
+        int top = baseline - ascent - pad;
+        int bottom = top + height + pad * 2;
+        int sourceHeight = image.getHeight();
+        int cellPixels = (int) Math.ceil(cellWidth * scale);
+        for (int i = 0; i < length; i++) {
+            int glyph = lookup(text[i]);
+            if (glyph < 0) {
+                continue;
+            }
+            int left = x - pad;
+            g.drawImage(image, left, top, left + cellWidth, bottom,
+                sourceX[glyph], 0, sourceX[glyph] + cellPixels, sourceHeight, null);
+            x += advance[glyph];
+        }
+    }
+    
+    public int getAscent() {
+        return ascent;
+    }
+    
+    public int getHeight() {
+        return height;
+    }
+    
+    /**
+     * Margin drawn around each glyph for overhang, in user space.
+     */
+    public int getPad() {
+        return pad;
+    }
+    
+    /**
+     * Find the glyph for a character, or -1 if it is not in the atlas.
+     */
+    private int lookup(char c) {
+        return c < glyphIndex.length ? glyphIndex[c] : -1;
+    }
+    
+    /**
+     * Apply the rendering hints used for both measuring and drawing glyphs.
+     */
+    private static void applyHints(Graphics2D g2d) {
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g2d.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_ON);
+    }
+}
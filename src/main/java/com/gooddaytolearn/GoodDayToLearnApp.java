@@ -5,52 +5,147 @@ import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
-import java.awt.image.BufferedImage;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Main application window and UI components.
  */
 public class GoodDayToLearnApp extends JFrame {
     
+    // Label text used only for layout while the time is drawn from the glyph atlas
+    private static final String TIMER_PLACEHOLDER = "00:00";
+    private static final String TIMER_PLACEHOLDER_LONG = "000:00";
+    private static final String CLOCK_PREFIX = "Current Time: ";
+    
+    private static final int SETTINGS_PREWARM_DELAY_MS = 500;
+    private static final DateTimeFormatter MEETING_TIME = DateTimeFormatter.ofPattern("HH:mm");
+    
     private AudioManager audioManager;
     private PomodoroTimer timer;
-    private TrayIcon trayIcon;
-    private SystemTray systemTray;
+    private SessionJournal sessionJournal;
+    private final SettingsStore settingsStore;
+    private StatsEngine statsEngine;
+    private TaskStore taskStore;
+    private PhaseHooks phaseHooks;
+    private final CalendarSchedule calendar = new CalendarSchedule();
+    private long notifiedMeetingStart = -1; // Meeting already paused or warned about
+    private volatile MetricsServer metricsServer;
+    private volatile TrayIcon trayIcon;
+    private volatile TrayProgressIcon trayProgress;
+    private volatile SystemTray systemTray;
+    private boolean backgroundInitDone; // Set on the EDT once the tray icon is installed or known to be missing
+    private final RenderCache renderCache = new RenderCache();
+    private final EdtWatchdog edtWatchdog = new EdtWatchdog();
+    private DiagnosticsPanel diagnosticsPanel;
+    private StatisticsWindow statisticsWindow;
+    private SettingsWindow settingsWindow;
+    private TaskPicker taskPicker;
+    private MiniTimerWindow miniWindow; // Non-null while in mini timer mode
     
     // UI Components
+    private JPanel mainPanel;
     private JLabel clockLabel;
     private JLabel timerLabel;
     private JLabel statusLabel;
+    private JLabel taskLabel;
     private JLabel cyclesLabel;
     private JButton startButton;
     private JButton stopButton;
     private JButton resetButton;
     private JButton settingsButton;
+    private ProgressRing progressRing;
+    
+    // Allocation-free time rendering
+    private final TimeRenderer timeRenderer = new TimeRenderer();
+    private final TimeRenderer clockRenderer = new TimeRenderer(CLOCK_PREFIX);
+    private final Runnable timerDisplayUpdater = this::updateTimerDisplay;
+    private boolean showingTime = true;
     
     // Clock functionality
     private Timer clockTimer;
     
     /**
-     * Initialize the main application.
+     * Initialize the main application. Only what is needed for the first frame runs here;
+     * call {@link #startBackgroundInit()} once the window is visible for the rest.
+     *
+     * @param settingsStore Store with the saved settings already loaded
      */
-    public GoodDayToLearnApp() {
+    public GoodDayToLearnApp(SettingsStore settingsStore) {
+        long phase = StartupTimer.phaseStart();
+        this.settingsStore = settingsStore;
         setupWindow();
         
-        // Initialize components
+        // Initialize components (audio is decoded later, in the background)
         audioManager = new AudioManager();
         timer = new PomodoroTimer(
             this::onTimerComplete,
             this::onTimerUpdate
         );
+        settingsStore.get().applyTo(timer, audioManager);
+        
+        // Record finished phases; the file itself is opened in the background
+        sessionJournal = new SessionJournal(Paths.get(AppConfig.DATA_DIR, AppConfig.JOURNAL_FILE));
+        timer.addPhaseListener(sessionJournal::append);
+        
+        // User commands on phase changes, run on their own threads
+        phaseHooks = new PhaseHooks(Paths.get(AppConfig.DATA_DIR, AppConfig.HOOKS_FILE));
+        timer.addPhaseListener(phaseHooks);
+        
+        // Statistics follow the journal, one committed record at a time
+        statsEngine = new StatsEngine(Paths.get(AppConfig.DATA_DIR, AppConfig.STATS_FILE));
+        sessionJournal.addCommitListener(statsEngine);
+        statsEngine.addChangeListener(coalescedOnEdt(this::onStatsChanged));
+        
+        // So do per-task totals; work intervals are attributed to the current task
+        taskStore = new TaskStore(Paths.get(AppConfig.DATA_DIR, AppConfig.TASKS_FILE));
+        sessionJournal.addCommitListener(taskStore);
+        taskStore.addChangeListener(coalescedOnEdt(this::onTasksChanged));
+        
+        // The journal keeps retrying a failed write; let the user know it is happening
+        sessionJournal.addFailureListener(error -> SwingUtilities.invokeLater(() ->
+            showNotice("Session history not saved", "Could not write finished phases (" + error.getMessage()
+                + "). Retrying.")));
+        
+        // Meetings from the calendar; a changed calendar may affect the running interval
+        calendar.addChangeListener(() -> SwingUtilities.invokeLater(this::checkCalendar));
+        StartupTimer.phaseEnd("Window setup", phase);
+        
+        // Resume a session interrupted by a crash or restart
+        phase = StartupTimer.phaseStart();
+        PhaseEvent missedPhase = null;
+        TimerCheckpoint checkpoint = new TimerCheckpoint(Paths.get(AppConfig.DATA_DIR, AppConfig.CHECKPOINT_FILE));
+        try {
+            missedPhase = timer.restore(checkpoint, checkpoint.open());
+        } catch (IOException e) {
+            System.err.println("Could not open timer checkpoint: " + e.getMessage());
+        }
+        StartupTimer.phaseEnd("Checkpoint restore", phase);
         
         // Create UI
+        phase = StartupTimer.phaseStart();
         createWidgets();
+        ThemeManager.addListener(theme -> onThemeChanged());
         setupKeyboardShortcuts();
-        setupSystemTray();
         startClock();
+        if (timer.isRunning()) {
+            audioManager.startMusic(timer.getPhase()); // Starts once audio has loaded
+        }
         updateDisplay();
+        if (missedPhase != null) {
+            // Finished while the app was closed; show it without sounding the alarm
+            showingTime = false;
+            timerLabel.setText(timer.getPhaseMessage());
+        }
+        StartupTimer.phaseEnd("Widgets", phase);
         
         // Setup window close behavior
         setDefaultCloseOperation(JFrame.HIDE_ON_CLOSE);
@@ -62,25 +157,148 @@ public class GoodDayToLearnApp extends JFrame {
                     trayIcon.displayMessage("Good Day To Learn", 
                         "Application minimized to tray. Right-click tray icon for options.", 
                         TrayIcon.MessageType.INFO);
+                } else if (!backgroundInitDone) {
+                    // The tray icon may still be coming; exit later if it never does
+                    setVisible(false);
                 } else {
-                    audioManager.cleanup();
-                    System.exit(0);
+                    exitApplication();
                 }
             }
         });
     }
     
+    /**
+     * Load audio and set up the system tray concurrently, off the EDT.
+     * Each feature becomes available as soon as its task finishes.
+     */
+    public void startBackgroundInit() {
+        edtWatchdog.start();
+        
+        CompletableFuture<Void> audio = CompletableFuture.runAsync(() -> {
+            long phase = StartupTimer.phaseStart();
+            audioManager.loadAudioFiles();
+            StartupTimer.phaseEnd("Audio loading", phase);
+        });
+        CompletableFuture<Void> tray = CompletableFuture.runAsync(() -> {
+            long phase = StartupTimer.phaseStart();
+            setupSystemTray();
+            StartupTimer.phaseEnd("System tray", phase);
+        });
+        CompletableFuture<Void> journal = CompletableFuture.runAsync(() -> {
+            long phase = StartupTimer.phaseStart();
+            try {
+                sessionJournal.open();
+                statsEngine.load(sessionJournal);
+                taskStore.load(sessionJournal);
+            } catch (IOException e) {
+                System.err.println("Could not open session journal: " + e.getMessage());
+                sessionJournal.close();
+            }
+            StartupTimer.phaseEnd("Session journal, statistics and tasks", phase);
+        });
+        calendar.start(settingsStore.get().getCalendarFile());
+        CompletableFuture.runAsync(phaseHooks::load);
+        if (AppConfig.METRICS_PORT > 0) {
+            CompletableFuture.runAsync(this::startMetricsServer);
+        }
+        CompletableFuture.allOf(audio, tray, journal).whenComplete((result, error) -> {
+            if (error != null) {
+                System.err.println("Error during background startup: " + error.getMessage());
+            }
+            // Runs after the tray icon is installed, which is queued on the EDT before this
+            SwingUtilities.invokeLater(() -> {
+                backgroundInitDone = true;
+                if (!isVisible() && trayIcon == null) {
+                    exitApplication(); // Closed during startup, and there is no tray to minimise to
+                }
+            });
+            System.out.println(String.format("[startup] Background init done at %.1f ms",
+                StartupTimer.elapsedMillis()));
+        });
+        
+        // Build the settings dialog and file chooser ahead of time, once the first frames are out
+        AudioFileChooser.prewarm();
+        Timer settingsPrewarm = new Timer(SETTINGS_PREWARM_DELAY_MS, e -> {
+            long phase = StartupTimer.phaseStart();
+            getSettingsWindow();
+            StartupTimer.phaseEnd("Settings prewarm", phase);
+        });
+        settingsPrewarm.setRepeats(false);
+        settingsPrewarm.start();
+    }
+    
+    /**
+     * Release resources and quit.
+     */
+    private void exitApplication() {
+        TrayIcon icon = trayIcon;
+        if (icon != null) {
+            systemTray.remove(icon);
+        }
+        audioManager.cleanup();
+        sessionJournal.close();
+        statsEngine.close();
+        taskStore.close();
+        calendar.close();
+        phaseHooks.close();
+        settingsStore.flush();
+        stopMetricsServer();
+        System.exit(0);
+    }
+    
+    /**
+     * Serve metrics on the configured local port. A busy port only disables the endpoint.
+     */
+    private void startMetricsServer() {
+        try {
+            metricsServer = MetricsServer.start(AppConfig.METRICS_PORT, timer);
+            System.out.println("Metrics available at http://localhost:" + AppConfig.METRICS_PORT + "/metrics");
+        } catch (IOException e) {
+            System.err.println("Could not start metrics endpoint on port " + AppConfig.METRICS_PORT + ": "
+                + e.getMessage());
+        }
+    }
+    
+    /**
+     * Dump the flight recorder for a bug report and tell the user where it went.
+     */
+    private void saveFlightRecording() {
+        Path file = FlightRecorder.newDumpFile("manual");
+        try {
+            FlightRecorder.dump(file, timer);
+            TrayIcon icon = trayIcon;
+            if (icon != null) {
+                icon.displayMessage("Good Day To Learn", "Flight recording saved to " + file,
+                    TrayIcon.MessageType.INFO);
+            } else {
+                System.err.println("Flight recording saved to " + file);
+            }
+        } catch (IOException e) {
+            System.err.println("Could not write flight recording: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Stop the metrics endpoint, if it is running.
+     */
+    private void stopMetricsServer() {
+        MetricsServer server = metricsServer;
+        if (server != null) {
+            server.stop();
+        }
+    }
+    
     /**
      * Configure the main window.
      */
     private void setupWindow() {
         setTitle(AppConfig.WINDOW_TITLE);
         setSize(AppConfig.WINDOW_WIDTH, AppConfig.WINDOW_HEIGHT);
-        getContentPane().setBackground(AppConfig.COLORS.get("background"));
+        ThemeManager.bindBackground((JComponent) getContentPane(), ThemeColor.BACKGROUND);
         setResizable(AppConfig.WINDOW_RESIZABLE);
         setDefaultCloseOperation(JFrame.DO_NOTHING_ON_CLOSE);
         setLocationRelativeTo(null);
-
+        
         // macOS: unify title bar with window background
         if (System.getProperty("os.name", "").toLowerCase().contains("mac")) {
             JRootPane root = getRootPane();
@@ -99,20 +317,19 @@ public class GoodDayToLearnApp extends JFrame {
         setLayout(new BorderLayout());
         
         // Main content panel with gradient-like effect
-        JPanel mainPanel = new JPanel() {
+        mainPanel = new JPanel() {
             @Override
             protected void paintComponent(Graphics g) {
+                StartupTimer.firstPaint();
+                long paintStart = System.nanoTime();
+                JfrEvents.Paint paintEvent = new JfrEvents.Paint("Background");
+                paintEvent.begin();
                 super.paintComponent(g);
-                Graphics2D g2d = (Graphics2D) g;
-                g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
                 
-                // Subtle gradient background
-                GradientPaint gradient = new GradientPaint(
-                    0, 0, AppConfig.COLORS.get("background"),
-                    0, getHeight(), AppConfig.COLORS.get("panel_bg")
-                );
-                g2d.setPaint(gradient);
-                g2d.fillRect(0, 0, getWidth(), getHeight());
+                // Subtle gradient background, pre-rendered once per size
+                renderCache.drawBackground((Graphics2D) g, this);
+                paintEvent.commit();
+                Metrics.PAINT_TIME.record(System.nanoTime() - paintStart);
             }
         };
         mainPanel.setLayout(new BoxLayout(mainPanel, BoxLayout.Y_AXIS));
@@ -124,7 +341,7 @@ public class GoodDayToLearnApp extends JFrame {
         // Title label with modern typography
         JLabel titleLabel = new JLabel(AppConfig.WINDOW_TITLE, SwingConstants.CENTER);
         titleLabel.setFont(new Font("SF Pro Display", Font.BOLD, 28));
-        titleLabel.setForeground(AppConfig.COLORS.get("text_primary"));
+        ThemeManager.bindForeground(titleLabel, ThemeColor.TEXT_PRIMARY);
         titleLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
         mainPanel.add(titleLabel);
         
@@ -132,75 +349,51 @@ public class GoodDayToLearnApp extends JFrame {
         mainPanel.add(Box.createVerticalStrut(20));
         
         // Real-time clock display
-        clockLabel = new JLabel("", SwingConstants.CENTER);
+        clockLabel = new JLabel(CLOCK_PREFIX + "00:00:00", SwingConstants.CENTER) {
+            @Override
+            protected void paintComponent(Graphics g) {
+                clockRenderer.paint((Graphics2D) g, this, getFont(), getForeground());
+            }
+        };
         clockLabel.setFont(new Font("SF Mono", Font.PLAIN, 13));
-        clockLabel.setForeground(AppConfig.COLORS.get("text_accent"));
+        ThemeManager.bindForeground(clockLabel, ThemeColor.TEXT_ACCENT);
         clockLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
         mainPanel.add(clockLabel);
         
-        mainPanel.add(Box.createVerticalStrut(40));
+        mainPanel.add(Box.createVerticalStrut(30));
         
         // Main timer display with modern styling
         timerLabel = new JLabel("25:00", SwingConstants.CENTER) {
             @Override
             protected void paintComponent(Graphics g) {
+                long paintStart = System.nanoTime();
+                JfrEvents.Paint paintEvent = new JfrEvents.Paint("Timer");
+                paintEvent.begin();
                 Graphics2D g2d = (Graphics2D) g;
                 g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
                 g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
                 
                 // Draw progress ring
-                if (timer != null) {
-                    drawProgressRing(g2d);
+                if (progressRing != null) {
+                    progressRing.paint(g2d);
                 }
                 
                 // Add subtle glow effect around timer
-                Color glowColor = timer != null && timer.isBreak() ? 
-                    new Color(100, 210, 255, 15) : new Color(255, 95, 95, 15);
-                for (int i = 8; i >= 0; i--) {
-                    g2d.setColor(new Color(glowColor.getRed(), glowColor.getGreen(), glowColor.getBlue(), i * 2));
-                    g2d.fillRoundRect(i, i, getWidth() - i * 2, getHeight() - i * 2, 20, 20);
-                }
+                renderCache.drawGlow(g2d, this, timer != null && timer.isBreak());
                 
-                super.paintComponent(g);
-            }
-            
-            private void drawProgressRing(Graphics2D g2d) {
-                int centerX = getWidth() / 2;
-                int centerY = getHeight() / 2;
-                int radius = Math.min(getWidth(), getHeight()) / 2 - 20;
-                
-                // Calculate progress (simplified approach)
-                String timeDisplay = timer.getTimeDisplay();
-                String[] parts = timeDisplay.split(":");
-                double currentTime = Double.parseDouble(parts[0]) * 60 + Double.parseDouble(parts[1]);
-                
-                // Estimate total time based on timer state
-                double totalTime = timer.isBreak() ? 
-                    (timer.getShortBreakMinutes() * 60) : (timer.getWorkTimeMinutes() * 60);
-                
-                double progress = timer.isRunning() ? 1.0 - (currentTime / totalTime) : 0.0;
-                progress = Math.max(0.0, Math.min(1.0, progress)); // Clamp between 0 and 1
-                
-                // Draw background ring
-                g2d.setStroke(new BasicStroke(4.0f));
-                g2d.setColor(AppConfig.COLORS.get("slider_track"));
-                g2d.drawOval(centerX - radius, centerY - radius, radius * 2, radius * 2);
-                
-                // Draw progress ring
-                if (progress > 0) {
-                    g2d.setColor(timer.isBreak() ? 
-                        AppConfig.COLORS.get("break_time") : AppConfig.COLORS.get("work_time"));
-                    int startAngle = 90; // Start from top
-                    int arcAngle = (int) (360 * progress);
-                    g2d.drawArc(centerX - radius, centerY - radius, radius * 2, radius * 2, 
-                               startAngle, -arcAngle);
+                if (showingTime) {
+                    timeRenderer.paint(g2d, this, getFont(), getForeground());
+                } else {
+                    super.paintComponent(g);
                 }
+                paintEvent.commit();
+                Metrics.PAINT_TIME.record(System.nanoTime() - paintStart);
             }
         };
         timerLabel.setFont(new Font("SF Pro Display", Font.BOLD, 64));
-        timerLabel.setForeground(AppConfig.COLORS.get("work_time"));
         timerLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
         timerLabel.setBorder(BorderFactory.createEmptyBorder(20, 40, 20, 40));
+        progressRing = new ProgressRing(timerLabel, timer);
         mainPanel.add(timerLabel);
         
         mainPanel.add(Box.createVerticalStrut(15));
@@ -208,16 +401,32 @@ public class GoodDayToLearnApp extends JFrame {
         // Status label with better typography
         statusLabel = new JLabel("Work Time - Interval 1/4", SwingConstants.CENTER);
         statusLabel.setFont(new Font("SF Pro Text", Font.PLAIN, 16));
-        statusLabel.setForeground(AppConfig.COLORS.get("text_muted"));
+        ThemeManager.bindForeground(statusLabel, ThemeColor.TEXT_MUTED);
         statusLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
         mainPanel.add(statusLabel);
         
-        mainPanel.add(Box.createVerticalStrut(10));
+        mainPanel.add(Box.createVerticalStrut(6));
+        
+        // Task the work intervals count towards; click to pick another
+        taskLabel = new JLabel("Loading tasks...", SwingConstants.CENTER);
+        taskLabel.setFont(new Font("SF Pro Text", Font.PLAIN, 14));
+        ThemeManager.bindForeground(taskLabel, ThemeColor.TEXT_ACCENT);
+        taskLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
+        taskLabel.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
+        taskLabel.addMouseListener(new java.awt.event.MouseAdapter() {
+            @Override
+            public void mouseClicked(java.awt.event.MouseEvent evt) {
+                openTaskPicker();
+            }
+        });
+        mainPanel.add(taskLabel);
+        
+        mainPanel.add(Box.createVerticalStrut(6));
         
         // Completed cycles counter
         cyclesLabel = new JLabel("Completed Cycles: 0", SwingConstants.CENTER);
         cyclesLabel.setFont(new Font("SF Pro Text", Font.PLAIN, 14));
-        cyclesLabel.setForeground(AppConfig.COLORS.get("text_muted"));
+        ThemeManager.bindForeground(cyclesLabel, ThemeColor.TEXT_MUTED);
         cyclesLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
         mainPanel.add(cyclesLabel);
         
@@ -240,22 +449,22 @@ public class GoodDayToLearnApp extends JFrame {
         buttonPanel.setOpaque(false);
         
         // Start button
-        startButton = createModernButton("Start", "button_green", "button_green_active");
+        startButton = createModernButton("Start", ThemeColor.BUTTON_GREEN, ThemeColor.BUTTON_GREEN_ACTIVE);
         startButton.addActionListener(e -> startTimer());
         buttonPanel.add(startButton);
         
         // Stop button
-        stopButton = createModernButton("Stop", "button_red", "button_red_active");
+        stopButton = createModernButton("Stop", ThemeColor.BUTTON_RED, ThemeColor.BUTTON_RED_ACTIVE);
         stopButton.addActionListener(e -> stopTimer());
         buttonPanel.add(stopButton);
         
         // Reset button
-        resetButton = createModernButton("Reset", "button_blue", "button_blue_active");
+        resetButton = createModernButton("Reset", ThemeColor.BUTTON_BLUE, ThemeColor.BUTTON_BLUE_ACTIVE);
         resetButton.addActionListener(e -> resetTimer());
         buttonPanel.add(resetButton);
         
         // Settings button
-        settingsButton = createModernButton("Settings", "button_purple", "button_purple_active");
+        settingsButton = createModernButton("Settings", ThemeColor.BUTTON_PURPLE, ThemeColor.BUTTON_PURPLE_ACTIVE);
         settingsButton.addActionListener(e -> openSettings());
         buttonPanel.add(settingsButton);
         
@@ -265,32 +474,33 @@ public class GoodDayToLearnApp extends JFrame {
     /**
      * Create a modern styled button with hover effects and rounded corners.
      */
-    private JButton createModernButton(String text, String bgColorKey, String activeColorKey) {
+    private JButton createModernButton(String text, ThemeColor bgColor, ThemeColor activeColor) {
         JButton button = new JButton(text) {
             @Override
             protected void paintComponent(Graphics g) {
                 Graphics2D g2d = (Graphics2D) g;
                 g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+                Theme theme = ThemeManager.current();
                 
                 // Determine button color based on state
-                Color bgColor;
+                ThemeColor fill;
                 if (!isEnabled()) {
                     // Disabled state - use muted color
-                    bgColor = AppConfig.COLORS.get("button_bg");
+                    fill = ThemeColor.BUTTON_BG;
                 } else if (getModel().isPressed() || getModel().isRollover()) {
                     // Active/hover state
-                    bgColor = AppConfig.COLORS.get(activeColorKey);
+                    fill = activeColor;
                 } else {
                     // Normal state
-                    bgColor = AppConfig.COLORS.get(bgColorKey);
+                    fill = bgColor;
                 }
                 
-                g2d.setColor(bgColor);
+                g2d.setColor(theme.color(fill));
                 g2d.fillRoundRect(0, 0, getWidth(), getHeight(), 12, 12);
                 
                 // Add subtle inner shadow when pressed
                 if (getModel().isPressed() && isEnabled()) {
-                    g2d.setColor(new Color(0, 0, 0, 20));
+                    g2d.setColor(theme.color(ThemeColor.PRESSED_SHADOW));
                     g2d.fillRoundRect(1, 1, getWidth() - 2, getHeight() - 2, 11, 11);
                 }
                 
@@ -300,14 +510,13 @@ public class GoodDayToLearnApp extends JFrame {
                 int textY = (getHeight() + fm.getAscent() - fm.getDescent()) / 2;
                 
                 // Use different text color for disabled buttons
-                Color textColor = isEnabled() ? getForeground() : AppConfig.COLORS.get("text_muted");
-                g2d.setColor(textColor);
+                g2d.setColor(isEnabled() ? getForeground() : theme.color(ThemeColor.TEXT_MUTED));
                 g2d.drawString(getText(), textX, textY);
             }
         };
         
         button.setFont(new Font("SF Pro Text", Font.BOLD, 13));
-        button.setForeground(Color.WHITE);
+        ThemeManager.bindForeground(button, ThemeColor.BUTTON_TEXT);
         button.setFocusPainted(false);
         button.setBorderPainted(false);
         button.setContentAreaFilled(false);
@@ -343,11 +552,7 @@ public class GoodDayToLearnApp extends JFrame {
         rootPane.getActionMap().put("toggleTimer", new AbstractAction() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                if (timer.isRunning()) {
-                    stopTimer();
-                } else {
-                    startTimer();
-                }
+                toggleTimer();
             }
         });
         
@@ -373,6 +578,46 @@ public class GoodDayToLearnApp extends JFrame {
             }
         });
         
+        // T key to open statistics
+        rootPane.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW)
+            .put(KeyStroke.getKeyStroke("T"), "openStatistics");
+        rootPane.getActionMap().put("openStatistics", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                openStatistics();
+            }
+        });
+        
+        // Ctrl+Shift+D to open the hidden diagnostics panel
+        rootPane.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW)
+            .put(KeyStroke.getKeyStroke("ctrl shift D"), "openDiagnostics");
+        rootPane.getActionMap().put("openDiagnostics", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                openDiagnostics();
+            }
+        });
+        
+        // K key to pick the task to work on
+        rootPane.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW)
+            .put(KeyStroke.getKeyStroke("K"), "pickTask");
+        rootPane.getActionMap().put("pickTask", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                openTaskPicker();
+            }
+        });
+        
+        // M key to switch to the mini timer
+        rootPane.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW)
+            .put(KeyStroke.getKeyStroke("M"), "miniTimer");
+        rootPane.getActionMap().put("miniTimer", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                enterMiniMode();
+            }
+        });
+        
         // Escape key to stop timer
         rootPane.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW)
             .put(KeyStroke.getKeyStroke("ESCAPE"), "stopTimer");
@@ -395,86 +640,88 @@ public class GoodDayToLearnApp extends JFrame {
             return;
         }
         
-        systemTray = SystemTray.getSystemTray();
-        
-        // Create tray icon image (simple colored circle) 
-        Image trayImage = createTrayIconImage();
+        SystemTray tray = SystemTray.getSystemTray();
         
+        // Progress pie frames, rendered once for the tray's icon size
+        TrayProgressIcon progressIcon = new TrayProgressIcon(tray.getTrayIconSize());
+        Image trayImage = progressIcon.getImage(timer);
+        SwingUtilities.invokeLater(() -> installTrayIcon(tray, progressIcon, trayImage));
+    }
+    
+    /**
+     * Build the tray menu and add the icon. Runs on the EDT.
+     */
+    private void installTrayIcon(SystemTray tray, TrayProgressIcon progressIcon, Image trayImage) {
         // Create popup menu
         PopupMenu popup = new PopupMenu();
         
         MenuItem showItem = new MenuItem("Show");
-        showItem.addActionListener(e -> {
-            setVisible(true);
-            setState(JFrame.NORMAL);
-            toFront();
-        });
+        showItem.addActionListener(e -> SwingUtilities.invokeLater(this::showMainWindow));
+        
+        MenuItem miniItem = new MenuItem("Mini Timer");
+        miniItem.addActionListener(e -> SwingUtilities.invokeLater(this::enterMiniMode));
         
         MenuItem startStopItem = new MenuItem("Start/Stop");
-        startStopItem.addActionListener(e -> {
-            if (timer.isRunning()) {
-                stopTimer();
-            } else {
-                startTimer();
-            }
-        });
+        startStopItem.addActionListener(e -> toggleTimer());
+        
+        MenuItem statisticsItem = new MenuItem("Statistics");
+        statisticsItem.addActionListener(e -> SwingUtilities.invokeLater(() -> {
+            showMainWindow();
+            openStatistics();
+        }));
+        
+        MenuItem recordingItem = new MenuItem("Save Flight Recording");
+        recordingItem.addActionListener(e -> CompletableFuture.runAsync(this::saveFlightRecording));
         
         MenuItem exitItem = new MenuItem("Exit");
-        exitItem.addActionListener(e -> {
-            if (trayIcon != null) systemTray.remove(trayIcon);
-            audioManager.cleanup();
-            System.exit(0);
-        });
+        exitItem.addActionListener(e -> exitApplication());
         
         popup.add(showItem);
+        popup.add(miniItem);
         popup.add(startStopItem);
+        popup.add(statisticsItem);
+        popup.add(recordingItem);
         popup.addSeparator();
         popup.add(exitItem);
         
         // Create tray icon
-        trayIcon = new TrayIcon(trayImage, "Good Day To Learn", popup);
-        trayIcon.setImageAutoSize(true);
-        trayIcon.addActionListener(e -> {
-            setVisible(true);
-            setState(JFrame.NORMAL);
-            toFront();
-        });
+        TrayIcon icon = new TrayIcon(trayImage, "Good Day To Learn", popup);
+        icon.setImageAutoSize(true);
+        icon.addActionListener(e -> SwingUtilities.invokeLater(this::showMainWindow));
         
         try {
-            systemTray.add(trayIcon);
+            tray.add(icon);
+            systemTray = tray;
+            trayIcon = icon;
+            trayProgress = progressIcon;
+            updateTrayProgress();
         } catch (AWTException e) {
             System.err.println("Could not add system tray icon: " + e.getMessage());
         }
     }
     
     /**
-     * Create a simple tray icon image.
+     * Show the timer's progress in the tray icon, if there is one.
      */
-    private Image createTrayIconImage() {
-        int size = 16;
-        BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
-        Graphics2D g2d = image.createGraphics();
-        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-        
-        // Draw a simple colored circle
-        g2d.setColor(AppConfig.COLORS.get("accent_primary"));
-        g2d.fillOval(2, 2, size - 4, size - 4);
-        
-        g2d.dispose();
-        return image;
+    private void updateTrayProgress() {
+        TrayProgressIcon progressIcon = trayProgress;
+        if (progressIcon != null) {
+            progressIcon.update(trayIcon, timer);
+        }
     }
     
     /**
-     * Start the timer.
+     * Start the timer. Work intervals are attributed to the current task.
      */
     private void startTimer() {
+        FlightRecorder.record(FlightRecorder.Type.ACTION, "start");
         if (!timer.isRunning()) {
+            timer.setTaskId(currentTaskId());
             timer.start();
-            // Only play music during work sessions, not breaks
-            if (!timer.isBreak()) {
-                audioManager.startMusic();
-            }
+            // Each soundscape layer only plays in its own phases
+            audioManager.startMusic(timer.getPhase());
             updateDisplay(); // Update button states immediately
+            checkCalendar();
         }
     }
     
@@ -482,6 +729,7 @@ public class GoodDayToLearnApp extends JFrame {
      * Stop the timer.
      */
     private void stopTimer() {
+        FlightRecorder.record(FlightRecorder.Type.ACTION, "stop");
         if (timer.isRunning()) {
             timer.stop();
             audioManager.stopMusic();
@@ -489,10 +737,22 @@ public class GoodDayToLearnApp extends JFrame {
         }
     }
     
+    /**
+     * Start the timer if it is stopped, otherwise stop it.
+     */
+    private void toggleTimer() {
+        if (timer.isRunning()) {
+            stopTimer();
+        } else {
+            startTimer();
+        }
+    }
+    
     /**
      * Reset the timer.
      */
     private void resetTimer() {
+        FlightRecorder.record(FlightRecorder.Type.ACTION, "reset");
         timer.reset();
         audioManager.stopMusic();
         updateDisplay();
@@ -502,7 +762,162 @@ public class GoodDayToLearnApp extends JFrame {
      * Open the settings window.
      */
     private void openSettings() {
-        new SettingsWindow(this, timer, audioManager, this::onSettingsSaved).setVisible(true);
+        FlightRecorder.record(FlightRecorder.Type.ACTION, "open settings");
+        SettingsWindow window = getSettingsWindow();
+        window.rebind(settingsStore.get());
+        window.setVisible(true);
+    }
+    
+    /**
+     * Get the settings window, building it on first use.
+     */
+    private SettingsWindow getSettingsWindow() {
+        if (settingsWindow == null) {
+            settingsWindow = new SettingsWindow(this, settingsStore.get(), this::onSettingsSaved);
+        }
+        return settingsWindow;
+    }
+    
+    /**
+     * Open the statistics window, creating it on first use.
+     */
+    private void openStatistics() {
+        if (statisticsWindow == null) {
+            statisticsWindow = new StatisticsWindow(this, statsEngine, sessionJournal);
+        }
+        statisticsWindow.setVisible(true);
+        statisticsWindow.toFront();
+    }
+    
+    /**
+     * Refresh everything that shows statistics after a phase is recorded.
+     */
+    private void onStatsChanged() {
+        updateCyclesDisplay();
+        if (statisticsWindow != null && statisticsWindow.isVisible()) {
+            statisticsWindow.refresh();
+        }
+    }
+    
+    /**
+     * Open the task picker, creating it on first use. Does nothing until the tasks are loaded.
+     */
+    private void openTaskPicker() {
+        if (!taskStore.isLoaded()) {
+            return;
+        }
+        FlightRecorder.record(FlightRecorder.Type.ACTION, "pick task");
+        if (taskPicker == null) {
+            taskPicker = new TaskPicker(this, taskStore,
+                task -> taskStore.setCurrentTask(task != null ? task.getId() : Task.NONE));
+        }
+        taskPicker.setVisible(true);
+    }
+    
+    /**
+     * Show the current task and attribute the running work interval to it.
+     */
+    private void onTasksChanged() {
+        timer.setTaskId(currentTaskId());
+        Task task = taskStore.getCurrentTask();
+        if (task == null) {
+            taskLabel.setText("No task - press K to pick one");
+        } else if (task.getFocusSeconds() > 0) {
+            taskLabel.setText(task.getName() + "  ·  " + StatisticsWindow.formatDuration(task.getFocusSeconds()));
+        } else {
+            taskLabel.setText(task.getName());
+        }
+    }
+    
+    /**
+     * Wrap an EDT handler so that a burst of notifications, such as one per record of an
+     * import, posts it once rather than once per notification.
+     */
+    private static Runnable coalescedOnEdt(Runnable handler) {
+        AtomicBoolean pending = new AtomicBoolean();
+        Runnable run = () -> {
+            pending.set(false); // Cleared first, so changes made while the handler runs post it again
+            handler.run();
+        };
+        return () -> {
+            if (pending.compareAndSet(false, true)) {
+                SwingUtilities.invokeLater(run);
+            }
+        };
+    }
+    
+    private int currentTaskId() {
+        Task task = taskStore.getCurrentTask();
+        return task != null ? task.getId() : Task.NONE;
+    }
+    
+    /**
+     * Fit the current work interval around the next meeting in the calendar.
+     *
+     * A running interval that would run into a meeting is shortened to end
+     * {@link AppConfig#MEETING_LEAD_SECONDS} before it, or paused if too little time would
+     * be left. A stopped one that could not fit is only warned about. Runs on every start,
+     * at every phase change and when the calendar changes; each check is one tree lookup.
+     */
+    private void checkCalendar() {
+        if (timer.isBreak()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long lead = AppConfig.MEETING_LEAD_SECONDS * 1000L;
+        long phaseEnd = now + timer.getRemainingNanos() / 1_000_000L;
+        CalendarSchedule.Busy meeting = calendar.firstBusy(now, phaseEnd + lead);
+        if (meeting == null || meeting.getStartMillis() == notifiedMeetingStart) {
+            return;
+        }
+        
+        int available = (int) ((meeting.getStartMillis() - lead - now) / 1000);
+        String summary = meeting.getSummary().isEmpty() ? "Meeting" : meeting.getSummary();
+        if (available < AppConfig.MIN_WORK_BEFORE_MEETING_SECONDS) {
+            notifiedMeetingStart = meeting.getStartMillis();
+            boolean paused = timer.isRunning();
+            if (paused) {
+                FlightRecorder.record(FlightRecorder.Type.ACTION, "pause for meeting");
+                stopTimer();
+            }
+            String when = meeting.getStartMillis() <= now
+                ? "Until " + formatMeetingTime(meeting.getEndMillis())
+                : "At " + formatMeetingTime(meeting.getStartMillis());
+            showNotice(summary + " - " + when,
+                paused ? "Timer paused, too little time for a work interval." : "Too little time for a work interval.");
+        } else if (timer.isRunning() && timer.shortenPhase(available)) {
+            notifiedMeetingStart = meeting.getStartMillis();
+            updateDisplay();
+            showNotice(summary + " at " + formatMeetingTime(meeting.getStartMillis()),
+                "Work interval shortened to " + (available / 60) + " min to end before it.");
+        }
+    }
+    
+    private static String formatMeetingTime(long millis) {
+        return MEETING_TIME.format(Instant.ofEpochMilli(millis).atZone(ZoneId.systemDefault()));
+    }
+    
+    /**
+     * Show a notice in the system tray, or on the console if there is no tray.
+     */
+    private void showNotice(String caption, String text) {
+        TrayIcon icon = trayIcon;
+        if (icon != null) {
+            icon.displayMessage(caption, text, TrayIcon.MessageType.WARNING);
+        } else {
+            System.out.println(caption + ": " + text);
+        }
+    }
+    
+    /**
+     * Open the diagnostics panel, creating it on first use.
+     */
+    private void openDiagnostics() {
+        if (diagnosticsPanel == null) {
+            diagnosticsPanel = new DiagnosticsPanel(this, edtWatchdog);
+        }
+        diagnosticsPanel.setVisible(true);
+        diagnosticsPanel.toFront();
     }
     
     /**
@@ -514,40 +929,156 @@ public class GoodDayToLearnApp extends JFrame {
             audioManager.playAlarm();
             
             // Update display with phase message
+            showingTime = false;
             timerLabel.setText(timer.getPhaseMessage());
             updateDisplay();
+            checkCalendar();
         });
     }
     
     /**
      * Handle timer updates during countdown.
      */
-    private void onTimerUpdate(Integer timeLeft) {
-        SwingUtilities.invokeLater(() -> {
-            updateTimerDisplay();
-            // Ensure progress ring updates
-            timerLabel.repaint();
-        });
+    private void onTimerUpdate(int timeLeft) {
+        SwingUtilities.invokeLater(timerDisplayUpdater);
+        // Music released during the break is back before the next work interval starts
+        if (timer.isBreak() && timeLeft <= AppConfig.MUSIC_PREFETCH_SECONDS) {
+            audioManager.prepareMusic();
+        }
     }
     
     /**
-     * Handle settings being saved.
+     * Apply saved settings, notifying each subsystem only about the fields it owns.
      */
-    private void onSettingsSaved() {
-        // Reset timer if not running
-        if (!timer.isRunning()) {
+    private void onSettingsSaved(Settings updated) {
+        FlightRecorder.record(FlightRecorder.Type.ACTION, "save settings");
+        EnumSet<Settings.Field> changed = settingsStore.get().diff(updated);
+        if (changed.isEmpty()) {
+            return;
+        }
+        
+        if (changed.contains(Settings.Field.WORK_TIME)) {
+            timer.setWorkTime(updated.getWorkMinutes());
+        }
+        if (changed.contains(Settings.Field.SHORT_BREAK)) {
+            timer.setShortBreakTime(updated.getShortBreakMinutes());
+        }
+        if (changed.contains(Settings.Field.LONG_BREAK)) {
+            timer.setLongBreakTime(updated.getLongBreakMinutes());
+        }
+        if (changed.contains(Settings.Field.MUSIC_VOLUME)) {
+            audioManager.setMusicVolume(updated.getMusicVolume());
+        }
+        if (changed.contains(Settings.Field.ALARM_VOLUME)) {
+            audioManager.setAlarmVolume(updated.getAlarmVolume());
+        }
+        if (changed.contains(Settings.Field.THEME)) {
+            ThemeManager.setTheme(updated.getTheme());
+        }
+        if (changed.contains(Settings.Field.CALENDAR_FILE)) {
+            calendar.setFile(updated.getCalendarFile());
+        }
+        if (changed.contains(Settings.Field.LOW_MEMORY_AUDIO)) {
+            audioManager.setLowMemory(updated.isLowMemoryAudio());
+        }
+        
+        // Decoding a new file can take a while; keep it off the EDT
+        if (changed.contains(Settings.Field.MUSIC_FILE) || changed.contains(Settings.Field.ALARM_FILE)) {
+            CompletableFuture.runAsync(() -> {
+                audioManager.setCustomMusicFile(updated.getCustomMusicFile());
+                audioManager.setCustomAlarmFile(updated.getCustomAlarmFile());
+            });
+        }
+        if (changed.contains(Settings.Field.SOUNDSCAPE)) {
+            CompletableFuture.runAsync(() -> audioManager.setSoundscape(updated.getSoundscape()));
+        }
+        
+        // Persisted in the background
+        settingsStore.save(updated);
+        
+        // New durations only take effect cleanly from the start of a cycle
+        if (!Collections.disjoint(changed, Settings.Field.DURATIONS) && !timer.isRunning()) {
             resetTimer();
         }
     }
     
+    /**
+     * Drop everything rendered in the old theme's colours. Bound components are restyled
+     * by {@link ThemeManager} right after this.
+     */
+    private void onThemeChanged() {
+        renderCache.invalidate();
+        timeRenderer.invalidate();
+        clockRenderer.invalidate();
+        if (miniWindow != null) {
+            miniWindow.onThemeChanged();
+        }
+        updateTimerDisplay();
+    }
+    
+    /**
+     * Show the main window, leaving mini timer mode if it is active.
+     */
+    private void showMainWindow() {
+        if (miniWindow != null) {
+            exitMiniMode();
+        }
+        setVisible(true);
+        setState(JFrame.NORMAL);
+        toFront();
+    }
+    
+    /**
+     * Replace the main window with the mini timer. The main window's component tree is
+     * detached and its native resources released, so its clock, ring animation, cached
+     * layers and paint code all stop until {@link #exitMiniMode()}.
+     */
+    private void enterMiniMode() {
+        if (miniWindow != null) {
+            return;
+        }
+        FlightRecorder.record(FlightRecorder.Type.ACTION, "mini timer");
+        clockTimer.stop();
+        progressRing.stop();
+        remove(mainPanel);
+        renderCache.invalidate();
+        timeRenderer.invalidate();
+        clockRenderer.invalidate();
+        dispose();
+        
+        miniWindow = new MiniTimerWindow(this, timer, this::toggleTimer, this::resetTimer, this::showMainWindow);
+        miniWindow.setVisible(true);
+        updateTrayProgress();
+    }
+    
+    /**
+     * Close the mini timer and reattach the main window's components, brought up to date.
+     */
+    private void exitMiniMode() {
+        FlightRecorder.record(FlightRecorder.Type.ACTION, "full window");
+        miniWindow.dispose();
+        miniWindow = null;
+        add(mainPanel, BorderLayout.CENTER);
+        validate();
+        clockTimer.start();
+        updateClock();
+        updateDisplay();
+    }
+    
     /**
      * Update the display with current timer state.
      */
     private void updateDisplay() {
+        if (miniWindow != null) {
+            miniWindow.update();
+            updateTrayProgress();
+            return;
+        }
         updateTimerDisplay();
         updateStatusDisplay();
         updateCyclesDisplay();
         updateButtonStates();
+        progressRing.update();
     }
     
     /**
@@ -578,32 +1109,40 @@ public class GoodDayToLearnApp extends JFrame {
      * Update the timer display.
      */
     private void updateTimerDisplay() {
-        timerLabel.setText(timer.getTimeDisplay());
+        if (miniWindow != null) {
+            miniWindow.update();
+            updateTrayProgress();
+            return;
+        }
+        boolean changed = timeRenderer.setCountdown(timer.getTimeLeft());
         
-        // Update color based on timer state
-        if (timer.isBreak()) {
-            timerLabel.setForeground(AppConfig.COLORS.get("break_time"));
-        } else {
-            timerLabel.setForeground(AppConfig.COLORS.get("work_time"));
+        // Label text only drives layout; it changes when the digit count does
+        String placeholder = timeRenderer.length() > TIMER_PLACEHOLDER.length() ?
+            TIMER_PLACEHOLDER_LONG : TIMER_PLACEHOLDER;
+        if (!showingTime || changed) {
+            showingTime = true;
+            timerLabel.setText(placeholder);
+            timerLabel.repaint();
         }
+        
+        // Update color based on timer state
+        timerLabel.setForeground(ThemeManager.current().phaseColor(timer.isBreak()));
+        updateTrayProgress();
     }
-    
+        
         /**
      * Update the status display.
      */
     private void updateStatusDisplay() {
         String statusText = timer.getStatusText();
         statusLabel.setText(statusText);
-        
-        // Update status color - minimal approach
-        statusLabel.setForeground(AppConfig.COLORS.get("text_muted"));
     }
     
     /**
      * Update the completed cycles display.
      */
     private void updateCyclesDisplay() {
-        int completedCycles = timer.getCompletedCycles();
+        int completedCycles = statsEngine.getCompletedCycles();
         cyclesLabel.setText("Completed Cycles: " + completedCycles);
     }
     
@@ -611,15 +1150,21 @@ public class GoodDayToLearnApp extends JFrame {
      * Start the real-time clock display.
      */
     private void startClock() {
-        SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm:ss");
-        clockTimer = new Timer(1000, e -> {
-            String currentTime = timeFormat.format(new Date());
-            clockLabel.setText("Current Time: " + currentTime);
-        });
+        clockTimer = new Timer(1000, e -> updateClock());
         clockTimer.start();
         
         // Initial time display
-        String currentTime = timeFormat.format(new Date());
-        clockLabel.setText("Current Time: " + currentTime);
+        updateClock();
+    }
+    
+    /**
+     * Update the clock and schedule the next update just after the next second begins.
+     */
+    private void updateClock() {
+        long now = System.currentTimeMillis();
+        if (clockRenderer.setClock(now)) {
+            clockLabel.repaint();
+        }
+        clockTimer.setDelay((int) (1000 - now % 1000) + 5);
     }
 }
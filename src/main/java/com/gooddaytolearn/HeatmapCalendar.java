@@ -0,0 +1,323 @@
+package com.gooddaytolearn;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.TextStyle;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Year-at-a-glance heatmap of focus minutes, one cell per day, newest year on top.
+ *
+ * Each month is rendered once into an image tile and only rebuilt when one of its day
+ * totals changes, so scrolling through many years just blits tiles. Day totals are kept
+ * in a flat array indexed by day, which answers hover tooltips without any lookup.
+ */
+public class HeatmapCalendar extends JComponent {
+    
+    private static final int CELL = 11;
+    private static final int STEP = 13;
+    private static final int MONTH_LABEL_HEIGHT = 16;
+    private static final int TILE_WIDTH = STEP * 7;
+    private static final int TILE_HEIGHT = MONTH_LABEL_HEIGHT + STEP * 6;
+    private static final int TILE_GAP = 14;
+    private static final int MONTHS_PER_ROW = 6;
+    private static final int YEAR_LABEL_HEIGHT = 26;
+    private static final int YEAR_HEIGHT = YEAR_LABEL_HEIGHT + 2 * (TILE_HEIGHT + TILE_GAP);
+    private static final int MARGIN = 12;
+    
+    // Upper bounds in minutes for levels 0 to 3; anything above is level 4
+    private static final int[] LEVEL_LIMITS = {0, 25, 50, 100};
+    
+    private static final Font MONTH_FONT = new Font("SF Pro Text", Font.PLAIN, 11);
+    private static final Font YEAR_FONT = new Font("SF Pro Text", Font.BOLD, 13);
+    private static final DateTimeFormatter TOOLTIP_DATE = DateTimeFormatter.ofPattern("EEE d MMM yyyy");
+    
+    private int firstYear;
+    private int lastYear;
+    private long firstDay;      // Epoch day of January 1st of firstYear
+    private int[] minutes;
+    
+    // Month tiles keyed by year * 12 + month index
+    private final Map<Integer, Image> tiles = new HashMap<>();
+    private double tileScale;
+    private Theme tileTheme;
+    private int hoverDay = -1;
+    
+    /**
+     * Create an empty heatmap showing the current year.
+     */
+    public HeatmapCalendar() {
+        firstYear = lastYear = LocalDate.now().getYear();
+        firstDay = LocalDate.of(firstYear, 1, 1).toEpochDay();
+        minutes = new int[(int) (LocalDate.of(lastYear + 1, 1, 1).toEpochDay() - firstDay)];
+        
+        setOpaque(false);
+        ToolTipManager.sharedInstance().registerComponent(this);
+        MouseAdapter hover = new MouseAdapter() {
+            @Override
+            public void mouseMoved(MouseEvent e) {
+                setHoverDay(dayAt(e.getX(), e.getY()));
+            }
+            
+            @Override
+            public void mouseExited(MouseEvent e) {
+                setHoverDay(-1);
+            }
+        };
+        addMouseListener(hover);
+        addMouseMotionListener(hover);
+    }
+    
+    /**
+     * Replace the day totals. Only month tiles whose totals changed are rebuilt.
+     *
+     * @param fromYear First year shown
+     * @param toYear Last year shown
+     * @param dayMinutes Focus minutes per day from January 1st of fromYear to December 31st of toYear
+     */
+    public void setData(int fromYear, int toYear, int[] dayMinutes) {
+        long newFirstDay = LocalDate.of(fromYear, 1, 1).toEpochDay();
+        for (int year = fromYear; year <= toYear; year++) {
+            for (int month = 0; month < 12; month++) {
+                LocalDate start = LocalDate.of(year, month + 1, 1);
+                if (!sameMonth(start, dayMinutes, newFirstDay)) {
+                    tiles.remove(year * 12 + month);
+                }
+            }
+        }
+        
+        boolean resized = fromYear != firstYear || toYear != lastYear;
+        firstYear = fromYear;
+        lastYear = toYear;
+        firstDay = newFirstDay;
+        minutes = dayMinutes;
+        hoverDay = -1;
+        if (resized) {
+            tiles.keySet().removeIf(key -> key / 12 < firstYear || key / 12 > lastYear);
+            revalidate();
+        }
+        repaint();
+    }
+    
+    /**
+     * Drop all tiles. Call this when the theme changes.
+     */
+    public void invalidateTiles() {
+        tiles.clear();
+        repaint();
+    }
+    
+    @Override
+    public Dimension getPreferredSize() {
+        return new Dimension(2 * MARGIN + MONTHS_PER_ROW * TILE_WIDTH + (MONTHS_PER_ROW - 1) * TILE_GAP,
+            2 * MARGIN + (lastYear - firstYear + 1) * YEAR_HEIGHT);
+    }
+    
+    @Override
+    public String getToolTipText(MouseEvent e) {
+        int day = dayAt(e.getX(), e.getY());
+        if (day < 0) {
+            return null;
+        }
+        return LocalDate.ofEpochDay(firstDay + day).format(TOOLTIP_DATE) + ": " + minutes[day] + " min focus";
+    }
+    
+    @Override
+    protected void paintComponent(Graphics g) {
+        Graphics2D g2d = (Graphics2D) g;
+        double scale = g2d.getTransform().getScaleX();
+        Theme theme = ThemeManager.current();
+        if (scale != tileScale || theme != tileTheme) {
+            tiles.clear();
+            tileScale = scale;
+            tileTheme = theme;
+        }
+        g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        
+        // Only visit the years that intersect the clip
+        Rectangle clip = g2d.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+        }
+        int firstRow = Math.max(0, (clip.y - MARGIN) / YEAR_HEIGHT);
+        int lastRow = Math.min(lastYear - firstYear, (clip.y + clip.height - MARGIN) / YEAR_HEIGHT);
+        
+        for (int row = firstRow; row <= lastRow; row++) {
+            int year = lastYear - row;
+            int top = MARGIN + row * YEAR_HEIGHT;
+            g2d.setFont(YEAR_FONT);
+            g2d.setColor(theme.color(ThemeColor.TEXT_SECONDARY));
+            g2d.drawString(Integer.toString(year), MARGIN, top + 16);
+            
+            for (int month = 0; month < 12; month++) {
+                int x = tileX(month);
+                int y = tileY(row, month);
+                if (!clip.intersects(x, y, TILE_WIDTH, TILE_HEIGHT)) {
+                    continue;
+                }
+                Image tile = tiles.get(year * 12 + month);
+                if (tile == null) {
+                    tile = renderTile(year, month, scale, theme);
+                    tiles.put(year * 12 + month, tile);
+                }
+                g2d.drawImage(tile, x, y, TILE_WIDTH, TILE_HEIGHT, null);
+            }
+        }
+        
+        if (hoverDay >= 0) {
+            Rectangle cell = cellBounds(hoverDay);
+            g2d.setColor(theme.color(ThemeColor.TEXT_SECONDARY));
+            g2d.drawRect(cell.x - 1, cell.y - 1, CELL + 1, CELL + 1);
+        }
+    }
+    
+    /**
+     * Render one month: its name and a Monday-first grid of day cells.
+     */
+    private Image renderTile(int year, int month, double scale, Theme theme) {
+        BufferedImage image = createImage(scale);
+        Graphics2D g2d = image.createGraphics();
+        g2d.scale(scale, scale);
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        
+        LocalDate start = LocalDate.of(year, month + 1, 1);
+        g2d.setFont(MONTH_FONT);
+        g2d.setColor(theme.color(ThemeColor.TEXT_MUTED));
+        g2d.drawString(start.getMonth().getDisplayName(TextStyle.SHORT, Locale.getDefault()), 0, 11);
+        
+        int offset = start.getDayOfWeek().getValue() - 1;
+        int length = start.lengthOfMonth();
+        int index = (int) (start.toEpochDay() - firstDay);
+        for (int day = 0; day < length; day++) {
+            int position = offset + day;
+            g2d.setColor(theme.heatmapLevel(level(minutes[index + day])));
+            g2d.fillRoundRect((position % 7) * STEP, MONTH_LABEL_HEIGHT + (position / 7) * STEP, CELL, CELL, 3, 3);
+        }
+        g2d.dispose();
+        return image;
+    }
+    
+    /**
+     * Create a tile image in the component's native pixel format when possible.
+     */
+    private BufferedImage createImage(double scale) {
+        int pixelWidth = (int) Math.ceil(TILE_WIDTH * scale);
+        int pixelHeight = (int) Math.ceil(TILE_HEIGHT * scale);
+        GraphicsConfiguration config = getGraphicsConfiguration();
+        if (config != null) {
+            return config.createCompatibleImage(pixelWidth, pixelHeight, Transparency.TRANSLUCENT);
+        }
+        return new BufferedImage(pixelWidth, pixelHeight, BufferedImage.TYPE_INT_ARGB);
+    }
+    
+    /**
+     * Check whether a month has the same totals in the current data and the new data.
+     */
+    private boolean sameMonth(LocalDate start, int[] newMinutes, long newFirstDay) {
+        long day = start.toEpochDay();
+        int oldIndex = (int) (day - firstDay);
+        int newIndex = (int) (day - newFirstDay);
+        int length = start.lengthOfMonth();
+        if (oldIndex < 0 || oldIndex + length > minutes.length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (minutes[oldIndex + i] != newMinutes[newIndex + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Move the hover outline, repainting only the two cells involved.
+     */
+    private void setHoverDay(int day) {
+        if (day == hoverDay) {
+            return;
+        }
+        if (hoverDay >= 0) {
+            repaintCell(hoverDay);
+        }
+        hoverDay = day;
+        if (hoverDay >= 0) {
+            repaintCell(hoverDay);
+        }
+    }
+    
+    private void repaintCell(int day) {
+        Rectangle cell = cellBounds(day);
+        repaint(cell.x - 2, cell.y - 2, CELL + 4, CELL + 4);
+    }
+    
+    /**
+     * Find the day under a point.
+     *
+     * @return index into the day array, or -1 if the point is not on a cell
+     */
+    private int dayAt(int x, int y) {
+        int row = (y - MARGIN) / YEAR_HEIGHT;
+        if (y < MARGIN || row > lastYear - firstYear) {
+            return -1;
+        }
+        int tileRow = (y - MARGIN - row * YEAR_HEIGHT - YEAR_LABEL_HEIGHT) / (TILE_HEIGHT + TILE_GAP);
+        int tileColumn = (x - MARGIN) / (TILE_WIDTH + TILE_GAP);
+        if (y - MARGIN - row * YEAR_HEIGHT < YEAR_LABEL_HEIGHT || x < MARGIN
+                || tileRow > 1 || tileColumn >= MONTHS_PER_ROW) {
+            return -1;
+        }
+        int month = tileRow * MONTHS_PER_ROW + tileColumn;
+        int cellX = x - tileX(month);
+        int cellY = y - tileY(row, month) - MONTH_LABEL_HEIGHT;
+        if (cellX < 0 || cellY < 0 || cellX % STEP >= CELL || cellY % STEP >= CELL) {
+            return -1;
+        }
+        
+        LocalDate start = LocalDate.of(lastYear - row, month + 1, 1);
+        int day = (cellY / STEP) * 7 + cellX / STEP - (start.getDayOfWeek().getValue() - 1);
+        if (cellX / STEP >= 7 || day < 0 || day >= start.lengthOfMonth()) {
+            return -1;
+        }
+        return (int) (start.toEpochDay() - firstDay) + day;
+    }
+    
+    /**
+     * Get the bounds of a day's cell in component coordinates.
+     */
+    private Rectangle cellBounds(int day) {
+        LocalDate date = LocalDate.ofEpochDay(firstDay + day);
+        int row = lastYear - date.getYear();
+        int month = date.getMonthValue() - 1;
+        int position = date.withDayOfMonth(1).getDayOfWeek().getValue() - 1 + date.getDayOfMonth() - 1;
+        return new Rectangle(tileX(month) + (position % 7) * STEP,
+            tileY(row, month) + MONTH_LABEL_HEIGHT + (position / 7) * STEP, CELL, CELL);
+    }
+    
+    private static int tileX(int month) {
+        return MARGIN + (month % MONTHS_PER_ROW) * (TILE_WIDTH + TILE_GAP);
+    }
+    
+    private static int tileY(int row, int month) {
+        return MARGIN + row * YEAR_HEIGHT + YEAR_LABEL_HEIGHT + (month / MONTHS_PER_ROW) * (TILE_HEIGHT + TILE_GAP);
+    }
+    
+    /**
+     * Map focus minutes to a colour level.
+     */
+    private static int level(int dayMinutes) {
+        for (int i = 0; i < LEVEL_LIMITS.length; i++) {
+            if (dayMinutes <= LEVEL_LIMITS[i]) {
+                return i;
+            }
+        }
+        return LEVEL_LIMITS.length;
+    }
+}
@@ -0,0 +1,542 @@
+package com.gooddaytolearn;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
+import java.util.zip.CRC32;
+
+/**
+ * Streaming export and import of the session history.
+ *
+ * Two formats are supported: CSV for spreadsheets, and a compact block-columnar binary
+ * format. Both are written and read record by record with fixed-size buffers, so the
+ * records themselves are never all held in memory. Imports skip sessions that are already
+ * in the journal or earlier in the same file, so merging the same data twice changes
+ * nothing. That needs a 64-bit key per session in a hash set, about 16 bytes each or
+ * 1.6 MB per 100,000 sessions; this is the one part of an import that grows with the
+ * history, since imported files need not be sorted and the journal is not either once
+ * older sessions have been merged into it.
+ */
+public final class HistoryTransfer {
+    
+    static final String CSV_HEADER =
+        "phase,start,end,planned_seconds,actual_seconds,interruptions,completed,cycle_completed,task_id";
+    
+    // Rows written before sessions carried a task id
+    private static final int LEGACY_CSV_FIELDS = 8;
+    
+    private static final long BINARY_MAGIC = 0x4744544C48495354L; // "GDTLHIST"
+    private static final int BINARY_VERSION = 2; // Version 1 has no task column
+    private static final int BLOCK_SIZE = 4096;
+    private static final int PROGRESS_INTERVAL = 4096;
+    private static final long JOURNAL_WAIT_MS = 30_000;
+    
+    private static final DateTimeFormatter CSV_TIME = DateTimeFormatter.ISO_OFFSET_DATE_TIME;
+    
+    /**
+     * Outcome of an import.
+     */
+    public static class ImportResult {
+        private final long imported;
+        private final long duplicates;
+        
+        ImportResult(long imported, long duplicates) {
+            this.imported = imported;
+            this.duplicates = duplicates;
+        }
+        
+        public long getImported() {
+            return imported;
+        }
+        
+        public long getDuplicates() {
+            return duplicates;
+        }
+    }
+    
+    private HistoryTransfer() {
+    }
+    
+    /**
+     * Write the whole journal as CSV.
+     *
+     * @param progress Receives the completed fraction from 0.0 to 1.0
+     * @return the number of sessions written
+     */
+    public static long exportCsv(SessionJournal journal, Path file, DoubleConsumer progress) throws IOException {
+        long total = journal.getRecordCount();
+        ZoneId zone = ZoneId.systemDefault();
+        StringBuilder line = new StringBuilder(128);
+        long[] written = new long[1];
+        
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write(CSV_HEADER);
+            out.write('\n');
+            readJournal(journal, event -> {
+                line.setLength(0);
+                line.append(event.getPhase().name()).append(',');
+                CSV_TIME.formatTo(Instant.ofEpochMilli(event.getStartMillis()).atZone(zone), line);
+                line.append(',');
+                CSV_TIME.formatTo(Instant.ofEpochMilli(event.getEndMillis()).atZone(zone), line);
+                line.append(',').append(event.getPlannedSeconds())
+                    .append(',').append(event.getActualSeconds())
+                    .append(',').append(event.getInterruptions())
+                    .append(',').append(event.isCompleted())
+                    .append(',').append(event.isCycleCompleted())
+                    .append(',').append(event.getTaskId())
+                    .append('\n');
+                try {
+                    out.append(line);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                reportProgress(++written[0], total, progress);
+            });
+        }
+        progress.accept(1.0);
+        return written[0];
+    }
+    
+    /**
+     * Write the whole journal in the compact binary format.
+     *
+     * The file is a header followed by blocks of up to {@link #BLOCK_SIZE} sessions. Within
+     * a block each field is stored as its own column: start times as zig-zag varint deltas,
+     * durations, counters and task ids as varints, and phase and flags as one byte each. Every block
+     * ends with a CRC32 of its column data.
+     *
+     * @param progress Receives the completed fraction from 0.0 to 1.0
+     * @return the number of sessions written
+     */
+    public static long exportBinary(SessionJournal journal, Path file, DoubleConsumer progress) throws IOException {
+        long total = journal.getRecordCount();
+        BlockWriter blocks;
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeLong(BINARY_MAGIC);
+            out.writeInt(BINARY_VERSION);
+            out.writeInt(BLOCK_SIZE);
+            blocks = new BlockWriter(out);
+            readJournal(journal, event -> {
+                try {
+                    blocks.add(event);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                reportProgress(blocks.written, total, progress);
+            });
+            blocks.flush();
+        }
+        progress.accept(1.0);
+        return blocks.written;
+    }
+    
+    /**
+     * Import a CSV or binary history file into the journal, skipping duplicates.
+     * The format is detected from the file contents.
+     *
+     * If the file is malformed part way through, the sessions before the error stay
+     * imported; importing the fixed file again only adds the rest.
+     *
+     * @param progress Receives the completed fraction from 0.0 to 1.0
+     */
+    public static ImportResult importFile(SessionJournal journal, Path file, DoubleConsumer progress)
+            throws IOException, InterruptedException {
+        if (!journal.isOpen()) {
+            throw new IOException("Session journal is not open");
+        }
+        
+        // Keys of everything already recorded, so merges are idempotent; O(n), see the class comment
+        LongHashSet known = new LongHashSet((int) Math.min(Integer.MAX_VALUE / 4, journal.getRecordCount()));
+        readJournal(journal, event -> known.add(key(event)));
+        
+        long size = Math.max(1L, Files.size(file));
+        Importer importer = new Importer(journal, known);
+        try (CountingInputStream counter = new CountingInputStream(Files.newInputStream(file));
+             BufferedInputStream in = new BufferedInputStream(counter, 65536)) {
+            DoubleConsumer fileProgress = ignored -> progress.accept(Math.min(1.0, (double) counter.count / size));
+            byte[] head = new byte[8];
+            in.mark(head.length);
+            long magic = in.readNBytes(head, 0, head.length) == head.length ? ByteBuffer.wrap(head).getLong() : 0;
+            in.reset();
+            if (magic == BINARY_MAGIC) {
+                readBinary(in, importer, fileProgress);
+            } else {
+                readCsv(in, importer, fileProgress);
+            }
+            importer.finish();
+        }
+        progress.accept(1.0);
+        return new ImportResult(importer.imported, importer.duplicates);
+    }
+    
+    /**
+     * Stream every journal record, unwrapping I/O errors raised inside the consumer.
+     */
+    private static void readJournal(SessionJournal journal, Consumer<PhaseEvent> consumer) throws IOException {
+        try {
+            journal.read(0, consumer);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+    
+    /**
+     * Parse CSV rows. The header row is optional, and rows without a task id column
+     * are imported without a task.
+     */
+    private static void readCsv(InputStream in, Importer importer, DoubleConsumer progress)
+            throws IOException, InterruptedException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String line;
+        long lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isEmpty() || (lineNumber == 1 && line.startsWith("phase,"))) {
+                continue;
+            }
+            String[] fields = line.split(",", -1);
+            if (fields.length != LEGACY_CSV_FIELDS && fields.length != LEGACY_CSV_FIELDS + 1) {
+                throw new IOException("Line " + lineNumber + ": expected " + (LEGACY_CSV_FIELDS + 1)
+                    + " fields, found " + fields.length);
+            }
+            try {
+                importer.add(new PhaseEvent(
+                    Phase.valueOf(fields[0].trim()),
+                    OffsetDateTime.parse(fields[1].trim(), CSV_TIME).toInstant().toEpochMilli(),
+                    OffsetDateTime.parse(fields[2].trim(), CSV_TIME).toInstant().toEpochMilli(),
+                    Integer.parseInt(fields[3].trim()),
+                    Integer.parseInt(fields[4].trim()),
+                    Integer.parseInt(fields[5].trim()),
+                    Boolean.parseBoolean(fields[6].trim()),
+                    Boolean.parseBoolean(fields[7].trim()),
+                    fields.length > LEGACY_CSV_FIELDS ? Integer.parseInt(fields[8].trim()) : Task.NONE));
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                throw new IOException("Line " + lineNumber + ": " + e.getMessage());
+            }
+            if (lineNumber % PROGRESS_INTERVAL == 0) {
+                progress.accept(0);
+            }
+        }
+    }
+    
+    /**
+     * Decode binary blocks, verifying each block's checksum before using it.
+     */
+    private static void readBinary(InputStream stream, Importer importer, DoubleConsumer progress)
+            throws IOException, InterruptedException {
+        DataInputStream in = new DataInputStream(stream);
+        in.readLong();
+        int version = in.readInt();
+        int blockSize = in.readInt();
+        if (version < 1 || version > BINARY_VERSION || blockSize <= 0 || blockSize > 1 << 20) {
+            throw new IOException("Unsupported history file version " + version);
+        }
+        
+        CRC32 crc = new CRC32();
+        byte[] data = new byte[0];
+        long[] starts = new long[blockSize];
+        long previousStart = 0;
+        int blockNumber = 0;
+        while (true) {
+            int count;
+            try {
+                count = in.readInt();
+            } catch (EOFException e) {
+                break;
+            }
+            int length = in.readInt();
+            if (count < 0 || count > blockSize || length < 0 || length > blockSize * 64) {
+                throw new IOException("Block " + blockNumber + " is corrupt");
+            }
+            if (data.length < length) {
+                data = new byte[length];
+            }
+            in.readFully(data, 0, length);
+            crc.reset();
+            crc.update(data, 0, length);
+            if (in.readInt() != (int) crc.getValue()) {
+                throw new IOException("Block " + blockNumber + " fails its checksum");
+            }
+            
+            // Columns in order: start deltas, durations, planned, actual, interruptions, phases, flags,
+            // and from version 2 task ids
+            int[] position = {0};
+            for (int i = 0; i < count; i++) {
+                previousStart += zigZagDecode(readVarLong(data, length, position));
+                starts[i] = previousStart;
+            }
+            int durations = position[0];
+            skipVarLongs(data, length, position, count);
+            int planned = position[0];
+            skipVarLongs(data, length, position, count);
+            int actual = position[0];
+            skipVarLongs(data, length, position, count);
+            int interruptions = position[0];
+            skipVarLongs(data, length, position, count);
+            int phases = position[0];
+            int flags = phases + count;
+            int tasks = flags + count;
+            position[0] = tasks;
+            if (version >= 2) {
+                skipVarLongs(data, length, position, count);
+            }
+            if (position[0] != length) {
+                throw new IOException("Block " + blockNumber + " is corrupt");
+            }
+            
+            int[] durationPos = {durations};
+            int[] plannedPos = {planned};
+            int[] actualPos = {actual};
+            int[] interruptionsPos = {interruptions};
+            int[] taskPos = {tasks};
+            for (int i = 0; i < count; i++) {
+                int phase = data[phases + i];
+                if (phase < 0 || phase >= Phase.values().length) {
+                    throw new IOException("Block " + blockNumber + " has an unknown phase");
+                }
+                int flag = data[flags + i];
+                importer.add(new PhaseEvent(Phase.values()[phase], starts[i],
+                    starts[i] + readVarLong(data, length, durationPos),
+                    (int) readVarLong(data, length, plannedPos),
+                    (int) readVarLong(data, length, actualPos),
+                    (int) readVarLong(data, length, interruptionsPos),
+                    (flag & 1) != 0, (flag & 2) != 0,
+                    version >= 2 ? (int) readVarLong(data, length, taskPos) : Task.NONE));
+            }
+            blockNumber++;
+            progress.accept(0);
+        }
+    }
+    
+    /**
+     * Buffers one block of sessions column by column and writes it when full.
+     */
+    private static class BlockWriter {
+        private final DataOutputStream out;
+        private final PhaseEvent[] block = new PhaseEvent[BLOCK_SIZE];
+        private final ColumnBuffer columns = new ColumnBuffer();
+        private final CRC32 crc = new CRC32();
+        private int count;
+        private long previousStart;
+        private long written;
+        
+        BlockWriter(DataOutputStream out) {
+            this.out = out;
+        }
+        
+        void add(PhaseEvent event) throws IOException {
+            block[count++] = event;
+            written++;
+            if (count == BLOCK_SIZE) {
+                flush();
+            }
+        }
+        
+        void flush() throws IOException {
+            if (count == 0) {
+                return;
+            }
+            columns.reset();
+            for (int i = 0; i < count; i++) {
+                long start = block[i].getStartMillis();
+                writeVarLong(columns, zigZagEncode(start - previousStart));
+                previousStart = start;
+            }
+            for (int i = 0; i < count; i++) {
+                writeVarLong(columns, block[i].getEndMillis() - block[i].getStartMillis());
+            }
+            for (int i = 0; i < count; i++) {
+                writeVarLong(columns, block[i].getPlannedSeconds());
+            }
+            for (int i = 0; i < count; i++) {
+                writeVarLong(columns, block[i].getActualSeconds());
+            }
+            for (int i = 0; i < count; i++) {
+                writeVarLong(columns, block[i].getInterruptions());
+            }
+            for (int i = 0; i < count; i++) {
+                columns.write(block[i].getPhase().ordinal());
+            }
+            for (int i = 0; i < count; i++) {
+                columns.write((block[i].isCompleted() ? 1 : 0) | (block[i].isCycleCompleted() ? 2 : 0));
+            }
+            for (int i = 0; i < count; i++) {
+                writeVarLong(columns, block[i].getTaskId() & 0xFFFFFFFFL);
+            }
+            
+            out.writeInt(count);
+            out.writeInt(columns.size());
+            columns.writeTo(out);
+            crc.reset();
+            crc.update(columns.array(), 0, columns.size());
+            out.writeInt((int) crc.getValue());
+            
+            Arrays.fill(block, 0, count, null);
+            count = 0;
+        }
+    }
+    
+    /**
+     * Reusable column buffer whose bytes can be checksummed without copying.
+     */
+    private static class ColumnBuffer extends ByteArrayOutputStream {
+        ColumnBuffer() {
+            super(BLOCK_SIZE * 16);
+        }
+        
+        byte[] array() {
+            return buf;
+        }
+    }
+    
+    /**
+     * Appends new sessions to the journal, skipping known ones and throttling to the disk.
+     */
+    private static class Importer {
+        private final SessionJournal journal;
+        private final LongHashSet known;
+        private final long baseCount;
+        private long imported;
+        private long duplicates;
+        
+        Importer(SessionJournal journal, LongHashSet known) {
+            this.journal = journal;
+            this.known = known;
+            this.baseCount = journal.getRecordCount();
+        }
+        
+        void add(PhaseEvent event) throws IOException, InterruptedException {
+            if (!known.add(key(event))) {
+                duplicates++;
+                return;
+            }
+            journal.append(event);
+            imported++;
+            if (imported % BLOCK_SIZE == 0) {
+                // Keep at most one block queued so memory stays bounded
+                awaitWritten(imported - BLOCK_SIZE);
+            }
+        }
+        
+        void finish() throws IOException, InterruptedException {
+            awaitWritten(imported);
+        }
+        
+        private void awaitWritten(long records) throws IOException, InterruptedException {
+            if (!journal.awaitRecordCount(baseCount + records, JOURNAL_WAIT_MS)) {
+                throw new IOException("Timed out writing imported sessions to the journal");
+            }
+        }
+    }
+    
+    /**
+     * Identity of a session for deduplication: every stored field except the task id,
+     * hashed to 64 bits. The task is left out so that importing an export from before
+     * sessions carried task ids does not add the same sessions again without their task.
+     */
+    static long key(PhaseEvent event) {
+        long h = event.getStartMillis();
+        h = h * 0x9E3779B97F4A7C15L + event.getEndMillis();
+        h = h * 0x9E3779B97F4A7C15L + event.getPlannedSeconds();
+        h = h * 0x9E3779B97F4A7C15L + event.getActualSeconds();
+        h = h * 0x9E3779B97F4A7C15L + event.getInterruptions();
+        h = h * 0x9E3779B97F4A7C15L + event.getPhase().ordinal();
+        h = h * 0x9E3779B97F4A7C15L + (event.isCompleted() ? 1 : 0) + (event.isCycleCompleted() ? 2 : 0);
+        h ^= h >>> 31;
+        return h * 0xBF58476D1CE4E5B9L;
+    }
+    
+    private static void reportProgress(long done, long total, DoubleConsumer progress) {
+        if (done % PROGRESS_INTERVAL == 0 && total > 0) {
+            progress.accept(Math.min(1.0, (double) done / total));
+        }
+    }
+    
+    private static long zigZagEncode(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+    
+    private static long zigZagDecode(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+    
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+    
+    private static long readVarLong(byte[] data, int limit, int[] position) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (position[0] >= limit) {
+                throw new IOException("Truncated block");
+            }
+            byte b = data[position[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+    
+    private static void skipVarLongs(byte[] data, int limit, int[] position, int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            readVarLong(data, limit, position);
+        }
+    }
+    
+    /**
+     * Counts bytes read, for progress reporting.
+     */
+    private static class CountingInputStream extends FilterInputStream {
+        private volatile long count;
+        
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+        
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+        
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.gooddaytolearn;
+
+import javax.swing.*;
+import java.awt.Component;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.DoubleConsumer;
+
+/**
+ * Runs a history export or import on a background thread with a progress monitor.
+ * The monitor's cancel button interrupts the task.
+ */
+public class HistoryTransferWorker extends SwingWorker<String, Void> {
+    
+    /**
+     * A transfer task. Returns the message shown when it finishes.
+     */
+    public interface Task {
+        String run(DoubleConsumer progress) throws Exception;
+    }
+    
+    private final Component parent;
+    private final String title;
+    private final Task task;
+    private final Runnable onFinished;
+    private final ProgressMonitor monitor;
+    
+    /**
+     * Create a worker. Call {@link #execute()} to start it.
+     *
+     * @param parent Component the progress monitor and result message belong to
+     * @param title Operation name, e.g. "Exporting history"
+     * @param task Work to run off the EDT
+     * @param onFinished Called on the EDT after the task ends, successfully or not
+     */
+    public HistoryTransferWorker(Component parent, String title, Task task, Runnable onFinished) {
+        this.parent = parent;
+        this.title = title;
+        this.task = task;
+        this.onFinished = onFinished;
+        
+        monitor = new ProgressMonitor(parent, title, null, 0, 100);
+        monitor.setMillisToDecideToPopup(200);
+        addPropertyChangeListener(event -> {
+            if ("progress".equals(event.getPropertyName())) {
+                monitor.setProgress((Integer) event.getNewValue());
+                if (monitor.isCanceled()) {
+                    cancel(true);
+                }
+            }
+        });
+    }
+    
+    @Override
+    protected String doInBackground() throws Exception {
+        return task.run(fraction -> {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new CancelledTransferException();
+            }
+            setProgress((int) Math.round(fraction * 100));
+        });
+    }
+    
+    @Override
+    protected void done() {
+        monitor.close();
+        try {
+            JOptionPane.showMessageDialog(parent, get(), title, JOptionPane.INFORMATION_MESSAGE);
+        } catch (CancellationException e) {
+            // Cancelled from the progress monitor
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (!(cause instanceof CancelledTransferException)) {
+                System.err.println(title + " failed: " + cause.getMessage());
+                JOptionPane.showMessageDialog(parent, title + " failed:\n" + cause.getMessage(), title,
+                    JOptionPane.ERROR_MESSAGE);
+            }
+        }
+        onFinished.run();
+    }
+    
+    /**
+     * Thrown from the progress callback to stop a task that was cancelled.
+     */
+    private static class CancelledTransferException extends RuntimeException {
+        CancelledTransferException() {
+            super("Cancelled");
+        }
+    }
+}
@@ -0,0 +1,355 @@
+package com.gooddaytolearn;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streaming reader for the busy time in an iCalendar (.ics) file.
+ *
+ * The file is read one unfolded line at a time and only the few properties that place
+ * an event in time are kept, so memory depends on the number of relevant events rather
+ * than the file size. One-off events that ended before the cut-off are dropped as they
+ * are read; recurring series are kept as their rule and expanded later, one range at a
+ * time. All-day, free (TRANSP:TRANSPARENT) and cancelled events are not busy time.
+ * Modified instances of a series (RECURRENCE-ID) replace the instance they override.
+ */
+public final class IcsParser {
+    
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+    private static final DateTimeFormatter DATE = DateTimeFormatter.BASIC_ISO_DATE;
+    
+    /**
+     * Receives the busy blocks of an expanded entry.
+     */
+    public interface BusyConsumer {
+        void accept(long startMillis, long endMillis, String summary);
+    }
+    
+    /**
+     * One busy event: a single meeting or a recurring series.
+     */
+    public static final class Entry {
+        private final String summary;
+        private final ZonedDateTime start;
+        private final long durationMillis;
+        private final RecurrenceRule rule;
+        private long[] excluded; // Sorted start times of instances left out of the series
+        
+        Entry(String summary, ZonedDateTime start, long durationMillis, RecurrenceRule rule, long[] excluded) {
+            this.summary = summary;
+            this.start = start;
+            this.durationMillis = durationMillis;
+            this.rule = rule;
+            this.excluded = excluded;
+        }
+        
+        /**
+         * Report every occurrence of this entry that overlaps [fromMillis, toMillis).
+         */
+        public void expand(long fromMillis, long toMillis, BusyConsumer consumer) {
+            if (rule == null) {
+                long startMillis = start.toInstant().toEpochMilli();
+                if (startMillis < toMillis && startMillis + durationMillis > fromMillis) {
+                    consumer.accept(startMillis, startMillis + durationMillis, summary);
+                }
+                return;
+            }
+            rule.expand(start, fromMillis - durationMillis + 1, toMillis, occurrence -> {
+                if (Arrays.binarySearch(excluded, occurrence) < 0) {
+                    consumer.accept(occurrence, occurrence + durationMillis, summary);
+                }
+            });
+        }
+        
+        public boolean isRecurring() {
+            return rule != null;
+        }
+        
+        private void exclude(List<Long> instances) {
+            long[] merged = Arrays.copyOf(excluded, excluded.length + instances.size());
+            for (int i = 0; i < instances.size(); i++) {
+                merged[excluded.length + i] = instances.get(i);
+            }
+            Arrays.sort(merged);
+            excluded = merged;
+        }
+    }
+    
+    /**
+     * Properties of the event being read.
+     */
+    private static final class EventState {
+        String uid;
+        String summary = "";
+        ZonedDateTime start;
+        boolean allDay;
+        long endMillis = -1;
+        long durationMillis = -1;
+        String rule;
+        final List<Long> excluded = new ArrayList<>();
+        long recurrenceId = -1;
+        boolean free;
+        boolean cancelled;
+    }
+    
+    private IcsParser() {
+    }
+    
+    /**
+     * Read the busy events from a calendar file.
+     *
+     * @param keepAfterMillis Events that end before this time are dropped
+     */
+    public static List<Entry> parse(Path path, long keepAfterMillis) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        Map<String, List<Entry>> seriesByUid = new HashMap<>();
+        Map<String, List<Long>> overriddenByUid = new HashMap<>();
+        
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            EventState event = null;
+            String nested = null; // Component inside the event, such as VALARM, whose lines are skipped
+            StringBuilder logical = new StringBuilder();
+            String line = reader.readLine();
+            while (line != null) {
+                // Unfold: lines starting with a space or tab continue the previous one
+                logical.setLength(0);
+                logical.append(line);
+                line = reader.readLine();
+                while (line != null && !line.isEmpty() && (line.charAt(0) == ' ' || line.charAt(0) == '\t')) {
+                    logical.append(line, 1, line.length());
+                    line = reader.readLine();
+                }
+                String content = logical.toString();
+                
+                if (content.equalsIgnoreCase("BEGIN:VEVENT")) {
+                    event = new EventState();
+                } else if (event == null) {
+                    continue;
+                } else if (nested != null) {
+                    if (content.equalsIgnoreCase("END:" + nested)) {
+                        nested = null;
+                    }
+                } else if (content.regionMatches(true, 0, "BEGIN:", 0, 6)) {
+                    nested = content.substring(6).trim();
+                } else if (content.equalsIgnoreCase("END:VEVENT")) {
+                    finishEvent(event, keepAfterMillis, entries, seriesByUid, overriddenByUid);
+                    event = null;
+                } else {
+                    readProperty(content, event);
+                }
+            }
+        }
+        
+        // Modified instances may come before or after their series
+        for (Map.Entry<String, List<Long>> overridden : overriddenByUid.entrySet()) {
+            List<Entry> series = seriesByUid.get(overridden.getKey());
+            if (series != null) {
+                for (Entry entry : series) {
+                    entry.exclude(overridden.getValue());
+                }
+            }
+        }
+        return entries;
+    }
+    
+    /**
+     * Store one property of the event being read.
+     */
+    private static void readProperty(String content, EventState event) {
+        int colon = valueSeparator(content);
+        if (colon < 0) {
+            return;
+        }
+        String[] nameAndParams = content.substring(0, colon).split(";");
+        String name = nameAndParams[0].trim().toUpperCase();
+        String value = content.substring(colon + 1).trim();
+        ZoneId zone = zoneOf(nameAndParams);
+        
+        try {
+            switch (name) {
+                case "UID":
+                    event.uid = value;
+                    break;
+                case "SUMMARY":
+                    event.summary = unescape(value);
+                    break;
+                case "DTSTART":
+                    event.allDay = value.length() == 8;
+                    event.start = event.allDay ? LocalDate.parse(value, DATE).atStartOfDay(zone)
+                        : parseZoned(value, zone);
+                    break;
+                case "DTEND":
+                    event.endMillis = parseDateTime(value, zone);
+                    break;
+                case "DURATION":
+                    event.durationMillis = parseDuration(value);
+                    break;
+                case "RRULE":
+                    event.rule = value;
+                    break;
+                case "EXDATE":
+                    for (String date : value.split(",")) {
+                        event.excluded.add(parseDateTime(date.trim(), zone));
+                    }
+                    break;
+                case "RECURRENCE-ID":
+                    event.recurrenceId = parseDateTime(value, zone);
+                    break;
+                case "TRANSP":
+                    event.free = value.equalsIgnoreCase("TRANSPARENT");
+                    break;
+                case "STATUS":
+                    event.cancelled = value.equalsIgnoreCase("CANCELLED");
+                    break;
+                default:
+                    break;
+            }
+        } catch (DateTimeException | IllegalArgumentException e) {
+            System.err.println("Ignoring malformed calendar line: " + content);
+        }
+    }
+    
+    /**
+     * Turn a finished event into an entry, unless it is not busy time or is over.
+     */
+    private static void finishEvent(EventState event, long keepAfterMillis, List<Entry> entries,
+                                    Map<String, List<Entry>> seriesByUid,
+                                    Map<String, List<Long>> overriddenByUid) {
+        if (event.recurrenceId >= 0 && event.uid != null) {
+            // Even a cancelled modification removes the instance it replaces
+            overriddenByUid.computeIfAbsent(event.uid, uid -> new ArrayList<>()).add(event.recurrenceId);
+        }
+        if (event.start == null || event.allDay || event.free || event.cancelled) {
+            return;
+        }
+        
+        long startMillis = event.start.toInstant().toEpochMilli();
+        long duration = event.endMillis >= 0 ? event.endMillis - startMillis : event.durationMillis;
+        if (duration <= 0) {
+            return;
+        }
+        
+        RecurrenceRule rule = null;
+        if (event.rule != null && event.recurrenceId < 0) {
+            rule = RecurrenceRule.parse(event.rule, event.start.getZone());
+            if (rule == null || rule.endsBefore(keepAfterMillis)) {
+                return;
+            }
+        } else if (startMillis + duration < keepAfterMillis) {
+            return;
+        }
+        
+        long[] excluded = new long[event.excluded.size()];
+        for (int i = 0; i < excluded.length; i++) {
+            excluded[i] = event.excluded.get(i);
+        }
+        Arrays.sort(excluded);
+        Entry entry = new Entry(event.summary, event.start, duration, rule, excluded);
+        entries.add(entry);
+        if (rule != null && event.uid != null) {
+            seriesByUid.computeIfAbsent(event.uid, uid -> new ArrayList<>()).add(entry);
+        }
+    }
+    
+    /**
+     * Find the colon between a property's name and parameters and its value, skipping quoted parameters.
+     */
+    private static int valueSeparator(String content) {
+        boolean quoted = false;
+        for (int i = 0; i < content.length(); i++) {
+            char c = content.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (c == ':' && !quoted) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * Get the zone named by a TZID parameter, or the system zone for floating times
+     * and zones Java does not know, such as Windows zone names.
+     */
+    private static ZoneId zoneOf(String[] nameAndParams) {
+        for (int i = 1; i < nameAndParams.length; i++) {
+            String param = nameAndParams[i].trim();
+            if (param.regionMatches(true, 0, "TZID=", 0, 5)) {
+                String id = param.substring(5).replace("\"", "");
+                try {
+                    return ZoneId.of(id);
+                } catch (DateTimeException e) {
+                    return ZoneId.systemDefault();
+                }
+            }
+        }
+        return ZoneId.systemDefault();
+    }
+    
+    /**
+     * Parse a DATE or DATE-TIME value to epoch milliseconds. A trailing Z means UTC,
+     * otherwise the time is local to the given zone.
+     */
+    static long parseDateTime(String value, ZoneId zone) {
+        if (value.length() == 8) {
+            return LocalDate.parse(value, DATE).atStartOfDay(zone).toInstant().toEpochMilli();
+        }
+        return parseZoned(value, zone).toInstant().toEpochMilli();
+    }
+    
+    private static ZonedDateTime parseZoned(String value, ZoneId zone) {
+        if (value.endsWith("Z") || value.endsWith("z")) {
+            return LocalDateTime.parse(value.substring(0, value.length() - 1), DATE_TIME).atZone(ZoneOffset.UTC);
+        }
+        return LocalDateTime.parse(value, DATE_TIME).atZone(zone);
+    }
+    
+    /**
+     * Parse a DURATION value such as PT1H30M, P1D or P2W.
+     */
+    static long parseDuration(String value) {
+        String duration = value.startsWith("+") ? value.substring(1) : value;
+        int weeks = duration.indexOf('W');
+        if (weeks > 0) {
+            int sign = duration.startsWith("-") ? -1 : 1;
+            return sign * Long.parseLong(duration.substring(sign < 0 ? 2 : 1, weeks)) * 7 * 24 * 3600_000L;
+        }
+        return Duration.parse(duration).toMillis();
+    }
+    
+    /**
+     * Undo iCalendar text escaping.
+     */
+    private static String unescape(String text) {
+        if (text.indexOf('\\') < 0) {
+            return text;
+        }
+        StringBuilder unescaped = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\\' && i + 1 < text.length()) {
+                char next = text.charAt(++i);
+                unescaped.append(next == 'n' || next == 'N' ? ' ' : next);
+            } else {
+                unescaped.append(c);
+            }
+        }
+        return unescaped.toString();
+    }
+}
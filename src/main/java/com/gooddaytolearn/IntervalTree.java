@@ -0,0 +1,110 @@
+package com.gooddaytolearn;
+
+import java.util.Arrays;
+
+/**
+ * Immutable interval tree over half-open [start, end) time ranges.
+ *
+ * The intervals are sorted by start and stored in arrays that form an implicit
+ * balanced tree: the middle of every index range is the root of that range. Each node
+ * also stores the latest end in its subtree, so whole subtrees that end before a query
+ * are skipped and the earliest overlapping interval is found in O(log n).
+ */
+public class IntervalTree {
+    
+    private static final IntervalTree EMPTY = new IntervalTree(new long[0], new long[0], new String[0], 0);
+    
+    private final long[] starts;
+    private final long[] ends;
+    private final long[] maxEnds;
+    private final String[] labels;
+    
+    /**
+     * Build a tree from the first {@code count} intervals of the arrays, which are not modified.
+     */
+    public IntervalTree(long[] starts, long[] ends, String[] labels, int count) {
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(starts[a], starts[b]));
+        
+        this.starts = new long[count];
+        this.ends = new long[count];
+        this.labels = new String[count];
+        for (int i = 0; i < count; i++) {
+            this.starts[i] = starts[order[i]];
+            this.ends[i] = ends[order[i]];
+            this.labels[i] = labels[order[i]];
+        }
+        this.maxEnds = new long[count];
+        buildMaxEnds(0, count);
+    }
+    
+    public static IntervalTree empty() {
+        return EMPTY;
+    }
+    
+    /**
+     * Find the earliest-starting interval that overlaps [from, to).
+     *
+     * @return its index, or -1 if none overlaps
+     */
+    public int firstOverlap(long from, long to) {
+        return firstOverlap(0, starts.length, from, to);
+    }
+    
+    public int size() {
+        return starts.length;
+    }
+    
+    public long getStart(int index) {
+        return starts[index];
+    }
+    
+    public long getEnd(int index) {
+        return ends[index];
+    }
+    
+    public String getLabel(int index) {
+        return labels[index];
+    }
+    
+    /**
+     * Fill in the latest end of the subtree rooted at the middle of [low, high).
+     *
+     * @return that end, or Long.MIN_VALUE for an empty range
+     */
+    private long buildMaxEnds(int low, int high) {
+        if (low >= high) {
+            return Long.MIN_VALUE;
+        }
+        int middle = (low + high) >>> 1;
+        long max = Math.max(ends[middle], Math.max(buildMaxEnds(low, middle), buildMaxEnds(middle + 1, high)));
+        maxEnds[middle] = max;
+        return max;
+    }
+    
+    private int firstOverlap(int low, int high, long from, long to) {
+        if (low >= high) {
+            return -1;
+        }
+        int middle = (low + high) >>> 1;
+        if (maxEnds[middle] <= from) {
+            // Everything in this subtree ends before the query
+            return -1;
+        }
+        int left = firstOverlap(low, middle, from, to);
+        if (left >= 0) {
+            return left;
+        }
+        if (starts[middle] >= to) {
+            // Sorted by start, so nothing to the right can overlap either
+            return -1;
+        }
+        if (ends[middle] > from) {
+            return middle;
+        }
+        return firstOverlap(middle + 1, high, from, to);
+    }
+}
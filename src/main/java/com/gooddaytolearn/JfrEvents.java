@@ -0,0 +1,124 @@
+package com.gooddaytolearn;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Java Flight Recorder events emitted by the app.
+ *
+ * Events are only written while a recording has them enabled, e.g. with
+ * {@code -XX:StartFlightRecording}. Otherwise creating and committing one costs a
+ * field check, and the JIT removes the allocation.
+ */
+final class JfrEvents {
+    
+    private static final String CATEGORY = "Good Day To Learn";
+    
+    private JfrEvents() {
+    }
+    
+    @Name("com.gooddaytolearn.PhaseTransition")
+    @Label("Phase Transition")
+    @Description("A timer phase ended, completed or abandoned")
+    @Category({CATEGORY, "Timer"})
+    @StackTrace(false)
+    static class PhaseTransition extends Event {
+        @Label("Phase")
+        String phase;
+        
+        @Label("Completed")
+        boolean completed;
+        
+        @Label("Planned Duration")
+        @Timespan(Timespan.SECONDS)
+        long plannedSeconds;
+        
+        @Label("Actual Duration")
+        @Timespan(Timespan.SECONDS)
+        long actualSeconds;
+        
+        @Label("Interruptions")
+        int interruptions;
+    }
+    
+    @Name("com.gooddaytolearn.TickLateness")
+    @Label("Timer Tick")
+    @Description("How late a countdown tick ran compared to its schedule")
+    @Category({CATEGORY, "Timer"})
+    @StackTrace(false)
+    static class TickLateness extends Event {
+        @Label("Lateness")
+        @Timespan(Timespan.MILLISECONDS)
+        long lateness;
+    }
+    
+    @Name("com.gooddaytolearn.AudioLoad")
+    @Label("Audio Load")
+    @Description("Opening and decoding an audio file into a clip; the event duration covers both")
+    @Category({CATEGORY, "Audio"})
+    @StackTrace(false)
+    static class AudioLoad extends Event {
+        @Label("Path")
+        String path;
+        
+        @Label("External File")
+        boolean external;
+        
+        @Label("Decode Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long decodeNanos;
+        
+        @Label("Decoded Size")
+        @DataAmount
+        long bytes;
+        
+        @Label("Success")
+        boolean success;
+    }
+    
+    @Name("com.gooddaytolearn.AlarmStart")
+    @Label("Alarm Start")
+    @Description("Delay between requesting the alarm and the audio line starting")
+    @Category({CATEGORY, "Audio"})
+    @StackTrace(false)
+    static class AlarmStart extends Event {
+        @Label("Latency")
+        @Timespan(Timespan.NANOSECONDS)
+        long latency;
+    }
+    
+    @Name("com.gooddaytolearn.AudioUnderrun")
+    @Label("Audio Underrun")
+    @Description("The soundscape output line ran dry and the lead kept queued ahead was raised")
+    @Category({CATEGORY, "Audio"})
+    @StackTrace(false)
+    static class AudioUnderrun extends Event {
+        @Label("Previous Lead")
+        @Timespan(Timespan.MICROSECONDS)
+        long previousLead;
+        
+        @Label("Lead")
+        @Timespan(Timespan.MICROSECONDS)
+        long lead;
+    }
+    
+    @Name("com.gooddaytolearn.Paint")
+    @Label("Paint")
+    @Description("Custom paint code of a main window component, on the EDT")
+    @Category({CATEGORY, "UI"})
+    @StackTrace(false)
+    static class Paint extends Event {
+        @Label("Component")
+        String component;
+        
+        Paint(String component) {
+            this.component = component;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.gooddaytolearn;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from primitive longs to objects.
+ *
+ * Keys and values live in two parallel arrays, so lookups neither box the key nor
+ * allocate, unlike a {@code HashMap<Long, V>}. Removal shifts later entries of the
+ * probe run back instead of leaving tombstones.
+ */
+class LongHashMap<V> {
+    
+    private static final long EMPTY = 0L;
+    private static final long ZERO_KEY = 0x9E3779B97F4A7C15L; // Stands in for a real key of 0
+    
+    private long[] keys;
+    private Object[] values;
+    private int size;
+    
+    /**
+     * Create a map sized for the expected number of keys.
+     */
+    LongHashMap(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(16, expected * 2 - 1)) << 1;
+        keys = new long[capacity];
+        values = new Object[capacity];
+    }
+    
+    /**
+     * Get the value for a key.
+     *
+     * @return the value, or null if the key is absent
+     */
+    @SuppressWarnings("unchecked")
+    V get(long key) {
+        int index = find(key);
+        return index >= 0 ? (V) values[index] : null;
+    }
+    
+    /**
+     * Set the value for a key.
+     *
+     * @return the previous value, or null if the key was absent
+     */
+    @SuppressWarnings("unchecked")
+    V put(long key, V value) {
+        if (key == EMPTY) {
+            key = ZERO_KEY;
+        }
+        if ((size + 1) * 2 > keys.length) {
+            grow();
+        }
+        int mask = keys.length - 1;
+        int index = mix(key) & mask;
+        while (keys[index] != EMPTY) {
+            if (keys[index] == key) {
+                V previous = (V) values[index];
+                values[index] = value;
+                return previous;
+            }
+            index = (index + 1) & mask;
+        }
+        keys[index] = key;
+        values[index] = value;
+        size++;
+        return null;
+    }
+    
+    /**
+     * Remove a key.
+     *
+     * @return the value it had, or null if it was absent
+     */
+    @SuppressWarnings("unchecked")
+    V remove(long key) {
+        int index = find(key);
+        if (index < 0) {
+            return null;
+        }
+        V removed = (V) values[index];
+        int mask = keys.length - 1;
+        int gap = index;
+        int next = (gap + 1) & mask;
+        while (keys[next] != EMPTY) {
+            // Move an entry into the gap unless its home slot lies between the gap and it
+            int home = mix(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[gap] = EMPTY;
+        values[gap] = null;
+        size--;
+        return removed;
+    }
+    
+    void clear() {
+        Arrays.fill(keys, EMPTY);
+        Arrays.fill(values, null);
+        size = 0;
+    }
+    
+    int size() {
+        return size;
+    }
+    
+    /**
+     * @return the table index holding the key, or -1 if it is absent
+     */
+    private int find(long key) {
+        if (key == EMPTY) {
+            key = ZERO_KEY;
+        }
+        int mask = keys.length - 1;
+        int index = mix(key) & mask;
+        while (keys[index] != EMPTY) {
+            if (keys[index] == key) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+    
+    /**
+     * Double the table and reinsert every entry.
+     */
+    private void grow() {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new Object[oldKeys.length * 2];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int index = mix(oldKeys[i]) & mask;
+                while (keys[index] != EMPTY) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+    
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,76 @@
+package com.gooddaytolearn;
+
+/**
+ * Open-addressing hash set of primitive longs.
+ *
+ * Uses one long array and no per-entry objects, so a few million keys cost
+ * 16 bytes each instead of a boxed HashSet's ~60.
+ */
+class LongHashSet {
+    
+    private static final long EMPTY = 0L;
+    private static final long ZERO_KEY = 0x9E3779B97F4A7C15L; // Stands in for a real key of 0
+    
+    private long[] table;
+    private int size;
+    
+    /**
+     * Create a set sized for the expected number of keys.
+     */
+    LongHashSet(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(16, expected * 2 - 1)) << 1;
+        table = new long[capacity];
+    }
+    
+    /**
+     * Add a key.
+     *
+     * @return true if the key was not already present
+     */
+    boolean add(long key) {
+        if (key == EMPTY) {
+            key = ZERO_KEY;
+        }
+        if ((size + 1) * 2 > table.length) {
+            grow();
+        }
+        int mask = table.length - 1;
+        int index = mix(key) & mask;
+        while (table[index] != EMPTY) {
+            if (table[index] == key) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+        table[index] = key;
+        size++;
+        return true;
+    }
+    
+    int size() {
+        return size;
+    }
+    
+    /**
+     * Double the table and reinsert every key.
+     */
+    private void grow() {
+        long[] old = table;
+        table = new long[old.length * 2];
+        int mask = table.length - 1;
+        for (long key : old) {
+            if (key != EMPTY) {
+                int index = mix(key) & mask;
+                while (table[index] != EMPTY) {
+                    index = (index + 1) & mask;
+                }
+                table[index] = key;
+            }
+        }
+    }
+    
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -2,6 +2,8 @@ package com.gooddaytolearn;
 
 import javax.swing.SwingUtilities;
 import javax.swing.UIManager;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 /**
  * Good Day To Learn - A Pomodoro Timer Application
@@ -14,6 +16,20 @@ public class Main {
      * Main entry point for the application.
      */
     public static void main(String[] args) {
+        StartupTimer.begin();
+        long phase = StartupTimer.phaseStart();
+        
+        // Keep the events leading up to a crash for the bug report
+        Thread.setDefaultUncaughtExceptionHandler((thread, error) -> {
+            FlightRecorder.record(FlightRecorder.Type.ERROR, "Uncaught exception");
+            System.err.println("Uncaught exception in thread " + thread.getName() + ":");
+            error.printStackTrace();
+            Path dump = FlightRecorder.dumpCrash();
+            if (dump != null) {
+                System.err.println("Flight recording saved to " + dump);
+            }
+        });
+        
         // Set modern dark look and feel
         try {
             // Try to use FlatLaf Dark theme for better modern appearance
@@ -29,25 +45,34 @@ public class Main {
             UIManager.put("ScrollBar.width", 8);
             
             // Set default colors for better consistency
-            UIManager.put("Panel.background", AppConfig.COLORS.get("background"));
-            UIManager.put("Button.background", AppConfig.COLORS.get("button_bg"));
-            UIManager.put("TextField.background", AppConfig.COLORS.get("button_bg"));
-            UIManager.put("Spinner.background", AppConfig.COLORS.get("button_bg"));
-            UIManager.put("Slider.background", AppConfig.COLORS.get("background"));
+            ThemeManager.installDefaults();
             
             // Smooth font rendering
             System.setProperty("awt.useSystemAAFontSettings", "on");
             System.setProperty("swing.aatext", "true");
-            
+        
         } catch (Exception e) {
             System.err.println("Could not set look and feel: " + e.getMessage());
         }
+        StartupTimer.phaseEnd("Look and feel", phase);
+        
+        // Saved settings are needed before the window is built; one small read
+        phase = StartupTimer.phaseStart();
+        SettingsStore settingsStore = new SettingsStore(Paths.get(AppConfig.DATA_DIR, AppConfig.SETTINGS_FILE));
+        settingsStore.load();
+        StartupTimer.phaseEnd("Settings load", phase);
         
         // Create and show the application on the Event Dispatch Thread
         SwingUtilities.invokeLater(() -> {
             try {
-                GoodDayToLearnApp app = new GoodDayToLearnApp();
+                ThemeManager.setTheme(settingsStore.get().getTheme());
+                GoodDayToLearnApp app = new GoodDayToLearnApp(settingsStore);
+                long showPhase = StartupTimer.phaseStart();
                 app.setVisible(true);
+                StartupTimer.phaseEnd("Window shown", showPhase);
+                
+                // Window is up; audio and tray load in the background
+                app.startBackgroundInit();
             } catch (Exception e) {
                 System.err.println("Error starting application: " + e.getMessage());
                 e.printStackTrace();
@@ -0,0 +1,57 @@
+package com.gooddaytolearn;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Application-wide performance metrics, shared by the code that records them
+ * and the diagnostics panel that shows them.
+ */
+public class Metrics {
+    
+    // Delay between posting an event to the EDT and it running
+    public static final LatencyHistogram EDT_LATENCY = new LatencyHistogram("EDT latency");
+    
+    // Time spent in the main window's custom paint code
+    public static final LatencyHistogram PAINT_TIME = new LatencyHistogram("Paint time");
+    
+    // How late each timer tick ran compared to its schedule
+    public static final LatencyHistogram TICK_LATENESS = new LatencyHistogram("Tick lateness");
+    
+    // Opening and decoding an audio file into a clip
+    public static final LatencyHistogram AUDIO_LOAD_TIME = new LatencyHistogram("Audio load");
+    
+    // Delay between requesting the alarm and its audio line starting
+    public static final LatencyHistogram ALARM_START_LATENCY = new LatencyHistogram("Alarm start");
+    
+    // Mixing one block of the soundscape, which must stay far below the block's play time
+    public static final LatencyHistogram MIX_BLOCK_TIME = new LatencyHistogram("Mix block");
+    
+    // Phase hooks: time spent waiting for a worker, and running
+    public static final LatencyHistogram HOOK_QUEUE_DELAY = new LatencyHistogram("Hook queue");
+    public static final LatencyHistogram HOOK_RUN_TIME = new LatencyHistogram("Hook run");
+    
+    // Finished phases, indexed by Phase ordinal
+    public static final AtomicLongArray PHASES_COMPLETED = new AtomicLongArray(Phase.values().length);
+    public static final AtomicLongArray PHASES_ABANDONED = new AtomicLongArray(Phase.values().length);
+    
+    public static final AtomicLong AUDIO_LOAD_FAILURES = new AtomicLong();
+    public static final AtomicLong ALARMS_PLAYED = new AtomicLong();
+    
+    // Low-memory mode: music released while not needed, and where it came back from
+    public static final AtomicLong MUSIC_RELEASES = new AtomicLong();
+    public static final AtomicLong AUDIO_CACHE_MEMORY_HITS = new AtomicLong();
+    public static final AtomicLong AUDIO_CACHE_DISK_HITS = new AtomicLong();
+    
+    // Soundscape output: times the line ran dry, and the audio currently kept queued ahead (a gauge)
+    public static final AtomicLong AUDIO_UNDERRUNS = new AtomicLong();
+    public static final AtomicLong AUDIO_BUFFER_MICROS = new AtomicLong();
+    
+    public static final AtomicLong HOOKS_RUN = new AtomicLong();
+    public static final AtomicLong HOOKS_FAILED = new AtomicLong();
+    public static final AtomicLong HOOKS_TIMED_OUT = new AtomicLong();
+    public static final AtomicLong HOOKS_DROPPED = new AtomicLong();
+    
+    private Metrics() {
+    }
+}
@@ -0,0 +1,212 @@
+package com.gooddaytolearn;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Serves {@link Metrics} in the Prometheus text exposition format on {@code /metrics}.
+ *
+ * The server binds to the loopback address only and handles one scrape at a time on
+ * a daemon thread. Latency histograms are reported as Prometheus histograms over a
+ * fixed set of bounds; each bound is rounded up to the histogram's own resolution,
+ * so a bucket may include values up to 12.5% above its {@code le} label.
+ */
+public class MetricsServer {
+    
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    private static final String PREFIX = "gooddaytolearn_";
+    
+    // Bucket bounds in seconds, as written in the le label
+    private static final String[] BUCKET_LABELS = {
+        "0.0001", "0.0005", "0.001", "0.0025", "0.005", "0.01", "0.025", "0.05",
+        "0.1", "0.25", "0.5", "1", "2.5", "5", "10"
+    };
+    private static final long[] BUCKET_NANOS = new long[BUCKET_LABELS.length];
+    
+    static {
+        for (int i = 0; i < BUCKET_LABELS.length; i++) {
+            BUCKET_NANOS[i] = Math.round(Double.parseDouble(BUCKET_LABELS[i]) * 1e9);
+        }
+    }
+    
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final PomodoroTimer timer;
+    
+    private MetricsServer(HttpServer server, ExecutorService executor, PomodoroTimer timer) {
+        this.server = server;
+        this.executor = executor;
+        this.timer = timer;
+    }
+    
+    /**
+     * Start serving metrics on the given local port.
+     *
+     * @param timer Timer whose current state is reported as gauges
+     */
+    public static MetricsServer start(int port, PomodoroTimer timer) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "MetricsServer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        MetricsServer metricsServer = new MetricsServer(server, executor, timer);
+        server.createContext("/metrics", metricsServer::handle);
+        server.setExecutor(executor);
+        server.start();
+        return metricsServer;
+    }
+    
+    /**
+     * Stop the server without waiting for scrapes in progress.
+     */
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+    
+    /**
+     * Answer one scrape.
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod()) && !"HEAD".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = scrape().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            if ("HEAD".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+    
+    /**
+     * Render every metric in the text exposition format.
+     */
+    String scrape() {
+        StringBuilder text = new StringBuilder(8192);
+        
+        appendHistogram(text, "edt_latency_seconds",
+            "Delay between posting an event to the EDT and it running", Metrics.EDT_LATENCY);
+        appendHistogram(text, "paint_seconds",
+            "Time spent in the main window's custom paint code", Metrics.PAINT_TIME);
+        appendHistogram(text, "tick_lateness_seconds",
+            "How late each timer tick ran compared to its schedule", Metrics.TICK_LATENESS);
+        appendHistogram(text, "audio_load_seconds",
+            "Time to open and decode an audio file", Metrics.AUDIO_LOAD_TIME);
+        appendHistogram(text, "alarm_start_seconds",
+            "Delay between requesting the alarm and its audio line starting", Metrics.ALARM_START_LATENCY);
+        appendHistogram(text, "mix_block_seconds",
+            "Time to mix one block of the soundscape layers", Metrics.MIX_BLOCK_TIME);
+        appendHistogram(text, "hook_queue_seconds",
+            "Time a phase hook waited for a worker thread", Metrics.HOOK_QUEUE_DELAY);
+        appendHistogram(text, "hook_run_seconds", "Time a phase hook took to run", Metrics.HOOK_RUN_TIME);
+        
+        appendPhaseCounter(text, "phases_completed_total", "Phases that ran to the end", Metrics.PHASES_COMPLETED);
+        appendPhaseCounter(text, "phases_abandoned_total", "Phases reset before the end", Metrics.PHASES_ABANDONED);
+        appendCounter(text, "audio_load_failures_total", "Audio files that could not be loaded",
+            Metrics.AUDIO_LOAD_FAILURES);
+        appendCounter(text, "alarms_played_total", "Alarms played", Metrics.ALARMS_PLAYED);
+        appendCounter(text, "music_releases_total", "Times stopped music was released in low-memory mode",
+            Metrics.MUSIC_RELEASES);
+        appendCounter(text, "audio_cache_memory_hits_total", "Audio restored from a soft reference",
+            Metrics.AUDIO_CACHE_MEMORY_HITS);
+        appendCounter(text, "audio_cache_disk_hits_total", "Audio restored from the disk cache",
+            Metrics.AUDIO_CACHE_DISK_HITS);
+        appendCounter(text, "audio_underruns_total", "Times the soundscape output line ran dry",
+            Metrics.AUDIO_UNDERRUNS);
+        appendCounter(text, "hooks_run_total", "Phase hooks that succeeded", Metrics.HOOKS_RUN);
+        appendCounter(text, "hooks_failed_total", "Phase hooks that failed", Metrics.HOOKS_FAILED);
+        appendCounter(text, "hooks_timed_out_total", "Phase hooks killed after their timeout",
+            Metrics.HOOKS_TIMED_OUT);
+        appendCounter(text, "hooks_dropped_total", "Phase hook runs skipped because workers were busy",
+            Metrics.HOOKS_DROPPED);
+        
+        appendHeader(text, "audio_buffer_seconds", "gauge", "Soundscape audio kept queued ahead of playback");
+        appendSample(text, "audio_buffer_seconds", null, Metrics.AUDIO_BUFFER_MICROS.get() / 1e6);
+        appendHeader(text, "timer_running", "gauge", "1 while the timer is counting down");
+        appendSample(text, "timer_running", null, timer.isRunning() ? 1 : 0);
+        appendHeader(text, "timer_remaining_seconds", "gauge", "Time left in the current phase");
+        appendSample(text, "timer_remaining_seconds", null, timer.getRemainingNanos() / 1e9);
+        appendHeader(text, "timer_phase", "gauge", "1 for the current phase");
+        for (Phase phase : Phase.values()) {
+            appendSample(text, "timer_phase", phaseLabel(phase), timer.getPhase() == phase ? 1 : 0);
+        }
+        return text.toString();
+    }
+    
+    /**
+     * Append a latency histogram, converting nanoseconds to seconds.
+     */
+    private static void appendHistogram(StringBuilder text, String name, String help, LatencyHistogram histogram) {
+        appendHeader(text, name, "histogram", help);
+        // Read the total from the buckets, so +Inf always matches them
+        long total = histogram.getCountAtOrBelow(Long.MAX_VALUE);
+        for (int i = 0; i < BUCKET_LABELS.length; i++) {
+            long count = Math.min(total, histogram.getCountAtOrBelow(BUCKET_NANOS[i]));
+            appendSample(text, name + "_bucket", "le=\"" + BUCKET_LABELS[i] + "\"", count);
+        }
+        appendSample(text, name + "_bucket", "le=\"+Inf\"", total);
+        appendSample(text, name + "_sum", null, histogram.getSum() / 1e9);
+        appendSample(text, name + "_count", null, total);
+    }
+    
+    private static void appendPhaseCounter(StringBuilder text, String name, String help, AtomicLongArray counts) {
+        appendHeader(text, name, "counter", help);
+        for (Phase phase : Phase.values()) {
+            appendSample(text, name, phaseLabel(phase), counts.get(phase.ordinal()));
+        }
+    }
+    
+    private static void appendCounter(StringBuilder text, String name, String help, AtomicLong count) {
+        appendHeader(text, name, "counter", help);
+        appendSample(text, name, null, count.get());
+    }
+    
+    private static void appendHeader(StringBuilder text, String name, String type, String help) {
+        text.append("# HELP ").append(PREFIX).append(name).append(' ').append(help).append('\n');
+        text.append("# TYPE ").append(PREFIX).append(name).append(' ').append(type).append('\n');
+    }
+    
+    private static void appendSample(StringBuilder text, String name, String labels, long value) {
+        appendName(text, name, labels);
+        text.append(value).append('\n');
+    }
+    
+    private static void appendSample(StringBuilder text, String name, String labels, double value) {
+        appendName(text, name, labels);
+        text.append(value).append('\n');
+    }
+    
+    private static void appendName(StringBuilder text, String name, String labels) {
+        text.append(PREFIX).append(name);
+        if (labels != null) {
+            text.append('{').append(labels).append('}');
+        }
+        text.append(' ');
+    }
+    
+    private static String phaseLabel(Phase phase) {
+        return "phase=\"" + phase.name().toLowerCase() + "\"";
+    }
+}
@@ -0,0 +1,173 @@
+package com.gooddaytolearn;
+
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+
+/**
+ * Small undecorated, always-on-top window showing only the time left and the phase.
+ *
+ * It is driven by the app's {@link PomodoroTimer} through {@link #update()}, which
+ * repaints just the digits that changed, so a running timer costs one small blit a
+ * second. Drag the window to move it, double-click to go back to the main window,
+ * and right-click for the timer controls and translucency.
+ */
+public class MiniTimerWindow extends JWindow {
+    
+    private static final Font TIME_FONT = new Font("SF Pro Display", Font.BOLD, 30);
+    private static final Font PHASE_FONT = new Font("SF Pro Text", Font.PLAIN, 11);
+    
+    private final PomodoroTimer timer;
+    private final TimeRenderer timeRenderer = new TimeRenderer();
+    private final JComponent timeView;
+    private final JLabel phaseLabel;
+    private final JCheckBoxMenuItem translucentItem;
+    
+    private Point dragOffset;
+    
+    /**
+     * Create the window, placed near the top right corner of the main window's screen.
+     *
+     * @param mainWindow Main window, whose screen the mini timer opens on. It does not own
+     *                   the mini timer, so it can be disposed while the mini timer is shown
+     * @param timer Timer to show
+     * @param onToggleTimer Called to start or stop the timer
+     * @param onReset Called to reset the timer
+     * @param onExpand Called to go back to the main window
+     */
+    public MiniTimerWindow(Frame mainWindow, PomodoroTimer timer, Runnable onToggleTimer, Runnable onReset,
+                           Runnable onExpand) {
+        super(mainWindow.getGraphicsConfiguration());
+        this.timer = timer;
+        setAlwaysOnTop(true);
+        setFocusableWindowState(false);
+        
+        JPanel content = new JPanel(new BorderLayout());
+        ThemeManager.bindBackground(content, ThemeColor.PANEL_BG);
+        ThemeManager.bindLineBorder(content, ThemeColor.BORDER);
+        
+        timeView = new JComponent() {
+            @Override
+            protected void paintComponent(Graphics g) {
+                timeRenderer.paint((Graphics2D) g, this, getFont(), getForeground());
+            }
+        };
+        timeView.setFont(TIME_FONT);
+        timeView.setPreferredSize(new Dimension(150, 42));
+        content.add(timeView, BorderLayout.CENTER);
+        
+        phaseLabel = new JLabel(" ", SwingConstants.CENTER);
+        phaseLabel.setFont(PHASE_FONT);
+        phaseLabel.setBorder(new EmptyBorder(0, 8, 6, 8));
+        ThemeManager.bindForeground(phaseLabel, ThemeColor.TEXT_MUTED);
+        content.add(phaseLabel, BorderLayout.SOUTH);
+        setContentPane(content);
+        
+        // Controls
+        JPopupMenu menu = new JPopupMenu();
+        JMenuItem toggleItem = new JMenuItem("Start/Stop");
+        toggleItem.addActionListener(e -> onToggleTimer.run());
+        JMenuItem resetItem = new JMenuItem("Reset");
+        resetItem.addActionListener(e -> onReset.run());
+        translucentItem = new JCheckBoxMenuItem("Translucent");
+        translucentItem.setEnabled(isTranslucencySupported());
+        translucentItem.addActionListener(e -> setTranslucent(translucentItem.isSelected()));
+        JMenuItem expandItem = new JMenuItem("Show Full Window");
+        expandItem.addActionListener(e -> onExpand.run());
+        menu.add(toggleItem);
+        menu.add(resetItem);
+        menu.add(translucentItem);
+        menu.addSeparator();
+        menu.add(expandItem);
+        
+        MouseAdapter mouse = new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                if (e.isPopupTrigger()) {
+                    menu.show(e.getComponent(), e.getX(), e.getY());
+                } else {
+                    dragOffset = e.getPoint();
+                }
+            }
+            
+            @Override
+            public void mouseReleased(MouseEvent e) {
+                if (e.isPopupTrigger()) {
+                    menu.show(e.getComponent(), e.getX(), e.getY());
+                }
+                dragOffset = null;
+            }
+            
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                if (dragOffset != null) {
+                    Point screen = e.getLocationOnScreen();
+                    setLocation(screen.x - dragOffset.x, screen.y - dragOffset.y);
+                }
+            }
+            
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2 && SwingUtilities.isLeftMouseButton(e)) {
+                    onExpand.run();
+                }
+            }
+        };
+        // Children get their own listeners, since mouse events do not bubble up to the content pane
+        for (JComponent component : new JComponent[] {content, timeView, phaseLabel}) {
+            component.addMouseListener(mouse);
+            component.addMouseMotionListener(mouse);
+        }
+        
+        setTranslucent(false);
+        update();
+        pack();
+        
+        Rectangle screen = getGraphicsConfiguration().getBounds();
+        setLocation(screen.x + screen.width - getWidth() - 24, screen.y + 48);
+    }
+    
+    /**
+     * Show the timer's current state, repainting only what changed. Call on the EDT.
+     */
+    public void update() {
+        if (timeRenderer.setCountdown(timer.getTimeLeft())) {
+            timeRenderer.repaintChanged(timeView);
+        }
+        timeView.setForeground(ThemeManager.current().phaseColor(timer.isBreak()));
+        
+        // Replaced only when the phase or running state changes
+        String phase = timer.getPhase().getDisplayName();
+        if (!timer.isRunning()) {
+            phase = phase + " (paused)";
+        }
+        if (!phase.equals(phaseLabel.getText())) {
+            phaseLabel.setText(phase);
+        }
+    }
+    
+    /**
+     * Drop glyphs rendered in the old theme's colours.
+     */
+    public void onThemeChanged() {
+        timeRenderer.invalidate();
+        update();
+    }
+    
+    /**
+     * Make the window see-through, if the screen supports it.
+     */
+    private void setTranslucent(boolean translucent) {
+        translucentItem.setSelected(translucent);
+        if (isTranslucencySupported()) {
+            setOpacity(translucent ? AppConfig.MINI_WINDOW_OPACITY : 1.0f);
+        }
+    }
+    
+    private boolean isTranslucencySupported() {
+        return getGraphicsConfiguration().getDevice()
+            .isWindowTranslucencySupported(GraphicsDevice.WindowTranslucency.TRANSLUCENT);
+    }
+}
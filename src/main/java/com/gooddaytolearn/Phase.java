@@ -0,0 +1,24 @@
+package com.gooddaytolearn;
+
+/**
+ * The phases of a Pomodoro cycle.
+ */
+public enum Phase {
+    WORK("Work"),
+    SHORT_BREAK("Short Break"),
+    LONG_BREAK("Long Break");
+    
+    private final String displayName;
+    
+    Phase(String displayName) {
+        this.displayName = displayName;
+    }
+    
+    public String getDisplayName() {
+        return displayName;
+    }
+    
+    public boolean isBreak() {
+        return this != WORK;
+    }
+}
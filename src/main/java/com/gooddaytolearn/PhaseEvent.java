@@ -0,0 +1,96 @@
+package com.gooddaytolearn;
+
+/**
+ * A finished phase: either completed normally or abandoned by a reset.
+ */
+public class PhaseEvent {
+    
+    private final Phase phase;
+    private final long startMillis;
+    private final long endMillis;
+    private final int plannedSeconds;
+    private final int actualSeconds;
+    private final int interruptions;
+    private final boolean completed;
+    private final boolean cycleCompleted;
+    private final int taskId;
+    
+    /**
+     * Create a phase event that is not attached to a task.
+     *
+     * @see #PhaseEvent(Phase, long, long, int, int, int, boolean, boolean, int)
+     */
+    public PhaseEvent(Phase phase, long startMillis, long endMillis, int plannedSeconds, int actualSeconds,
+                      int interruptions, boolean completed, boolean cycleCompleted) {
+        this(phase, startMillis, endMillis, plannedSeconds, actualSeconds, interruptions, completed,
+            cycleCompleted, Task.NONE);
+    }
+    
+    /**
+     * Create a phase event.
+     * 
+     * @param phase The phase that ended
+     * @param startMillis Wall-clock time the phase was first started
+     * @param endMillis Wall-clock time the phase ended
+     * @param plannedSeconds Configured length of the phase
+     * @param actualSeconds Time the timer actually ran during the phase, excluding pauses
+     * @param interruptions Number of times the phase was stopped before it ended
+     * @param completed True if the phase ran to the end, false if it was abandoned
+     * @param cycleCompleted True if this phase completed a full 4/4 cycle
+     * @param taskId Id of the task worked on, or {@link Task#NONE}
+     */
+    public PhaseEvent(Phase phase, long startMillis, long endMillis, int plannedSeconds, int actualSeconds,
+                      int interruptions, boolean completed, boolean cycleCompleted, int taskId) {
+        this.phase = phase;
+        this.startMillis = startMillis;
+        this.endMillis = endMillis;
+        this.plannedSeconds = plannedSeconds;
+        this.actualSeconds = actualSeconds;
+        this.interruptions = interruptions;
+        this.completed = completed;
+        this.cycleCompleted = cycleCompleted;
+        this.taskId = taskId;
+    }
+    
+    public Phase getPhase() {
+        return phase;
+    }
+    
+    public long getStartMillis() {
+        return startMillis;
+    }
+    
+    public long getEndMillis() {
+        return endMillis;
+    }
+    
+    public int getPlannedSeconds() {
+        return plannedSeconds;
+    }
+    
+    public int getActualSeconds() {
+        return actualSeconds;
+    }
+    
+    public int getInterruptions() {
+        return interruptions;
+    }
+    
+    public boolean isCompleted() {
+        return completed;
+    }
+    
+    public boolean isCycleCompleted() {
+        return cycleCompleted;
+    }
+    
+    public int getTaskId() {
+        return taskId;
+    }
+    
+    @Override
+    public String toString() {
+        return phase.getDisplayName() + (completed ? " completed" : " abandoned")
+            + ", " + actualSeconds + "/" + plannedSeconds + " s, " + interruptions + " interruptions";
+    }
+}
@@ -0,0 +1,338 @@
+package com.gooddaytolearn;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Runs user commands when a phase ends, such as turning do-not-disturb on or off.
+ *
+ * Hooks are read from {@value AppConfig#HOOKS_FILE} in the data directory:
+ * <pre>
+ * hook.dnd.command = ~/bin/dnd on
+ * hook.dnd.phases = SHORT_BREAK, LONG_BREAK
+ * hook.log.command = http://localhost:8080/pomodoro
+ * hook.log.timeout = 5
+ * </pre>
+ * A command starting with http:// or https:// is sent the phase event as a JSON POST;
+ * anything else runs in the system shell with the event in GDTL_* environment variables.
+ * {@code phases} limits a hook to the phases whose end it reacts to, and {@code timeout}
+ * overrides the default of {@value AppConfig#HOOK_TIMEOUT_SECONDS} seconds.
+ *
+ * The phase listener only queues work, so hooks never delay the alarm, the UI or the
+ * next tick. They run on a small fixed pool with a bounded queue: when the queue is
+ * full, and when the same hook is still busy from the previous phase, the new run is
+ * dropped and counted instead of piling up. A hook that outlives its timeout is killed;
+ * for HTTP hooks the timeout covers the whole request, however slowly the server answers.
+ */
+public class PhaseHooks implements Consumer<PhaseEvent> {
+    
+    /**
+     * One configured hook.
+     */
+    private static final class Hook {
+        final String name;
+        final String command;
+        final Set<Phase> phases;
+        final int timeoutSeconds;
+        final AtomicBoolean busy = new AtomicBoolean(); // Queued or running
+        
+        Hook(String name, String command, Set<Phase> phases, int timeoutSeconds) {
+            this.name = name;
+            this.command = command;
+            this.phases = phases;
+            this.timeoutSeconds = timeoutSeconds;
+        }
+        
+        boolean isHttp() {
+            return command.startsWith("http://") || command.startsWith("https://");
+        }
+    }
+    
+    private static final String PREFIX = "hook.";
+    private static final long DISCONNECT_RETRY_MS = 100;
+    private static final long KILL_WAIT_MS = 1000;
+    
+    private final Path path;
+    private final ThreadPoolExecutor executor;
+    private final ScheduledExecutorService watchdog;
+    private volatile List<Hook> hooks = Collections.emptyList();
+    
+    /**
+     * Create a runner for the given hooks file. No hooks run until {@link #load()}.
+     */
+    public PhaseHooks(Path path) {
+        this.path = path;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(AppConfig.HOOK_THREADS, AppConfig.HOOK_THREADS, 0L,
+            TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(AppConfig.HOOK_QUEUE_CAPACITY), r -> {
+                Thread thread = new Thread(r, "PhaseHooks-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        this.watchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "PhaseHooks-Watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    /**
+     * Read the hooks file. A missing file means no hooks.
+     */
+    public void load() {
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(path)) {
+            properties.load(in);
+        } catch (NoSuchFileException e) {
+            return;
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Could not read hooks: " + e.getMessage());
+            return;
+        }
+        
+        Set<String> names = new TreeSet<>();
+        for (String key : properties.stringPropertyNames()) {
+            int dot = key.lastIndexOf('.');
+            if (key.startsWith(PREFIX) && dot > PREFIX.length()) {
+                names.add(key.substring(PREFIX.length(), dot));
+            }
+        }
+        
+        List<Hook> loaded = new ArrayList<>();
+        for (String name : names) {
+            String command = properties.getProperty(PREFIX + name + ".command", "").trim();
+            if (command.isEmpty()) {
+                System.err.println("Hook " + name + " has no command");
+                continue;
+            }
+            try {
+                loaded.add(new Hook(name, command, parsePhases(properties.getProperty(PREFIX + name + ".phases")),
+                    parseTimeout(properties.getProperty(PREFIX + name + ".timeout"))));
+            } catch (IllegalArgumentException e) {
+                System.err.println("Ignoring hook " + name + ": " + e.getMessage());
+            }
+        }
+        hooks = Collections.unmodifiableList(loaded);
+        if (!loaded.isEmpty()) {
+            System.out.println("Loaded " + loaded.size() + " phase hook(s) from " + path.getFileName());
+        }
+    }
+    
+    /**
+     * Queue the hooks for a finished phase. Never blocks; called on the timer thread.
+     */
+    @Override
+    public void accept(PhaseEvent event) {
+        for (Hook hook : hooks) {
+            if (!hook.phases.contains(event.getPhase())) {
+                continue;
+            }
+            if (!hook.busy.compareAndSet(false, true)) {
+                Metrics.HOOKS_DROPPED.incrementAndGet();
+                System.err.println("Skipping hook " + hook.name + ": still running from the last phase");
+                continue;
+            }
+            long queuedNanos = System.nanoTime();
+            try {
+                executor.execute(() -> run(hook, event, queuedNanos));
+            } catch (RejectedExecutionException e) {
+                hook.busy.set(false);
+                Metrics.HOOKS_DROPPED.incrementAndGet();
+                System.err.println("Skipping hook " + hook.name + ": too many hooks waiting");
+            }
+        }
+    }
+    
+    /**
+     * Stop running hooks. Hooks already running are interrupted, which kills their process.
+     */
+    public void close() {
+        executor.shutdownNow();
+        watchdog.shutdownNow();
+    }
+    
+    /**
+     * Run one hook on a pool thread, recording how long it waited and ran.
+     */
+    private void run(Hook hook, PhaseEvent event, long queuedNanos) {
+        long started = System.nanoTime();
+        Metrics.HOOK_QUEUE_DELAY.record(started - queuedNanos);
+        try {
+            if (hook.isHttp()) {
+                post(hook, event);
+            } else {
+                exec(hook, event);
+            }
+            Metrics.HOOKS_RUN.incrementAndGet();
+        } catch (HookTimeoutException e) {
+            Metrics.HOOKS_TIMED_OUT.incrementAndGet();
+            FlightRecorder.record(FlightRecorder.Type.ERROR, "Hook timed out: " + hook.name);
+            System.err.println("Hook " + hook.name + " timed out after " + hook.timeoutSeconds + " s");
+        } catch (IOException | RuntimeException e) {
+            Metrics.HOOKS_FAILED.incrementAndGet();
+            FlightRecorder.record(FlightRecorder.Type.ERROR, "Hook failed: " + hook.name);
+            System.err.println("Hook " + hook.name + " failed: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            Metrics.HOOK_RUN_TIME.record(System.nanoTime() - started);
+            hook.busy.set(false);
+        }
+    }
+    
+    /**
+     * Run a shell command and wait for it, killing it and every process it started if
+     * it runs too long.
+     */
+    private static void exec(Hook hook, PhaseEvent event) throws IOException, InterruptedException {
+        boolean windows = System.getProperty("os.name", "").toLowerCase().contains("windows");
+        ProcessBuilder builder = windows ? new ProcessBuilder("cmd.exe", "/c", hook.command)
+            : new ProcessBuilder("/bin/sh", "-c", hook.command);
+        builder.redirectOutput(ProcessBuilder.Redirect.DISCARD);
+        builder.redirectError(ProcessBuilder.Redirect.INHERIT);
+        
+        Map<String, String> environment = builder.environment();
+        environment.put("GDTL_PHASE", event.getPhase().name());
+        environment.put("GDTL_COMPLETED", Boolean.toString(event.isCompleted()));
+        environment.put("GDTL_CYCLE_COMPLETED", Boolean.toString(event.isCycleCompleted()));
+        environment.put("GDTL_PLANNED_SECONDS", Integer.toString(event.getPlannedSeconds()));
+        environment.put("GDTL_ACTUAL_SECONDS", Integer.toString(event.getActualSeconds()));
+        environment.put("GDTL_INTERRUPTIONS", Integer.toString(event.getInterruptions()));
+        environment.put("GDTL_TASK_ID", Integer.toString(event.getTaskId()));
+        
+        Process process = builder.start();
+        process.getOutputStream().close(); // No input, so commands that read stdin do not wait for it
+        try {
+            if (!process.waitFor(hook.timeoutSeconds, TimeUnit.SECONDS)) {
+                throw new HookTimeoutException();
+            }
+        } finally {
+            if (process.isAlive()) {
+                // The shell is only a wrapper; kill what it started too, or a hung command outlives it
+                process.descendants().forEach(ProcessHandle::destroyForcibly);
+                process.destroyForcibly();
+                process.waitFor(KILL_WAIT_MS, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (process.exitValue() != 0) {
+            throw new IOException("exit code " + process.exitValue());
+        }
+    }
+    
+    /**
+     * Post the event as JSON to a local endpoint.
+     *
+     * Socket timeouts only bound each connect or read, so a server trickling out its
+     * answer could hold the hook indefinitely. Instead the watchdog disconnects at the
+     * deadline, which fails whatever the request is blocked in. A connection still being
+     * opened cannot be closed yet, so the watchdog repeats until the request gives up;
+     * the connect timeout keeps that from taking longer than the deadline.
+     */
+    private void post(Hook hook, PhaseEvent event) throws IOException {
+        byte[] body = toJson(event).getBytes(StandardCharsets.UTF_8);
+        int timeoutMillis = hook.timeoutSeconds * 1000;
+        HttpURLConnection connection = (HttpURLConnection) new URL(hook.command).openConnection();
+        AtomicBoolean expired = new AtomicBoolean();
+        ScheduledFuture<?> deadline = watchdog.scheduleWithFixedDelay(() -> {
+            expired.set(true);
+            connection.disconnect();
+        }, timeoutMillis, DISCONNECT_RETRY_MS, TimeUnit.MILLISECONDS);
+        try {
+            connection.setConnectTimeout(timeoutMillis);
+            connection.setRequestMethod("POST");
+            connection.setRequestProperty("Content-Type", "application/json");
+            connection.setFixedLengthStreamingMode(body.length);
+            connection.setDoOutput(true);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body);
+            }
+            int status = connection.getResponseCode();
+            if (expired.get()) {
+                // A response cut short by the watchdog can still report the status it got
+                throw new HookTimeoutException();
+            }
+            if (status >= 300) {
+                throw new IOException("HTTP " + status);
+            }
+        } catch (IOException e) {
+            if (expired.get()) {
+                throw new HookTimeoutException();
+            }
+            throw e;
+        } finally {
+            deadline.cancel(false);
+            connection.disconnect();
+        }
+    }
+    
+    private static String toJson(PhaseEvent event) {
+        return String.format("{\"phase\":\"%s\",\"completed\":%b,\"cycleCompleted\":%b,\"startMillis\":%d,"
+                + "\"endMillis\":%d,\"plannedSeconds\":%d,\"actualSeconds\":%d,\"interruptions\":%d,\"taskId\":%d}",
+            event.getPhase().name(), event.isCompleted(), event.isCycleCompleted(), event.getStartMillis(),
+            event.getEndMillis(), event.getPlannedSeconds(), event.getActualSeconds(), event.getInterruptions(),
+            event.getTaskId());
+    }
+    
+    /**
+     * Parse a comma-separated list of phase names, or every phase when absent.
+     */
+    private static Set<Phase> parsePhases(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return EnumSet.allOf(Phase.class);
+        }
+        Set<Phase> phases = EnumSet.noneOf(Phase.class);
+        for (String name : value.split(",")) {
+            try {
+                phases.add(Phase.valueOf(name.trim().toUpperCase()));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("unknown phase " + name.trim());
+            }
+        }
+        return phases;
+    }
+    
+    private static int parseTimeout(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return AppConfig.HOOK_TIMEOUT_SECONDS;
+        }
+        int seconds = Integer.parseInt(value.trim());
+        if (seconds < 1 || seconds > AppConfig.MAX_HOOK_TIMEOUT_SECONDS) {
+            throw new IllegalArgumentException("timeout must be 1 to " + AppConfig.MAX_HOOK_TIMEOUT_SECONDS);
+        }
+        return seconds;
+    }
+    
+    /**
+     * Thrown when a hook runs past its timeout.
+     */
+    private static final class HookTimeoutException extends IOException {
+        HookTimeoutException() {
+            super("timed out");
+        }
+    }
+}
@@ -1,30 +1,70 @@
 package com.gooddaytolearn;
 
+import java.util.List;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.Consumer;
+import java.util.function.IntConsumer;
 
 /**
  * Handles Pomodoro timer logic and state management.
  */
 public class PomodoroTimer {
     
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    
+    /**
+     * Time source of the timer. Replays substitute their own to re-drive recorded sessions.
+     */
+    interface Clock {
+        long nanoTime();
+        
+        long currentTimeMillis();
+    }
+    
+    private static final Clock SYSTEM_CLOCK = new Clock() {
+        @Override
+        public long nanoTime() {
+            return System.nanoTime();
+        }
+        
+        @Override
+        public long currentTimeMillis() {
+            return System.currentTimeMillis();
+        }
+    };
+    
     private int workTime;
     private int shortBreakTime;
     private int longBreakTime;
     
-    private int timeLeft;
-    private int currentInterval; // Track current interval (0-3)
-    private int completedCycles; // Track completed 4/4 cycles
-    private boolean isBreak;
-    private boolean running;
+    private volatile int timeLeft;
+    private volatile int phaseDuration; // Length of the current phase in seconds
+    private volatile long deadlineNanos; // When the current phase ends, valid while running
+    private volatile long remainingNanos; // Time left in the current phase, valid while stopped
+    private volatile int currentInterval; // Track current interval (0-3)
+    private volatile int completedCycles; // Track completed 4/4 cycles
+    private volatile boolean isBreak;
+    private volatile boolean running;
+    
+    // Bookkeeping for the phase event sent when the current phase ends
+    private volatile long phaseStartMillis; // 0 until the phase is first started
+    private volatile int interruptions;
+    private volatile int taskId = Task.NONE; // Task that work phases are attributed to
     
     // Callbacks
     private Runnable onTimerComplete;
-    private Consumer<Integer> onTimerUpdate;
+    private IntConsumer onTimerUpdate;
+    private final List<Consumer<PhaseEvent>> phaseListeners = new CopyOnWriteArrayList<>();
     
     // Timer
     private Timer timer;
+    private final Clock clock;
+    private final boolean scheduleTicks; // False when ticks are driven through countdown()
+    
+    // Written on every state change, never on ticks
+    private TimerCheckpoint checkpoint;
     
     /**
      * Initialize the Pomodoro timer.
@@ -32,12 +72,23 @@ public class PomodoroTimer {
      * @param onTimerComplete Callback function called when timer completes
      * @param onTimerUpdate Callback function called every second during countdown
      */
-    public PomodoroTimer(Runnable onTimerComplete, Consumer<Integer> onTimerUpdate) {
+    public PomodoroTimer(Runnable onTimerComplete, IntConsumer onTimerUpdate) {
+        this(onTimerComplete, onTimerUpdate, SYSTEM_CLOCK, true);
+    }
+    
+    /**
+     * Initialize a timer with its own clock, for replaying recorded sessions.
+     *
+     * @param scheduleTicks False to run no tick thread; the caller then calls {@link #countdown()}
+     */
+    PomodoroTimer(Runnable onTimerComplete, IntConsumer onTimerUpdate, Clock clock, boolean scheduleTicks) {
+        this.clock = clock;
+        this.scheduleTicks = scheduleTicks;
         this.workTime = AppConfig.DEFAULT_WORK_TIME;
         this.shortBreakTime = AppConfig.DEFAULT_SHORT_BREAK;
         this.longBreakTime = AppConfig.DEFAULT_LONG_BREAK;
         
-        this.timeLeft = this.workTime;
+        setPhaseDuration(this.workTime);
         this.currentInterval = 0;
         this.completedCycles = 0;
         this.isBreak = false;
@@ -48,36 +99,64 @@ public class PomodoroTimer {
     }
     
     /**
-     * Start the timer.
+     * Start the timer. The phase ends at a fixed deadline, so late ticks never add drift.
      */
-    public void start() {
+    public synchronized void start() {
         if (!running) {
             running = true;
-            timer = new Timer();
+            if (phaseStartMillis == 0) {
+                phaseStartMillis = clock.currentTimeMillis();
+            }
+            deadlineNanos = clock.nanoTime() + remainingNanos;
+            FlightRecorder.record(FlightRecorder.Type.START, remainingNanos / 1_000_000L, packState());
+            if (!scheduleTicks) {
+                saveCheckpoint();
+                return;
+            }
+            
+            // Align ticks with whole seconds of remaining time
+            long firstTickMillis = (remainingNanos % NANOS_PER_SECOND) / 1_000_000L;
+            timer = new Timer("PomodoroTimer", true);
             timer.scheduleAtFixedRate(new TimerTask() {
                 @Override
                 public void run() {
+                    long latenessMillis = System.currentTimeMillis() - scheduledExecutionTime();
+                    Metrics.TICK_LATENESS.record(latenessMillis * 1_000_000L);
+                    JfrEvents.TickLateness tick = new JfrEvents.TickLateness();
+                    if (tick.shouldCommit()) {
+                        tick.lateness = latenessMillis;
+                        tick.commit();
+                    }
                     countdown();
                 }
-            }, 0, 1000); // Run every second
+            }, firstTickMillis, 1000); // Run every second
+            saveCheckpoint();
         }
     }
     
     /**
      * Stop the timer.
      */
-    public void stop() {
+    public synchronized void stop() {
+        if (running) {
+            remainingNanos = Math.max(0L, deadlineNanos - clock.nanoTime());
+            interruptions++;
+            FlightRecorder.record(FlightRecorder.Type.STOP, remainingNanos / 1_000_000L, packState());
+        }
         running = false;
         if (timer != null) {
             timer.cancel();
             timer = null;
         }
+        saveCheckpoint();
     }
     
     /**
      * Reset the timer to initial state.
      */
-    public void reset() {
+    public synchronized void reset() {
+        FlightRecorder.record(FlightRecorder.Type.RESET);
+        abandonPhase();
         running = false;
         if (timer != null) {
             timer.cancel();
@@ -86,19 +165,28 @@ public class PomodoroTimer {
         currentInterval = 0;
         completedCycles = 0;
         isBreak = false;
-        timeLeft = workTime;
+        setPhaseDuration(workTime);
+        saveCheckpoint();
     }
     
     /**
-     * Internal countdown logic.
+     * Internal countdown logic, run on every tick.
+     * Package-private so benchmarks can drive ticks without waiting for the timer thread.
      */
-    private void countdown() {
-        if (timeLeft > 0 && running) {
+    synchronized void countdown() {
+        if (!running) {
+            return;
+        }
+        
+        // Round to the nearest second so a slightly early or late tick shows the right value
+        long remaining = getRemainingNanos();
+        timeLeft = (int) ((remaining + NANOS_PER_SECOND / 2) / NANOS_PER_SECOND);
+        FlightRecorder.record(FlightRecorder.Type.TICK, timeLeft, remaining / 1_000_000L);
+        if (timeLeft > 0) {
             if (onTimerUpdate != null) {
                 onTimerUpdate.accept(timeLeft);
             }
-            timeLeft--;
-        } else if (timeLeft == 0 && running) {
+        } else {
             handleTimerComplete();
         }
     }
@@ -107,6 +195,35 @@ public class PomodoroTimer {
      * Handle timer completion and transition to next phase.
      */
     private void handleTimerComplete() {
+        PhaseEvent event = completePhase(clock.currentTimeMillis());
+        
+        running = false;
+        if (timer != null) {
+            timer.cancel();
+            timer = null;
+        }
+        saveCheckpoint();
+        
+        if (onTimerComplete != null) {
+            onTimerComplete.run();
+        }
+        
+        // Listeners run after the completion callback so they never delay the alarm
+        firePhaseEvent(event);
+    }
+    
+    /**
+     * Move on to the next phase, paused at its start.
+     *
+     * @param endMillis When the finished phase ended
+     * @return the event describing the finished phase
+     */
+    private PhaseEvent completePhase(long endMillis) {
+        Phase finished = getPhase();
+        int planned = phaseDuration;
+        long startMillis = phaseStartMillis;
+        int phaseInterruptions = interruptions;
+        
         if (!isBreak) {
             // Just finished a work interval
             currentInterval++;
@@ -114,38 +231,265 @@ public class PomodoroTimer {
             if (currentInterval >= 4) {
                 // Time for long break after 4 intervals
                 isBreak = true;
-                timeLeft = longBreakTime;
+                setPhaseDuration(longBreakTime);
                 currentInterval = 0; // Reset interval counter
                 completedCycles++; // Increment completed cycles
             } else {
                 // Time for short break
                 isBreak = true;
-                timeLeft = shortBreakTime;
+                setPhaseDuration(shortBreakTime);
             }
         } else {
             // Just finished a break, back to work
             isBreak = false;
-            timeLeft = workTime;
+            setPhaseDuration(workTime);
         }
         
-        running = false;
-        if (timer != null) {
-            timer.cancel();
-            timer = null;
+        return new PhaseEvent(finished, startMillis, endMillis, planned, planned,
+            phaseInterruptions, true, finished == Phase.WORK && currentInterval == 0, taskFor(finished));
+    }
+    
+    /**
+     * Attach the checkpoint that records state changes, and resume from its saved state.
+     *
+     * A phase that was running when the app went away continues with its original deadline.
+     * If that deadline has already passed, the phase is completed as of the deadline and the
+     * timer waits at the start of the next phase, as it would have after the alarm.
+     *
+     * @param saved State read from the checkpoint, or null to start fresh
+     * @return the event for a phase completed while the app was not running, or null
+     */
+    public synchronized PhaseEvent restore(TimerCheckpoint checkpoint, TimerCheckpoint.State saved) {
+        this.checkpoint = checkpoint;
+        if (saved == null || running || saved.getPhaseDuration() <= 0) {
+            saveCheckpoint();
+            return null;
         }
         
-        if (onTimerComplete != null) {
-            onTimerComplete.run();
+        currentInterval = saved.getCurrentInterval();
+        completedCycles = saved.getCompletedCycles();
+        isBreak = saved.getPhase().isBreak();
+        setPhaseDuration(saved.getPhaseDuration());
+        phaseStartMillis = saved.getPhaseStartMillis();
+        interruptions = saved.getInterruptions();
+        
+        PhaseEvent completed = null;
+        long now = clock.currentTimeMillis();
+        long remainingMillis = saved.isRunning() ? saved.getDeadlineMillis() - now : saved.getRemainingMillis();
+        if (remainingMillis <= 0 && saved.isRunning()) {
+            completed = completePhase(saved.getDeadlineMillis());
+            saveCheckpoint();
+        } else {
+            remainingMillis = Math.min(remainingMillis, saved.getPhaseDuration() * 1000L);
+            remainingNanos = Math.max(0L, remainingMillis) * 1_000_000L;
+            timeLeft = (int) ((remainingNanos + NANOS_PER_SECOND / 2) / NANOS_PER_SECOND);
+            if (saved.isRunning()) {
+                start(); // Saves the checkpoint
+            } else {
+                saveCheckpoint();
+            }
+        }
+        
+        if (completed != null) {
+            firePhaseEvent(completed);
+        }
+        return completed;
+    }
+    
+    /**
+     * Write the current state to the checkpoint, if one is attached.
+     */
+    private void saveCheckpoint() {
+        if (checkpoint == null) {
+            return;
+        }
+        long remainingMillis = (running ? getRemainingNanos() : remainingNanos) / 1_000_000L;
+        checkpoint.save(new TimerCheckpoint.State(getPhase(), running, currentInterval, completedCycles,
+            phaseDuration, remainingMillis, running ? clock.currentTimeMillis() + remainingMillis : 0,
+            phaseStartMillis, interruptions));
+    }
+    
+    /**
+     * Pack the current position in the cycle for the flight recorder.
+     */
+    private long packState() {
+        return FlightRecorder.packState(getPhase(), currentInterval, completedCycles, phaseDuration);
+    }
+    
+    /**
+     * Send a phase event for the current phase if it was started but did not finish.
+     */
+    private void abandonPhase() {
+        if (phaseStartMillis == 0) {
+            return;
+        }
+        long remaining = running ? Math.max(0L, deadlineNanos - clock.nanoTime()) : remainingNanos;
+        int actual = (int) ((phaseDuration * NANOS_PER_SECOND - remaining) / NANOS_PER_SECOND);
+        firePhaseEvent(new PhaseEvent(getPhase(), phaseStartMillis, clock.currentTimeMillis(), phaseDuration,
+            actual, interruptions, false, false, taskFor(getPhase())));
+        phaseStartMillis = 0;
+    }
+    
+    /**
+     * Get the task a finished phase is attributed to. Breaks belong to no task.
+     */
+    private int taskFor(Phase phase) {
+        return phase == Phase.WORK ? taskId : Task.NONE;
+    }
+    
+    /**
+     * Notify phase listeners.
+     */
+    private void firePhaseEvent(PhaseEvent event) {
+        recordPhaseEvent(event);
+        for (Consumer<PhaseEvent> listener : phaseListeners) {
+            try {
+                listener.accept(event);
+            } catch (RuntimeException e) {
+                FlightRecorder.record(FlightRecorder.Type.ERROR, "Phase listener failed");
+                System.err.println("Error in phase listener: " + e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Count a finished phase and emit it as a flight recorder event.
+     */
+    private static void recordPhaseEvent(PhaseEvent event) {
+        int phase = event.getPhase().ordinal();
+        FlightRecorder.record(FlightRecorder.Type.PHASE_END, phase, event.isCompleted() ? 1 : 0);
+        if (event.isCompleted()) {
+            Metrics.PHASES_COMPLETED.incrementAndGet(phase);
+        } else {
+            Metrics.PHASES_ABANDONED.incrementAndGet(phase);
+        }
+        
+        JfrEvents.PhaseTransition transition = new JfrEvents.PhaseTransition();
+        if (transition.shouldCommit()) {
+            transition.phase = event.getPhase().getDisplayName();
+            transition.completed = event.isCompleted();
+            transition.plannedSeconds = event.getPlannedSeconds();
+            transition.actualSeconds = event.getActualSeconds();
+            transition.interruptions = event.getInterruptions();
+            transition.commit();
+        }
+    }
+    
+    /**
+     * Register a listener called whenever a phase ends, completed or abandoned.
+     * Listeners run on the timer thread and must return quickly.
+     */
+    public void addPhaseListener(Consumer<PhaseEvent> listener) {
+        phaseListeners.add(listener);
+    }
+    
+    /**
+     * Begin a new phase of the given length in seconds, paused at its start.
+     */
+    private void setPhaseDuration(int seconds) {
+        phaseStartMillis = 0;
+        interruptions = 0;
+        phaseDuration = seconds;
+        timeLeft = seconds;
+        remainingNanos = seconds * NANOS_PER_SECOND;
+    }
+    
+    /**
+     * Cut the current phase so that at most the given time is left, as when a meeting is coming up.
+     * The phase length shrinks by the same whole number of seconds, so progress and the phase
+     * event describe the shortened phase.
+     *
+     * @return true if the phase was shortened, false if no more than that was left anyway
+     */
+    public synchronized boolean shortenPhase(int maxRemainingSeconds) {
+        long cutNanos = getRemainingNanos() - Math.max(0, maxRemainingSeconds) * NANOS_PER_SECOND;
+        int cutSeconds = (int) (cutNanos / NANOS_PER_SECOND);
+        if (cutSeconds <= 0) {
+            return false;
+        }
+        long cut = cutSeconds * NANOS_PER_SECOND;
+        phaseDuration -= cutSeconds;
+        if (running) {
+            deadlineNanos -= cut;
+        } else {
+            remainingNanos -= cut;
+        }
+        timeLeft = (int) ((getRemainingNanos() + NANOS_PER_SECOND / 2) / NANOS_PER_SECOND);
+        FlightRecorder.record(FlightRecorder.Type.SHORTEN, maxRemainingSeconds, phaseDuration);
+        saveCheckpoint();
+        return true;
+    }
+    
+    /**
+     * Get the exact time left in the current phase, in nanoseconds.
+     */
+    public long getRemainingNanos() {
+        if (running) {
+            return Math.max(0L, deadlineNanos - clock.nanoTime());
         }
+        return remainingNanos;
+    }
+    
+    /**
+     * Get the exact time elapsed in the current phase, in nanoseconds.
+     */
+    public long getElapsedNanos() {
+        return getPhaseDurationNanos() - getRemainingNanos();
+    }
+    
+    /**
+     * Get the total length of the current phase, in nanoseconds.
+     */
+    public long getPhaseDurationNanos() {
+        return phaseDuration * NANOS_PER_SECOND;
+    }
+    
+    /**
+     * Get the total length of the current phase, in seconds.
+     */
+    public int getPhaseDurationSeconds() {
+        return phaseDuration;
+    }
+    
+    /**
+     * Get how much of the current phase has elapsed, from 0.0 to 1.0.
+     */
+    public double getProgress() {
+        long total = getPhaseDurationNanos();
+        if (total <= 0) {
+            return 0.0;
+        }
+        double progress = 1.0 - (double) getRemainingNanos() / total;
+        return Math.max(0.0, Math.min(1.0, progress));
     }
     
     /**
      * Get formatted time string for display.
      */
     public String getTimeDisplay() {
-        int mins = timeLeft / 60;
-        int secs = timeLeft % 60;
-        return String.format("%02d:%02d", mins, secs);
+        char[] buffer = new char[8];
+        return new String(buffer, 0, formatTime(timeLeft, buffer, 0));
+    }
+    
+    /**
+     * Write a time in seconds as MM:SS into the buffer without allocating.
+     * Minutes take three digits from 100 up.
+     *
+     * @return the number of characters written
+     */
+    public static int formatTime(int seconds, char[] buffer, int offset) {
+        int mins = seconds / 60;
+        int secs = seconds % 60;
+        int pos = offset;
+        if (mins >= 100) {
+            buffer[pos++] = (char) ('0' + mins / 100 % 10);
+        }
+        buffer[pos++] = (char) ('0' + mins / 10 % 10);
+        buffer[pos++] = (char) ('0' + mins % 10);
+        buffer[pos++] = ':';
+        buffer[pos++] = (char) ('0' + secs / 10);
+        buffer[pos++] = (char) ('0' + secs % 10);
+        return pos - offset;
     }
     
     /**
@@ -178,7 +522,21 @@ public class PomodoroTimer {
         }
     }
     
+    /**
+     * Get the current phase.
+     */
+    public Phase getPhase() {
+        if (!isBreak) {
+            return Phase.WORK;
+        }
+        return currentInterval == 0 ? Phase.LONG_BREAK : Phase.SHORT_BREAK;
+    }
+    
     // Getters and setters
+    public int getTimeLeft() {
+        return timeLeft;
+    }
+    
     public boolean isRunning() {
         return running;
     }
@@ -187,18 +545,23 @@ public class PomodoroTimer {
         return isBreak;
     }
     
-    public void setWorkTime(int minutes) {
+    public synchronized void setWorkTime(int minutes) {
+        FlightRecorder.record(FlightRecorder.Type.DURATION, Phase.WORK.ordinal(), minutes);
         this.workTime = minutes * 60;
         if (!isBreak && !running) {
-            this.timeLeft = this.workTime;
+            abandonPhase();
+            setPhaseDuration(this.workTime);
+            saveCheckpoint();
         }
     }
     
     public void setShortBreakTime(int minutes) {
+        FlightRecorder.record(FlightRecorder.Type.DURATION, Phase.SHORT_BREAK.ordinal(), minutes);
         this.shortBreakTime = minutes * 60;
     }
     
     public void setLongBreakTime(int minutes) {
+        FlightRecorder.record(FlightRecorder.Type.DURATION, Phase.LONG_BREAK.ordinal(), minutes);
         this.longBreakTime = minutes * 60;
     }
     
@@ -217,4 +580,18 @@ public class PomodoroTimer {
     public int getCompletedCycles() {
         return completedCycles;
     }
+    
+    /**
+     * Set the task that work phases are attributed to when they end.
+     * Changing it during a work phase moves the whole phase to the new task.
+     *
+     * @param taskId Id of the task, or {@link Task#NONE}
+     */
+    public void setTaskId(int taskId) {
+        this.taskId = taskId;
+    }
+    
+    public int getTaskId() {
+        return taskId;
+    }
 }
@@ -0,0 +1,186 @@
+package com.gooddaytolearn;
+
+import javax.swing.JComponent;
+import java.awt.*;
+import java.awt.geom.Arc2D;
+
+/**
+ * Draws the progress ring behind the timer and animates it while the timer runs.
+ *
+ * Progress is quantized to half-pixel steps along the ring. A frame timer running at the
+ * display refresh rate only repaints the few pixels around the arc tip when the step changes,
+ * and sleeps until the next step is due, so a long phase costs almost nothing.
+ */
+public class ProgressRing {
+    
+    private static final int RING_INSET = 20;
+    private static final int DIRTY_PAD = 4; // Widest stroke's half-width plus antialiasing
+    private static final int MAX_FRAME_DELAY_MS = 1000;
+    
+    private final JComponent host;
+    private final PomodoroTimer timer;
+    private final javax.swing.Timer frameTimer;
+    private final int frameDelayMs;
+    private final Arc2D.Double arc = new Arc2D.Double(Arc2D.OPEN);
+    
+    private int paintedStep = -1;
+    
+    /**
+     * Create a progress ring drawn by the given component.
+     */
+    public ProgressRing(JComponent host, PomodoroTimer timer) {
+        this.host = host;
+        this.timer = timer;
+        this.frameDelayMs = Math.max(1, 1000 / getRefreshRate());
+        this.frameTimer = new javax.swing.Timer(frameDelayMs, e -> onFrame());
+        this.frameTimer.setCoalesce(true);
+    }
+    
+    /**
+     * Start or stop the animation to match the timer state. Call after any state change.
+     */
+    public void update() {
+        if (timer.isRunning()) {
+            if (!frameTimer.isRunning()) {
+                frameTimer.setInitialDelay(frameDelayMs);
+                frameTimer.start();
+            }
+        } else {
+            frameTimer.stop();
+        }
+        repaintRing();
+    }
+    
+    /**
+     * Stop animating, e.g. while the host is detached, until the next {@link #update()}.
+     */
+    public void stop() {
+        frameTimer.stop();
+    }
+    
+    /**
+     * Paint the ring. Called from the host's paintComponent.
+     */
+    public void paint(Graphics2D g2d) {
+        int centerX = host.getWidth() / 2;
+        int centerY = host.getHeight() / 2;
+        int radius = getRadius();
+        if (radius <= 0) {
+            return;
+        }
+        
+        // Draw background ring
+        Theme theme = ThemeManager.current();
+        g2d.setStroke(theme.getRingStroke());
+        g2d.setColor(theme.color(ThemeColor.SLIDER_TRACK));
+        g2d.drawOval(centerX - radius, centerY - radius, radius * 2, radius * 2);
+        
+        // Draw progress ring
+        int steps = getStepCount(g2d.getTransform().getScaleX());
+        paintedStep = (int) (timer.getProgress() * steps);
+        if (paintedStep > 0) {
+            g2d.setColor(theme.phaseColor(timer.isBreak()));
+            arc.setArc(centerX - radius, centerY - radius, radius * 2, radius * 2,
+                90, -360.0 * paintedStep / steps, Arc2D.OPEN); // Start from top
+            g2d.draw(arc);
+        }
+    }
+    
+    /**
+     * Advance the animation by one frame, repainting only the arc tip if it moved.
+     */
+    private void onFrame() {
+        if (!timer.isRunning()) {
+            frameTimer.stop();
+            return;
+        }
+        if (!host.isShowing()) {
+            // Hidden (e.g. minimized to tray), just check back occasionally
+            frameTimer.setDelay(MAX_FRAME_DELAY_MS);
+            return;
+        }
+        
+        int steps = getStepCount(getScale());
+        double progress = timer.getProgress();
+        int step = (int) (progress * steps);
+        if (paintedStep >= 0 && step != paintedStep) {
+            repaintTip(paintedStep, step, steps);
+        }
+        
+        // Sleep until the next step is due, but never longer than a second
+        long nanosPerStep = timer.getPhaseDurationNanos() / Math.max(1, steps);
+        long nanosToNext = (long) ((step + 1 - progress * steps) * nanosPerStep);
+        int delay = (int) Math.min(MAX_FRAME_DELAY_MS, Math.max(frameDelayMs, nanosToNext / 1_000_000L));
+        frameTimer.setDelay(delay);
+    }
+    
+    /**
+     * Repaint the region between two arc positions.
+     */
+    private void repaintTip(int fromStep, int toStep, int steps) {
+        int radius = getRadius();
+        if (Math.abs(toStep - fromStep) * 8 > steps) {
+            // Big jump (phase change or reset), just redraw the whole ring
+            repaintRing();
+            return;
+        }
+        
+        double centerX = host.getWidth() / 2;
+        double centerY = host.getHeight() / 2;
+        double fromAngle = Math.toRadians(90 - 360.0 * fromStep / steps);
+        double toAngle = Math.toRadians(90 - 360.0 * toStep / steps);
+        double x1 = centerX + radius * Math.cos(fromAngle);
+        double y1 = centerY - radius * Math.sin(fromAngle);
+        double x2 = centerX + radius * Math.cos(toAngle);
+        double y2 = centerY - radius * Math.sin(toAngle);
+        
+        int left = (int) Math.floor(Math.min(x1, x2)) - DIRTY_PAD;
+        int top = (int) Math.floor(Math.min(y1, y2)) - DIRTY_PAD;
+        int right = (int) Math.ceil(Math.max(x1, x2)) + DIRTY_PAD;
+        int bottom = (int) Math.ceil(Math.max(y1, y2)) + DIRTY_PAD;
+        host.repaint(left, top, right - left, bottom - top);
+    }
+    
+    /**
+     * Repaint the full bounds of the ring.
+     */
+    private void repaintRing() {
+        int radius = getRadius() + DIRTY_PAD;
+        host.repaint(host.getWidth() / 2 - radius, host.getHeight() / 2 - radius, radius * 2, radius * 2);
+    }
+    
+    /**
+     * Get the ring radius for the host's current size.
+     */
+    private int getRadius() {
+        return Math.min(host.getWidth(), host.getHeight()) / 2 - RING_INSET;
+    }
+    
+    /**
+     * Number of discrete positions on the ring: one per half device pixel of circumference.
+     */
+    private int getStepCount(double scale) {
+        return Math.max(1, (int) Math.ceil(2 * Math.PI * Math.max(1, getRadius()) * scale * 2));
+    }
+    
+    /**
+     * Get the display scale of the host, or 1.0 if it is not on screen yet.
+     */
+    private double getScale() {
+        GraphicsConfiguration config = host.getGraphicsConfiguration();
+        return config != null ? config.getDefaultTransform().getScaleX() : 1.0;
+    }
+    
+    /**
+     * Get the refresh rate of the default screen, falling back to 60 Hz.
+     */
+    private static int getRefreshRate() {
+        try {
+            int rate = GraphicsEnvironment.getLocalGraphicsEnvironment()
+                .getDefaultScreenDevice().getDisplayMode().getRefreshRate();
+            return rate > 0 ? rate : 60;
+        } catch (UnsupportedOperationException e) {
+            return 60;
+        }
+    }
+}
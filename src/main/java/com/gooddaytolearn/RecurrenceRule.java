@@ -0,0 +1,306 @@
+package com.gooddaytolearn;
+
+import java.time.DateTimeException;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongConsumer;
+
+/**
+ * The subset of an iCalendar RRULE needed to place recurring meetings.
+ *
+ * Supports FREQ=DAILY/WEEKLY/MONTHLY/YEARLY with INTERVAL, COUNT, UNTIL, BYDAY
+ * (with ordinals for monthly rules, such as 2TU or -1FR) and BYMONTHDAY. Other parts
+ * are ignored. Occurrences are never materialised as a list: {@link #expand} walks the
+ * series period by period and reports only the ones inside the requested range. Rules
+ * without COUNT jump straight to the range, so a daily meeting with years of history
+ * costs the same as a new one.
+ */
+public class RecurrenceRule {
+    
+    /**
+     * How often the series repeats.
+     */
+    public enum Frequency {
+        DAILY, WEEKLY, MONTHLY, YEARLY
+    }
+    
+    // Safety stop for rules that can never produce an occurrence, such as BYMONTHDAY=31 in February only
+    private static final int MAX_EMPTY_PERIODS = 1000;
+    
+    private final Frequency frequency;
+    private final int interval;
+    private final int count; // 0 when unbounded
+    private final long untilMillis;
+    private final DayOfWeek[] byDay;
+    private final int[] byDayOrdinal; // 0 for every matching weekday in the period
+    private final int[] byMonthDay;
+    
+    private RecurrenceRule(Frequency frequency, int interval, int count, long untilMillis, DayOfWeek[] byDay,
+                           int[] byDayOrdinal, int[] byMonthDay) {
+        this.frequency = frequency;
+        this.interval = interval;
+        this.count = count;
+        this.untilMillis = untilMillis;
+        this.byDay = byDay;
+        this.byDayOrdinal = byDayOrdinal;
+        this.byMonthDay = byMonthDay;
+    }
+    
+    /**
+     * Parse an RRULE value such as "FREQ=WEEKLY;INTERVAL=2;BYDAY=MO,WE".
+     *
+     * @param zone Zone for an UNTIL without a UTC marker
+     * @return the rule, or null if its frequency is missing or finer than daily
+     */
+    public static RecurrenceRule parse(String value, ZoneId zone) {
+        Frequency frequency = null;
+        int interval = 1;
+        int count = 0;
+        long untilMillis = Long.MAX_VALUE;
+        List<DayOfWeek> days = new ArrayList<>();
+        List<Integer> ordinals = new ArrayList<>();
+        int[] monthDays = new int[0];
+        
+        for (String part : value.split(";")) {
+            int equals = part.indexOf('=');
+            if (equals < 0) {
+                continue;
+            }
+            String key = part.substring(0, equals).trim().toUpperCase();
+            String argument = part.substring(equals + 1).trim();
+            try {
+                switch (key) {
+                    case "FREQ":
+                        frequency = Frequency.valueOf(argument.toUpperCase());
+                        break;
+                    case "INTERVAL":
+                        interval = Math.max(1, Integer.parseInt(argument));
+                        break;
+                    case "COUNT":
+                        count = Math.max(1, Integer.parseInt(argument));
+                        break;
+                    case "UNTIL":
+                        untilMillis = IcsParser.parseDateTime(argument, zone);
+                        break;
+                    case "BYDAY":
+                        for (String day : argument.split(",")) {
+                            day = day.trim();
+                            days.add(parseDay(day.substring(day.length() - 2)));
+                            ordinals.add(day.length() > 2 ? Integer.parseInt(day.substring(0, day.length() - 2)) : 0);
+                        }
+                        break;
+                    case "BYMONTHDAY":
+                        String[] parts = argument.split(",");
+                        monthDays = new int[parts.length];
+                        for (int i = 0; i < parts.length; i++) {
+                            monthDays[i] = Integer.parseInt(parts[i].trim());
+                        }
+                        break;
+                    default:
+                        break;
+                }
+            } catch (DateTimeException | IllegalArgumentException | IndexOutOfBoundsException e) {
+                System.err.println("Ignoring malformed " + key + " in recurrence rule: " + value);
+            }
+        }
+        if (frequency == null) {
+            return null;
+        }
+        
+        int[] ordinalArray = new int[ordinals.size()];
+        for (int i = 0; i < ordinalArray.length; i++) {
+            ordinalArray[i] = ordinals.get(i);
+        }
+        return new RecurrenceRule(frequency, interval, count, untilMillis, days.toArray(new DayOfWeek[0]),
+            ordinalArray, monthDays);
+    }
+    
+    /**
+     * Report the start of every occurrence in [fromMillis, toMillis), in order.
+     * The first occurrence is the series start itself, as in iCalendar.
+     *
+     * @param start Start of the series (DTSTART), whose local time every occurrence keeps
+     */
+    public void expand(ZonedDateTime start, long fromMillis, long toMillis, LongConsumer occurrences) {
+        long lastMillis = Math.min(toMillis, untilMillis == Long.MAX_VALUE ? Long.MAX_VALUE : untilMillis + 1);
+        
+        // Without COUNT, periods before the range cannot matter, so skip them arithmetically
+        long period = 0;
+        if (count == 0 && fromMillis > start.toInstant().toEpochMilli()) {
+            ZonedDateTime from = ZonedDateTime.ofInstant(Instant.ofEpochMilli(fromMillis), start.getZone());
+            long elapsed = unit().between(start, from);
+            period = Math.max(0, (elapsed / interval - 1) * interval);
+        }
+        
+        List<ZonedDateTime> candidates = new ArrayList<>();
+        int emitted = 0;
+        int emptyPeriods = 0;
+        long startMillis = start.toInstant().toEpochMilli();
+        while (emptyPeriods < MAX_EMPTY_PERIODS) {
+            candidates.clear();
+            addCandidates(start, period, candidates);
+            if (candidates.isEmpty()) {
+                emptyPeriods++;
+            } else {
+                emptyPeriods = 0;
+            }
+            for (ZonedDateTime candidate : candidates) {
+                long millis = candidate.toInstant().toEpochMilli();
+                if (millis < startMillis) {
+                    continue;
+                }
+                if (millis >= lastMillis || (count > 0 && emitted >= count)) {
+                    return;
+                }
+                emitted++;
+                if (millis >= fromMillis) {
+                    occurrences.accept(millis);
+                }
+            }
+            period += interval;
+        }
+    }
+    
+    private ChronoUnit unit() {
+        switch (frequency) {
+            case DAILY:
+                return ChronoUnit.DAYS;
+            case WEEKLY:
+                return ChronoUnit.WEEKS;
+            case MONTHLY:
+                return ChronoUnit.MONTHS;
+            default:
+                return ChronoUnit.YEARS;
+        }
+    }
+    
+    /**
+     * Add the occurrence candidates of one period, in time order.
+     */
+    private void addCandidates(ZonedDateTime start, long period, List<ZonedDateTime> candidates) {
+        switch (frequency) {
+            case DAILY: {
+                ZonedDateTime day = start.plusDays(period);
+                if (byDay.length == 0 || contains(byDay, day.getDayOfWeek())) {
+                    candidates.add(day);
+                }
+                break;
+            }
+            case WEEKLY: {
+                ZonedDateTime week = start.plusWeeks(period);
+                if (byDay.length == 0) {
+                    candidates.add(week);
+                    break;
+                }
+                ZonedDateTime monday = week.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+                for (DayOfWeek day : DayOfWeek.values()) {
+                    if (contains(byDay, day)) {
+                        candidates.add(monday.with(TemporalAdjusters.nextOrSame(day)));
+                    }
+                }
+                break;
+            }
+            case MONTHLY: {
+                ZonedDateTime month = start.withDayOfMonth(1).plusMonths(period);
+                if (byMonthDay.length > 0) {
+                    for (int day : byMonthDay) {
+                        addMonthDay(month, day, candidates);
+                    }
+                } else if (byDay.length > 0) {
+                    for (int i = 0; i < byDay.length; i++) {
+                        addWeekdays(month, byDay[i], byDayOrdinal[i], candidates);
+                    }
+                } else {
+                    addMonthDay(month, start.getDayOfMonth(), candidates);
+                }
+                candidates.sort(null);
+                break;
+            }
+            default: {
+                ZonedDateTime year = start.plusYears(period);
+                // Feb 29 series skip the years without one, rather than moving to Feb 28
+                if (year.getDayOfMonth() == start.getDayOfMonth()) {
+                    candidates.add(year);
+                }
+                break;
+            }
+        }
+    }
+    
+    /**
+     * Add a day of the month, counted from the end when negative. Days the month does not have are skipped.
+     */
+    private static void addMonthDay(ZonedDateTime month, int day, List<ZonedDateTime> candidates) {
+        int length = month.toLocalDate().lengthOfMonth();
+        int dayOfMonth = day > 0 ? day : length + day + 1;
+        if (dayOfMonth >= 1 && dayOfMonth <= length) {
+            candidates.add(month.withDayOfMonth(dayOfMonth));
+        }
+    }
+    
+    /**
+     * Add the nth weekday of the month (counted from the end when negative), or every such weekday for 0.
+     */
+    private static void addWeekdays(ZonedDateTime month, DayOfWeek day, int ordinal,
+                                    List<ZonedDateTime> candidates) {
+        if (ordinal == 0) {
+            ZonedDateTime date = month.with(TemporalAdjusters.firstInMonth(day));
+            while (date.getMonth() == month.getMonth()) {
+                candidates.add(date);
+                date = date.plusWeeks(1);
+            }
+            return;
+        }
+        ZonedDateTime date = month.with(TemporalAdjusters.dayOfWeekInMonth(ordinal, day));
+        if (date.getMonth() == month.getMonth()) {
+            candidates.add(date);
+        }
+    }
+    
+    private static boolean contains(DayOfWeek[] days, DayOfWeek day) {
+        for (DayOfWeek candidate : days) {
+            if (candidate == day) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static DayOfWeek parseDay(String code) {
+        switch (code.toUpperCase()) {
+            case "MO":
+                return DayOfWeek.MONDAY;
+            case "TU":
+                return DayOfWeek.TUESDAY;
+            case "WE":
+                return DayOfWeek.WEDNESDAY;
+            case "TH":
+                return DayOfWeek.THURSDAY;
+            case "FR":
+                return DayOfWeek.FRIDAY;
+            case "SA":
+                return DayOfWeek.SATURDAY;
+            case "SU":
+                return DayOfWeek.SUNDAY;
+            default:
+                throw new IllegalArgumentException("Unknown day " + code);
+        }
+    }
+    
+    public Frequency getFrequency() {
+        return frequency;
+    }
+    
+    /**
+     * Check whether the series ends before the given time, judging by UNTIL only.
+     */
+    public boolean endsBefore(long millis) {
+        return untilMillis < millis;
+    }
+}
@@ -0,0 +1,136 @@
+package com.gooddaytolearn;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+/**
+ * Caches the static layers of the main window (background gradient and timer glow)
+ * as pre-rendered images, so repaints only have to blit them.
+ *
+ * Images are rebuilt only when the component size, the display scale or the theme changes.
+ */
+public class RenderCache {
+    
+    private static final int GLOW_LAYERS = 8;
+    private static final int GLOW_ARC = 20;
+    
+    // Background gradient layer
+    private Image background;
+    private int backgroundWidth;
+    private int backgroundHeight;
+    private double backgroundScale;
+    
+    // Glow layers, one per timer state
+    private Image workGlow;
+    private Image breakGlow;
+    private int glowWidth;
+    private int glowHeight;
+    private double glowScale;
+    
+    /**
+     * Draw the background gradient for the given component.
+     */
+    public void drawBackground(Graphics2D g2d, Component component) {
+        int width = component.getWidth();
+        int height = component.getHeight();
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+        
+        double scale = g2d.getTransform().getScaleX();
+        if (background == null || width != backgroundWidth || height != backgroundHeight
+                || scale != backgroundScale) {
+            background = renderBackground(component, width, height, scale);
+            backgroundWidth = width;
+            backgroundHeight = height;
+            backgroundScale = scale;
+        }
+        g2d.drawImage(background, 0, 0, width, height, null);
+    }
+    
+    /**
+     * Draw the glow around the timer for the given component and timer state.
+     */
+    public void drawGlow(Graphics2D g2d, Component component, boolean isBreak) {
+        int width = component.getWidth();
+        int height = component.getHeight();
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+        
+        double scale = g2d.getTransform().getScaleX();
+        if (width != glowWidth || height != glowHeight || scale != glowScale) {
+            workGlow = null;
+            breakGlow = null;
+            glowWidth = width;
+            glowHeight = height;
+            glowScale = scale;
+        }
+        
+        Image glow;
+        if (isBreak) {
+            if (breakGlow == null) {
+                breakGlow = renderGlow(component, width, height, scale, ThemeManager.current().phaseColor(true));
+            }
+            glow = breakGlow;
+        } else {
+            if (workGlow == null) {
+                workGlow = renderGlow(component, width, height, scale, ThemeManager.current().phaseColor(false));
+            }
+            glow = workGlow;
+        }
+        g2d.drawImage(glow, 0, 0, width, height, null);
+    }
+    
+    /**
+     * Drop all cached layers. Call this when the theme changes.
+     */
+    public void invalidate() {
+        background = null;
+        workGlow = null;
+        breakGlow = null;
+    }
+    
+    /**
+     * Render the subtle vertical gradient behind the main panel.
+     */
+    private Image renderBackground(Component component, int width, int height, double scale) {
+        BufferedImage image = createImage(component, width, height, scale, Transparency.OPAQUE);
+        Graphics2D g2d = image.createGraphics();
+        g2d.scale(scale, scale);
+        g2d.setPaint(ThemeManager.current().backgroundPaint(height));
+        g2d.fillRect(0, 0, width, height);
+        g2d.dispose();
+        return image;
+    }
+    
+    /**
+     * Render the stacked translucent rounded rectangles that make up the timer glow.
+     */
+    private Image renderGlow(Component component, int width, int height, double scale, Color color) {
+        BufferedImage image = createImage(component, width, height, scale, Transparency.TRANSLUCENT);
+        Graphics2D g2d = image.createGraphics();
+        g2d.scale(scale, scale);
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        for (int i = GLOW_LAYERS; i >= 0; i--) {
+            g2d.setColor(new Color(color.getRed(), color.getGreen(), color.getBlue(), i * 2));
+            g2d.fillRoundRect(i, i, width - i * 2, height - i * 2, GLOW_ARC, GLOW_ARC);
+        }
+        g2d.dispose();
+        return image;
+    }
+    
+    /**
+     * Create an image in the component's native pixel format when possible, so blits stay accelerated.
+     */
+    private BufferedImage createImage(Component component, int width, int height, double scale, int transparency) {
+        int pixelWidth = (int) Math.ceil(width * scale);
+        int pixelHeight = (int) Math.ceil(height * scale);
+        GraphicsConfiguration config = component.getGraphicsConfiguration();
+        if (config != null) {
+            return config.createCompatibleImage(pixelWidth, pixelHeight, transparency);
+        }
+        int type = transparency == Transparency.OPAQUE ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB;
+        return new BufferedImage(pixelWidth, pixelHeight, type);
+    }
+}
@@ -0,0 +1,503 @@
+package com.gooddaytolearn;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only binary journal of finished phases.
+ *
+ * The file is a 16 byte header followed by fixed-size records, each protected by a CRC32.
+ * {@link #append(PhaseEvent)} only queues the event; a single writer thread drains the
+ * queue and writes everything pending with one write and one fsync (group commit).
+ * A record torn by a crash is detected and truncated when the journal is opened.
+ * A batch that fails to write is kept and retried with the next one.
+ * Version 1 files, written before records carried a task id, are rewritten in the
+ * current format on open.
+ */
+public class SessionJournal {
+    
+    /**
+     * Notified on the writer thread, in file order, after a record is durable.
+     */
+    public interface CommitListener {
+        /**
+         * @param index Zero-based index of the record in the journal
+         * @param event The event stored in the record
+         */
+        void onCommit(long index, PhaseEvent event);
+    }
+    
+    private static final long MAGIC = 0x4744544C4A524E4CL; // "GDTLJRNL"
+    private static final int VERSION = 2;
+    private static final int VERSION_1 = 1;
+    
+    static final int HEADER_SIZE = 16;
+    static final int RECORD_SIZE = 38;
+    private static final int PAYLOAD_SIZE = RECORD_SIZE - 4;
+    private static final int V1_RECORD_SIZE = 34;
+    private static final int MAX_BATCH = 256;
+    private static final int READ_BATCH = 2048;
+    private static final long WRITE_RETRY_MS = 1000;
+    
+    private static final int FLAG_COMPLETED = 1;
+    private static final int FLAG_CYCLE_COMPLETED = 2;
+    
+    // Queued by close() to stop the writer after everything before it is written
+    private static final PhaseEvent SHUTDOWN = new PhaseEvent(Phase.WORK, 0, 0, 0, 0, 0, false, false);
+    
+    private final Path path;
+    private final BlockingQueue<PhaseEvent> pending = new LinkedBlockingQueue<>();
+    private final ByteBuffer writeBuffer = ByteBuffer.allocate(MAX_BATCH * RECORD_SIZE);
+    private final CRC32 writeCrc = new CRC32();
+    private final List<PhaseEvent> batchEvents = new ArrayList<>(MAX_BATCH);
+    private final List<CommitListener> commitListeners = new CopyOnWriteArrayList<>();
+    private final List<Consumer<IOException>> failureListeners = new CopyOnWriteArrayList<>();
+    private final Object commitLock = new Object();
+    
+    private FileChannel channel;
+    private Thread writer;
+    private volatile long recordCount;
+    private volatile boolean closed;
+    
+    /**
+     * Create a journal for the given file. Nothing is read or written until {@link #open()}.
+     */
+    public SessionJournal(Path path) {
+        this.path = path;
+    }
+    
+    /**
+     * Open the journal file, recover a torn tail, and start the writer thread.
+     * Events appended before this call are written once it completes.
+     */
+    public synchronized void open() throws IOException {
+        if (channel != null) {
+            return;
+        }
+        Files.createDirectories(path.getParent());
+        migrateVersion1();
+        FileChannel opened = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+        try {
+            recordCount = recover(opened);
+        } catch (IOException | RuntimeException e) {
+            try {
+                opened.close();
+            } catch (IOException closeError) {
+                e.addSuppressed(closeError);
+            }
+            throw e;
+        }
+        channel = opened;
+        
+        writer = new Thread(this::writeLoop, "SessionJournal-Writer");
+        writer.setDaemon(true);
+        writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close, "SessionJournal-Shutdown"));
+    }
+    
+    /**
+     * Queue a phase event for writing. Never blocks and never touches the disk.
+     */
+    public void append(PhaseEvent event) {
+        if (!closed) {
+            pending.offer(event);
+        }
+    }
+    
+    /**
+     * Register a listener for records once they are safely on disk.
+     */
+    public void addCommitListener(CommitListener listener) {
+        commitListeners.add(listener);
+    }
+    
+    /**
+     * Register a listener for failed writes, called on the writer thread when a batch
+     * first fails. The batch is retried until a write succeeds, and the listener is
+     * called again only if a later write fails after that.
+     */
+    public void addFailureListener(Consumer<IOException> listener) {
+        failureListeners.add(listener);
+    }
+    
+    /**
+     * Check whether the journal is open and accepting events.
+     */
+    public synchronized boolean isOpen() {
+        return channel != null && !closed;
+    }
+    
+    /**
+     * Wait until at least the given number of records are on disk.
+     * Lets bulk writers such as imports throttle themselves to the disk.
+     *
+     * @return true if the count was reached, false on timeout
+     */
+    public boolean awaitRecordCount(long count, long timeoutMillis) throws InterruptedException {
+        long deadline = System.nanoTime() + timeoutMillis * 1_000_000L;
+        synchronized (commitLock) {
+            while (recordCount < count) {
+                long waitMillis = (deadline - System.nanoTime()) / 1_000_000L;
+                if (waitMillis <= 0) {
+                    return false;
+                }
+                commitLock.wait(waitMillis);
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Get the number of records written so far.
+     */
+    public long getRecordCount() {
+        return recordCount;
+    }
+    
+    public Path getPath() {
+        return path;
+    }
+    
+    /**
+     * Stream records to the consumer in file order, starting at the given record index.
+     * Reads in fixed-size chunks, so memory use does not depend on the journal size.
+     */
+    public void read(long fromRecord, Consumer<PhaseEvent> consumer) throws IOException {
+        long end = recordCount;
+        if (fromRecord >= end || !Files.exists(path)) {
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(READ_BATCH * RECORD_SIZE);
+        CRC32 crc = new CRC32();
+        try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ)) {
+            long record = fromRecord;
+            while (record < end) {
+                int count = (int) Math.min(READ_BATCH, end - record);
+                buffer.clear().limit(count * RECORD_SIZE);
+                long position = HEADER_SIZE + record * RECORD_SIZE;
+                while (buffer.hasRemaining()) {
+                    if (in.read(buffer, position + buffer.position()) < 0) {
+                        return;
+                    }
+                }
+                buffer.flip();
+                for (int i = 0; i < count; i++) {
+                    PhaseEvent event = decode(buffer, crc);
+                    if (event == null) {
+                        System.err.println("Corrupt journal record " + (record + i) + " in " + path);
+                        return;
+                    }
+                    consumer.accept(event);
+                }
+                record += count;
+            }
+        }
+    }
+    
+    /**
+     * Write everything still queued and close the file.
+     */
+    public void close() {
+        Thread writerThread;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            writerThread = writer;
+        }
+        if (writerThread == null) {
+            // Never opened, nothing can be written
+            pending.clear();
+            return;
+        }
+        pending.offer(SHUTDOWN);
+        try {
+            writerThread.join(2000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * Writer thread: write each batch of queued events with a single write and fsync.
+     * After a failed write the batch is kept and written again after a pause, together
+     * with anything queued since.
+     */
+    private void writeLoop() {
+        List<PhaseEvent> batch = new ArrayList<>(MAX_BATCH);
+        boolean stopping = false;
+        boolean failing = false;
+        while (!stopping) {
+            int room = MAX_BATCH - batchEvents.size();
+            try {
+                if (batchEvents.isEmpty()) {
+                    batch.add(pending.take());
+                    room--;
+                } else {
+                    Thread.sleep(WRITE_RETRY_MS);
+                }
+            } catch (InterruptedException e) {
+                break;
+            }
+            pending.drainTo(batch, room);
+            
+            for (PhaseEvent event : batch) {
+                if (event == SHUTDOWN) {
+                    stopping = true;
+                } else {
+                    batchEvents.add(event);
+                }
+            }
+            batch.clear();
+            if (batchEvents.isEmpty()) {
+                continue;
+            }
+            
+            writeBuffer.clear();
+            for (PhaseEvent event : batchEvents) {
+                encode(event, writeBuffer, writeCrc);
+            }
+            writeBuffer.flip();
+            try {
+                long position = HEADER_SIZE + recordCount * RECORD_SIZE;
+                while (writeBuffer.hasRemaining()) {
+                    position += channel.write(writeBuffer, position);
+                }
+                channel.force(false);
+                long firstIndex = recordCount;
+                synchronized (commitLock) {
+                    recordCount += batchEvents.size();
+                    commitLock.notifyAll();
+                }
+                notifyCommitted(firstIndex);
+                batchEvents.clear();
+                failing = false;
+            } catch (IOException e) {
+                System.err.println("Error writing session journal: " + e.getMessage());
+                if (!failing) {
+                    failing = true;
+                    FlightRecorder.record(FlightRecorder.Type.ERROR, "Journal write failed");
+                    notifyFailed(e);
+                }
+                if (stopping) {
+                    System.err.println("Session journal closed with " + batchEvents.size() + " unwritten records");
+                    batchEvents.clear();
+                }
+            }
+        }
+        
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.err.println("Error closing session journal: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Pass the records of the batch just written to the commit listeners.
+     */
+    private void notifyCommitted(long firstIndex) {
+        for (CommitListener listener : commitListeners) {
+            for (int i = 0; i < batchEvents.size(); i++) {
+                try {
+                    listener.onCommit(firstIndex + i, batchEvents.get(i));
+                } catch (RuntimeException e) {
+                    System.err.println("Error in journal commit listener: " + e.getMessage());
+                }
+            }
+        }
+    }
+    
+    /**
+     * Tell the failure listeners that a batch could not be written.
+     */
+    private void notifyFailed(IOException error) {
+        for (Consumer<IOException> listener : failureListeners) {
+            try {
+                listener.accept(error);
+            } catch (RuntimeException e) {
+                System.err.println("Error in journal failure listener: " + e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Rewrite a version 1 journal in the current format, giving every record no task.
+     * The new file is written next to the old one and moved over it, so a crash leaves
+     * one complete journal or the other. Records after the first corrupt one are dropped,
+     * as recovery would have done.
+     */
+    private void migrateVersion1() throws IOException {
+        if (!Files.exists(path) || Files.size(path) < HEADER_SIZE) {
+            return;
+        }
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        long migrated = 0;
+        try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            in.read(header, 0);
+            header.flip();
+            if (header.getLong() != MAGIC || header.getInt() != VERSION_1 || header.getInt() != V1_RECORD_SIZE) {
+                // Current format, or not a journal at all, which recover() reports
+                return;
+            }
+            
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                header.clear();
+                header.putLong(MAGIC).putInt(VERSION).putInt(RECORD_SIZE).flip();
+                out.write(header, 0);
+                
+                ByteBuffer source = ByteBuffer.allocate(READ_BATCH * V1_RECORD_SIZE);
+                ByteBuffer target = ByteBuffer.allocate(READ_BATCH * RECORD_SIZE);
+                CRC32 crc = new CRC32();
+                long records = (in.size() - HEADER_SIZE) / V1_RECORD_SIZE;
+                boolean corrupt = false;
+                while (migrated < records && !corrupt) {
+                    int count = (int) Math.min(READ_BATCH, records - migrated);
+                    source.clear().limit(count * V1_RECORD_SIZE);
+                    long position = HEADER_SIZE + migrated * V1_RECORD_SIZE;
+                    while (source.hasRemaining()) {
+                        if (in.read(source, position + source.position()) < 0) {
+                            break;
+                        }
+                    }
+                    source.flip();
+                    target.clear();
+                    int decoded = 0;
+                    while (decoded < count) {
+                        PhaseEvent event = decode(source, crc, VERSION_1);
+                        if (event == null) {
+                            corrupt = true;
+                            break;
+                        }
+                        encode(event, target, crc);
+                        decoded++;
+                    }
+                    target.flip();
+                    long outPosition = HEADER_SIZE + migrated * RECORD_SIZE;
+                    while (target.hasRemaining()) {
+                        outPosition += out.write(target, outPosition);
+                    }
+                    migrated += decoded;
+                }
+                out.force(true);
+            }
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        System.err.println("Upgraded session journal to version " + VERSION + ": " + migrated + " records");
+    }
+    
+    /**
+     * Validate the header and drop any incomplete or corrupt records at the end of the file.
+     *
+     * @return the number of valid records
+     */
+    private long recover(FileChannel file) throws IOException {
+        long size = file.size();
+        if (size < HEADER_SIZE) {
+            // New file, or a crash while writing the header
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putLong(MAGIC).putInt(VERSION).putInt(RECORD_SIZE).flip();
+            file.truncate(0);
+            file.write(header, 0);
+            file.force(true);
+            return 0;
+        }
+        
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        file.read(header, 0);
+        header.flip();
+        if (header.getLong() != MAGIC || header.getInt() != VERSION || header.getInt() != RECORD_SIZE) {
+            throw new IOException("Not a session journal: " + path);
+        }
+        
+        long records = (size - HEADER_SIZE) / RECORD_SIZE;
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+        CRC32 crc = new CRC32();
+        while (records > 0) {
+            record.clear();
+            file.read(record, HEADER_SIZE + (records - 1) * RECORD_SIZE);
+            record.flip();
+            if (decode(record, crc) != null) {
+                break;
+            }
+            records--;
+        }
+        
+        long validSize = HEADER_SIZE + records * RECORD_SIZE;
+        if (validSize != size) {
+            file.truncate(validSize);
+            file.force(true);
+            System.err.println("Recovered session journal: dropped " + (size - validSize) + " bytes of torn tail");
+        }
+        return records;
+    }
+    
+    /**
+     * Encode one event at the buffer's position.
+     */
+    static void encode(PhaseEvent event, ByteBuffer buffer, CRC32 crc) {
+        int start = buffer.position();
+        int flags = (event.isCompleted() ? FLAG_COMPLETED : 0)
+            | (event.isCycleCompleted() ? FLAG_CYCLE_COMPLETED : 0);
+        buffer.putLong(event.getStartMillis());
+        buffer.putLong(event.getEndMillis());
+        buffer.putInt(event.getPlannedSeconds());
+        buffer.putInt(event.getActualSeconds());
+        buffer.putInt(event.getInterruptions());
+        buffer.put((byte) event.getPhase().ordinal());
+        buffer.put((byte) flags);
+        buffer.putInt(event.getTaskId());
+        crc.reset();
+        crc.update(buffer.array(), buffer.arrayOffset() + start, PAYLOAD_SIZE);
+        buffer.putInt((int) crc.getValue());
+    }
+    
+    /**
+     * Decode one event at the buffer's position.
+     *
+     * @return the event, or null if the record fails its checksum
+     */
+    static PhaseEvent decode(ByteBuffer buffer, CRC32 crc) {
+        return decode(buffer, crc, VERSION);
+    }
+    
+    /**
+     * Decode one event written by the given journal version.
+     */
+    private static PhaseEvent decode(ByteBuffer buffer, CRC32 crc, int version) {
+        int payloadSize = version == VERSION_1 ? V1_RECORD_SIZE - 4 : PAYLOAD_SIZE;
+        int start = buffer.position();
+        crc.reset();
+        crc.update(buffer.array(), buffer.arrayOffset() + start, payloadSize);
+        long startMillis = buffer.getLong();
+        long endMillis = buffer.getLong();
+        int planned = buffer.getInt();
+        int actual = buffer.getInt();
+        int interruptions = buffer.getInt();
+        int phase = buffer.get();
+        int flags = buffer.get();
+        int taskId = version == VERSION_1 ? Task.NONE : buffer.getInt();
+        int storedCrc = buffer.getInt();
+        if (storedCrc != (int) crc.getValue() || phase < 0 || phase >= Phase.values().length) {
+            return null;
+        }
+        return new PhaseEvent(Phase.values()[phase], startMillis, endMillis, planned, actual, interruptions,
+            (flags & FLAG_COMPLETED) != 0, (flags & FLAG_CYCLE_COMPLETED) != 0, taskId);
+    }
+}
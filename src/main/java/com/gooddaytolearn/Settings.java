@@ -0,0 +1,334 @@
+package com.gooddaytolearn;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Immutable snapshot of everything the user can configure.
+ */
+public class Settings {
+    
+    /**
+     * The individual settings, used to report what changed between two snapshots.
+     */
+    public enum Field {
+        WORK_TIME, SHORT_BREAK, LONG_BREAK, MUSIC_VOLUME, ALARM_VOLUME, MUSIC_FILE, ALARM_FILE, THEME, CALENDAR_FILE,
+        LOW_MEMORY_AUDIO, SOUNDSCAPE;
+        
+        /**
+         * Fields that change how long phases last.
+         */
+        public static final EnumSet<Field> DURATIONS = EnumSet.of(WORK_TIME, SHORT_BREAK, LONG_BREAK);
+    }
+    
+    private static final String WORK_MINUTES = "work.minutes";
+    private static final String SHORT_BREAK_MINUTES = "shortBreak.minutes";
+    private static final String LONG_BREAK_MINUTES = "longBreak.minutes";
+    private static final String MUSIC_VOLUME = "music.volume";
+    private static final String ALARM_VOLUME = "alarm.volume";
+    private static final String MUSIC_FILE = "music.file";
+    private static final String ALARM_FILE = "alarm.file";
+    private static final String THEME = "theme";
+    private static final String CALENDAR_FILE = "calendar.file";
+    private static final String LOW_MEMORY_AUDIO = "audio.lowMemory";
+    private static final String SOUNDSCAPE = "soundscape.";
+    
+    private final int workMinutes;
+    private final int shortBreakMinutes;
+    private final int longBreakMinutes;
+    private final double musicVolume;
+    private final double alarmVolume;
+    private final String customMusicFile;
+    private final String customAlarmFile;
+    private final Theme theme;
+    private final String calendarFile;
+    private final boolean lowMemoryAudio;
+    private final List<SoundscapeLayer> soundscape;
+    
+    /**
+     * Create a snapshot. Durations and volumes are clamped to their valid ranges.
+     *
+     * @param customMusicFile Path of a user-selected music file, or null for the default
+     * @param customAlarmFile Path of a user-selected alarm file, or null for the default
+     * @param theme Colour theme, or null for the default
+     * @param calendarFile Path of an .ics calendar to plan work intervals around, or null for none
+     * @param lowMemoryAudio True to release decoded music while it is not playing
+     * @param soundscape Layers of the ambient soundscape, or null for just the music during work
+     */
+    public Settings(int workMinutes, int shortBreakMinutes, int longBreakMinutes,
+                    double musicVolume, double alarmVolume, String customMusicFile, String customAlarmFile,
+                    Theme theme, String calendarFile, boolean lowMemoryAudio,
+                    List<SoundscapeLayer> soundscape) {
+        this.workMinutes = clamp(workMinutes, AppConfig.MIN_WORK_TIME, AppConfig.MAX_WORK_TIME);
+        this.shortBreakMinutes = clamp(shortBreakMinutes, AppConfig.MIN_BREAK_TIME, AppConfig.MAX_SHORT_BREAK);
+        this.longBreakMinutes = clamp(longBreakMinutes, AppConfig.MIN_BREAK_TIME, AppConfig.MAX_LONG_BREAK);
+        this.musicVolume = Math.max(0.0, Math.min(1.0, musicVolume));
+        this.alarmVolume = Math.max(0.0, Math.min(1.0, alarmVolume));
+        this.customMusicFile = customMusicFile;
+        this.customAlarmFile = customAlarmFile;
+        this.theme = theme != null ? theme : Theme.DARK;
+        this.calendarFile = calendarFile;
+        this.lowMemoryAudio = lowMemoryAudio;
+        this.soundscape = soundscape != null ? Collections.unmodifiableList(new ArrayList<>(soundscape))
+            : Collections.singletonList(SoundscapeLayer.defaultMusic());
+    }
+    
+    /**
+     * Get the settings a fresh install starts with.
+     */
+    public static Settings defaults() {
+        return new Settings(AppConfig.DEFAULT_WORK_TIME / 60, AppConfig.DEFAULT_SHORT_BREAK / 60,
+            AppConfig.DEFAULT_LONG_BREAK / 60, AppConfig.DEFAULT_MUSIC_VOLUME, AppConfig.DEFAULT_ALARM_VOLUME,
+            null, null, Theme.DARK, null, false, null);
+    }
+    
+    /**
+     * Push every value into the timer and audio manager.
+     */
+    public void applyTo(PomodoroTimer timer, AudioManager audioManager) {
+        timer.setWorkTime(workMinutes);
+        timer.setShortBreakTime(shortBreakMinutes);
+        timer.setLongBreakTime(longBreakMinutes);
+        audioManager.setMusicVolume(musicVolume);
+        audioManager.setAlarmVolume(alarmVolume);
+        audioManager.setLowMemory(lowMemoryAudio);
+        audioManager.setCustomMusicFile(customMusicFile);
+        audioManager.setCustomAlarmFile(customAlarmFile);
+        audioManager.setSoundscape(soundscape);
+    }
+    
+    /**
+     * Get the fields whose values differ in the other snapshot.
+     */
+    public EnumSet<Field> diff(Settings other) {
+        EnumSet<Field> changed = EnumSet.noneOf(Field.class);
+        if (workMinutes != other.workMinutes) {
+            changed.add(Field.WORK_TIME);
+        }
+        if (shortBreakMinutes != other.shortBreakMinutes) {
+            changed.add(Field.SHORT_BREAK);
+        }
+        if (longBreakMinutes != other.longBreakMinutes) {
+            changed.add(Field.LONG_BREAK);
+        }
+        if (Double.compare(musicVolume, other.musicVolume) != 0) {
+            changed.add(Field.MUSIC_VOLUME);
+        }
+        if (Double.compare(alarmVolume, other.alarmVolume) != 0) {
+            changed.add(Field.ALARM_VOLUME);
+        }
+        if (!Objects.equals(customMusicFile, other.customMusicFile)) {
+            changed.add(Field.MUSIC_FILE);
+        }
+        if (!Objects.equals(customAlarmFile, other.customAlarmFile)) {
+            changed.add(Field.ALARM_FILE);
+        }
+        if (theme != other.theme) {
+            changed.add(Field.THEME);
+        }
+        if (!Objects.equals(calendarFile, other.calendarFile)) {
+            changed.add(Field.CALENDAR_FILE);
+        }
+        if (lowMemoryAudio != other.lowMemoryAudio) {
+            changed.add(Field.LOW_MEMORY_AUDIO);
+        }
+        if (!soundscape.equals(other.soundscape)) {
+            changed.add(Field.SOUNDSCAPE);
+        }
+        return changed;
+    }
+    
+    /**
+     * Read settings from properties. Missing or malformed values fall back to the defaults.
+     */
+    static Settings fromProperties(Properties properties) {
+        Settings defaults = defaults();
+        return new Settings(
+            readInt(properties, WORK_MINUTES, defaults.workMinutes),
+            readInt(properties, SHORT_BREAK_MINUTES, defaults.shortBreakMinutes),
+            readInt(properties, LONG_BREAK_MINUTES, defaults.longBreakMinutes),
+            readDouble(properties, MUSIC_VOLUME, defaults.musicVolume),
+            readDouble(properties, ALARM_VOLUME, defaults.alarmVolume),
+            properties.getProperty(MUSIC_FILE),
+            properties.getProperty(ALARM_FILE),
+            Theme.byName(properties.getProperty(THEME)),
+            properties.getProperty(CALENDAR_FILE),
+            Boolean.parseBoolean(properties.getProperty(LOW_MEMORY_AUDIO, "false").trim()),
+            readSoundscape(properties));
+    }
+    
+    /**
+     * Write the settings as properties. Default audio files and a missing calendar are left out.
+     */
+    Properties toProperties() {
+        Properties properties = new Properties();
+        properties.setProperty(WORK_MINUTES, Integer.toString(workMinutes));
+        properties.setProperty(SHORT_BREAK_MINUTES, Integer.toString(shortBreakMinutes));
+        properties.setProperty(LONG_BREAK_MINUTES, Integer.toString(longBreakMinutes));
+        properties.setProperty(MUSIC_VOLUME, Double.toString(musicVolume));
+        properties.setProperty(ALARM_VOLUME, Double.toString(alarmVolume));
+        if (customMusicFile != null) {
+            properties.setProperty(MUSIC_FILE, customMusicFile);
+        }
+        if (customAlarmFile != null) {
+            properties.setProperty(ALARM_FILE, customAlarmFile);
+        }
+        properties.setProperty(THEME, theme.name());
+        if (calendarFile != null) {
+            properties.setProperty(CALENDAR_FILE, calendarFile);
+        }
+        properties.setProperty(LOW_MEMORY_AUDIO, Boolean.toString(lowMemoryAudio));
+        properties.setProperty(SOUNDSCAPE + "count", Integer.toString(soundscape.size()));
+        for (int i = 0; i < soundscape.size(); i++) {
+            SoundscapeLayer layer = soundscape.get(i);
+            StringBuilder phases = new StringBuilder();
+            for (Phase phase : layer.getPhases()) {
+                phases.append(phases.length() > 0 ? "," : "").append(phase.name());
+            }
+            properties.setProperty(SOUNDSCAPE + i + ".source", layer.getSource());
+            properties.setProperty(SOUNDSCAPE + i + ".gain", Double.toString(layer.getGain()));
+            properties.setProperty(SOUNDSCAPE + i + ".phases", phases.toString());
+        }
+        return properties;
+    }
+    
+    public int getWorkMinutes() {
+        return workMinutes;
+    }
+    
+    public int getShortBreakMinutes() {
+        return shortBreakMinutes;
+    }
+    
+    public int getLongBreakMinutes() {
+        return longBreakMinutes;
+    }
+    
+    public double getMusicVolume() {
+        return musicVolume;
+    }
+    
+    public double getAlarmVolume() {
+        return alarmVolume;
+    }
+    
+    public String getCustomMusicFile() {
+        return customMusicFile;
+    }
+    
+    public String getCustomAlarmFile() {
+        return customAlarmFile;
+    }
+    
+    public Theme getTheme() {
+        return theme;
+    }
+    
+    public String getCalendarFile() {
+        return calendarFile;
+    }
+    
+    public boolean isLowMemoryAudio() {
+        return lowMemoryAudio;
+    }
+    
+    public List<SoundscapeLayer> getSoundscape() {
+        return soundscape;
+    }
+    
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof Settings)) {
+            return false;
+        }
+        Settings settings = (Settings) other;
+        return workMinutes == settings.workMinutes
+            && shortBreakMinutes == settings.shortBreakMinutes
+            && longBreakMinutes == settings.longBreakMinutes
+            && Double.compare(musicVolume, settings.musicVolume) == 0
+            && Double.compare(alarmVolume, settings.alarmVolume) == 0
+            && Objects.equals(customMusicFile, settings.customMusicFile)
+            && Objects.equals(customAlarmFile, settings.customAlarmFile)
+            && theme == settings.theme
+            && Objects.equals(calendarFile, settings.calendarFile)
+            && lowMemoryAudio == settings.lowMemoryAudio
+            && soundscape.equals(settings.soundscape);
+    }
+    
+    @Override
+    public int hashCode() {
+        return Objects.hash(workMinutes, shortBreakMinutes, longBreakMinutes, musicVolume, alarmVolume,
+            customMusicFile, customAlarmFile, theme, calendarFile, lowMemoryAudio, soundscape);
+    }
+    
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(max, value));
+    }
+    
+    /**
+     * Read the soundscape layers, or null for the default when none are saved.
+     * Layers with a missing source or unknown phase are skipped.
+     */
+    private static List<SoundscapeLayer> readSoundscape(Properties properties) {
+        if (properties.getProperty(SOUNDSCAPE + "count") == null) {
+            return null;
+        }
+        int count = clamp(readInt(properties, SOUNDSCAPE + "count", 0), 0, AppConfig.MAX_SOUNDSCAPE_LAYERS);
+        List<SoundscapeLayer> layers = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String source = properties.getProperty(SOUNDSCAPE + i + ".source");
+            if (source == null || source.trim().isEmpty()) {
+                System.err.println("Soundscape layer " + i + " has no source, skipping it");
+                continue;
+            }
+            Set<Phase> phases = EnumSet.noneOf(Phase.class);
+            try {
+                for (String name : properties.getProperty(SOUNDSCAPE + i + ".phases", "").split(",")) {
+                    if (!name.trim().isEmpty()) {
+                        phases.add(Phase.valueOf(name.trim().toUpperCase()));
+                    }
+                }
+            } catch (IllegalArgumentException e) {
+                System.err.println("Invalid phases for soundscape layer " + i + ", skipping it");
+                continue;
+            }
+            layers.add(new SoundscapeLayer(source.trim(), readDouble(properties, SOUNDSCAPE + i + ".gain", 1.0),
+                phases));
+        }
+        return layers;
+    }
+    
+    private static int readInt(Properties properties, String key, int fallback) {
+        String value = properties.getProperty(key);
+        if (value == null) {
+            return fallback;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid setting " + key + "=" + value + ", using default");
+            return fallback;
+        }
+    }
+    
+    private static double readDouble(Properties properties, String key, double fallback) {
+        String value = properties.getProperty(key);
+        if (value == null) {
+            return fallback;
+        }
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid setting " + key + "=" + value + ", using default");
+            return fallback;
+        }
+    }
+}
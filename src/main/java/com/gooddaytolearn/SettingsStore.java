@@ -0,0 +1,150 @@
+package com.gooddaytolearn;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loads and saves {@link Settings} as a small properties file.
+ *
+ * Loading is a single read, done once at startup before any window is built.
+ * {@link #save(Settings)} only records the new snapshot; a background writer
+ * persists the latest one once no save has come for {@value #WRITE_DELAY_MS} ms,
+ * replacing the file atomically. A burst of changes therefore costs one write and
+ * never blocks the caller. A snapshot stays pending until it has been written, so a
+ * failed write is retried by the next save or by {@link #flush()}.
+ */
+public class SettingsStore {
+    
+    private static final long WRITE_DELAY_MS = 500;
+    private static final long FLUSH_TIMEOUT_MS = 2000;
+    
+    private final Path path;
+    private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "SettingsStore-Writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    private final Object writeLock = new Object();
+    private Settings current = Settings.defaults();
+    private Settings pending;
+    private ScheduledFuture<?> scheduledWrite;
+    
+    /**
+     * Create a store for the given file. Nothing is read until {@link #load()}.
+     */
+    public SettingsStore(Path path) {
+        this.path = path;
+        Runtime.getRuntime().addShutdownHook(new Thread(this::flush, "SettingsStore-Shutdown"));
+    }
+    
+    /**
+     * Read the settings file. A missing or unreadable file gives the defaults.
+     */
+    public synchronized Settings load() {
+        try {
+            Properties properties = new Properties();
+            properties.load(new ByteArrayInputStream(Files.readAllBytes(path)));
+            current = Settings.fromProperties(properties);
+        } catch (NoSuchFileException e) {
+            current = Settings.defaults();
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Could not read settings, using defaults: " + e.getMessage());
+            current = Settings.defaults();
+        }
+        return current;
+    }
+    
+    /**
+     * Get the most recently loaded or saved settings.
+     */
+    public synchronized Settings get() {
+        return current;
+    }
+    
+    /**
+     * Record new settings and schedule them to be written. Returns immediately.
+     */
+    public synchronized void save(Settings settings) {
+        if (settings.equals(current) && pending == null) {
+            return;
+        }
+        current = settings;
+        pending = settings;
+        if (writer.isShutdown()) {
+            return;
+        }
+        // Restart the quiet period; a write already running finishes undisturbed
+        if (scheduledWrite != null) {
+            scheduledWrite.cancel(false);
+        }
+        scheduledWrite = writer.schedule(this::writePending, WRITE_DELAY_MS, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Write any pending settings now and stop the background writer.
+     * A write already in progress is allowed to finish first rather than interrupted.
+     */
+    public void flush() {
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(FLUSH_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                System.err.println("Settings writer did not finish in time");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writePending();
+    }
+    
+    /**
+     * Write the latest pending snapshot, if any. It is only cleared once it is on disk,
+     * and only if no newer one was saved meanwhile.
+     */
+    private void writePending() {
+        Settings settings;
+        synchronized (this) {
+            settings = pending;
+        }
+        if (settings != null && write(settings)) {
+            synchronized (this) {
+                if (pending == settings) {
+                    pending = null;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Write settings to a temporary file and atomically replace the old one.
+     *
+     * @return true if the file was replaced
+     */
+    private boolean write(Settings settings) {
+        // Separate lock, so save() never waits for the disk
+        synchronized (writeLock) {
+            Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+            try {
+                Files.createDirectories(path.getParent());
+                try (OutputStream out = Files.newOutputStream(temp)) {
+                    settings.toProperties().store(out, "Good Day To Learn settings");
+                }
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                return true;
+            } catch (IOException e) {
+                System.err.println("Error saving settings: " + e.getMessage());
+                return false;
+            }
+        }
+    }
+}
@@ -5,21 +5,34 @@ import javax.swing.border.EmptyBorder;
 import javax.swing.filechooser.FileNameExtensionFilter;
 import java.awt.*;
 import java.io.File;
+import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Settings window for configuring timer and audio settings.
+ *
+ * The window is built once and hidden when closed; {@link #rebind(Settings)} refreshes
+ * its controls before it is shown again. Nothing is applied until Save: file selections
+ * stay pending in the window, and the edited {@link Settings} go to the save callback.
  */
 public class SettingsWindow extends JDialog {
     
-    private PomodoroTimer timer;
-    private AudioManager audioManager;
-    private Runnable onSettingsSaved;
+    private Settings current;
+    private Consumer<Settings> onSettingsSaved;
+    
+    // File selections made since the window was opened, applied only on save
+    private String pendingMusicFile;
+    private String pendingAlarmFile;
+    private String pendingCalendarFile;
+    private List<SoundscapeLayer> pendingSoundscape;
     
     private JSpinner workTimeSpinner;
     private JSpinner shortBreakSpinner;
     private JSpinner longBreakSpinner;
     private JSlider musicVolumeSlider;
     private JSlider alarmVolumeSlider;
+    private JComboBox<Theme> themeCombo;
+    private JCheckBox lowMemoryCheckBox;
     
     // Custom sound file components
     private JLabel customMusicLabel;
@@ -29,34 +42,63 @@ public class SettingsWindow extends JDialog {
     private JButton selectAlarmButton;
     private JButton resetAlarmButton;
     
+    // Calendar file components
+    private JLabel calendarLabel;
+    private JFileChooser calendarChooser;
+    
     /**
      * Initialize the settings window.
      * 
      * @param parent Parent window
-     * @param timer PomodoroTimer instance
-     * @param audioManager AudioManager instance
-     * @param onSettingsSaved Callback function called when settings are saved
+     * @param settings Settings shown initially
+     * @param onSettingsSaved Callback receiving the edited settings when Save is pressed
      */
-    public SettingsWindow(JFrame parent, PomodoroTimer timer, AudioManager audioManager, Runnable onSettingsSaved) {
+    public SettingsWindow(JFrame parent, Settings settings, Consumer<Settings> onSettingsSaved) {
         super(parent, "Settings", true);
-        this.timer = timer;
-        this.audioManager = audioManager;
+        this.current = settings;
+        this.pendingMusicFile = settings.getCustomMusicFile();
+        this.pendingAlarmFile = settings.getCustomAlarmFile();
+        this.pendingCalendarFile = settings.getCalendarFile();
+        this.pendingSoundscape = settings.getSoundscape();
         this.onSettingsSaved = onSettingsSaved;
         
         setupWindow();
         createWidgets();
+        ThemeManager.addListener(this::onThemeChanged);
         pack();
         setLocationRelativeTo(parent);
     }
     
+    /**
+     * Load the given settings into the controls and drop any pending file selections.
+     */
+    public void rebind(Settings settings) {
+        current = settings;
+        pendingMusicFile = settings.getCustomMusicFile();
+        pendingAlarmFile = settings.getCustomAlarmFile();
+        pendingCalendarFile = settings.getCalendarFile();
+        pendingSoundscape = settings.getSoundscape();
+        workTimeSpinner.setValue(settings.getWorkMinutes());
+        shortBreakSpinner.setValue(settings.getShortBreakMinutes());
+        longBreakSpinner.setValue(settings.getLongBreakMinutes());
+        musicVolumeSlider.setValue(toSliderValue(settings.getMusicVolume()));
+        alarmVolumeSlider.setValue(toSliderValue(settings.getAlarmVolume()));
+        themeCombo.setSelectedItem(settings.getTheme());
+        lowMemoryCheckBox.setSelected(settings.isLowMemoryAudio());
+        customMusicLabel.setText(getMusicFileName());
+        customAlarmLabel.setText(getAlarmFileName());
+        calendarLabel.setText(getCalendarFileName());
+        setLocationRelativeTo(getOwner());
+    }
+    
     /**
      * Configure the settings window.
      */
     private void setupWindow() {
         setSize(AppConfig.SETTINGS_WINDOW_WIDTH, AppConfig.SETTINGS_WINDOW_HEIGHT);
         setResizable(false);
-        getContentPane().setBackground(AppConfig.COLORS.get("settings_bg"));
-        setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+        ThemeManager.bindBackground((JComponent) getContentPane(), ThemeColor.SETTINGS_BG);
+        setDefaultCloseOperation(HIDE_ON_CLOSE);
     }
     
     /**
@@ -68,7 +110,7 @@ public class SettingsWindow extends JDialog {
         // Title with modern typography
         JLabel titleLabel = new JLabel("Timer Settings", SwingConstants.CENTER);
         titleLabel.setFont(new Font("SF Pro Display", Font.BOLD, 20));
-        titleLabel.setForeground(AppConfig.COLORS.get("text_primary"));
+        ThemeManager.bindForeground(titleLabel, ThemeColor.TEXT_PRIMARY);
         titleLabel.setBorder(new EmptyBorder(25, 0, 25, 0));
         add(titleLabel, BorderLayout.NORTH);
         
@@ -80,11 +122,13 @@ public class SettingsWindow extends JDialog {
                 g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
                 
                 // Draw rounded card background
-                g2d.setColor(AppConfig.COLORS.get("panel_bg"));
+                Theme theme = ThemeManager.current();
+                g2d.setColor(theme.color(ThemeColor.PANEL_BG));
                 g2d.fillRoundRect(10, 10, getWidth() - 20, getHeight() - 20, 16, 16);
                 
                 // Add subtle border
-                g2d.setColor(AppConfig.COLORS.get("border_color"));
+                g2d.setColor(theme.color(ThemeColor.BORDER));
+                g2d.setStroke(theme.getBorderStroke());
                 g2d.drawRoundRect(10, 10, getWidth() - 20, getHeight() - 20, 16, 16);
             }
         };
@@ -117,7 +161,7 @@ public class SettingsWindow extends JDialog {
         panel.add(workLabel, gbc);
         
         gbc.gridx = 1;
-        workTimeSpinner = new JSpinner(new SpinnerNumberModel(timer.getWorkTimeMinutes(), 
+        workTimeSpinner = new JSpinner(new SpinnerNumberModel(current.getWorkMinutes(), 
                 AppConfig.MIN_WORK_TIME, AppConfig.MAX_WORK_TIME, 1));
         styleSpinner(workTimeSpinner);
         panel.add(workTimeSpinner, gbc);
@@ -128,7 +172,8 @@ public class SettingsWindow extends JDialog {
         panel.add(shortBreakLabel, gbc);
         
         gbc.gridx = 1;
-        shortBreakSpinner = new JSpinner(new SpinnerNumberModel(timer.getShortBreakMinutes(), 1, 30, 1));
+        shortBreakSpinner = new JSpinner(new SpinnerNumberModel(current.getShortBreakMinutes(),
+                AppConfig.MIN_BREAK_TIME, AppConfig.MAX_SHORT_BREAK, 1));
         styleSpinner(shortBreakSpinner);
         panel.add(shortBreakSpinner, gbc);
         
@@ -138,9 +183,23 @@ public class SettingsWindow extends JDialog {
         panel.add(longBreakLabel, gbc);
         
         gbc.gridx = 1;
-        longBreakSpinner = new JSpinner(new SpinnerNumberModel(timer.getLongBreakMinutes(), 1, 60, 1));
+        longBreakSpinner = new JSpinner(new SpinnerNumberModel(current.getLongBreakMinutes(),
+                AppConfig.MIN_BREAK_TIME, AppConfig.MAX_LONG_BREAK, 1));
         styleSpinner(longBreakSpinner);
         panel.add(longBreakSpinner, gbc);
+        
+        // Colour theme, applied when saved
+        gbc.gridx = 0; gbc.gridy = 3;
+        JLabel themeLabel = createLabel("Theme:");
+        panel.add(themeLabel, gbc);
+        
+        gbc.gridx = 1;
+        themeCombo = new JComboBox<>(Theme.values());
+        themeCombo.setSelectedItem(current.getTheme());
+        themeCombo.setFont(new Font("SF Pro Text", Font.PLAIN, 13));
+        ThemeManager.bindBackground(themeCombo, ThemeColor.BUTTON_BG);
+        ThemeManager.bindForeground(themeCombo, ThemeColor.TEXT_PRIMARY);
+        panel.add(themeCombo, gbc);
     }
     
     /**
@@ -148,7 +207,7 @@ public class SettingsWindow extends JDialog {
      */
     private void addAudioSettings(JPanel panel, GridBagConstraints gbc) {
         // Custom music file section
-        gbc.gridx = 0; gbc.gridy = 3;
+        gbc.gridx = 0; gbc.gridy = 4;
         gbc.gridwidth = 2;
         gbc.fill = GridBagConstraints.HORIZONTAL;
         
@@ -157,12 +216,12 @@ public class SettingsWindow extends JDialog {
         panel.add(customMusicSectionLabel, gbc);
         
         // Music file display and controls
-        gbc.gridy = 4;
+        gbc.gridy = 5;
         JPanel musicFilePanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 0, 0));
         musicFilePanel.setOpaque(false);
         
         customMusicLabel = new JLabel(getMusicFileName());
-        customMusicLabel.setForeground(AppConfig.COLORS.get("text_secondary"));
+        ThemeManager.bindForeground(customMusicLabel, ThemeColor.TEXT_SECONDARY);
         customMusicLabel.setFont(new Font("SF Pro Text", Font.PLAIN, 12));
         musicFilePanel.add(customMusicLabel);
         
@@ -178,31 +237,38 @@ public class SettingsWindow extends JDialog {
         resetMusicButton.addActionListener(e -> resetMusicToDefault());
         musicFilePanel.add(resetMusicButton);
         
+        musicFilePanel.add(Box.createHorizontalStrut(5));
+        
+        // Further sounds mixed with the music
+        JButton layersButton = createSmallButton("Layers...");
+        layersButton.addActionListener(e -> editSoundscape());
+        musicFilePanel.add(layersButton);
+        
         panel.add(musicFilePanel, gbc);
         
         // Music volume
-        gbc.gridy = 5;
+        gbc.gridy = 6;
         JLabel musicVolumeLabel = createLabel("Music Volume:");
         panel.add(musicVolumeLabel, gbc);
         
-        gbc.gridy = 6;
-        musicVolumeSlider = new JSlider(0, 100, (int)(audioManager.getMusicVolume() * 100));
+        gbc.gridy = 7;
+        musicVolumeSlider = new JSlider(0, 100, toSliderValue(current.getMusicVolume()));
         styleSlider(musicVolumeSlider);
         panel.add(musicVolumeSlider, gbc);
         
         // Custom alarm file section
-        gbc.gridy = 7;
+        gbc.gridy = 8;
         JLabel customAlarmSectionLabel = createLabel("Custom Alarm Sound:");
         customAlarmSectionLabel.setFont(new Font("SF Pro Text", Font.BOLD, 13));
         panel.add(customAlarmSectionLabel, gbc);
         
         // Alarm file display and controls
-        gbc.gridy = 8;
+        gbc.gridy = 9;
         JPanel alarmFilePanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 0, 0));
         alarmFilePanel.setOpaque(false);
         
         customAlarmLabel = new JLabel(getAlarmFileName());
-        customAlarmLabel.setForeground(AppConfig.COLORS.get("text_secondary"));
+        ThemeManager.bindForeground(customAlarmLabel, ThemeColor.TEXT_SECONDARY);
         customAlarmLabel.setFont(new Font("SF Pro Text", Font.PLAIN, 12));
         alarmFilePanel.add(customAlarmLabel);
         
@@ -221,14 +287,55 @@ public class SettingsWindow extends JDialog {
         panel.add(alarmFilePanel, gbc);
         
         // Alarm volume
-        gbc.gridy = 9;
+        gbc.gridy = 10;
         JLabel alarmVolumeLabel = createLabel("Alarm Volume:");
         panel.add(alarmVolumeLabel, gbc);
         
-        gbc.gridy = 10;
-        alarmVolumeSlider = new JSlider(0, 100, (int)(audioManager.getAlarmVolume() * 100));
+        gbc.gridy = 11;
+        alarmVolumeSlider = new JSlider(0, 100, toSliderValue(current.getAlarmVolume()));
         styleSlider(alarmVolumeSlider);
         panel.add(alarmVolumeSlider, gbc);
+        
+        // Calendar that work intervals are fitted around
+        gbc.gridy = 12;
+        JLabel calendarSectionLabel = createLabel("Meeting Calendar (.ics):");
+        calendarSectionLabel.setFont(new Font("SF Pro Text", Font.BOLD, 13));
+        panel.add(calendarSectionLabel, gbc);
+        
+        gbc.gridy = 13;
+        JPanel calendarPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 0, 0));
+        calendarPanel.setOpaque(false);
+        
+        calendarLabel = new JLabel(getCalendarFileName());
+        ThemeManager.bindForeground(calendarLabel, ThemeColor.TEXT_SECONDARY);
+        calendarLabel.setFont(new Font("SF Pro Text", Font.PLAIN, 12));
+        calendarPanel.add(calendarLabel);
+        
+        calendarPanel.add(Box.createHorizontalStrut(10));
+        
+        JButton selectCalendarButton = createSmallButton("Browse...");
+        selectCalendarButton.addActionListener(e -> selectCalendarFile());
+        calendarPanel.add(selectCalendarButton);
+        
+        calendarPanel.add(Box.createHorizontalStrut(5));
+        
+        JButton clearCalendarButton = createSmallButton("Clear");
+        clearCalendarButton.addActionListener(e -> {
+            pendingCalendarFile = null;
+            calendarLabel.setText(getCalendarFileName());
+        });
+        calendarPanel.add(clearCalendarButton);
+        
+        panel.add(calendarPanel, gbc);
+        
+        // Trade a short reload for a much smaller footprint while music is off
+        gbc.gridy = 14;
+        lowMemoryCheckBox = new JCheckBox("Low-memory mode (unload music while it is not playing)",
+            current.isLowMemoryAudio());
+        lowMemoryCheckBox.setOpaque(false);
+        lowMemoryCheckBox.setFont(new Font("SF Pro Text", Font.PLAIN, 12));
+        ThemeManager.bindForeground(lowMemoryCheckBox, ThemeColor.TEXT_PRIMARY);
+        panel.add(lowMemoryCheckBox, gbc);
     }
     
     /**
@@ -236,17 +343,17 @@ public class SettingsWindow extends JDialog {
      */
     private void addButtons() {
         JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 15, 0));
-        buttonPanel.setBackground(AppConfig.COLORS.get("settings_bg"));
+        ThemeManager.bindBackground(buttonPanel, ThemeColor.SETTINGS_BG);
         buttonPanel.setBorder(new EmptyBorder(20, 0, 25, 0));
         
         // Save button
-        JButton saveButton = createModernButton("Save", "button_green", "button_green_active");
+        JButton saveButton = createModernButton("Save", ThemeColor.BUTTON_GREEN, ThemeColor.BUTTON_GREEN_ACTIVE);
         saveButton.addActionListener(e -> saveSettings());
         buttonPanel.add(saveButton);
         
         // Cancel button
-        JButton cancelButton = createModernButton("Cancel", "button_red", "button_red_active");
-        cancelButton.addActionListener(e -> dispose());
+        JButton cancelButton = createModernButton("Cancel", ThemeColor.BUTTON_RED, ThemeColor.BUTTON_RED_ACTIVE);
+        cancelButton.addActionListener(e -> setVisible(false));
         buttonPanel.add(cancelButton);
         
         add(buttonPanel, BorderLayout.SOUTH);
@@ -255,7 +362,7 @@ public class SettingsWindow extends JDialog {
     /**
      * Create a modern styled button for settings window.
      */
-    private JButton createModernButton(String text, String bgColorKey, String activeColorKey) {
+    private JButton createModernButton(String text, ThemeColor bgColor, ThemeColor activeColor) {
         JButton button = new JButton(text) {
             @Override
             protected void paintComponent(Graphics g) {
@@ -263,9 +370,8 @@ public class SettingsWindow extends JDialog {
                 g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
                 
                 // Draw rounded background
-                Color bgColor = getModel().isPressed() || getModel().isRollover() ? 
-                    AppConfig.COLORS.get(activeColorKey) : AppConfig.COLORS.get(bgColorKey);
-                g2d.setColor(bgColor);
+                boolean active = getModel().isPressed() || getModel().isRollover();
+                g2d.setColor(ThemeManager.current().color(active ? activeColor : bgColor));
                 g2d.fillRoundRect(0, 0, getWidth(), getHeight(), 10, 10);
                 
                 // Draw text
@@ -279,7 +385,7 @@ public class SettingsWindow extends JDialog {
         };
         
         button.setFont(new Font("SF Pro Text", Font.BOLD, 13));
-        button.setForeground(Color.WHITE);
+        ThemeManager.bindForeground(button, ThemeColor.BUTTON_TEXT);
         button.setFocusPainted(false);
         button.setBorderPainted(false);
         button.setContentAreaFilled(false);
@@ -294,7 +400,7 @@ public class SettingsWindow extends JDialog {
      */
     private JLabel createLabel(String text) {
         JLabel label = new JLabel(text);
-        label.setForeground(AppConfig.COLORS.get("text_primary"));
+        ThemeManager.bindForeground(label, ThemeColor.TEXT_PRIMARY);
         label.setFont(new Font("SF Pro Text", Font.PLAIN, 13));
         return label;
     }
@@ -309,9 +415,9 @@ public class SettingsWindow extends JDialog {
         JComponent editor = spinner.getEditor();
         if (editor instanceof JSpinner.DefaultEditor) {
             JTextField textField = ((JSpinner.DefaultEditor) editor).getTextField();
-            textField.setBackground(AppConfig.COLORS.get("button_bg"));
-            textField.setForeground(AppConfig.COLORS.get("text_primary"));
-            textField.setCaretColor(AppConfig.COLORS.get("text_primary"));
+            ThemeManager.bindBackground(textField, ThemeColor.BUTTON_BG);
+            ThemeManager.bindForeground(textField, ThemeColor.TEXT_PRIMARY);
+            textField.setCaretColor(ThemeManager.current().color(ThemeColor.TEXT_PRIMARY));
             textField.setBorder(BorderFactory.createEmptyBorder(5, 8, 5, 8));
         }
         
@@ -319,8 +425,8 @@ public class SettingsWindow extends JDialog {
         for (Component comp : spinner.getComponents()) {
             if (comp instanceof JButton) {
                 JButton button = (JButton) comp;
-                button.setBackground(AppConfig.COLORS.get("button_bg"));
-                button.setForeground(AppConfig.COLORS.get("text_primary"));
+                ThemeManager.bindBackground(button, ThemeColor.BUTTON_BG);
+                ThemeManager.bindForeground(button, ThemeColor.TEXT_PRIMARY);
                 button.setBorder(BorderFactory.createEmptyBorder());
             }
         }
@@ -331,36 +437,70 @@ public class SettingsWindow extends JDialog {
      */
     private void styleSlider(JSlider slider) {
         slider.setOpaque(false);
-        slider.setForeground(AppConfig.COLORS.get("text_primary"));
+        ThemeManager.bindForeground(slider, ThemeColor.TEXT_PRIMARY);
         slider.setPaintTicks(false);
         slider.setPaintLabels(false);
         slider.setMajorTickSpacing(25);
         slider.setMinorTickSpacing(5);
         
         // Set custom UI for better dark theme support
-        slider.putClientProperty("Slider.trackColor", AppConfig.COLORS.get("slider_track"));
-        slider.putClientProperty("Slider.thumbColor", AppConfig.COLORS.get("accent_primary"));
+        styleSliderColors(slider, ThemeManager.current());
+    }
+    
+    private static void styleSliderColors(JSlider slider, Theme theme) {
+        slider.putClientProperty("Slider.trackColor", theme.color(ThemeColor.SLIDER_TRACK));
+        slider.putClientProperty("Slider.thumbColor", theme.color(ThemeColor.ACCENT_PRIMARY));
     }
     
     /**
-     * Save the current settings.
+     * Update the colours that are not bound to a theme role: slider look and feel
+     * properties and spinner carets. Bound colours are restyled by {@link ThemeManager}.
+     */
+    private void onThemeChanged(Theme theme) {
+        styleSliderColors(musicVolumeSlider, theme);
+        styleSliderColors(alarmVolumeSlider, theme);
+        for (JSpinner spinner : new JSpinner[] {workTimeSpinner, shortBreakSpinner, longBreakSpinner}) {
+            JComponent editor = spinner.getEditor();
+            if (editor instanceof JSpinner.DefaultEditor) {
+                ((JSpinner.DefaultEditor) editor).getTextField().setCaretColor(theme.color(ThemeColor.TEXT_PRIMARY));
+            }
+        }
+    }
+    
+    /**
+     * Collect the edited settings and hand them to the save callback.
      */
     private void saveSettings() {
-        // Update timer settings
-        timer.setWorkTime((Integer) workTimeSpinner.getValue());
-        timer.setShortBreakTime((Integer) shortBreakSpinner.getValue());
-        timer.setLongBreakTime((Integer) longBreakSpinner.getValue());
-        
-        // Update audio settings
-        audioManager.setMusicVolume(musicVolumeSlider.getValue() / 100.0);
-        audioManager.setAlarmVolume(alarmVolumeSlider.getValue() / 100.0);
+        Settings edited = new Settings(
+            (Integer) workTimeSpinner.getValue(),
+            (Integer) shortBreakSpinner.getValue(),
+            (Integer) longBreakSpinner.getValue(),
+            fromSliderValue(musicVolumeSlider, current.getMusicVolume()),
+            fromSliderValue(alarmVolumeSlider, current.getAlarmVolume()),
+            pendingMusicFile,
+            pendingAlarmFile,
+            (Theme) themeCombo.getSelectedItem(),
+            pendingCalendarFile,
+            lowMemoryCheckBox.isSelected(),
+            pendingSoundscape);
         
         // Callback to parent
         if (onSettingsSaved != null) {
-            onSettingsSaved.run();
+            onSettingsSaved.accept(edited);
         }
         
-        dispose();
+        setVisible(false);
+    }
+    
+    private static int toSliderValue(double volume) {
+        return (int) Math.round(volume * 100);
+    }
+    
+    /**
+     * Read a volume slider, keeping the exact current volume if the slider was not moved.
+     */
+    private static double fromSliderValue(JSlider slider, double currentVolume) {
+        return slider.getValue() == toSliderValue(currentVolume) ? currentVolume : slider.getValue() / 100.0;
     }
     
     /**
@@ -374,9 +514,9 @@ public class SettingsWindow extends JDialog {
                 g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
                 
                 // Draw rounded background
-                Color bgColor = getModel().isPressed() || getModel().isRollover() ? 
-                    AppConfig.COLORS.get("button_blue_active") : AppConfig.COLORS.get("button_blue");
-                g2d.setColor(bgColor);
+                boolean active = getModel().isPressed() || getModel().isRollover();
+                g2d.setColor(ThemeManager.current().color(
+                    active ? ThemeColor.BUTTON_BLUE_ACTIVE : ThemeColor.BUTTON_BLUE));
                 g2d.fillRoundRect(0, 0, getWidth(), getHeight(), 6, 6);
                 
                 // Draw text
@@ -390,7 +530,7 @@ public class SettingsWindow extends JDialog {
         };
         
         button.setFont(new Font("SF Pro Text", Font.PLAIN, 11));
-        button.setForeground(Color.WHITE);
+        ThemeManager.bindForeground(button, ThemeColor.BUTTON_TEXT);
         button.setFocusPainted(false);
         button.setBorderPainted(false);
         button.setContentAreaFilled(false);
@@ -404,7 +544,7 @@ public class SettingsWindow extends JDialog {
      * Get the display name for the current music file.
      */
     private String getMusicFileName() {
-        String customFile = audioManager.getCustomMusicFile();
+        String customFile = pendingMusicFile;
         if (customFile != null) {
             return new File(customFile).getName();
         }
@@ -415,23 +555,55 @@ public class SettingsWindow extends JDialog {
      * Get the display name for the current alarm file.
      */
     private String getAlarmFileName() {
-        String customFile = audioManager.getCustomAlarmFile();
+        String customFile = pendingAlarmFile;
         if (customFile != null) {
             return new File(customFile).getName();
         }
         return "Default (alarm.wav)";
     }
     
+    /**
+     * Get the display name for the calendar file.
+     */
+    private String getCalendarFileName() {
+        return pendingCalendarFile != null ? new File(pendingCalendarFile).getName() : "None";
+    }
+    
+    /**
+     * Open a file chooser for the calendar, creating it on first use.
+     */
+    private void selectCalendarFile() {
+        if (calendarChooser == null) {
+            calendarChooser = new JFileChooser();
+            calendarChooser.setDialogTitle("Select Calendar File");
+            calendarChooser.setFileFilter(new FileNameExtensionFilter("iCalendar files (*.ics)", "ics"));
+        }
+        if (calendarChooser.showOpenDialog(this) == JFileChooser.APPROVE_OPTION) {
+            pendingCalendarFile = calendarChooser.getSelectedFile().getAbsolutePath();
+            calendarLabel.setText(getCalendarFileName());
+        }
+    }
+    
+    /**
+     * Open the soundscape dialog; its layers are kept pending until Save.
+     */
+    private void editSoundscape() {
+        List<SoundscapeLayer> edited = SoundscapeDialog.edit(this, pendingSoundscape);
+        if (edited != null) {
+            pendingSoundscape = edited;
+        }
+    }
+    
     /**
      * Open file chooser to select custom music file.
      */
     private void selectCustomMusicFile() {
-        JFileChooser fileChooser = createAudioFileChooser();
+        JFileChooser fileChooser = AudioFileChooser.get();
         fileChooser.setDialogTitle("Select Background Music File");
         
         if (fileChooser.showOpenDialog(this) == JFileChooser.APPROVE_OPTION) {
             File selectedFile = fileChooser.getSelectedFile();
-            audioManager.setCustomMusicFile(selectedFile.getAbsolutePath());
+            pendingMusicFile = selectedFile.getAbsolutePath();
             customMusicLabel.setText(selectedFile.getName());
         }
     }
@@ -440,12 +612,12 @@ public class SettingsWindow extends JDialog {
      * Open file chooser to select custom alarm file.
      */
     private void selectCustomAlarmFile() {
-        JFileChooser fileChooser = createAudioFileChooser();
+        JFileChooser fileChooser = AudioFileChooser.get();
         fileChooser.setDialogTitle("Select Alarm Sound File");
         
         if (fileChooser.showOpenDialog(this) == JFileChooser.APPROVE_OPTION) {
             File selectedFile = fileChooser.getSelectedFile();
-            audioManager.setCustomAlarmFile(selectedFile.getAbsolutePath());
+            pendingAlarmFile = selectedFile.getAbsolutePath();
             customAlarmLabel.setText(selectedFile.getName());
         }
     }
@@ -454,7 +626,7 @@ public class SettingsWindow extends JDialog {
      * Reset music to default.
      */
     private void resetMusicToDefault() {
-        audioManager.resetMusicToDefault();
+        pendingMusicFile = null;
         customMusicLabel.setText("Default (rain.wav)");
     }
     
@@ -462,34 +634,7 @@ public class SettingsWindow extends JDialog {
      * Reset alarm to default.
      */
     private void resetAlarmToDefault() {
-        audioManager.resetAlarmToDefault();
+        pendingAlarmFile = null;
         customAlarmLabel.setText("Default (alarm.wav)");
     }
-    
-    /**
-     * Create a file chooser configured for audio files.
-     */
-    private JFileChooser createAudioFileChooser() {
-        JFileChooser fileChooser = new JFileChooser();
-        fileChooser.setFileSelectionMode(JFileChooser.FILES_ONLY);
-        
-        // Add audio file filters
-        FileNameExtensionFilter audioFilter = new FileNameExtensionFilter(
-            "Audio Files (*.wav, *.mp3, *.aiff, *.au)", 
-            "wav", "mp3", "aiff", "au"
-        );
-        FileNameExtensionFilter wavFilter = new FileNameExtensionFilter("WAV Files (*.wav)", "wav");
-        FileNameExtensionFilter mp3Filter = new FileNameExtensionFilter("MP3 Files (*.mp3)", "mp3");
-        FileNameExtensionFilter aiffFilter = new FileNameExtensionFilter("AIFF Files (*.aiff)", "aiff");
-        FileNameExtensionFilter auFilter = new FileNameExtensionFilter("AU Files (*.au)", "au");
-        
-        fileChooser.addChoosableFileFilter(audioFilter);
-        fileChooser.addChoosableFileFilter(wavFilter);
-        fileChooser.addChoosableFileFilter(mp3Filter);
-        fileChooser.addChoosableFileFilter(aiffFilter);
-        fileChooser.addChoosableFileFilter(auFilter);
-        fileChooser.setFileFilter(audioFilter);
-        
-        return fileChooser;
-    }
 }
@@ -0,0 +1,190 @@
+package com.gooddaytolearn;
+
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Dialog for editing the soundscape: the layers mixed under the music, their gains
+ * and the phases each one plays in.
+ *
+ * Edits stay in the dialog until OK; {@link #edit} returns the new layers, or null if
+ * the dialog was cancelled. The music layer can be adjusted but not removed.
+ */
+public class SoundscapeDialog extends JDialog {
+    
+    /**
+     * Controls for one layer.
+     */
+    private static final class Row {
+        final String source;
+        final String name;
+        final JSlider gainSlider;
+        final JCheckBox[] phaseBoxes = new JCheckBox[Phase.values().length];
+        
+        Row(SoundscapeLayer layer) {
+            this.source = layer.getSource();
+            this.name = layer.getDisplayName();
+            this.gainSlider = new JSlider(0, 100, (int) Math.round(layer.getGain() * 100));
+            for (Phase phase : Phase.values()) {
+                phaseBoxes[phase.ordinal()] = new JCheckBox(phase.getDisplayName(), layer.getPhases().contains(phase));
+            }
+        }
+        
+        SoundscapeLayer toLayer() {
+            Set<Phase> phases = EnumSet.noneOf(Phase.class);
+            for (Phase phase : Phase.values()) {
+                if (phaseBoxes[phase.ordinal()].isSelected()) {
+                    phases.add(phase);
+                }
+            }
+            return new SoundscapeLayer(source, gainSlider.getValue() / 100.0, phases);
+        }
+    }
+    
+    private final List<Row> rows = new ArrayList<>();
+    private final JPanel rowPanel = new JPanel(new GridBagLayout());
+    private JButton addSoundButton;
+    private JButton addNoiseButton;
+    private List<SoundscapeLayer> result;
+    
+    private SoundscapeDialog(Window parent, List<SoundscapeLayer> layers) {
+        super(parent, "Soundscape", ModalityType.APPLICATION_MODAL);
+        ThemeManager.bindBackground((JComponent) getContentPane(), ThemeColor.SETTINGS_BG);
+        setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+        for (SoundscapeLayer layer : layers) {
+            rows.add(new Row(layer));
+        }
+        createWidgets();
+        rebuildRows();
+        pack();
+        setLocationRelativeTo(parent);
+    }
+    
+    /**
+     * Show the dialog and wait for it to close.
+     *
+     * @param parent Window to centre the dialog on
+     * @param layers Layers to start from
+     * @return the edited layers, or null if the dialog was cancelled
+     */
+    public static List<SoundscapeLayer> edit(Window parent, List<SoundscapeLayer> layers) {
+        SoundscapeDialog dialog = new SoundscapeDialog(parent, layers);
+        dialog.setVisible(true);
+        return dialog.result;
+    }
+    
+    /**
+     * Create the layer list and the add, OK and Cancel buttons.
+     */
+    private void createWidgets() {
+        setLayout(new BorderLayout(0, 8));
+        ((JComponent) getContentPane()).setBorder(new EmptyBorder(16, 16, 12, 16));
+        
+        JLabel hintLabel = new JLabel("Layers loop together; the music volume scales them all.");
+        hintLabel.setFont(new Font("SF Pro Text", Font.PLAIN, 11));
+        ThemeManager.bindForeground(hintLabel, ThemeColor.TEXT_MUTED);
+        add(hintLabel, BorderLayout.NORTH);
+        
+        rowPanel.setOpaque(false);
+        add(rowPanel, BorderLayout.CENTER);
+        
+        JPanel footer = new JPanel(new FlowLayout(FlowLayout.LEFT, 6, 0));
+        footer.setOpaque(false);
+        addSoundButton = new JButton("Add Sound...");
+        addSoundButton.addActionListener(e -> addSound());
+        footer.add(addSoundButton);
+        addNoiseButton = new JButton("Add Brown Noise");
+        addNoiseButton.addActionListener(e -> addLayer(new SoundscapeLayer(SoundscapeLayer.BROWN_NOISE, 0.5,
+            EnumSet.of(Phase.WORK))));
+        footer.add(addNoiseButton);
+        footer.add(Box.createHorizontalStrut(24));
+        JButton okButton = new JButton("OK");
+        okButton.addActionListener(e -> {
+            result = new ArrayList<>();
+            for (Row row : rows) {
+                result.add(row.toLayer());
+            }
+            dispose();
+        });
+        footer.add(okButton);
+        JButton cancelButton = new JButton("Cancel");
+        cancelButton.addActionListener(e -> dispose());
+        footer.add(cancelButton);
+        add(footer, BorderLayout.SOUTH);
+        getRootPane().setDefaultButton(okButton);
+    }
+    
+    /**
+     * Lay out one line of controls per layer.
+     */
+    private void rebuildRows() {
+        rowPanel.removeAll();
+        GridBagConstraints gbc = new GridBagConstraints();
+        gbc.insets = new Insets(4, 4, 4, 4);
+        gbc.anchor = GridBagConstraints.WEST;
+        for (int i = 0; i < rows.size(); i++) {
+            Row row = rows.get(i);
+            gbc.gridy = i;
+            gbc.gridx = 0;
+            JLabel nameLabel = new JLabel(row.name);
+            nameLabel.setFont(new Font("SF Pro Text", Font.PLAIN, 13));
+            nameLabel.setPreferredSize(new Dimension(140, nameLabel.getPreferredSize().height));
+            nameLabel.setToolTipText(row.source);
+            ThemeManager.bindForeground(nameLabel, ThemeColor.TEXT_PRIMARY);
+            rowPanel.add(nameLabel, gbc);
+            
+            gbc.gridx++;
+            row.gainSlider.setOpaque(false);
+            row.gainSlider.setPreferredSize(new Dimension(140, row.gainSlider.getPreferredSize().height));
+            rowPanel.add(row.gainSlider, gbc);
+            
+            for (JCheckBox box : row.phaseBoxes) {
+                gbc.gridx++;
+                box.setOpaque(false);
+                box.setFont(new Font("SF Pro Text", Font.PLAIN, 12));
+                ThemeManager.bindForeground(box, ThemeColor.TEXT_PRIMARY);
+                rowPanel.add(box, gbc);
+            }
+            
+            gbc.gridx++;
+            if (!SoundscapeLayer.MUSIC.equals(row.source)) {
+                JButton removeButton = new JButton("Remove");
+                removeButton.addActionListener(e -> {
+                    rows.remove(row);
+                    rebuildRows();
+                });
+                rowPanel.add(removeButton, gbc);
+            }
+        }
+        boolean full = rows.size() >= AppConfig.MAX_SOUNDSCAPE_LAYERS;
+        addSoundButton.setEnabled(!full);
+        addNoiseButton.setEnabled(!full);
+        rowPanel.revalidate();
+        rowPanel.repaint();
+        if (isDisplayable()) {
+            pack();
+        }
+    }
+    
+    /**
+     * Pick an audio file and add it as a layer playing during work.
+     */
+    private void addSound() {
+        JFileChooser fileChooser = AudioFileChooser.get();
+        fileChooser.setDialogTitle("Select Soundscape Layer");
+        if (fileChooser.showOpenDialog(this) == JFileChooser.APPROVE_OPTION) {
+            addLayer(new SoundscapeLayer(fileChooser.getSelectedFile().getAbsolutePath(), 0.5,
+                EnumSet.of(Phase.WORK)));
+        }
+    }
+    
+    private void addLayer(SoundscapeLayer layer) {
+        rows.add(new Row(layer));
+        rebuildRows();
+    }
+}
@@ -0,0 +1,105 @@
+package com.gooddaytolearn;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Immutable description of one looping layer of the ambient soundscape.
+ */
+public class SoundscapeLayer {
+    
+    /**
+     * Source of the layer that plays the music file chosen in the settings.
+     */
+    public static final String MUSIC = "music";
+    
+    /**
+     * Source of the built-in brown noise generator.
+     */
+    public static final String BROWN_NOISE = "brown-noise";
+    
+    private final String source;
+    private final double gain;
+    private final Set<Phase> phases;
+    
+    /**
+     * Create a layer. The gain is clamped to 0.0 to 1.0.
+     *
+     * @param source {@link #MUSIC}, {@link #BROWN_NOISE} or the path of an audio file
+     * @param phases Phases during which the layer plays
+     */
+    public SoundscapeLayer(String source, double gain, Set<Phase> phases) {
+        this.source = Objects.requireNonNull(source);
+        this.gain = Math.max(0.0, Math.min(1.0, gain));
+        Set<Phase> copy = EnumSet.noneOf(Phase.class);
+        copy.addAll(phases);
+        this.phases = Collections.unmodifiableSet(copy);
+    }
+    
+    /**
+     * Get the layer every soundscape starts with: the music file at full gain during work.
+     */
+    public static SoundscapeLayer defaultMusic() {
+        return new SoundscapeLayer(MUSIC, 1.0, EnumSet.of(Phase.WORK));
+    }
+    
+    public SoundscapeLayer withGain(double newGain) {
+        return new SoundscapeLayer(source, newGain, phases);
+    }
+    
+    public SoundscapeLayer withPhases(Set<Phase> newPhases) {
+        return new SoundscapeLayer(source, gain, newPhases);
+    }
+    
+    public String getSource() {
+        return source;
+    }
+    
+    public double getGain() {
+        return gain;
+    }
+    
+    public Set<Phase> getPhases() {
+        return phases;
+    }
+    
+    /**
+     * Check whether the layer is generated rather than read from a file.
+     */
+    public boolean isGenerated() {
+        return BROWN_NOISE.equals(source);
+    }
+    
+    /**
+     * Get the name shown in the soundscape dialog.
+     */
+    public String getDisplayName() {
+        if (MUSIC.equals(source)) {
+            return "Music";
+        }
+        if (BROWN_NOISE.equals(source)) {
+            return "Brown noise";
+        }
+        return new File(source).getName();
+    }
+    
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof SoundscapeLayer)) {
+            return false;
+        }
+        SoundscapeLayer layer = (SoundscapeLayer) other;
+        return source.equals(layer.source) && Double.compare(gain, layer.gain) == 0 && phases.equals(layer.phases);
+    }
+    
+    @Override
+    public int hashCode() {
+        return Objects.hash(source, gain, phases);
+    }
+}
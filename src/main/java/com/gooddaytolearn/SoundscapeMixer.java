@@ -0,0 +1,595 @@
+package com.gooddaytolearn;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+import java.util.Arrays;
+
+/**
+ * Mixes any number of looping soundscape layers into one output line.
+ *
+ * A daemon thread mixes {@value #BLOCK_FRAMES}-frame blocks into a float accumulator,
+ * clips them to 16 bits and writes them to a {@link SourceDataLine}. The kernel works
+ * on buffers allocated once and reads only volatile fields, so mixing never allocates
+ * or locks. Each layer's gain moves towards its target by a small step per block,
+ * which fades layers in and out as the phase, the volume or the layer set changes;
+ * a layer removed from the set keeps playing until it has faded out.
+ * When nothing is audible the line is stopped and the thread sleeps until
+ * {@link #play} or a new layer set wakes it.
+ *
+ * The line is opened with room for {@value #MAX_LEAD_BLOCKS} blocks, but the thread only
+ * keeps a smaller lead queued ahead of playback, which is the latency of a volume or
+ * phase change. The fill level is checked before every write: an empty line means the
+ * output ran dry and was heard as a click, so the lead doubles. After each quiet stretch
+ * in which the line stayed at least half full, the lead shrinks again by one block, so
+ * it settles at about twice the worst stall seen and returns to the minimum once the
+ * machine is idle.
+ *
+ * The alarm plays on its own clip and never waits behind this buffer.
+ */
+public class SoundscapeMixer {
+    
+    /**
+     * Format of the output line, and of every layer's samples.
+     */
+    public static final AudioFormat FORMAT = new AudioFormat(44100f, 16, 2, true, false);
+    
+    // About 12 ms per block at 44.1 kHz
+    static final int BLOCK_FRAMES = 512;
+    
+    // Blocks kept queued in the line: about 46 ms at least, 93 ms to start with, 370 ms at most
+    static final int MIN_LEAD_BLOCKS = 4;
+    static final int START_LEAD_BLOCKS = 8;
+    static final int MAX_LEAD_BLOCKS = 32;
+    
+    // Blocks without an underrun before the lead may shrink, about 5 s
+    static final int SHRINK_WINDOW_BLOCKS = 430;
+    
+    // A full-scale fade takes this many blocks, about 190 ms
+    private static final float FADE_STEP = 1f / 16;
+    
+    // Brown noise from this filter rarely leaves [-0.3, 0.3]; scale it to a comfortable level
+    private static final float BROWN_NOISE_SCALE = 1.75f * 32767f;
+    
+    /**
+     * One layer being mixed.
+     */
+    static final class Voice {
+        final SoundscapeLayer layer;
+        final String key; // Identifies the audio, so unchanged layers keep their samples and position
+        volatile short[] samples; // Interleaved stereo in FORMAT; null while released or for generated layers
+        
+        // Only touched by the mixing thread
+        int position;
+        float gain;
+        long noiseState = 0x9E3779B97F4A7C15L;
+        float brownLeft;
+        float brownRight;
+        
+        Voice(SoundscapeLayer layer, String key, short[] samples) {
+            this.layer = layer;
+            this.key = key;
+            this.samples = samples;
+        }
+        
+        boolean isPlayable() {
+            return layer.isGenerated() || samples != null;
+        }
+    }
+    
+    /**
+     * Chooses how much audio to keep queued in the line from the fill levels it sees.
+     * Only used by the mixing thread.
+     */
+    static final class Lead {
+        private final int blockBytes;
+        private int blocks = START_LEAD_BLOCKS;
+        private int windowBlocks;
+        private int lowWater = Integer.MAX_VALUE; // Least audio queued before a write in this window
+        private boolean primed; // Something was written since the line (re)started
+        
+        Lead(int blockBytes) {
+            this.blockBytes = blockBytes;
+        }
+        
+        /**
+         * Get the bytes to keep queued.
+         */
+        int bytes() {
+            return blocks * blockBytes;
+        }
+        
+        /**
+         * Forget the fill history when the line restarts empty after a pause.
+         */
+        void restart() {
+            primed = false;
+            windowBlocks = 0;
+            lowWater = Integer.MAX_VALUE;
+        }
+        
+        /**
+         * Look at the fill level just before a block is written, adapting the lead.
+         *
+         * @param queued Bytes still waiting to be played
+         * @return true if the line had run dry since the last write
+         */
+        boolean beforeWrite(int queued) {
+            if (!primed) {
+                primed = true;
+                return false;
+            }
+            if (queued <= 0) {
+                blocks = Math.min(MAX_LEAD_BLOCKS, blocks * 2);
+                windowBlocks = 0;
+                lowWater = Integer.MAX_VALUE;
+                return true;
+            }
+            lowWater = Math.min(lowWater, queued);
+            if (++windowBlocks >= SHRINK_WINDOW_BLOCKS) {
+                if (lowWater * 2 >= bytes() && blocks > MIN_LEAD_BLOCKS) {
+                    blocks--;
+                }
+                windowBlocks = 0;
+                lowWater = Integer.MAX_VALUE;
+            }
+            return false;
+        }
+    }
+    
+    private final Object lock = new Object();
+    private final float[] mix = new float[BLOCK_FRAMES * 2];
+    private final byte[] block = new byte[BLOCK_FRAMES * 4];
+    
+    private volatile Voice[] voices = new Voice[0];
+    private Voice[] active = new Voice[0]; // The set the kernel last mixed
+    
+    // Voices dropped from the set, still fading out; only touched by the mixing thread
+    private final Voice[] departing = new Voice[AppConfig.MAX_SOUNDSCAPE_LAYERS * 2];
+    private int departingCount;
+    private volatile float masterGain = 1f;
+    private volatile Phase phase = Phase.WORK;
+    private volatile boolean playing;
+    private volatile boolean closed;
+    private Thread thread; // Guarded by lock
+    private boolean lineUnavailable; // Guarded by lock; no output thread until the layers change
+    
+    /**
+     * Start playing the layers of the given phase, fading in.
+     * If no output line could be opened, only the phase is selected; opening is tried
+     * again after the next layer change.
+     */
+    public void play(Phase newPhase) {
+        cue(newPhase);
+        synchronized (lock) {
+            if (thread == null && !closed && !lineUnavailable) {
+                thread = new Thread(this::run, "SoundscapeMixer");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MAX_PRIORITY);
+                thread.start();
+            }
+            lock.notifyAll();
+        }
+    }
+    
+    /**
+     * Select the phase to play without starting the output thread, so that blocks can
+     * be mixed by calling {@link #mixBlock} directly.
+     */
+    void cue(Phase newPhase) {
+        phase = newPhase;
+        playing = true;
+    }
+    
+    /**
+     * Fade out and stop. The thread sleeps once the fade is done.
+     */
+    public void stop() {
+        playing = false;
+    }
+    
+    public boolean isPlaying() {
+        return playing;
+    }
+    
+    /**
+     * Set the volume every layer gain is multiplied by (0.0 to 1.0).
+     */
+    public void setMasterGain(double gain) {
+        masterGain = (float) Math.max(0.0, Math.min(1.0, gain));
+        wake();
+    }
+    
+    /**
+     * Replace the layer set. Voices with the same key as a current one carry on from its
+     * position and gain, so changing one layer does not restart or dip the others.
+     * Also lets the next {@link #play} try again to open an output line.
+     */
+    void setVoices(Voice[] newVoices) {
+        voices = newVoices;
+        synchronized (lock) {
+            lineUnavailable = false;
+            lock.notifyAll();
+        }
+    }
+    
+    Voice[] getVoices() {
+        return voices;
+    }
+    
+    /**
+     * Give a released voice its samples back.
+     */
+    void restoreSamples(Voice voice, short[] samples) {
+        voice.samples = samples;
+        wake();
+    }
+    
+    /**
+     * Stop the mixing thread for good.
+     */
+    public void close() {
+        closed = true;
+        playing = false;
+        wake();
+    }
+    
+    private void wake() {
+        synchronized (lock) {
+            lock.notifyAll();
+        }
+    }
+    
+    /**
+     * Check whether any layer should be heard now, which keeps the thread awake.
+     */
+    private boolean wantsOutput() {
+        if (!playing || masterGain == 0f) {
+            return false;
+        }
+        Phase current = phase;
+        for (Voice voice : voices) {
+            if (voice.layer.getGain() > 0 && voice.layer.getPhases().contains(current) && voice.isPlayable()) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Mixing thread: write blocks while anything is audible, sleep otherwise.
+     */
+    private void run() {
+        SourceDataLine line = null;
+        try {
+            line = AudioSystem.getSourceDataLine(FORMAT);
+            line.open(FORMAT, block.length * MAX_LEAD_BLOCKS);
+            int bufferSize = line.getBufferSize();
+            Lead lead = new Lead(block.length);
+            publishLead(lead, bufferSize);
+            line.start();
+            while (!closed) {
+                // Mix as late as the lead allows, so changes are heard soon
+                int target = Math.min(lead.bytes(), bufferSize);
+                int excess = bufferSize - line.available() + block.length - target;
+                if (excess > 0) {
+                    Thread.sleep(bytesToMillis(excess));
+                }
+                
+                long started = System.nanoTime();
+                boolean audible = mixBlock(block);
+                Metrics.MIX_BLOCK_TIME.record(System.nanoTime() - started);
+                if (audible) {
+                    int previous = lead.bytes();
+                    if (lead.beforeWrite(bufferSize - line.available())) {
+                        onUnderrun(Math.min(previous, bufferSize), publishLead(lead, bufferSize));
+                    } else if (lead.bytes() != previous) {
+                        publishLead(lead, bufferSize);
+                    }
+                    line.write(block, 0, block.length);
+                    continue;
+                }
+                
+                // Silent: let the line play out, then wait for something to mix
+                line.drain();
+                line.stop();
+                synchronized (lock) {
+                    while (!closed && !wantsOutput()) {
+                        lock.wait();
+                    }
+                }
+                lead.restart();
+                line.start();
+            }
+        } catch (LineUnavailableException | IllegalArgumentException e) {
+            synchronized (lock) {
+                lineUnavailable = true;
+            }
+            FlightRecorder.record(FlightRecorder.Type.ERROR, "Soundscape line unavailable");
+            System.err.println("Could not open audio output for the soundscape: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (line != null) {
+                line.close();
+            }
+            synchronized (lock) {
+                thread = null;
+            }
+        }
+    }
+    
+    /**
+     * Count an underrun and report the lead it led to.
+     */
+    private static void onUnderrun(int previousBytes, long leadMicros) {
+        Metrics.AUDIO_UNDERRUNS.incrementAndGet();
+        long previousMicros = bytesToMicros(previousBytes);
+        FlightRecorder.record(FlightRecorder.Type.UNDERRUN, previousMicros, leadMicros);
+        JfrEvents.AudioUnderrun event = new JfrEvents.AudioUnderrun();
+        if (event.shouldCommit()) {
+            event.previousLead = previousMicros;
+            event.lead = leadMicros;
+            event.commit();
+        }
+    }
+    
+    /**
+     * Publish the current lead as {@link Metrics#AUDIO_BUFFER_MICROS}.
+     *
+     * @return the lead in microseconds
+     */
+    private static long publishLead(Lead lead, int bufferSize) {
+        long micros = bytesToMicros(Math.min(lead.bytes(), bufferSize));
+        Metrics.AUDIO_BUFFER_MICROS.set(micros);
+        return micros;
+    }
+    
+    private static long bytesToMicros(int bytes) {
+        return Math.round(bytes / (double) FORMAT.getFrameSize() * 1e6 / FORMAT.getFrameRate());
+    }
+    
+    private static long bytesToMillis(int bytes) {
+        return Math.max(1, Math.round(bytes / (double) FORMAT.getFrameSize() * 1000 / FORMAT.getFrameRate()));
+    }
+    
+    /**
+     * Mix the next block of every layer into {@code out} as 16-bit little-endian stereo.
+     *
+     * @return false if every layer is silent and done fading, so nothing needs writing
+     */
+    boolean mixBlock(byte[] out) {
+        Voice[] current = voices;
+        if (current != active) {
+            carryOver(active, current);
+            active = current;
+        }
+        
+        Arrays.fill(mix, 0f);
+        boolean audible = false;
+        float master = masterGain;
+        boolean on = playing;
+        Phase currentPhase = phase;
+        for (Voice voice : current) {
+            short[] samples = voice.samples;
+            boolean generated = voice.layer.isGenerated();
+            float target = on && voice.layer.getPhases().contains(currentPhase) && (generated || samples != null)
+                ? (float) voice.layer.getGain() * master : 0f;
+            float start = voice.gain;
+            float end = start < target ? Math.min(target, start + FADE_STEP) : Math.max(target, start - FADE_STEP);
+            voice.gain = end;
+            if (start == 0f && end == 0f) {
+                continue;
+            }
+            audible = true;
+            if (generated) {
+                mixBrownNoise(voice, start, end);
+            } else if (samples != null && samples.length > 0) {
+                mixSamples(voice, samples, start, end);
+            }
+        }
+        if (departingCount > 0 && mixDeparting()) {
+            audible = true;
+        }
+        
+        float[] mix = this.mix;
+        for (int i = 0, j = 0; i < mix.length; i++, j += 2) {
+            float value = mix[i];
+            int sample = value >= 32767f ? 32767 : value <= -32768f ? -32768 : (int) value;
+            out[j] = (byte) sample;
+            out[j + 1] = (byte) (sample >> 8);
+        }
+        return audible;
+    }
+    
+    /**
+     * Fade the voices that left the set by one step, forgetting each once it is silent.
+     *
+     * @return true if any of them was still audible
+     */
+    private boolean mixDeparting() {
+        boolean audible = false;
+        for (int i = 0; i < departingCount; ) {
+            Voice voice = departing[i];
+            short[] samples = voice.samples;
+            float start = voice.gain;
+            float end = Math.max(0f, start - FADE_STEP);
+            voice.gain = end;
+            if (voice.layer.isGenerated()) {
+                mixBrownNoise(voice, start, end);
+                audible = true;
+            } else if (samples != null && samples.length > 0) {
+                mixSamples(voice, samples, start, end);
+                audible = true;
+            } else {
+                end = 0f; // Released meanwhile, nothing left to fade
+            }
+            if (end == 0f) {
+                departing[i] = departing[--departingCount];
+                departing[departingCount] = null;
+            } else {
+                i++;
+            }
+        }
+        return audible;
+    }
+    
+    /**
+     * Add one block of a looping sample layer, ramping its gain linearly across the block.
+     */
+    private void mixSamples(Voice voice, short[] samples, float startGain, float endGain) {
+        float[] mix = this.mix;
+        float gain = startGain;
+        float delta = (endGain - startGain) / BLOCK_FRAMES;
+        int position = voice.position < samples.length ? voice.position : 0;
+        int i = 0;
+        while (i < mix.length) {
+            int runEnd = i + Math.min(mix.length - i, samples.length - position);
+            for (; i < runEnd; i += 2, position += 2) {
+                mix[i] += samples[position] * gain;
+                mix[i + 1] += samples[position + 1] * gain;
+                gain += delta;
+            }
+            if (position >= samples.length) {
+                position = 0;
+            }
+        }
+        voice.position = position;
+    }
+    
+    /**
+     * Add one block of brown noise: white noise from a xorshift generator through a
+     * leaky integrator, separately for each channel.
+     */
+    private void mixBrownNoise(Voice voice, float startGain, float endGain) {
+        float[] mix = this.mix;
+        float gain = startGain * BROWN_NOISE_SCALE;
+        float delta = (endGain - startGain) * BROWN_NOISE_SCALE / BLOCK_FRAMES;
+        long state = voice.noiseState;
+        float left = voice.brownLeft;
+        float right = voice.brownRight;
+        for (int i = 0; i < mix.length; i += 2) {
+            state ^= state << 13;
+            state ^= state >>> 7;
+            state ^= state << 17;
+            left = (left + 0.02f * ((int) state * (1f / 2147483648f))) * (1f / 1.02f);
+            right = (right + 0.02f * ((int) (state >>> 32) * (1f / 2147483648f))) * (1f / 1.02f);
+            mix[i] += left * gain;
+            mix[i + 1] += right * gain;
+            gain += delta;
+        }
+        voice.noiseState = state;
+        voice.brownLeft = left;
+        voice.brownRight = right;
+    }
+    
+    /**
+     * Move playback state from the old voices to new voices for the same audio, and
+     * fade out the old voices that have no successor. A voice still fading out from an
+     * earlier change is picked up again if its audio comes back.
+     */
+    private void carryOver(Voice[] from, Voice[] to) {
+        for (int i = 0; i < to.length; i++) {
+            Voice target = to[i];
+            Voice source = i < from.length && from[i].key.equals(target.key) ? from[i] : null;
+            for (int j = 0; source == null && j < from.length; j++) {
+                if (from[j].key.equals(target.key)) {
+                    source = from[j];
+                }
+            }
+            for (int j = 0; source == null && j < departingCount; j++) {
+                if (departing[j].key.equals(target.key)) {
+                    source = departing[j];
+                    departing[j] = departing[--departingCount];
+                    departing[departingCount] = null;
+                }
+            }
+            if (source != null) {
+                target.position = source.position;
+                target.gain = source.gain;
+                target.noiseState = source.noiseState;
+                target.brownLeft = source.brownLeft;
+                target.brownRight = source.brownRight;
+            }
+        }
+        
+        for (Voice voice : from) {
+            if (voice.gain > 0f && !containsKey(to, voice.key)) {
+                if (departingCount == departing.length) {
+                    // Changes faster than fades can finish; the oldest is cut off
+                    System.arraycopy(departing, 1, departing, 0, --departingCount);
+                }
+                departing[departingCount++] = voice;
+            }
+        }
+    }
+    
+    private static boolean containsKey(Voice[] voices, String key) {
+        for (Voice voice : voices) {
+            if (voice.key.equals(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Convert decoded PCM to interleaved stereo 16-bit samples at the mixer's rate.
+     * Mono is copied to both channels, extra channels are dropped and other sample
+     * rates are resampled linearly, all once at load time.
+     */
+    static short[] toMixSamples(AudioCache.Decoded decoded) {
+        AudioFormat format = decoded.getFormat();
+        byte[] data = decoded.getData();
+        int bytesPerSample = (format.getSampleSizeInBits() + 7) / 8;
+        int channels = Math.max(1, format.getChannels());
+        int frameSize = format.getFrameSize() > 0 ? format.getFrameSize() : bytesPerSample * channels;
+        int frames = data.length / frameSize;
+        if (frames == 0) {
+            return new short[0];
+        }
+        boolean signed = format.getEncoding() == AudioFormat.Encoding.PCM_SIGNED;
+        boolean bigEndian = format.isBigEndian();
+        double step = format.getSampleRate() / FORMAT.getSampleRate(); // Source frames per output frame
+        boolean resample = Math.abs(step - 1.0) > 1e-9;
+        
+        int outFrames = resample ? (int) (frames / step) : frames;
+        short[] samples = new short[outFrames * 2];
+        for (int frame = 0; frame < outFrames; frame++) {
+            double position = frame * step;
+            int first = (int) position;
+            int second = Math.min(first + 1, frames - 1);
+            float fraction = (float) (position - first);
+            for (int channel = 0; channel < 2; channel++) {
+                int offset = Math.min(channel, channels - 1) * bytesPerSample;
+                int a = readSample(data, first * frameSize + offset, bytesPerSample, signed, bigEndian);
+                int value = a;
+                if (resample) {
+                    int b = readSample(data, second * frameSize + offset, bytesPerSample, signed, bigEndian);
+                    value = Math.round(a + (b - a) * fraction);
+                }
+                samples[frame * 2 + channel] = (short) value;
+            }
+        }
+        return samples;
+    }
+    
+    /**
+     * Read one sample of 1 to 4 bytes, scaled to the 16-bit range.
+     */
+    private static int readSample(byte[] data, int offset, int bytes, boolean signed, boolean bigEndian) {
+        int value = 0;
+        for (int i = 0; i < bytes; i++) {
+            int b = data[offset + (bigEndian ? i : bytes - 1 - i)] & 0xff;
+            value = (value << 8) | b;
+        }
+        int bits = bytes * 8;
+        if (signed) {
+            value = (value << (32 - bits)) >> (32 - bits); // Sign-extend
+        } else {
+            value -= 1 << (bits - 1);
+        }
+        return bits >= 16 ? value >> (bits - 16) : value << (16 - bits);
+    }
+}
@@ -0,0 +1,60 @@
+package com.gooddaytolearn;
+
+/**
+ * Measures how long each startup phase takes and logs the time to first paint.
+ */
+public class StartupTimer {
+    
+    private static final long START_NANOS = System.nanoTime();
+    private static volatile boolean firstPaintSeen;
+    
+    private StartupTimer() {
+    }
+    
+    /**
+     * Mark the beginning of startup. Call this first thing in main.
+     */
+    public static void begin() {
+        log("Startup begin", 0);
+    }
+    
+    /**
+     * Get a start timestamp for a phase.
+     */
+    public static long phaseStart() {
+        return System.nanoTime();
+    }
+    
+    /**
+     * Log the duration of a phase started with {@link #phaseStart()}.
+     * Safe to call from any thread, so background phases can report too.
+     */
+    public static void phaseEnd(String phase, long startNanos) {
+        log(phase, System.nanoTime() - startNanos);
+    }
+    
+    /**
+     * Record the first paint of the main window. Only the first call is logged.
+     */
+    public static void firstPaint() {
+        if (!firstPaintSeen) {
+            firstPaintSeen = true;
+            System.out.println(String.format("[startup] First paint at %.1f ms", elapsedMillis()));
+        }
+    }
+    
+    /**
+     * Milliseconds since startup began.
+     */
+    public static double elapsedMillis() {
+        return (System.nanoTime() - START_NANOS) / 1_000_000.0;
+    }
+    
+    /**
+     * Print a single startup log line.
+     */
+    private static void log(String phase, long durationNanos) {
+        System.out.println(String.format("[startup] %s: %.1f ms (at %.1f ms) [%s]",
+            phase, durationNanos / 1_000_000.0, elapsedMillis(), Thread.currentThread().getName()));
+    }
+}
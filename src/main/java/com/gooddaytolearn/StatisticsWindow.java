@@ -0,0 +1,317 @@
+package com.gooddaytolearn;
+
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import javax.swing.filechooser.FileNameExtensionFilter;
+import java.awt.*;
+import java.io.File;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+/**
+ * Statistics window showing focus time, completion rate and streaks.
+ *
+ * All figures come from the pre-aggregated rollups in {@link StatsEngine}, so
+ * refreshing costs the same however long the session history is.
+ */
+public class StatisticsWindow extends JDialog {
+    
+    private static final String[] COLUMNS = {"Today", "This Week", "This Month", "All Time"};
+    private static final String[] ROWS = {
+        "Focus time", "Pomodoros", "Cycles", "Completion rate", "Interruptions / pomodoro"
+    };
+    
+    private static final String BINARY_EXTENSION = "gdth";
+    
+    private final StatsEngine statsEngine;
+    private final SessionJournal sessionJournal;
+    private final JLabel[][] valueLabels = new JLabel[ROWS.length][COLUMNS.length];
+    private JLabel streakLabel;
+    private HeatmapCalendar heatmap;
+    private JButton exportButton;
+    private JButton importButton;
+    private JFileChooser historyChooser;
+    
+    /**
+     * Initialize the statistics window.
+     *
+     * @param parent Parent window
+     * @param statsEngine Engine providing the rollups
+     * @param sessionJournal Journal that history is exported from and imported into
+     */
+    public StatisticsWindow(JFrame parent, StatsEngine statsEngine, SessionJournal sessionJournal) {
+        super(parent, "Statistics", false);
+        this.statsEngine = statsEngine;
+        this.sessionJournal = sessionJournal;
+        
+        ThemeManager.bindBackground((JComponent) getContentPane(), ThemeColor.SETTINGS_BG);
+        setDefaultCloseOperation(HIDE_ON_CLOSE);
+        createWidgets();
+        pack();
+        setResizable(false);
+        setLocationRelativeTo(parent);
+    }
+    
+    @Override
+    public void setVisible(boolean visible) {
+        if (visible) {
+            refresh();
+        }
+        super.setVisible(visible);
+    }
+    
+    /**
+     * Reload all figures from the engine. EDT only.
+     */
+    public void refresh() {
+        LocalDate today = LocalDate.now();
+        StatsEngine.Rollup[] rollups = {
+            statsEngine.getDay(today),
+            statsEngine.getWeek(today),
+            statsEngine.getMonth(YearMonth.from(today)),
+            statsEngine.getTotal()
+        };
+        
+        for (int column = 0; column < rollups.length; column++) {
+            StatsEngine.Rollup rollup = rollups[column];
+            valueLabels[0][column].setText(formatDuration(rollup.getFocusSeconds()));
+            valueLabels[1][column].setText(String.valueOf(rollup.getWorkCompleted()));
+            valueLabels[2][column].setText(String.valueOf(rollup.getCyclesCompleted()));
+            valueLabels[3][column].setText(String.format("%.0f%%", rollup.getCompletionRate() * 100));
+            valueLabels[4][column].setText(String.format("%.1f", rollup.getAverageInterruptions()));
+        }
+        
+        streakLabel.setText("Current streak: " + formatDays(statsEngine.getCurrentStreak(today))
+            + "   •   Longest streak: " + formatDays(statsEngine.getLongestStreak()));
+        
+        LocalDate firstDay = statsEngine.getFirstDay();
+        int firstYear = firstDay != null ? Math.min(firstDay.getYear(), today.getYear()) : today.getYear();
+        heatmap.setData(firstYear, today.getYear(), statsEngine.getDailyFocusMinutes(
+            LocalDate.of(firstYear, 1, 1), LocalDate.of(today.getYear(), 12, 31)));
+    }
+    
+    /**
+     * Create the title, the table of figures, the streak line and the heatmap.
+     */
+    private void createWidgets() {
+        setLayout(new BorderLayout());
+        
+        JLabel titleLabel = new JLabel("Statistics", SwingConstants.CENTER);
+        titleLabel.setFont(new Font("SF Pro Display", Font.BOLD, 20));
+        ThemeManager.bindForeground(titleLabel, ThemeColor.TEXT_PRIMARY);
+        titleLabel.setBorder(new EmptyBorder(25, 0, 15, 0));
+        add(titleLabel, BorderLayout.NORTH);
+        
+        // Card with one row per figure and one column per period
+        JPanel tablePanel = new JPanel(new GridBagLayout()) {
+            @Override
+            protected void paintComponent(Graphics g) {
+                Graphics2D g2d = (Graphics2D) g;
+                g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+                
+                Theme theme = ThemeManager.current();
+                g2d.setColor(theme.color(ThemeColor.PANEL_BG));
+                g2d.fillRoundRect(10, 10, getWidth() - 20, getHeight() - 20, 16, 16);
+                
+                g2d.setColor(theme.color(ThemeColor.BORDER));
+                g2d.setStroke(theme.getBorderStroke());
+                g2d.drawRoundRect(10, 10, getWidth() - 20, getHeight() - 20, 16, 16);
+            }
+        };
+        tablePanel.setOpaque(false);
+        tablePanel.setBorder(new EmptyBorder(25, 30, 25, 30));
+        
+        GridBagConstraints gbc = new GridBagConstraints();
+        gbc.insets = new Insets(6, 10, 6, 10);
+        
+        for (int column = 0; column < COLUMNS.length; column++) {
+            gbc.gridx = column + 1;
+            gbc.gridy = 0;
+            gbc.anchor = GridBagConstraints.EAST;
+            JLabel header = createLabel(COLUMNS[column], Font.BOLD, ThemeColor.TEXT_SECONDARY);
+            tablePanel.add(header, gbc);
+        }
+        
+        for (int row = 0; row < ROWS.length; row++) {
+            gbc.gridx = 0;
+            gbc.gridy = row + 1;
+            gbc.anchor = GridBagConstraints.WEST;
+            tablePanel.add(createLabel(ROWS[row], Font.PLAIN, ThemeColor.TEXT_SECONDARY), gbc);
+            
+            gbc.anchor = GridBagConstraints.EAST;
+            for (int column = 0; column < COLUMNS.length; column++) {
+                gbc.gridx = column + 1;
+                valueLabels[row][column] = createLabel("-", Font.PLAIN, ThemeColor.TEXT_PRIMARY);
+                tablePanel.add(valueLabels[row][column], gbc);
+            }
+        }
+        add(tablePanel, BorderLayout.CENTER);
+        
+        JPanel historyPanel = new JPanel(new BorderLayout());
+        historyPanel.setOpaque(false);
+        historyPanel.setBorder(new EmptyBorder(0, 10, 15, 10));
+        
+        streakLabel = createLabel("", Font.PLAIN, ThemeColor.TEXT_MUTED);
+        streakLabel.setHorizontalAlignment(SwingConstants.CENTER);
+        streakLabel.setBorder(new EmptyBorder(10, 0, 10, 0));
+        historyPanel.add(streakLabel, BorderLayout.NORTH);
+        
+        // Scrollable heatmap, one year visible at a time
+        heatmap = new HeatmapCalendar();
+        JScrollPane heatmapScroll = new JScrollPane(heatmap, ScrollPaneConstants.VERTICAL_SCROLLBAR_AS_NEEDED,
+            ScrollPaneConstants.HORIZONTAL_SCROLLBAR_NEVER);
+        ThemeManager.bindLineBorder(heatmapScroll, ThemeColor.BORDER);
+        ThemeManager.bindBackground(heatmapScroll.getViewport(), ThemeColor.PANEL_BG);
+        heatmapScroll.getVerticalScrollBar().setUnitIncrement(16);
+        heatmapScroll.setPreferredSize(new Dimension(heatmap.getPreferredSize().width + 20,
+            heatmap.getPreferredSize().height));
+        historyPanel.add(heatmapScroll, BorderLayout.CENTER);
+        
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 10, 0));
+        buttonPanel.setOpaque(false);
+        buttonPanel.setBorder(new EmptyBorder(12, 0, 0, 0));
+        exportButton = createButton("Export…");
+        exportButton.addActionListener(e -> exportHistory());
+        importButton = createButton("Import…");
+        importButton.addActionListener(e -> importHistory());
+        buttonPanel.add(importButton);
+        buttonPanel.add(exportButton);
+        historyPanel.add(buttonPanel, BorderLayout.SOUTH);
+        
+        add(historyPanel, BorderLayout.SOUTH);
+    }
+    
+    /**
+     * Ask for a file and export the whole history to it, as CSV or compact binary.
+     */
+    private void exportHistory() {
+        JFileChooser chooser = getHistoryChooser();
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        
+        // Use the chosen filter's extension unless the name already has one we know
+        File file = chooser.getSelectedFile();
+        String name = file.getName().toLowerCase();
+        boolean binary = name.endsWith("." + BINARY_EXTENSION);
+        if (!binary && !name.endsWith(".csv")) {
+            FileNameExtensionFilter filter = (FileNameExtensionFilter) chooser.getFileFilter();
+            binary = filter.getExtensions()[0].equals(BINARY_EXTENSION);
+            file = new File(file.getParentFile(), file.getName() + (binary ? "." + BINARY_EXTENSION : ".csv"));
+        }
+        
+        Path path = file.toPath();
+        boolean exportBinary = binary;
+        runTransfer("Export history", progress -> {
+            long count = exportBinary
+                ? HistoryTransfer.exportBinary(sessionJournal, path, progress)
+                : HistoryTransfer.exportCsv(sessionJournal, path, progress);
+            return "Exported " + count + " sessions to " + path.getFileName() + ".";
+        });
+    }
+    
+    /**
+     * Ask for a CSV or binary history file and merge it into the journal.
+     */
+    private void importHistory() {
+        JFileChooser chooser = getHistoryChooser();
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        
+        Path path = chooser.getSelectedFile().toPath();
+        runTransfer("Import history", progress -> {
+            HistoryTransfer.ImportResult result = HistoryTransfer.importFile(sessionJournal, path, progress);
+            return "Imported " + result.getImported() + " sessions, skipped "
+                + result.getDuplicates() + " already recorded.";
+        });
+    }
+    
+    /**
+     * Run a transfer in the background, keeping the buttons disabled until it ends.
+     */
+    private void runTransfer(String title, HistoryTransferWorker.Task task) {
+        exportButton.setEnabled(false);
+        importButton.setEnabled(false);
+        new HistoryTransferWorker(this, title, task, () -> {
+            exportButton.setEnabled(true);
+            importButton.setEnabled(true);
+        }).execute();
+    }
+    
+    /**
+     * Get the file chooser for history files, creating it on first use.
+     */
+    private JFileChooser getHistoryChooser() {
+        if (historyChooser == null) {
+            historyChooser = new JFileChooser();
+            historyChooser.setFileSelectionMode(JFileChooser.FILES_ONLY);
+            historyChooser.setAcceptAllFileFilterUsed(false);
+            FileNameExtensionFilter csvFilter = new FileNameExtensionFilter("CSV Files (*.csv)", "csv");
+            historyChooser.addChoosableFileFilter(csvFilter);
+            historyChooser.addChoosableFileFilter(
+                new FileNameExtensionFilter("Compact History (*." + BINARY_EXTENSION + ")", BINARY_EXTENSION));
+            historyChooser.setFileFilter(csvFilter);
+        }
+        historyChooser.setSelectedFile(null);
+        return historyChooser;
+    }
+    
+    /**
+     * Create a label with the window's typography.
+     */
+    private JLabel createLabel(String text, int style, ThemeColor color) {
+        JLabel label = new JLabel(text);
+        label.setFont(new Font("SF Pro Text", style, 13));
+        ThemeManager.bindForeground(label, color);
+        return label;
+    }
+    
+    /**
+     * Create a small rounded button in the window's style.
+     */
+    private JButton createButton(String text) {
+        JButton button = new JButton(text) {
+            @Override
+            protected void paintComponent(Graphics g) {
+                Graphics2D g2d = (Graphics2D) g;
+                g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+                
+                ThemeColor fill = getModel().isPressed() || getModel().isRollover()
+                    ? ThemeColor.BUTTON_BLUE_ACTIVE : ThemeColor.BUTTON_BLUE;
+                g2d.setColor(ThemeManager.current().color(isEnabled() ? fill : ThemeColor.BUTTON_BG));
+                g2d.fillRoundRect(0, 0, getWidth(), getHeight(), 8, 8);
+                
+                FontMetrics fm = g2d.getFontMetrics();
+                int textX = (getWidth() - fm.stringWidth(getText())) / 2;
+                int textY = (getHeight() + fm.getAscent() - fm.getDescent()) / 2;
+                g2d.setColor(getForeground());
+                g2d.drawString(getText(), textX, textY);
+            }
+        };
+        button.setFont(new Font("SF Pro Text", Font.PLAIN, 12));
+        ThemeManager.bindForeground(button, ThemeColor.BUTTON_TEXT);
+        button.setFocusPainted(false);
+        button.setBorderPainted(false);
+        button.setContentAreaFilled(false);
+        button.setPreferredSize(new Dimension(90, 28));
+        button.setCursor(new Cursor(Cursor.HAND_CURSOR));
+        return button;
+    }
+    
+    /**
+     * Format seconds as hours and minutes.
+     */
+    static String formatDuration(long seconds) {
+        long minutes = seconds / 60;
+        if (minutes < 60) {
+            return minutes + " min";
+        }
+        return (minutes / 60) + " h " + (minutes % 60) + " min";
+    }
+    
+    private static String formatDays(int days) {
+        return days == 1 ? "1 day" : days + " days";
+    }
+}
@@ -0,0 +1,488 @@
+package com.gooddaytolearn;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Session statistics maintained incrementally from the session journal.
+ *
+ * Every committed journal record updates pre-aggregated day, week and month rollups,
+ * so queries cost O(buckets) rather than O(sessions). The rollups are saved to a
+ * snapshot file next to the journal together with the number of records they cover;
+ * on startup the snapshot is loaded and only journal records written after it are replayed.
+ * Saving encodes the rollups in memory under the lock and writes the file outside it, so
+ * a slow disk never holds up the getters the UI calls.
+ */
+public class StatsEngine implements SessionJournal.CommitListener {
+    
+    private static final int SNAPSHOT_MAGIC = 0x47535453; // "GSTS"
+    private static final int SNAPSHOT_VERSION = 1;
+    private static final long SAVE_DELAY_MS = 2000;
+    
+    /**
+     * Aggregated counters for one bucket of time.
+     */
+    public static class Rollup {
+        private long focusSeconds;
+        private int workCompleted;
+        private int workAbandoned;
+        private int breaksCompleted;
+        private int interruptions;
+        private int cyclesCompleted;
+        
+        /**
+         * Add one phase event to the counters.
+         */
+        void add(PhaseEvent event) {
+            if (event.getPhase() == Phase.WORK) {
+                focusSeconds += event.getActualSeconds();
+                interruptions += event.getInterruptions();
+                if (event.isCompleted()) {
+                    workCompleted++;
+                } else {
+                    workAbandoned++;
+                }
+                if (event.isCycleCompleted()) {
+                    cyclesCompleted++;
+                }
+            } else if (event.isCompleted()) {
+                breaksCompleted++;
+            }
+        }
+        
+        Rollup copy() {
+            Rollup copy = new Rollup();
+            copy.focusSeconds = focusSeconds;
+            copy.workCompleted = workCompleted;
+            copy.workAbandoned = workAbandoned;
+            copy.breaksCompleted = breaksCompleted;
+            copy.interruptions = interruptions;
+            copy.cyclesCompleted = cyclesCompleted;
+            return copy;
+        }
+        
+        void write(DataOutputStream out) throws IOException {
+            out.writeLong(focusSeconds);
+            out.writeInt(workCompleted);
+            out.writeInt(workAbandoned);
+            out.writeInt(breaksCompleted);
+            out.writeInt(interruptions);
+            out.writeInt(cyclesCompleted);
+        }
+        
+        static Rollup read(DataInputStream in) throws IOException {
+            Rollup rollup = new Rollup();
+            rollup.focusSeconds = in.readLong();
+            rollup.workCompleted = in.readInt();
+            rollup.workAbandoned = in.readInt();
+            rollup.breaksCompleted = in.readInt();
+            rollup.interruptions = in.readInt();
+            rollup.cyclesCompleted = in.readInt();
+            return rollup;
+        }
+        
+        public long getFocusSeconds() {
+            return focusSeconds;
+        }
+        
+        public int getFocusMinutes() {
+            return (int) (focusSeconds / 60);
+        }
+        
+        public int getWorkCompleted() {
+            return workCompleted;
+        }
+        
+        public int getWorkAbandoned() {
+            return workAbandoned;
+        }
+        
+        public int getBreaksCompleted() {
+            return breaksCompleted;
+        }
+        
+        public int getInterruptions() {
+            return interruptions;
+        }
+        
+        public int getCyclesCompleted() {
+            return cyclesCompleted;
+        }
+        
+        /**
+         * Fraction of started work intervals that ran to the end, from 0.0 to 1.0.
+         */
+        public double getCompletionRate() {
+            int started = workCompleted + workAbandoned;
+            return started == 0 ? 0.0 : (double) workCompleted / started;
+        }
+        
+        /**
+         * Average number of interruptions per work interval.
+         */
+        public double getAverageInterruptions() {
+            int started = workCompleted + workAbandoned;
+            return started == 0 ? 0.0 : (double) interruptions / started;
+        }
+    }
+    
+    private final Path snapshotPath;
+    private final ZoneId zone = ZoneId.systemDefault();
+    
+    // Keys: epoch day, epoch day of the week's Monday, and year * 12 + month index
+    private final TreeMap<Integer, Rollup> days = new TreeMap<>();
+    private final TreeMap<Integer, Rollup> weeks = new TreeMap<>();
+    private final TreeMap<Integer, Rollup> months = new TreeMap<>();
+    private Rollup total = new Rollup();
+    private long appliedRecords;
+    private boolean loaded;
+    
+    private final List<Runnable> changeListeners = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService saver = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "StatsEngine-Saver");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private boolean saveScheduled;
+    private long snapshotSequence; // Guarded by this; numbers the encoded snapshots
+    
+    private final Object writeLock = new Object();
+    private long writtenSequence; // Guarded by writeLock
+    
+    /**
+     * Create an engine that keeps its snapshot at the given path.
+     */
+    public StatsEngine(Path snapshotPath) {
+        this.snapshotPath = snapshotPath;
+    }
+    
+    /**
+     * Load the snapshot and catch up with any journal records written after it.
+     * Call after the journal has been opened.
+     */
+    public void load(SessionJournal journal) {
+        synchronized (this) {
+            try {
+                readSnapshot();
+            } catch (NoSuchFileException e) {
+                clear();
+            } catch (IOException e) {
+                System.err.println("Rebuilding statistics, snapshot unreadable: " + e.getMessage());
+                clear();
+            }
+            
+            if (appliedRecords > journal.getRecordCount()) {
+                // Snapshot is ahead of the journal, e.g. the journal was replaced
+                System.err.println("Rebuilding statistics, snapshot does not match journal");
+                clear();
+            }
+            
+            long replayFrom = appliedRecords;
+            try {
+                journal.read(replayFrom, event -> {
+                    apply(event);
+                    appliedRecords++;
+                });
+            } catch (IOException e) {
+                System.err.println("Error replaying session journal: " + e.getMessage());
+            }
+            loaded = true;
+            if (appliedRecords != replayFrom) {
+                scheduleSave();
+            }
+        }
+        fireChanged();
+    }
+    
+    /**
+     * Apply a newly committed journal record. Records already covered are ignored.
+     */
+    @Override
+    public void onCommit(long index, PhaseEvent event) {
+        synchronized (this) {
+            if (!loaded || index != appliedRecords) {
+                return;
+            }
+            apply(event);
+            appliedRecords++;
+            scheduleSave();
+        }
+        fireChanged();
+    }
+    
+    /**
+     * Register a listener called after the statistics change. Runs on a background thread.
+     */
+    public void addChangeListener(Runnable listener) {
+        changeListeners.add(listener);
+    }
+    
+    /**
+     * Get the totals for one day.
+     */
+    public synchronized Rollup getDay(LocalDate date) {
+        return copyOf(days.get((int) date.toEpochDay()));
+    }
+    
+    /**
+     * Get the totals for the Monday-based week containing the given day.
+     */
+    public synchronized Rollup getWeek(LocalDate date) {
+        return copyOf(weeks.get(weekKey((int) date.toEpochDay())));
+    }
+    
+    /**
+     * Get the totals for one month.
+     */
+    public synchronized Rollup getMonth(YearMonth month) {
+        return copyOf(months.get(month.getYear() * 12 + month.getMonthValue() - 1));
+    }
+    
+    /**
+     * Get the all-time totals.
+     */
+    public synchronized Rollup getTotal() {
+        return total.copy();
+    }
+    
+    /**
+     * Get the all-time number of completed 4/4 cycles.
+     */
+    public synchronized int getCompletedCycles() {
+        return total.cyclesCompleted;
+    }
+    
+    /**
+     * Get the first day with any recorded phase, or null if there is no history yet.
+     */
+    public synchronized LocalDate getFirstDay() {
+        return days.isEmpty() ? null : LocalDate.ofEpochDay(days.firstKey());
+    }
+    
+    /**
+     * Get the focus minutes of every day in a range, indexed from the first day.
+     *
+     * @param from First day, inclusive
+     * @param to Last day, inclusive
+     */
+    public synchronized int[] getDailyFocusMinutes(LocalDate from, LocalDate to) {
+        int first = (int) from.toEpochDay();
+        int last = (int) to.toEpochDay();
+        int[] minutes = new int[Math.max(0, last - first + 1)];
+        for (Map.Entry<Integer, Rollup> entry : days.subMap(first, true, last, true).entrySet()) {
+            minutes[entry.getKey() - first] = entry.getValue().getFocusMinutes();
+        }
+        return minutes;
+    }
+    
+    /**
+     * Count consecutive days with focus time, ending today or yesterday.
+     */
+    public synchronized int getCurrentStreak(LocalDate today) {
+        int day = (int) today.toEpochDay();
+        if (!hasFocus(day)) {
+            day--; // Today not started yet, the streak can still be alive
+        }
+        int streak = 0;
+        while (hasFocus(day)) {
+            streak++;
+            day--;
+        }
+        return streak;
+    }
+    
+    /**
+     * Get the longest run of consecutive days with focus time.
+     */
+    public synchronized int getLongestStreak() {
+        int longest = 0;
+        int current = 0;
+        int previous = Integer.MIN_VALUE;
+        for (Map.Entry<Integer, Rollup> entry : days.entrySet()) {
+            if (entry.getValue().focusSeconds <= 0) {
+                continue;
+            }
+            current = entry.getKey() == previous + 1 ? current + 1 : 1;
+            longest = Math.max(longest, current);
+            previous = entry.getKey();
+        }
+        return longest;
+    }
+    
+    /**
+     * Write the snapshot now and stop the background saver.
+     */
+    public void close() {
+        saver.shutdownNow();
+        long sequence;
+        byte[] snapshot;
+        synchronized (this) {
+            if (!loaded) {
+                return;
+            }
+            sequence = ++snapshotSequence;
+            snapshot = encodeSnapshot();
+        }
+        writeSnapshot(sequence, snapshot);
+    }
+    
+    /**
+     * Add one event to the day, week, month and total rollups.
+     */
+    private void apply(PhaseEvent event) {
+        int day = (int) Instant.ofEpochMilli(event.getEndMillis()).atZone(zone).toLocalDate().toEpochDay();
+        LocalDate date = LocalDate.ofEpochDay(day);
+        days.computeIfAbsent(day, k -> new Rollup()).add(event);
+        weeks.computeIfAbsent(weekKey(day), k -> new Rollup()).add(event);
+        months.computeIfAbsent(date.getYear() * 12 + date.getMonthValue() - 1, k -> new Rollup()).add(event);
+        total.add(event);
+    }
+    
+    private boolean hasFocus(int day) {
+        Rollup rollup = days.get(day);
+        return rollup != null && rollup.focusSeconds > 0;
+    }
+    
+    /**
+     * Get the epoch day of the Monday starting the week that contains the given day.
+     */
+    private static int weekKey(int epochDay) {
+        // 1970-01-01 was a Thursday
+        return epochDay - Math.floorMod(epochDay + 3, 7);
+    }
+    
+    private static Rollup copyOf(Rollup rollup) {
+        return rollup != null ? rollup.copy() : new Rollup();
+    }
+    
+    private void clear() {
+        days.clear();
+        weeks.clear();
+        months.clear();
+        total = new Rollup();
+        appliedRecords = 0;
+    }
+    
+    /**
+     * Notify change listeners.
+     */
+    private void fireChanged() {
+        for (Runnable listener : changeListeners) {
+            listener.run();
+        }
+    }
+    
+    /**
+     * Save the snapshot a little later, coalescing bursts of updates into one write.
+     */
+    private void scheduleSave() {
+        if (saveScheduled || saver.isShutdown()) {
+            return;
+        }
+        saveScheduled = true;
+        saver.schedule(() -> {
+            long sequence;
+            byte[] snapshot;
+            synchronized (this) {
+                saveScheduled = false;
+                sequence = ++snapshotSequence;
+                snapshot = encodeSnapshot();
+            }
+            writeSnapshot(sequence, snapshot);
+        }, SAVE_DELAY_MS, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Encode the rollups and the number of records they cover. Call with the lock held;
+     * this is the only part of a save that needs it.
+     */
+    private byte[] encodeSnapshot() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(
+            64 + (days.size() + weeks.size() + months.size()) * 32);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeLong(appliedRecords);
+            total.write(out);
+            writeBuckets(out, days);
+            writeBuckets(out, weeks);
+            writeBuckets(out, months);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // Not thrown by an in-memory stream
+        }
+        return bytes.toByteArray();
+    }
+    
+    /**
+     * Write an encoded snapshot to a temporary file and atomically replace the old one.
+     * A snapshot older than one already written is skipped, so a save that was overtaken
+     * by close() cannot replace the newer file.
+     */
+    private void writeSnapshot(long sequence, byte[] snapshot) {
+        synchronized (writeLock) {
+            if (sequence < writtenSequence) {
+                return;
+            }
+            Path temp = snapshotPath.resolveSibling(snapshotPath.getFileName() + ".tmp");
+            try {
+                Files.createDirectories(snapshotPath.getParent());
+                Files.write(temp, snapshot);
+                Files.move(temp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                writtenSequence = sequence;
+            } catch (IOException e) {
+                System.err.println("Error saving statistics: " + e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Read the snapshot in a single read.
+     */
+    private void readSnapshot() throws IOException {
+        byte[] data = Files.readAllBytes(snapshotPath);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+            throw new IOException("unknown format");
+        }
+        clear();
+        appliedRecords = in.readLong();
+        total = Rollup.read(in);
+        readBuckets(in, days);
+        readBuckets(in, weeks);
+        readBuckets(in, months);
+    }
+    
+    private static void writeBuckets(DataOutputStream out, TreeMap<Integer, Rollup> buckets) throws IOException {
+        out.writeInt(buckets.size());
+        for (Map.Entry<Integer, Rollup> entry : buckets.entrySet()) {
+            out.writeInt(entry.getKey());
+            entry.getValue().write(out);
+        }
+    }
+    
+    private static void readBuckets(DataInputStream in, TreeMap<Integer, Rollup> buckets) throws IOException {
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            buckets.put(in.readInt(), Rollup.read(in));
+        }
+    }
+}
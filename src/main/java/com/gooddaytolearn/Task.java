@@ -0,0 +1,101 @@
+package com.gooddaytolearn;
+
+/**
+ * Immutable snapshot of a task that work intervals can be attributed to, with its focus totals.
+ */
+public class Task {
+    
+    /**
+     * Task id meaning "no task". Real task ids start at 1 and are never reused.
+     */
+    public static final int NONE = 0;
+    
+    private final int id;
+    private final String name;
+    private final long createdMillis;
+    private final long focusSeconds;
+    private final int workCompleted;
+    private final int workAbandoned;
+    private final long lastWorkedMillis;
+    
+    /**
+     * Create a task with no recorded work.
+     */
+    Task(int id, String name, long createdMillis) {
+        this(id, name, createdMillis, 0, 0, 0, 0);
+    }
+    
+    Task(int id, String name, long createdMillis, long focusSeconds, int workCompleted, int workAbandoned,
+         long lastWorkedMillis) {
+        this.id = id;
+        this.name = name;
+        this.createdMillis = createdMillis;
+        this.focusSeconds = focusSeconds;
+        this.workCompleted = workCompleted;
+        this.workAbandoned = workAbandoned;
+        this.lastWorkedMillis = lastWorkedMillis;
+    }
+    
+    /**
+     * Get a copy with one finished work phase added to the totals.
+     */
+    Task withWork(PhaseEvent event) {
+        return new Task(id, name, createdMillis, focusSeconds + event.getActualSeconds(),
+            workCompleted + (event.isCompleted() ? 1 : 0), workAbandoned + (event.isCompleted() ? 0 : 1),
+            Math.max(lastWorkedMillis, event.getEndMillis()));
+    }
+    
+    /**
+     * Get a copy with a different name and the same totals.
+     */
+    Task withName(String newName) {
+        return new Task(id, newName, createdMillis, focusSeconds, workCompleted, workAbandoned, lastWorkedMillis);
+    }
+    
+    /**
+     * Get a copy with the totals cleared, for rebuilding them from the journal.
+     */
+    Task withoutTotals() {
+        return new Task(id, name, createdMillis);
+    }
+    
+    public int getId() {
+        return id;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public long getCreatedMillis() {
+        return createdMillis;
+    }
+    
+    public long getFocusSeconds() {
+        return focusSeconds;
+    }
+    
+    public int getWorkCompleted() {
+        return workCompleted;
+    }
+    
+    public int getWorkAbandoned() {
+        return workAbandoned;
+    }
+    
+    public long getLastWorkedMillis() {
+        return lastWorkedMillis;
+    }
+    
+    /**
+     * Get when the task was last worked on, or created if it never was, for listing recent tasks first.
+     */
+    long getLastUsedMillis() {
+        return Math.max(createdMillis, lastWorkedMillis);
+    }
+    
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,315 @@
+package com.gooddaytolearn;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Fuzzy search over task names through an incrementally maintained n-gram index.
+ *
+ * Names are lower-cased, every run of spaces and punctuation becomes one space, and the
+ * result is padded with a space at both ends, so "Fix login" is indexed as the trigrams
+ * of " fix login " plus the word-start bigrams " f" and " l". Each gram maps to the
+ * slots of the names containing it. Adding, renaming or removing a name only touches
+ * that name's postings, so the index never has to be rebuilt as tasks are edited.
+ *
+ * A query is normalised the same way, but without the trailing space since its last
+ * word may be half typed. Only names sharing a gram with the query are visited; each is
+ * scored by the fraction of the query's grams it contains, with a bonus when it contains
+ * the query at a word start, so typos still match and exact matches still rank first.
+ * Postings are keyed by the primitive gram, so searching reuses its scratch arrays and
+ * allocates nothing beyond the normalised query.
+ * Not thread-safe.
+ */
+public class TaskIndex {
+    
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int MAX_QUERY_GRAMS = 64;
+    private static final long BIGRAM = 1L << 48; // Keeps bigram keys apart from trigram keys
+    
+    // Gram coverage dominates the score; the bonuses order names that cover the query equally
+    private static final int COVERAGE_SCALE = 1 << 16;
+    private static final int WORD_MATCH_BONUS = COVERAGE_SCALE / 2;
+    private static final int PREFIX_BONUS = COVERAGE_SCALE / 4;
+    
+    /**
+     * Slots of the names containing one gram, in no particular order.
+     */
+    private static final class Postings {
+        private int[] slots = new int[4];
+        private int size;
+        
+        void add(int slot) {
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+            }
+            slots[size++] = slot;
+        }
+        
+        void remove(int slot) {
+            for (int i = 0; i < size; i++) {
+                if (slots[i] == slot) {
+                    slots[i] = slots[--size];
+                    return;
+                }
+            }
+        }
+    }
+    
+    private final LongHashMap<Postings> postings = new LongHashMap<>(256);
+    private final Map<Integer, Integer> slotsById = new HashMap<>();
+    
+    // Per slot; a slot is free when its name is null
+    private int[] ids = new int[INITIAL_CAPACITY];
+    private String[] names = new String[INITIAL_CAPACITY];
+    private long[][] grams = new long[INITIAL_CAPACITY][];
+    private int slotCount;
+    private int[] freeSlots = new int[INITIAL_CAPACITY];
+    private int freeCount;
+    
+    // Search scratch, reused between queries
+    private int[] hits = new int[INITIAL_CAPACITY];
+    private int[] touched = new int[INITIAL_CAPACITY];
+    private final long[] queryGrams = new long[MAX_QUERY_GRAMS];
+    private int[] topScores = new int[AppConfig.TASK_PICKER_RESULTS];
+    private long[] nameGrams = new long[64];
+    
+    /**
+     * Add a name, or replace the name indexed under the same id.
+     */
+    public void put(int id, String name) {
+        String normalized = normalize(name, true);
+        Integer existing = slotsById.get(id);
+        int slot;
+        if (existing != null) {
+            slot = existing;
+            if (normalized.equals(names[slot])) {
+                return;
+            }
+            unlink(slot);
+        } else {
+            slot = allocateSlot();
+            ids[slot] = id;
+            slotsById.put(id, slot);
+        }
+        
+        if (nameGrams.length < normalized.length() * 2) {
+            nameGrams = new long[normalized.length() * 2];
+        }
+        int count = extractGrams(normalized, nameGrams);
+        names[slot] = normalized;
+        grams[slot] = Arrays.copyOf(nameGrams, count);
+        for (long gram : grams[slot]) {
+            Postings list = postings.get(gram);
+            if (list == null) {
+                list = new Postings();
+                postings.put(gram, list);
+            }
+            list.add(slot);
+        }
+    }
+    
+    /**
+     * Remove the name indexed under the given id, if any.
+     */
+    public void remove(int id) {
+        Integer slot = slotsById.remove(id);
+        if (slot == null) {
+            return;
+        }
+        unlink(slot);
+        names[slot] = null;
+        grams[slot] = null;
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        }
+        freeSlots[freeCount++] = slot;
+    }
+    
+    /**
+     * Remove every name.
+     */
+    public void clear() {
+        postings.clear();
+        slotsById.clear();
+        Arrays.fill(names, null);
+        Arrays.fill(grams, null);
+        slotCount = 0;
+        freeCount = 0;
+    }
+    
+    public int size() {
+        return slotsById.size();
+    }
+    
+    /**
+     * Find the names best matching a query.
+     *
+     * Names must share at least half of the query's grams. Equal scores go to the shorter
+     * name, then to the higher, more recently created id.
+     *
+     * @param query Text typed so far
+     * @param results Filled with the ids of the best matches, best first; its length is the limit
+     * @return the number of ids written
+     */
+    public int search(String query, int[] results) {
+        String normalized = normalize(query, false);
+        int gramCount = extractGrams(normalized, queryGrams);
+        int limit = results.length;
+        if (gramCount == 0 || limit == 0) {
+            return 0;
+        }
+        if (topScores.length < limit) {
+            topScores = new int[limit];
+        }
+        
+        // Count shared grams, remembering which slots were hit so only those are visited and reset
+        int touchedCount = 0;
+        for (int g = 0; g < gramCount; g++) {
+            Postings list = postings.get(queryGrams[g]);
+            if (list == null) {
+                continue;
+            }
+            for (int i = 0; i < list.size; i++) {
+                int slot = list.slots[i];
+                if (hits[slot]++ == 0) {
+                    touched[touchedCount++] = slot;
+                }
+            }
+        }
+        
+        int minHits = (gramCount + 1) / 2;
+        int found = 0;
+        for (int t = 0; t < touchedCount; t++) {
+            int slot = touched[t];
+            int shared = hits[slot];
+            hits[slot] = 0;
+            if (shared < minHits) {
+                continue;
+            }
+            String name = names[slot];
+            int score = (int) ((long) shared * COVERAGE_SCALE / gramCount);
+            if (name.startsWith(normalized)) {
+                score += WORD_MATCH_BONUS + PREFIX_BONUS;
+            } else if (name.contains(normalized)) {
+                score += WORD_MATCH_BONUS;
+            }
+            found = insertRanked(results, found, limit, slot, score);
+        }
+        
+        for (int i = 0; i < found; i++) {
+            results[i] = ids[results[i]];
+        }
+        return found;
+    }
+    
+    /**
+     * Insert a slot into the ranked results if it beats the worst one kept so far.
+     *
+     * @return the new number of results
+     */
+    private int insertRanked(int[] results, int found, int limit, int slot, int score) {
+        int position = found;
+        while (position > 0 && ranksBefore(slot, score, results[position - 1], topScores[position - 1])) {
+            position--;
+        }
+        if (position >= limit) {
+            return found;
+        }
+        int end = Math.min(found, limit - 1);
+        System.arraycopy(results, position, results, position + 1, end - position);
+        System.arraycopy(topScores, position, topScores, position + 1, end - position);
+        results[position] = slot;
+        topScores[position] = score;
+        return end + 1;
+    }
+    
+    private boolean ranksBefore(int slot, int score, int otherSlot, int otherScore) {
+        if (score != otherScore) {
+            return score > otherScore;
+        }
+        int length = names[slot].length();
+        int otherLength = names[otherSlot].length();
+        if (length != otherLength) {
+            return length < otherLength;
+        }
+        return ids[slot] > ids[otherSlot];
+    }
+    
+    /**
+     * Remove a slot from the postings of all its grams.
+     */
+    private void unlink(int slot) {
+        for (long gram : grams[slot]) {
+            Postings list = postings.get(gram);
+            list.remove(slot);
+            if (list.size == 0) {
+                postings.remove(gram);
+            }
+        }
+    }
+    
+    private int allocateSlot() {
+        if (freeCount > 0) {
+            return freeSlots[--freeCount];
+        }
+        if (slotCount == ids.length) {
+            int capacity = slotCount * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            names = Arrays.copyOf(names, capacity);
+            grams = Arrays.copyOf(grams, capacity);
+            hits = Arrays.copyOf(hits, capacity);
+            touched = Arrays.copyOf(touched, capacity);
+        }
+        return slotCount++;
+    }
+    
+    /**
+     * Lower-case the text and turn each run of non-alphanumeric characters into one space,
+     * with a leading space and, for names, a trailing one.
+     */
+    static String normalize(String text, boolean padEnd) {
+        StringBuilder normalized = new StringBuilder(text.length() + 2).append(' ');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                normalized.append(Character.toLowerCase(c));
+            } else if (normalized.charAt(normalized.length() - 1) != ' ') {
+                normalized.append(' ');
+            }
+        }
+        if (padEnd && normalized.charAt(normalized.length() - 1) != ' ') {
+            normalized.append(' ');
+        }
+        return normalized.toString();
+    }
+    
+    /**
+     * Write the distinct trigram and word-start bigram keys of normalised text, sorted.
+     * Stops early if the array fills up.
+     *
+     * @return the number of keys written
+     */
+    private static int extractGrams(String text, long[] out) {
+        int count = 0;
+        for (int i = 0; i + 1 < text.length() && count < out.length; i++) {
+            char first = text.charAt(i);
+            char second = text.charAt(i + 1);
+            if (first == ' ' && second != ' ') {
+                out[count++] = BIGRAM | second;
+            }
+            if (i + 2 < text.length() && count < out.length) {
+                out[count++] = ((long) first << 32) | ((long) second << 16) | text.charAt(i + 2);
+            }
+        }
+        
+        Arrays.sort(out, 0, count);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || out[i] != out[distinct - 1]) {
+                out[distinct++] = out[i];
+            }
+        }
+        return distinct;
+    }
+}
@@ -0,0 +1,225 @@
+package com.gooddaytolearn;
+
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Dialog for choosing the task to work on, searching as the user types.
+ *
+ * Every keystroke runs one {@link TaskStore#search} on the EDT and replaces the list,
+ * which the task index keeps well inside a frame. Enter picks the highlighted task, or
+ * adds a task with the typed name if nothing matches; Shift+Enter always adds one.
+ * F2 renames and Delete removes the highlighted task.
+ */
+public class TaskPicker extends JDialog {
+    
+    private final TaskStore taskStore;
+    private final Consumer<Task> onPicked;
+    private final JTextField queryField = new JTextField(24);
+    private final DefaultListModel<Task> matches = new DefaultListModel<>();
+    private final JList<Task> matchList = new JList<>(matches);
+    
+    /**
+     * Create the picker.
+     *
+     * @param parent Parent window
+     * @param taskStore Store to search and edit
+     * @param onPicked Called with the chosen task, or null for no task
+     */
+    public TaskPicker(JFrame parent, TaskStore taskStore, Consumer<Task> onPicked) {
+        super(parent, "Task", true);
+        this.taskStore = taskStore;
+        this.onPicked = onPicked;
+        
+        ThemeManager.bindBackground((JComponent) getContentPane(), ThemeColor.SETTINGS_BG);
+        setDefaultCloseOperation(HIDE_ON_CLOSE);
+        createWidgets();
+        pack();
+        setLocationRelativeTo(parent);
+    }
+    
+    @Override
+    public void setVisible(boolean visible) {
+        if (visible) {
+            queryField.setText("");
+            refresh();
+            queryField.requestFocusInWindow();
+        }
+        super.setVisible(visible);
+    }
+    
+    /**
+     * Create the search field, the list of matches and the hint line.
+     */
+    private void createWidgets() {
+        setLayout(new BorderLayout(0, 8));
+        ((JComponent) getContentPane()).setBorder(new EmptyBorder(16, 16, 12, 16));
+        
+        queryField.setFont(new Font("SF Pro Text", Font.PLAIN, 15));
+        ThemeManager.bindBackground(queryField, ThemeColor.PANEL_BG);
+        ThemeManager.bindForeground(queryField, ThemeColor.TEXT_PRIMARY);
+        queryField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                refresh();
+            }
+            
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                refresh();
+            }
+            
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                refresh();
+            }
+        });
+        add(queryField, BorderLayout.NORTH);
+        
+        matchList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        matchList.setVisibleRowCount(AppConfig.TASK_PICKER_RESULTS);
+        matchList.setFocusable(false);
+        ThemeManager.bindBackground(matchList, ThemeColor.PANEL_BG);
+        ThemeManager.bindForeground(matchList, ThemeColor.TEXT_PRIMARY);
+        matchList.setCellRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+                                                          boolean isSelected, boolean cellHasFocus) {
+                Task task = (Task) value;
+                String text = task.getFocusSeconds() > 0
+                    ? task.getName() + "  ·  " + StatisticsWindow.formatDuration(task.getFocusSeconds())
+                    : task.getName();
+                return super.getListCellRendererComponent(list, text, index, isSelected, cellHasFocus);
+            }
+        });
+        matchList.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2 && matchList.getSelectedValue() != null) {
+                    pick(matchList.getSelectedValue());
+                }
+            }
+        });
+        JScrollPane scrollPane = new JScrollPane(matchList);
+        scrollPane.setPreferredSize(new Dimension(360, 200));
+        add(scrollPane, BorderLayout.CENTER);
+        
+        JPanel footer = new JPanel(new BorderLayout());
+        footer.setOpaque(false);
+        JLabel hintLabel = new JLabel("Enter: pick   Shift+Enter: add   F2: rename   Del: remove");
+        hintLabel.setFont(new Font("SF Pro Text", Font.PLAIN, 11));
+        ThemeManager.bindForeground(hintLabel, ThemeColor.TEXT_MUTED);
+        footer.add(hintLabel, BorderLayout.WEST);
+        JButton noTaskButton = new JButton("No Task");
+        noTaskButton.setFocusable(false);
+        noTaskButton.addActionListener(e -> pick(null));
+        footer.add(noTaskButton, BorderLayout.EAST);
+        add(footer, BorderLayout.SOUTH);
+        
+        // The field keeps focus; the arrow keys move through the list from it
+        bindKey("UP", "previous", () -> moveSelection(-1));
+        bindKey("DOWN", "next", () -> moveSelection(1));
+        bindKey("ENTER", "pick", this::pickOrAdd);
+        bindKey("shift ENTER", "add", this::addTyped);
+        bindKey("F2", "rename", this::renameSelected);
+        bindKey("DELETE", "remove", this::removeSelected);
+        bindKey("ESCAPE", "close", () -> setVisible(false));
+    }
+    
+    private void bindKey(String key, String name, Runnable action) {
+        queryField.getInputMap().put(KeyStroke.getKeyStroke(key), name);
+        queryField.getActionMap().put(name, new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                action.run();
+            }
+        });
+    }
+    
+    /**
+     * Show the matches for the current text, highlighting the best one.
+     */
+    private void refresh() {
+        List<Task> found = taskStore.search(queryField.getText(), AppConfig.TASK_PICKER_RESULTS);
+        matches.clear();
+        for (Task task : found) {
+            matches.addElement(task);
+        }
+        if (!found.isEmpty()) {
+            matchList.setSelectedIndex(0);
+        }
+    }
+    
+    private void moveSelection(int delta) {
+        int size = matches.getSize();
+        if (size > 0) {
+            int index = Math.max(0, Math.min(size - 1, matchList.getSelectedIndex() + delta));
+            matchList.setSelectedIndex(index);
+            matchList.ensureIndexIsVisible(index);
+        }
+    }
+    
+    /**
+     * Pick the highlighted task, or add one named after the text if nothing matches.
+     */
+    private void pickOrAdd() {
+        Task selected = matchList.getSelectedValue();
+        if (selected != null) {
+            pick(selected);
+        } else {
+            addTyped();
+        }
+    }
+    
+    /**
+     * Pick a task named after the text, adding it unless one with that name exists.
+     */
+    private void addTyped() {
+        if (!queryField.getText().trim().isEmpty()) {
+            pick(taskStore.add(queryField.getText()));
+        }
+    }
+    
+    private void pick(Task task) {
+        setVisible(false);
+        onPicked.accept(task);
+    }
+    
+    private void renameSelected() {
+        Task selected = matchList.getSelectedValue();
+        if (selected == null) {
+            return;
+        }
+        String name = (String) JOptionPane.showInputDialog(this, "New name:", "Rename Task",
+            JOptionPane.PLAIN_MESSAGE, null, null, selected.getName());
+        if (name != null && !name.trim().isEmpty()) {
+            try {
+                taskStore.rename(selected.getId(), name);
+            } catch (IllegalArgumentException e) {
+                JOptionPane.showMessageDialog(this, e.getMessage(), "Rename Task", JOptionPane.WARNING_MESSAGE);
+            }
+            refresh();
+        }
+    }
+    
+    private void removeSelected() {
+        Task selected = matchList.getSelectedValue();
+        if (selected == null) {
+            return;
+        }
+        int answer = JOptionPane.showConfirmDialog(this, "Remove \"" + selected.getName() + "\"?",
+            "Remove Task", JOptionPane.OK_CANCEL_OPTION);
+        if (answer == JOptionPane.OK_OPTION) {
+            taskStore.remove(selected.getId());
+            refresh();
+        }
+    }
+}
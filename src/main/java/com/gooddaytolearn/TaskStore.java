@@ -0,0 +1,404 @@
+package com.gooddaytolearn;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The user's tasks, the one currently being worked on, and per-task focus totals.
+ *
+ * Totals are counters updated from each committed journal record that names a task, the
+ * same way {@link StatsEngine} keeps its rollups, and are saved with the task list and the
+ * number of records they cover. Task names are kept in a {@link TaskIndex} that is updated
+ * on every edit, so picker searches stay fast with thousands of tasks.
+ */
+public class TaskStore implements SessionJournal.CommitListener {
+    
+    private static final int SNAPSHOT_MAGIC = 0x4754534B; // "GTSK"
+    private static final int SNAPSHOT_VERSION = 1;
+    private static final long SAVE_DELAY_MS = 2000;
+    
+    private static final Comparator<Task> MOST_RECENT_FIRST =
+        Comparator.comparingLong(Task::getLastUsedMillis).reversed();
+    
+    private final Path snapshotPath;
+    private final Map<Integer, Task> tasks = new HashMap<>();
+    private final TaskIndex index = new TaskIndex();
+    private int nextId = 1;
+    private int currentTaskId = Task.NONE;
+    private long appliedRecords;
+    private volatile boolean loaded;
+    
+    private final List<Runnable> changeListeners = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService saver = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "TaskStore-Saver");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private boolean saveScheduled;
+    
+    /**
+     * Create a store that keeps its snapshot at the given path.
+     */
+    public TaskStore(Path snapshotPath) {
+        this.snapshotPath = snapshotPath;
+    }
+    
+    /**
+     * Load the snapshot and catch up with any journal records written after it.
+     * Call after the journal has been opened.
+     */
+    public void load(SessionJournal journal) {
+        synchronized (this) {
+            try {
+                readSnapshot();
+            } catch (NoSuchFileException e) {
+                clear();
+            } catch (IOException e) {
+                System.err.println("Starting a new task list, snapshot unreadable: " + e.getMessage());
+                clear();
+            }
+            
+            if (appliedRecords > journal.getRecordCount()) {
+                // Totals are ahead of the journal, e.g. the journal was replaced; names are kept
+                System.err.println("Rebuilding task totals, snapshot does not match journal");
+                resetTotals();
+            }
+            
+            long replayFrom = appliedRecords;
+            try {
+                journal.read(replayFrom, event -> {
+                    apply(event);
+                    appliedRecords++;
+                });
+            } catch (IOException e) {
+                System.err.println("Error replaying session journal: " + e.getMessage());
+            }
+            loaded = true;
+            if (appliedRecords != replayFrom) {
+                scheduleSave();
+            }
+        }
+        fireChanged();
+    }
+    
+    /**
+     * Add a newly committed journal record to its task's totals. Records already covered are ignored.
+     */
+    @Override
+    public void onCommit(long index, PhaseEvent event) {
+        synchronized (this) {
+            if (!loaded || index != appliedRecords) {
+                return;
+            }
+            boolean changed = apply(event);
+            appliedRecords++;
+            scheduleSave();
+            if (!changed) {
+                return;
+            }
+        }
+        fireChanged();
+    }
+    
+    /**
+     * Register a listener called after tasks or their totals change. May run on any thread.
+     */
+    public void addChangeListener(Runnable listener) {
+        changeListeners.add(listener);
+    }
+    
+    /**
+     * Check whether the task list has been loaded. Tasks cannot be edited before then.
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+    
+    /**
+     * Add a task, or get the existing one if a task already has this name, ignoring case.
+     *
+     * @throws IllegalArgumentException if the name is blank
+     */
+    public Task add(String name) {
+        Task task;
+        synchronized (this) {
+            String trimmed = checkName(name);
+            for (Task existing : tasks.values()) {
+                if (existing.getName().equalsIgnoreCase(trimmed)) {
+                    return existing;
+                }
+            }
+            task = new Task(nextId++, trimmed, System.currentTimeMillis());
+            tasks.put(task.getId(), task);
+            index.put(task.getId(), task.getName());
+            scheduleSave();
+        }
+        fireChanged();
+        return task;
+    }
+    
+    /**
+     * Rename a task, keeping its totals.
+     *
+     * @return the renamed task, or null if there is no task with this id
+     * @throws IllegalArgumentException if the name is blank or another task already has it, ignoring case
+     */
+    public Task rename(int id, String name) {
+        Task renamed;
+        synchronized (this) {
+            String trimmed = checkName(name);
+            Task task = tasks.get(id);
+            if (task == null) {
+                return null;
+            }
+            for (Task existing : tasks.values()) {
+                if (existing.getId() != id && existing.getName().equalsIgnoreCase(trimmed)) {
+                    throw new IllegalArgumentException("A task named \"" + existing.getName() + "\" already exists");
+                }
+            }
+            renamed = task.withName(trimmed);
+            tasks.put(id, renamed);
+            index.put(id, trimmed);
+            scheduleSave();
+        }
+        fireChanged();
+        return renamed;
+    }
+    
+    /**
+     * Delete a task. Work recorded against it stays in the journal but no longer counts anywhere.
+     *
+     * @return true if the task existed
+     */
+    public boolean remove(int id) {
+        synchronized (this) {
+            checkLoaded();
+            if (tasks.remove(id) == null) {
+                return false;
+            }
+            index.remove(id);
+            if (currentTaskId == id) {
+                currentTaskId = Task.NONE;
+            }
+            scheduleSave();
+        }
+        fireChanged();
+        return true;
+    }
+    
+    /**
+     * Get a task by id.
+     *
+     * @return the task, or null if there is none with this id
+     */
+    public synchronized Task get(int id) {
+        return tasks.get(id);
+    }
+    
+    public synchronized int size() {
+        return tasks.size();
+    }
+    
+    /**
+     * Find tasks for the picker: the best fuzzy matches for a query, or the most
+     * recently used tasks when the query is blank.
+     *
+     * @param limit Maximum number of tasks to return
+     */
+    public synchronized List<Task> search(String query, int limit) {
+        if (query.trim().isEmpty()) {
+            List<Task> recent = new ArrayList<>(tasks.values());
+            recent.sort(MOST_RECENT_FIRST);
+            return new ArrayList<>(recent.subList(0, Math.min(limit, recent.size())));
+        }
+        int[] ids = new int[limit];
+        int count = index.search(query, ids);
+        List<Task> found = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            found.add(tasks.get(ids[i]));
+        }
+        return found;
+    }
+    
+    /**
+     * Get the task new work intervals are attributed to.
+     *
+     * @return the task, or null if none is selected
+     */
+    public synchronized Task getCurrentTask() {
+        return tasks.get(currentTaskId);
+    }
+    
+    /**
+     * Select the task new work intervals are attributed to. It is remembered across restarts.
+     *
+     * @param id Id of an existing task, or {@link Task#NONE}
+     */
+    public void setCurrentTask(int id) {
+        synchronized (this) {
+            checkLoaded();
+            int selected = tasks.containsKey(id) ? id : Task.NONE;
+            if (selected == currentTaskId) {
+                return;
+            }
+            currentTaskId = selected;
+            scheduleSave();
+        }
+        fireChanged();
+    }
+    
+    /**
+     * Write the snapshot now and stop the background saver.
+     */
+    public void close() {
+        saver.shutdownNow();
+        synchronized (this) {
+            if (loaded) {
+                save();
+            }
+        }
+    }
+    
+    /**
+     * Add a finished work phase to the totals of the task it was attributed to.
+     *
+     * @return true if a task's totals changed
+     */
+    private boolean apply(PhaseEvent event) {
+        if (event.getPhase() != Phase.WORK || event.getTaskId() == Task.NONE) {
+            return false;
+        }
+        Task task = tasks.get(event.getTaskId());
+        if (task == null) {
+            // Deleted since
+            return false;
+        }
+        tasks.put(task.getId(), task.withWork(event));
+        return true;
+    }
+    
+    private String checkName(String name) {
+        checkLoaded();
+        String trimmed = name != null ? name.trim() : "";
+        if (trimmed.isEmpty()) {
+            throw new IllegalArgumentException("Task name is blank");
+        }
+        return trimmed;
+    }
+    
+    private void checkLoaded() {
+        if (!loaded) {
+            throw new IllegalStateException("Tasks are not loaded yet");
+        }
+    }
+    
+    private void clear() {
+        tasks.clear();
+        index.clear();
+        nextId = 1;
+        currentTaskId = Task.NONE;
+        appliedRecords = 0;
+    }
+    
+    private void resetTotals() {
+        for (Map.Entry<Integer, Task> entry : tasks.entrySet()) {
+            entry.setValue(entry.getValue().withoutTotals());
+        }
+        appliedRecords = 0;
+    }
+    
+    /**
+     * Notify change listeners.
+     */
+    private void fireChanged() {
+        for (Runnable listener : changeListeners) {
+            listener.run();
+        }
+    }
+    
+    /**
+     * Save the snapshot a little later, coalescing bursts of updates into one write.
+     */
+    private void scheduleSave() {
+        if (saveScheduled || saver.isShutdown()) {
+            return;
+        }
+        saveScheduled = true;
+        saver.schedule(() -> {
+            synchronized (this) {
+                saveScheduled = false;
+                save();
+            }
+        }, SAVE_DELAY_MS, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Write the snapshot to a temporary file and atomically replace the old one.
+     */
+    private void save() {
+        Path temp = snapshotPath.resolveSibling(snapshotPath.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(snapshotPath.getParent());
+            try (OutputStream file = Files.newOutputStream(temp);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeInt(SNAPSHOT_VERSION);
+                out.writeLong(appliedRecords);
+                out.writeInt(nextId);
+                out.writeInt(currentTaskId);
+                out.writeInt(tasks.size());
+                for (Task task : tasks.values()) {
+                    out.writeInt(task.getId());
+                    out.writeUTF(task.getName());
+                    out.writeLong(task.getCreatedMillis());
+                    out.writeLong(task.getFocusSeconds());
+                    out.writeInt(task.getWorkCompleted());
+                    out.writeInt(task.getWorkAbandoned());
+                    out.writeLong(task.getLastWorkedMillis());
+                }
+            }
+            Files.move(temp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Error saving tasks: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Read the snapshot in a single read and index the task names.
+     */
+    private void readSnapshot() throws IOException {
+        byte[] data = Files.readAllBytes(snapshotPath);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+            throw new IOException("unknown format");
+        }
+        clear();
+        appliedRecords = in.readLong();
+        nextId = in.readInt();
+        currentTaskId = in.readInt();
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            Task task = new Task(in.readInt(), in.readUTF(), in.readLong(), in.readLong(), in.readInt(),
+                in.readInt(), in.readLong());
+            tasks.put(task.getId(), task);
+            index.put(task.getId(), task.getName());
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.gooddaytolearn;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Paint;
+import java.awt.Stroke;
+import java.util.EnumMap;
+
+/**
+ * The built-in colour themes, each compiled once into ready-made drawing objects.
+ *
+ * A palette is written as a map from {@link ThemeColor} to colour and compiled into an
+ * array indexed by role ordinal, together with the strokes and derived colours the paint
+ * code needs. Paint methods then index arrays and read fields; they never hash a key or
+ * create a colour. The current theme is held by {@link ThemeManager}.
+ */
+public enum Theme {
+    DARK("Dark", 1.0f, dark()),
+    LIGHT("Light", 1.0f, light()),
+    HIGH_CONTRAST("High Contrast", 1.5f, highContrast());
+    
+    private static final float RING_WIDTH = 4.0f;
+    
+    private final String displayName;
+    private final Color[] colors;
+    private final Color[] heatmapLevels;
+    private final Stroke ringStroke;
+    private final Stroke borderStroke;
+    
+    /**
+     * Compile a palette. Every role must have a colour.
+     *
+     * @param strokeScale Multiplier for line widths, so outlines can be made bolder
+     */
+    Theme(String displayName, float strokeScale, EnumMap<ThemeColor, Color> palette) {
+        this.displayName = displayName;
+        this.colors = new Color[ThemeColor.values().length];
+        for (ThemeColor role : ThemeColor.values()) {
+            Color color = palette.get(role);
+            if (color == null) {
+                throw new IllegalStateException(displayName + " theme has no colour for " + role);
+            }
+            colors[role.ordinal()] = color;
+        }
+        this.heatmapLevels = new Color[] {
+            color(ThemeColor.HEATMAP_EMPTY), color(ThemeColor.HEATMAP_LEVEL1), color(ThemeColor.HEATMAP_LEVEL2),
+            color(ThemeColor.HEATMAP_LEVEL3), color(ThemeColor.HEATMAP_LEVEL4)
+        };
+        this.ringStroke = new BasicStroke(RING_WIDTH * strokeScale);
+        this.borderStroke = new BasicStroke(strokeScale);
+    }
+    
+    /**
+     * Get the colour for a role.
+     */
+    public Color color(ThemeColor role) {
+        return colors[role.ordinal()];
+    }
+    
+    /**
+     * Get the colour of the timer and progress ring for the current phase.
+     */
+    public Color phaseColor(boolean isBreak) {
+        return isBreak ? colors[ThemeColor.BREAK_TIME.ordinal()] : colors[ThemeColor.WORK_TIME.ordinal()];
+    }
+    
+    /**
+     * Get the heatmap colour for an intensity level from 0 (no focus time) to 4.
+     */
+    public Color heatmapLevel(int level) {
+        return heatmapLevels[level];
+    }
+    
+    /**
+     * Stroke of the progress ring.
+     */
+    public Stroke getRingStroke() {
+        return ringStroke;
+    }
+    
+    /**
+     * Stroke for card and button outlines.
+     */
+    public Stroke getBorderStroke() {
+        return borderStroke;
+    }
+    
+    /**
+     * Get the vertical background gradient for an area of the given height.
+     * Only used when rendering cached layers.
+     */
+    public Paint backgroundPaint(int height) {
+        return new GradientPaint(0, 0, color(ThemeColor.BACKGROUND), 0, height, color(ThemeColor.PANEL_BG));
+    }
+    
+    public String getDisplayName() {
+        return displayName;
+    }
+    
+    @Override
+    public String toString() {
+        return displayName;
+    }
+    
+    /**
+     * Find a theme by its enum name, falling back to the dark theme.
+     */
+    public static Theme byName(String name) {
+        if (name != null) {
+            for (Theme theme : values()) {
+                if (theme.name().equals(name)) {
+                    return theme;
+                }
+            }
+        }
+        return DARK;
+    }
+    
+    /**
+     * The original palette: deep dark with subtle blue undertones and vibrant timer colours.
+     */
+    private static EnumMap<ThemeColor, Color> dark() {
+        EnumMap<ThemeColor, Color> palette = new EnumMap<>(ThemeColor.class);
+        palette.put(ThemeColor.BACKGROUND, new Color(18, 18, 20));
+        palette.put(ThemeColor.SETTINGS_BG, new Color(22, 22, 25));
+        palette.put(ThemeColor.PANEL_BG, new Color(28, 28, 32));
+        palette.put(ThemeColor.BUTTON_BG, new Color(38, 38, 42));
+        palette.put(ThemeColor.TEXT_PRIMARY, new Color(255, 255, 255));
+        palette.put(ThemeColor.TEXT_SECONDARY, new Color(200, 200, 205));
+        palette.put(ThemeColor.TEXT_MUTED, new Color(140, 140, 150));
+        palette.put(ThemeColor.TEXT_ACCENT, new Color(120, 120, 128));
+        palette.put(ThemeColor.WORK_TIME, new Color(255, 95, 95));
+        palette.put(ThemeColor.BREAK_TIME, new Color(100, 210, 255));
+        palette.put(ThemeColor.BUTTON_GREEN, new Color(46, 204, 113));
+        palette.put(ThemeColor.BUTTON_GREEN_ACTIVE, new Color(39, 174, 96));
+        palette.put(ThemeColor.BUTTON_RED, new Color(255, 95, 95));
+        palette.put(ThemeColor.BUTTON_RED_ACTIVE, new Color(230, 70, 70));
+        palette.put(ThemeColor.BUTTON_BLUE, new Color(100, 170, 255));
+        palette.put(ThemeColor.BUTTON_BLUE_ACTIVE, new Color(80, 150, 235));
+        palette.put(ThemeColor.BUTTON_PURPLE, new Color(155, 135, 255));
+        palette.put(ThemeColor.BUTTON_PURPLE_ACTIVE, new Color(135, 115, 235));
+        palette.put(ThemeColor.BUTTON_TEXT, new Color(255, 255, 255));
+        palette.put(ThemeColor.PRESSED_SHADOW, new Color(0, 0, 0, 20));
+        palette.put(ThemeColor.ACCENT_PRIMARY, new Color(100, 170, 255));
+        palette.put(ThemeColor.BORDER, new Color(55, 55, 60));
+        palette.put(ThemeColor.SLIDER_TRACK, new Color(45, 45, 50));
+        palette.put(ThemeColor.HEATMAP_EMPTY, new Color(38, 38, 42));
+        palette.put(ThemeColor.HEATMAP_LEVEL1, new Color(14, 68, 41));
+        palette.put(ThemeColor.HEATMAP_LEVEL2, new Color(0, 109, 50));
+        palette.put(ThemeColor.HEATMAP_LEVEL3, new Color(38, 166, 65));
+        palette.put(ThemeColor.HEATMAP_LEVEL4, new Color(57, 211, 83));
+        return palette;
+    }
+    
+    /**
+     * Light backgrounds with darker, less saturated accents that keep their contrast on white.
+     */
+    private static EnumMap<ThemeColor, Color> light() {
+        EnumMap<ThemeColor, Color> palette = new EnumMap<>(ThemeColor.class);
+        palette.put(ThemeColor.BACKGROUND, new Color(246, 246, 248));
+        palette.put(ThemeColor.SETTINGS_BG, new Color(240, 240, 243));
+        palette.put(ThemeColor.PANEL_BG, new Color(255, 255, 255));
+        palette.put(ThemeColor.BUTTON_BG, new Color(222, 222, 228));
+        palette.put(ThemeColor.TEXT_PRIMARY, new Color(28, 28, 30));
+        palette.put(ThemeColor.TEXT_SECONDARY, new Color(60, 60, 67));
+        palette.put(ThemeColor.TEXT_MUTED, new Color(108, 108, 116));
+        palette.put(ThemeColor.TEXT_ACCENT, new Color(138, 138, 146));
+        palette.put(ThemeColor.WORK_TIME, new Color(214, 58, 58));
+        palette.put(ThemeColor.BREAK_TIME, new Color(0, 128, 196));
+        palette.put(ThemeColor.BUTTON_GREEN, new Color(40, 167, 90));
+        palette.put(ThemeColor.BUTTON_GREEN_ACTIVE, new Color(30, 140, 75));
+        palette.put(ThemeColor.BUTTON_RED, new Color(220, 70, 70));
+        palette.put(ThemeColor.BUTTON_RED_ACTIVE, new Color(190, 50, 50));
+        palette.put(ThemeColor.BUTTON_BLUE, new Color(60, 130, 230));
+        palette.put(ThemeColor.BUTTON_BLUE_ACTIVE, new Color(45, 110, 205));
+        palette.put(ThemeColor.BUTTON_PURPLE, new Color(130, 100, 230));
+        palette.put(ThemeColor.BUTTON_PURPLE_ACTIVE, new Color(110, 80, 205));
+        palette.put(ThemeColor.BUTTON_TEXT, new Color(255, 255, 255));
+        palette.put(ThemeColor.PRESSED_SHADOW, new Color(0, 0, 0, 30));
+        palette.put(ThemeColor.ACCENT_PRIMARY, new Color(60, 130, 230));
+        palette.put(ThemeColor.BORDER, new Color(208, 208, 214));
+        palette.put(ThemeColor.SLIDER_TRACK, new Color(214, 214, 220));
+        palette.put(ThemeColor.HEATMAP_EMPTY, new Color(235, 237, 240));
+        palette.put(ThemeColor.HEATMAP_LEVEL1, new Color(155, 233, 168));
+        palette.put(ThemeColor.HEATMAP_LEVEL2, new Color(64, 196, 99));
+        palette.put(ThemeColor.HEATMAP_LEVEL3, new Color(48, 161, 78));
+        palette.put(ThemeColor.HEATMAP_LEVEL4, new Color(33, 110, 57));
+        return palette;
+    }
+    
+    /**
+     * Black backgrounds, white text and outlines, saturated accents and bolder lines.
+     */
+    private static EnumMap<ThemeColor, Color> highContrast() {
+        EnumMap<ThemeColor, Color> palette = new EnumMap<>(ThemeColor.class);
+        palette.put(ThemeColor.BACKGROUND, new Color(0, 0, 0));
+        palette.put(ThemeColor.SETTINGS_BG, new Color(0, 0, 0));
+        palette.put(ThemeColor.PANEL_BG, new Color(12, 12, 12));
+        palette.put(ThemeColor.BUTTON_BG, new Color(44, 44, 44));
+        palette.put(ThemeColor.TEXT_PRIMARY, new Color(255, 255, 255));
+        palette.put(ThemeColor.TEXT_SECONDARY, new Color(255, 255, 255));
+        palette.put(ThemeColor.TEXT_MUTED, new Color(220, 220, 220));
+        palette.put(ThemeColor.TEXT_ACCENT, new Color(200, 200, 200));
+        palette.put(ThemeColor.WORK_TIME, new Color(255, 80, 80));
+        palette.put(ThemeColor.BREAK_TIME, new Color(0, 220, 255));
+        palette.put(ThemeColor.BUTTON_GREEN, new Color(0, 210, 0));
+        palette.put(ThemeColor.BUTTON_GREEN_ACTIVE, new Color(0, 165, 0));
+        palette.put(ThemeColor.BUTTON_RED, new Color(255, 70, 70));
+        palette.put(ThemeColor.BUTTON_RED_ACTIVE, new Color(215, 35, 35));
+        palette.put(ThemeColor.BUTTON_BLUE, new Color(0, 170, 255));
+        palette.put(ThemeColor.BUTTON_BLUE_ACTIVE, new Color(0, 135, 220));
+        palette.put(ThemeColor.BUTTON_PURPLE, new Color(200, 140, 255));
+        palette.put(ThemeColor.BUTTON_PURPLE_ACTIVE, new Color(170, 105, 235));
+        palette.put(ThemeColor.BUTTON_TEXT, new Color(0, 0, 0));
+        palette.put(ThemeColor.PRESSED_SHADOW, new Color(255, 255, 255, 40));
+        palette.put(ThemeColor.ACCENT_PRIMARY, new Color(255, 255, 0));
+        palette.put(ThemeColor.BORDER, new Color(255, 255, 255));
+        palette.put(ThemeColor.SLIDER_TRACK, new Color(96, 96, 96));
+        palette.put(ThemeColor.HEATMAP_EMPTY, new Color(44, 44, 44));
+        palette.put(ThemeColor.HEATMAP_LEVEL1, new Color(0, 96, 0));
+        palette.put(ThemeColor.HEATMAP_LEVEL2, new Color(0, 150, 0));
+        palette.put(ThemeColor.HEATMAP_LEVEL3, new Color(0, 210, 0));
+        palette.put(ThemeColor.HEATMAP_LEVEL4, new Color(130, 255, 130));
+        return palette;
+    }
+}
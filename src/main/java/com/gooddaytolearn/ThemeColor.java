@@ -0,0 +1,47 @@
+package com.gooddaytolearn;
+
+/**
+ * The colour roles a theme defines. Each {@link Theme} holds one colour per role in an
+ * array indexed by ordinal, so paint code looks colours up without hashing.
+ */
+public enum ThemeColor {
+    // Backgrounds
+    BACKGROUND,
+    SETTINGS_BG,
+    PANEL_BG,
+    BUTTON_BG,
+    
+    // Text, from most to least prominent
+    TEXT_PRIMARY,
+    TEXT_SECONDARY,
+    TEXT_MUTED,
+    TEXT_ACCENT,
+    
+    // Timer state
+    WORK_TIME,
+    BREAK_TIME,
+    
+    // Buttons, each with its pressed/hover variant
+    BUTTON_GREEN,
+    BUTTON_GREEN_ACTIVE,
+    BUTTON_RED,
+    BUTTON_RED_ACTIVE,
+    BUTTON_BLUE,
+    BUTTON_BLUE_ACTIVE,
+    BUTTON_PURPLE,
+    BUTTON_PURPLE_ACTIVE,
+    BUTTON_TEXT,
+    PRESSED_SHADOW,
+    
+    // Accents and outlines
+    ACCENT_PRIMARY,
+    BORDER,
+    SLIDER_TRACK,
+    
+    // Heatmap calendar, from no focus time to a long day
+    HEATMAP_EMPTY,
+    HEATMAP_LEVEL1,
+    HEATMAP_LEVEL2,
+    HEATMAP_LEVEL3,
+    HEATMAP_LEVEL4
+}
@@ -0,0 +1,142 @@
+package com.gooddaytolearn;
+
+import javax.swing.BorderFactory;
+import javax.swing.JComponent;
+import javax.swing.UIManager;
+import java.awt.Component;
+import java.awt.Container;
+import java.awt.Window;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Holds the current {@link Theme} and restyles open windows when it changes.
+ *
+ * Components that take a plain theme colour are bound to a {@link ThemeColor} role once,
+ * when they are built; the role is kept in a client property. Switching themes then walks
+ * each window once, re-applying the bound roles, and notifies listeners so custom-painted
+ * components can drop images rendered in the old colours. Colours do not change sizes,
+ * so nothing is laid out again. Custom paint code reads {@link #current()} directly.
+ */
+public final class ThemeManager {
+    
+    private static final String FOREGROUND_ROLE = "gooddaytolearn.foreground";
+    private static final String BACKGROUND_ROLE = "gooddaytolearn.background";
+    private static final String BORDER_ROLE = "gooddaytolearn.border";
+    
+    private static final List<Consumer<Theme>> listeners = new CopyOnWriteArrayList<>();
+    
+    private static volatile Theme current = Theme.DARK;
+    
+    private ThemeManager() {
+    }
+    
+    public static Theme current() {
+        return current;
+    }
+    
+    /**
+     * Switch to a theme and restyle every open window. Must be called on the EDT.
+     */
+    public static void setTheme(Theme theme) {
+        if (theme == current) {
+            return;
+        }
+        current = theme;
+        installDefaults();
+        for (Consumer<Theme> listener : listeners) {
+            try {
+                listener.accept(theme);
+            } catch (Exception e) {
+                System.err.println("Error in theme listener: " + e.getMessage());
+            }
+        }
+        for (Window window : Window.getWindows()) {
+            if (window.isDisplayable()) {
+                restyle(window);
+            }
+        }
+    }
+    
+    /**
+     * Set the look and feel defaults for standard components to the current theme.
+     */
+    public static void installDefaults() {
+        Theme theme = current;
+        UIManager.put("Panel.background", theme.color(ThemeColor.BACKGROUND));
+        UIManager.put("Button.background", theme.color(ThemeColor.BUTTON_BG));
+        UIManager.put("TextField.background", theme.color(ThemeColor.BUTTON_BG));
+        UIManager.put("Spinner.background", theme.color(ThemeColor.BUTTON_BG));
+        UIManager.put("Slider.background", theme.color(ThemeColor.BACKGROUND));
+    }
+    
+    /**
+     * Register a listener called on the EDT after the theme changes, before windows are restyled.
+     */
+    public static void addListener(Consumer<Theme> listener) {
+        listeners.add(listener);
+    }
+    
+    public static void removeListener(Consumer<Theme> listener) {
+        listeners.remove(listener);
+    }
+    
+    /**
+     * Give a component the foreground colour of a role, now and after every theme change.
+     */
+    public static <T extends JComponent> T bindForeground(T component, ThemeColor role) {
+        component.putClientProperty(FOREGROUND_ROLE, role);
+        component.setForeground(current.color(role));
+        return component;
+    }
+    
+    /**
+     * Give a component the background colour of a role, now and after every theme change.
+     */
+    public static <T extends JComponent> T bindBackground(T component, ThemeColor role) {
+        component.putClientProperty(BACKGROUND_ROLE, role);
+        component.setBackground(current.color(role));
+        return component;
+    }
+    
+    /**
+     * Give a component a one pixel line border in the colour of a role.
+     */
+    public static <T extends JComponent> T bindLineBorder(T component, ThemeColor role) {
+        component.putClientProperty(BORDER_ROLE, role);
+        component.setBorder(BorderFactory.createLineBorder(current.color(role)));
+        return component;
+    }
+    
+    /**
+     * Re-apply bound roles throughout a component tree and repaint it once.
+     */
+    public static void restyle(Component root) {
+        restyleTree(root, current);
+        root.repaint();
+    }
+    
+    private static void restyleTree(Component component, Theme theme) {
+        if (component instanceof JComponent) {
+            JComponent jComponent = (JComponent) component;
+            Object role = jComponent.getClientProperty(FOREGROUND_ROLE);
+            if (role instanceof ThemeColor) {
+                jComponent.setForeground(theme.color((ThemeColor) role));
+            }
+            role = jComponent.getClientProperty(BACKGROUND_ROLE);
+            if (role instanceof ThemeColor) {
+                jComponent.setBackground(theme.color((ThemeColor) role));
+            }
+            role = jComponent.getClientProperty(BORDER_ROLE);
+            if (role instanceof ThemeColor) {
+                jComponent.setBorder(BorderFactory.createLineBorder(theme.color((ThemeColor) role)));
+            }
+        }
+        if (component instanceof Container) {
+            for (Component child : ((Container) component).getComponents()) {
+                restyleTree(child, theme);
+            }
+        }
+    }
+}
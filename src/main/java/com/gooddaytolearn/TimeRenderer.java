@@ -0,0 +1,177 @@
+package com.gooddaytolearn;
+
+import javax.swing.JComponent;
+import java.awt.*;
+import java.util.TimeZone;
+
+/**
+ * Formats a countdown or wall-clock time into a reusable char buffer and draws it
+ * centered in a component from a cached {@link GlyphAtlas}.
+ *
+ * Once the atlas is built, updating and painting the time does not allocate.
+ */
+public class TimeRenderer {
+    
+    private static final int MAX_ATLASES = 2; // One per timer state color
+    private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+    
+    private final String charset;
+    private final int prefixLength;
+    private final char[] buffer = new char[32];
+    private final char[] shadow = new char[32]; // Last committed text, for change detection
+    private int length;
+    private int changedFrom; // Range of characters that differ from the previous text
+    private int changedTo;
+    private boolean lengthChanged;
+    
+    private final GlyphAtlas[] atlases = new GlyphAtlas[MAX_ATLASES];
+    private int nextAtlas;
+    
+    // Where the text was last painted, for partial repaints
+    private GlyphAtlas paintedAtlas;
+    private int paintedX;
+    private int paintedBaseline;
+    
+    private final TimeZone zone = TimeZone.getDefault();
+    
+    /**
+     * Create a renderer for plain times.
+     */
+    public TimeRenderer() {
+        this("");
+    }
+    
+    /**
+     * Create a renderer that draws a fixed prefix before the time.
+     */
+    public TimeRenderer(String prefix) {
+        this.charset = prefix + "0123456789:";
+        this.prefixLength = prefix.length();
+        prefix.getChars(0, prefixLength, buffer, 0);
+        this.length = prefixLength;
+    }
+    
+    /**
+     * Show a countdown as MM:SS.
+     *
+     * @return true if the text changed
+     */
+    public boolean setCountdown(int seconds) {
+        int newLength = prefixLength + PomodoroTimer.formatTime(seconds, buffer, prefixLength);
+        return commit(newLength);
+    }
+    
+    /**
+     * Show the local wall-clock time as HH:MM:SS.
+     *
+     * @return true if the text changed
+     */
+    public boolean setClock(long epochMillis) {
+        long localMillis = epochMillis + zone.getOffset(epochMillis);
+        int secondOfDay = (int) (Math.floorMod(localMillis, MILLIS_PER_DAY) / 1000);
+        int pos = prefixLength;
+        pos = writeTwoDigits(secondOfDay / 3600, pos);
+        buffer[pos++] = ':';
+        pos = writeTwoDigits(secondOfDay / 60 % 60, pos);
+        buffer[pos++] = ':';
+        pos = writeTwoDigits(secondOfDay % 60, pos);
+        return commit(pos);
+    }
+    
+    /**
+     * Get the number of characters currently shown, including the prefix.
+     */
+    public int length() {
+        return length;
+    }
+    
+    /**
+     * Drop all cached atlases. Call this when the theme changes.
+     */
+    public void invalidate() {
+        for (int i = 0; i < atlases.length; i++) {
+            atlases[i] = null;
+        }
+        paintedAtlas = null;
+    }
+    
+    /**
+     * Repaint only the characters that changed in the last update, or the whole
+     * component if the text has not been painted yet or changed length.
+     */
+    public void repaintChanged(JComponent component) {
+        GlyphAtlas atlas = paintedAtlas;
+        if (atlas == null || lengthChanged) {
+            component.repaint();
+            return;
+        }
+        if (changedFrom >= changedTo) {
+            return;
+        }
+        // Digits share one advance, so unchanged characters keep their positions
+        int pad = atlas.getPad();
+        int left = paintedX + atlas.measure(buffer, changedFrom) - pad;
+        int right = paintedX + atlas.measure(buffer, changedTo) + pad;
+        int top = paintedBaseline - atlas.getAscent() - pad;
+        component.repaint(left, top, right - left, atlas.getHeight() + pad * 2);
+    }
+    
+    /**
+     * Draw the current text centered in the component's content area.
+     */
+    public void paint(Graphics2D g2d, JComponent component, Font font, Color color) {
+        GlyphAtlas atlas = getAtlas(font, color, g2d.getTransform().getScaleX());
+        Insets insets = component.getInsets();
+        int areaWidth = component.getWidth() - insets.left - insets.right;
+        int areaHeight = component.getHeight() - insets.top - insets.bottom;
+        int x = insets.left + (areaWidth - atlas.measure(buffer, length)) / 2;
+        int baseline = insets.top + (areaHeight - atlas.getHeight()) / 2 + atlas.getAscent();
+        atlas.draw(g2d, buffer, length, x, baseline);
+        paintedAtlas = atlas;
+        paintedX = x;
+        paintedBaseline = baseline;
+    }
+    
+    /**
+     * Find or build the atlas for the given font, color and scale.
+     */
+    private GlyphAtlas getAtlas(Font font, Color color, double scale) {
+        for (GlyphAtlas atlas : atlases) {
+            if (atlas != null && atlas.matches(font, color, scale)) {
+                return atlas;
+            }
+        }
+        GlyphAtlas atlas = new GlyphAtlas(font, color, charset, scale);
+        atlases[nextAtlas] = atlas;
+        nextAtlas = (nextAtlas + 1) % MAX_ATLASES;
+        return atlas;
+    }
+    
+    /**
+     * Write a zero-padded two digit number into the buffer.
+     */
+    private int writeTwoDigits(int value, int pos) {
+        buffer[pos++] = (char) ('0' + value / 10);
+        buffer[pos++] = (char) ('0' + value % 10);
+        return pos;
+    }
+    
+    /**
+     * Record the new text length. The buffer has already been written in place,
+     * so a change is detected by comparing against a shadow copy.
+     */
+    private boolean commit(int newLength) {
+        lengthChanged = newLength != length;
+        changedFrom = newLength;
+        changedTo = prefixLength;
+        for (int i = prefixLength; i < newLength; i++) {
+            if (buffer[i] != shadow[i]) {
+                changedFrom = Math.min(changedFrom, i);
+                changedTo = i + 1;
+            }
+        }
+        System.arraycopy(buffer, prefixLength, shadow, prefixLength, newLength - prefixLength);
+        length = newLength;
+        return lengthChanged || changedFrom < changedTo;
+    }
+}
@@ -0,0 +1,202 @@
+package com.gooddaytolearn;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Tiny memory-mapped checkpoint of the timer state, so a session survives a crash or restart.
+ *
+ * The file holds two fixed-size slots written alternately, each with a sequence number
+ * and a CRC32. A write torn by a crash can only damage the slot being written, so the
+ * other slot still holds the previous state. Writes go straight into the mapped page,
+ * which the operating system keeps even if the JVM dies; there is no write call or fsync.
+ */
+public class TimerCheckpoint {
+    
+    private static final int MAGIC = 0x47544350; // "GTCP"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    private static final int SLOT_SIZE = 64;
+    private static final int PAYLOAD_SIZE = 50;
+    private static final int FILE_SIZE = HEADER_SIZE + 2 * SLOT_SIZE;
+    
+    /**
+     * Snapshot of everything needed to resume the timer.
+     * Deadlines are wall-clock times, since the monotonic clock does not survive a restart.
+     */
+    public static class State {
+        private final Phase phase;
+        private final boolean running;
+        private final int currentInterval;
+        private final int completedCycles;
+        private final int phaseDuration;
+        private final long remainingMillis;
+        private final long deadlineMillis;
+        private final long phaseStartMillis;
+        private final int interruptions;
+        
+        /**
+         * @param phaseDuration Length of the current phase in seconds
+         * @param remainingMillis Time left while paused
+         * @param deadlineMillis Wall-clock end of the phase while running
+         * @param phaseStartMillis When the phase was first started, 0 if never
+         */
+        public State(Phase phase, boolean running, int currentInterval, int completedCycles, int phaseDuration,
+                     long remainingMillis, long deadlineMillis, long phaseStartMillis, int interruptions) {
+            this.phase = phase;
+            this.running = running;
+            this.currentInterval = currentInterval;
+            this.completedCycles = completedCycles;
+            this.phaseDuration = phaseDuration;
+            this.remainingMillis = remainingMillis;
+            this.deadlineMillis = deadlineMillis;
+            this.phaseStartMillis = phaseStartMillis;
+            this.interruptions = interruptions;
+        }
+        
+        public Phase getPhase() {
+            return phase;
+        }
+        
+        public boolean isRunning() {
+            return running;
+        }
+        
+        public int getCurrentInterval() {
+            return currentInterval;
+        }
+        
+        public int getCompletedCycles() {
+            return completedCycles;
+        }
+        
+        public int getPhaseDuration() {
+            return phaseDuration;
+        }
+        
+        public long getRemainingMillis() {
+            return remainingMillis;
+        }
+        
+        public long getDeadlineMillis() {
+            return deadlineMillis;
+        }
+        
+        public long getPhaseStartMillis() {
+            return phaseStartMillis;
+        }
+        
+        public int getInterruptions() {
+            return interruptions;
+        }
+    }
+    
+    private final Path path;
+    private final CRC32 crc = new CRC32();
+    private MappedByteBuffer buffer;
+    private long sequence;
+    
+    /**
+     * Create a checkpoint for the given file. Nothing is mapped until {@link #open()}.
+     */
+    public TimerCheckpoint(Path path) {
+        this.path = path;
+    }
+    
+    /**
+     * Map the checkpoint file, creating it if needed.
+     *
+     * @return the last saved state, or null if there is none or both slots are damaged
+     */
+    public synchronized State open() throws IOException {
+        Files.createDirectories(path.getParent());
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            boolean fresh = channel.size() < FILE_SIZE;
+            // The mapping stays valid after the channel is closed
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, FILE_SIZE);
+            if (fresh || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                for (int i = 0; i < FILE_SIZE; i++) {
+                    buffer.put(i, (byte) 0);
+                }
+                buffer.putInt(0, MAGIC);
+                buffer.putInt(4, VERSION);
+                return null;
+            }
+        }
+        
+        // Newest intact slot wins
+        long sequence0 = validSequence(0);
+        long sequence1 = validSequence(1);
+        int slot = sequence1 > sequence0 ? 1 : 0;
+        sequence = Math.max(sequence0, sequence1);
+        return sequence > 0 ? readSlot(slot) : null;
+    }
+    
+    /**
+     * Save a new state into the older slot. Does nothing if the file is not mapped.
+     */
+    public synchronized void save(State state) {
+        if (buffer == null) {
+            return;
+        }
+        sequence++;
+        int base = slotOffset((int) (sequence & 1));
+        buffer.putLong(base, sequence);
+        buffer.put(base + 8, (byte) state.phase.ordinal());
+        buffer.put(base + 9, (byte) (state.running ? 1 : 0));
+        buffer.putInt(base + 10, state.currentInterval);
+        buffer.putInt(base + 14, state.completedCycles);
+        buffer.putInt(base + 18, state.phaseDuration);
+        buffer.putLong(base + 22, state.remainingMillis);
+        buffer.putLong(base + 30, state.deadlineMillis);
+        buffer.putLong(base + 38, state.phaseStartMillis);
+        buffer.putInt(base + 46, state.interruptions);
+        buffer.putInt(base + PAYLOAD_SIZE, checksum(base));
+    }
+    
+    /**
+     * Get the slot's sequence number, or 0 if the slot is empty or damaged.
+     */
+    private long validSequence(int slot) {
+        int base = slotOffset(slot);
+        long slotSequence = buffer.getLong(base);
+        int phase = buffer.get(base + 8);
+        if (slotSequence <= 0 || buffer.getInt(base + PAYLOAD_SIZE) != checksum(base)
+                || phase < 0 || phase >= Phase.values().length) {
+            return 0;
+        }
+        return slotSequence;
+    }
+    
+    private State readSlot(int slot) {
+        int base = slotOffset(slot);
+        return new State(
+            Phase.values()[buffer.get(base + 8)],
+            buffer.get(base + 9) != 0,
+            buffer.getInt(base + 10),
+            buffer.getInt(base + 14),
+            buffer.getInt(base + 18),
+            buffer.getLong(base + 22),
+            buffer.getLong(base + 30),
+            buffer.getLong(base + 38),
+            buffer.getInt(base + 46));
+    }
+    
+    private int checksum(int base) {
+        crc.reset();
+        for (int i = 0; i < PAYLOAD_SIZE; i++) {
+            crc.update(buffer.get(base + i));
+        }
+        return (int) crc.getValue();
+    }
+    
+    private static int slotOffset(int slot) {
+        return HEADER_SIZE + slot * SLOT_SIZE;
+    }
+}
@@ -0,0 +1,115 @@
+package com.gooddaytolearn;
+
+import java.awt.*;
+import java.awt.geom.Arc2D;
+import java.awt.image.BufferedImage;
+
+/**
+ * Shows phase progress in the system tray as a pie in the work or break colour.
+ *
+ * Every frame the icon can show is rendered once for the tray's icon size and the
+ * current theme: {@value #STEPS} progress steps plus an empty pie, for work and for
+ * breaks. Updates only compute a frame index and hand the tray a new image when the
+ * index changes, so a phase swaps the icon at most {@value #STEPS} times. The tooltip
+ * shows the time left in whole minutes and is only replaced when that text would change.
+ */
+public class TrayProgressIcon {
+    
+    private static final int STEPS = 24;
+    private static final int FRAMES_PER_PHASE = STEPS + 1;
+    private static final int SECONDS_PER_MINUTE = 60;
+    
+    private final int width;
+    private final int height;
+    
+    private Image[] frames;
+    private Theme framesTheme;
+    private int shownFrame = -1;
+    private int shownTooltip = -1;
+    
+    /**
+     * Create frames for icons of the given size, as reported by the system tray.
+     */
+    public TrayProgressIcon(Dimension size) {
+        this.width = Math.max(1, size.width);
+        this.height = Math.max(1, size.height);
+    }
+    
+    /**
+     * Get the image for the timer's current state, to create the tray icon with.
+     */
+    public synchronized Image getImage(PomodoroTimer timer) {
+        shownFrame = frameIndex(timer);
+        return getFrames()[shownFrame];
+    }
+    
+    /**
+     * Bring the tray icon and its tooltip up to date with the timer. Cheap when nothing visible changed.
+     */
+    public synchronized void update(TrayIcon icon, PomodoroTimer timer) {
+        int frame = frameIndex(timer);
+        if (frame != shownFrame || framesTheme != ThemeManager.current()) {
+            icon.setImage(getFrames()[frame]);
+            shownFrame = frame;
+        }
+        
+        // Key on what the text shows: phase, running state and minutes left
+        int minutesLeft = (timer.getTimeLeft() + SECONDS_PER_MINUTE - 1) / SECONDS_PER_MINUTE;
+        int tooltip = (minutesLeft << 4) | (timer.getPhase().ordinal() << 1) | (timer.isRunning() ? 1 : 0);
+        if (tooltip != shownTooltip) {
+            icon.setToolTip(timer.getPhase().getDisplayName() + (timer.isRunning() ? " - " : " (paused) - ")
+                + minutesLeft + " min left");
+            shownTooltip = tooltip;
+        }
+    }
+    
+    private int frameIndex(PomodoroTimer timer) {
+        int step = (int) (timer.getProgress() * STEPS);
+        return (timer.isBreak() ? FRAMES_PER_PHASE : 0) + step;
+    }
+    
+    /**
+     * Get the frames for the current theme, rendering them if the theme changed.
+     */
+    private Image[] getFrames() {
+        Theme theme = ThemeManager.current();
+        if (frames == null || framesTheme != theme) {
+            Image[] rendered = new Image[FRAMES_PER_PHASE * 2];
+            for (int step = 0; step <= STEPS; step++) {
+                rendered[step] = renderFrame(theme, theme.phaseColor(false), step);
+                rendered[FRAMES_PER_PHASE + step] = renderFrame(theme, theme.phaseColor(true), step);
+            }
+            frames = rendered;
+            framesTheme = theme;
+        }
+        return frames;
+    }
+    
+    /**
+     * Render a track-coloured disc with a pie slice filled clockwise from the top, inside a phase-coloured rim.
+     */
+    private Image renderFrame(Theme theme, Color color, int step) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2d = image.createGraphics();
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        
+        int diameter = Math.min(width, height) - 2;
+        int x = (width - diameter) / 2;
+        int y = (height - diameter) / 2;
+        g2d.setColor(theme.color(ThemeColor.SLIDER_TRACK));
+        g2d.fillOval(x, y, diameter, diameter);
+        
+        if (step > 0) {
+            g2d.setColor(color);
+            g2d.fill(new Arc2D.Double(x, y, diameter, diameter, 90, -360.0 * step / STEPS, Arc2D.PIE));
+        }
+        
+        // Rim keeps the icon visible on any tray background, even when empty
+        g2d.setColor(color);
+        g2d.setStroke(new BasicStroke(Math.max(1.0f, diameter / 12.0f)));
+        g2d.drawOval(x, y, diameter, diameter);
+        
+        g2d.dispose();
+        return image;
+    }
+}
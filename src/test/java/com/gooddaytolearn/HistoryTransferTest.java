@@ -0,0 +1,151 @@
+package com.gooddaytolearn;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Export and import round trips, and idempotent merging.
+ */
+class HistoryTransferTest {
+    
+    // More than one binary block, with start times out of order so deltas go negative
+    private static final int SESSIONS = 5000;
+    
+    @TempDir
+    Path dir;
+    
+    private final List<SessionJournal> opened = new ArrayList<>();
+    
+    @AfterEach
+    void closeJournals() {
+        for (SessionJournal journal : opened) {
+            journal.close();
+        }
+    }
+    
+    @Test
+    void csvRoundTripKeepsEveryRecord() throws Exception {
+        SessionJournal source = journalWith("source", SESSIONS);
+        Path file = dir.resolve("history.csv");
+        assertEquals(SESSIONS, HistoryTransfer.exportCsv(source, file, progress -> { }));
+        
+        SessionJournal target = journal("target");
+        HistoryTransfer.ImportResult result = HistoryTransfer.importFile(target, file, progress -> { });
+        assertEquals(SESSIONS, result.getImported());
+        assertEquals(0, result.getDuplicates());
+        assertSameRecords(source, target);
+    }
+    
+    @Test
+    void binaryRoundTripKeepsEveryRecord() throws Exception {
+        SessionJournal source = journalWith("source", SESSIONS);
+        Path file = dir.resolve("history.gdtl");
+        assertEquals(SESSIONS, HistoryTransfer.exportBinary(source, file, progress -> { }));
+        
+        SessionJournal target = journal("target");
+        HistoryTransfer.ImportResult result = HistoryTransfer.importFile(target, file, progress -> { });
+        assertEquals(SESSIONS, result.getImported());
+        assertEquals(0, result.getDuplicates());
+        assertSameRecords(source, target);
+    }
+    
+    @Test
+    void importingTheSameFileTwiceAddsNothing() throws Exception {
+        SessionJournal source = journalWith("source", SESSIONS);
+        Path csv = dir.resolve("history.csv");
+        Path binary = dir.resolve("history.gdtl");
+        HistoryTransfer.exportCsv(source, csv, progress -> { });
+        HistoryTransfer.exportBinary(source, binary, progress -> { });
+        
+        SessionJournal target = journal("target");
+        HistoryTransfer.importFile(target, binary, progress -> { });
+        for (Path file : new Path[] {binary, csv}) {
+            HistoryTransfer.ImportResult again = HistoryTransfer.importFile(target, file, progress -> { });
+            assertEquals(0, again.getImported());
+            assertEquals(SESSIONS, again.getDuplicates());
+        }
+        assertEquals(SESSIONS, target.getRecordCount());
+    }
+    
+    @Test
+    void mergingTwoMachinesInEitherOrderGivesTheSameSessions() throws Exception {
+        // Machine A has sessions 0..2999, machine B has 2000..4999
+        SessionJournal a = journal("a");
+        SessionJournal b = journal("b");
+        append(a, 0, 3000);
+        append(b, 2000, SESSIONS);
+        Path fromA = dir.resolve("a.gdtl");
+        Path fromB = dir.resolve("b.csv");
+        HistoryTransfer.exportBinary(a, fromA, progress -> { });
+        HistoryTransfer.exportCsv(b, fromB, progress -> { });
+        
+        HistoryTransfer.ImportResult intoA = HistoryTransfer.importFile(a, fromB, progress -> { });
+        HistoryTransfer.ImportResult intoB = HistoryTransfer.importFile(b, fromA, progress -> { });
+        assertEquals(2000, intoA.getImported());
+        assertEquals(1000, intoA.getDuplicates());
+        assertEquals(2000, intoB.getImported());
+        assertEquals(SESSIONS, a.getRecordCount());
+        assertEquals(SESSIONS, b.getRecordCount());
+        assertEquals(0, HistoryTransfer.importFile(a, fromB, progress -> { }).getImported());
+    }
+    
+    private static PhaseEvent event(int i) {
+        Phase phase = Phase.values()[i % Phase.values().length];
+        // Scattered, non-round start times so order and millisecond precision both matter
+        long start = 1_700_000_000_000L + (i * 7919L % SESSIONS) * 3_600_000L + i % 997;
+        return new PhaseEvent(phase, start, start + 1_500_000L + i, 1500, 1000 + i % 500, i % 4, i % 3 != 0,
+            i % 8 == 7, i % 5 == 0 ? Task.NONE : i % 40);
+    }
+    
+    private SessionJournal journal(String name) throws IOException {
+        SessionJournal journal = new SessionJournal(dir.resolve(name).resolve("sessions.journal"));
+        journal.open();
+        opened.add(journal);
+        return journal;
+    }
+    
+    private SessionJournal journalWith(String name, int count) throws Exception {
+        SessionJournal journal = journal(name);
+        append(journal, 0, count);
+        return journal;
+    }
+    
+    private static void append(SessionJournal journal, int from, int to) throws InterruptedException {
+        long before = journal.getRecordCount();
+        for (int i = from; i < to; i++) {
+            journal.append(event(i));
+        }
+        assertTrue(journal.awaitRecordCount(before + to - from, 10_000));
+    }
+    
+    private static void assertSameRecords(SessionJournal expected, SessionJournal actual) throws IOException {
+        List<PhaseEvent> want = new ArrayList<>();
+        List<PhaseEvent> got = new ArrayList<>();
+        expected.read(0, want::add);
+        actual.read(0, got::add);
+        assertEquals(want.size(), got.size());
+        for (int i = 0; i < want.size(); i++) {
+            PhaseEvent e = want.get(i);
+            PhaseEvent a = got.get(i);
+            String at = "record " + i;
+            assertEquals(e.getPhase(), a.getPhase(), at);
+            assertEquals(e.getStartMillis(), a.getStartMillis(), at);
+            assertEquals(e.getEndMillis(), a.getEndMillis(), at);
+            assertEquals(e.getPlannedSeconds(), a.getPlannedSeconds(), at);
+            assertEquals(e.getActualSeconds(), a.getActualSeconds(), at);
+            assertEquals(e.getInterruptions(), a.getInterruptions(), at);
+            assertEquals(e.isCompleted(), a.isCompleted(), at);
+            assertEquals(e.isCycleCompleted(), a.isCycleCompleted(), at);
+            assertEquals(e.getTaskId(), a.getTaskId(), at);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.gooddaytolearn;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Busy time read from calendar files, including exceptions to recurring series.
+ */
+class IcsParserTest {
+    
+    private static final ZoneId BERLIN = ZoneId.of("Europe/Berlin");
+    
+    @TempDir
+    Path dir;
+    
+    @Test
+    void exdateRemovesInstances() throws IOException {
+        List<IcsParser.Entry> entries = parse(
+            "BEGIN:VEVENT",
+            "UID:standup",
+            "SUMMARY:Standup",
+            "DTSTART;TZID=Europe/Berlin:20240304T093000",
+            "DTEND;TZID=Europe/Berlin:20240304T094500",
+            "RRULE:FREQ=DAILY;COUNT=5",
+            "EXDATE;TZID=Europe/Berlin:20240305T093000,20240307T093000",
+            "END:VEVENT");
+        
+        assertEquals(Arrays.asList("2024-03-04T09:30", "2024-03-06T09:30", "2024-03-08T09:30"),
+            starts(entries, "2024-03-01T00:00", "2024-03-31T00:00"));
+    }
+    
+    @Test
+    void recurrenceIdReplacesTheInstanceItOverrides() throws IOException {
+        // The moved instance comes first, so the override must also apply to a later series
+        List<IcsParser.Entry> entries = parse(
+            "BEGIN:VEVENT",
+            "UID:review",
+            "SUMMARY:Review (moved)",
+            "RECURRENCE-ID;TZID=Europe/Berlin:20240312T140000",
+            "DTSTART;TZID=Europe/Berlin:20240313T160000",
+            "DTEND;TZID=Europe/Berlin:20240313T170000",
+            "END:VEVENT",
+            "BEGIN:VEVENT",
+            "UID:review",
+            "SUMMARY:Review",
+            "DTSTART;TZID=Europe/Berlin:20240305T140000",
+            "DTEND;TZID=Europe/Berlin:20240305T150000",
+            "RRULE:FREQ=WEEKLY;BYDAY=TU",
+            "END:VEVENT",
+            "BEGIN:VEVENT",
+            "UID:review",
+            "RECURRENCE-ID;TZID=Europe/Berlin:20240319T140000",
+            "DTSTART;TZID=Europe/Berlin:20240319T140000",
+            "DTEND;TZID=Europe/Berlin:20240319T150000",
+            "STATUS:CANCELLED",
+            "END:VEVENT");
+        
+        assertEquals(Arrays.asList("2024-03-05T14:00", "2024-03-13T16:00", "2024-03-26T14:00"),
+            starts(entries, "2024-03-01T00:00", "2024-03-31T00:00"));
+    }
+    
+    @Test
+    void meetingAcrossDaylightSavingChangeLastsItsRealLength() throws IOException {
+        // Clocks in Berlin jump from 02:00 to 03:00 on 2024-03-31
+        List<IcsParser.Entry> entries = parse(
+            "BEGIN:VEVENT",
+            "SUMMARY:Night shift handover",
+            "DTSTART;TZID=Europe/Berlin:20240331T013000",
+            "DTEND;TZID=Europe/Berlin:20240331T033000",
+            "END:VEVENT");
+        
+        List<long[]> blocks = new ArrayList<>();
+        entries.get(0).expand(millis("2024-03-30T00:00"), millis("2024-04-01T00:00"),
+            (start, end, summary) -> blocks.add(new long[] {start, end}));
+        assertEquals(1, blocks.size());
+        assertEquals(millis("2024-03-31T01:30"), blocks.get(0)[0]);
+        assertEquals(Duration.ofHours(1).toMillis(), blocks.get(0)[1] - blocks.get(0)[0]);
+    }
+    
+    @Test
+    void occurrenceOverlappingWindowStartIsReported() throws IOException {
+        List<IcsParser.Entry> entries = parse(
+            "BEGIN:VEVENT",
+            "SUMMARY:Workshop",
+            "DTSTART;TZID=Europe/Berlin:20240304T090000",
+            "DTEND;TZID=Europe/Berlin:20240304T120000",
+            "RRULE:FREQ=DAILY",
+            "END:VEVENT");
+        
+        assertEquals(Arrays.asList("2024-03-05T09:00", "2024-03-06T09:00"),
+            starts(entries, "2024-03-05T11:00", "2024-03-06T10:00"));
+    }
+    
+    private List<IcsParser.Entry> parse(String... eventLines) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add("BEGIN:VCALENDAR");
+        lines.addAll(Arrays.asList(eventLines));
+        lines.add("END:VCALENDAR");
+        Path file = dir.resolve("calendar.ics");
+        Files.write(file, lines, StandardCharsets.UTF_8);
+        return IcsParser.parse(file, 0);
+    }
+    
+    /**
+     * Expand every entry over the window and return the local start times, sorted.
+     */
+    private static List<String> starts(List<IcsParser.Entry> entries, String from, String to) {
+        List<Long> starts = new ArrayList<>();
+        for (IcsParser.Entry entry : entries) {
+            entry.expand(millis(from), millis(to), (start, end, summary) -> starts.add(start));
+        }
+        starts.sort(null);
+        List<String> local = new ArrayList<>();
+        for (long start : starts) {
+            local.add(ZonedDateTime.ofInstant(Instant.ofEpochMilli(start), BERLIN).toLocalDateTime().toString());
+        }
+        return local;
+    }
+    
+    private static long millis(String localDateTime) {
+        return LocalDateTime.parse(localDateTime).atZone(BERLIN).toInstant().toEpochMilli();
+    }
+}
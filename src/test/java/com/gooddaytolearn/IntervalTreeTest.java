@@ -0,0 +1,80 @@
+package com.gooddaytolearn;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Earliest-overlap lookups on half-open intervals.
+ */
+class IntervalTreeTest {
+    
+    @Test
+    void nestedIntervalIsFoundThroughItsContainer() {
+        IntervalTree tree = tree(new long[][] {{0, 100}, {10, 20}, {30, 40}, {200, 210}});
+        
+        assertEquals(0, start(tree, tree.firstOverlap(50, 60)));   // Only the container covers it
+        assertEquals(0, start(tree, tree.firstOverlap(15, 35)));   // Container starts earliest
+        assertEquals(200, start(tree, tree.firstOverlap(150, 250)));
+        assertEquals(-1, tree.firstOverlap(100, 200));             // Gap between them
+    }
+    
+    @Test
+    void touchingIntervalsDoNotOverlap() {
+        IntervalTree tree = tree(new long[][] {{0, 10}, {10, 20}, {20, 30}});
+        
+        assertEquals(10, start(tree, tree.firstOverlap(10, 15)));
+        assertEquals(0, start(tree, tree.firstOverlap(5, 10)));
+        assertEquals(-1, tree.firstOverlap(30, 40));
+        assertEquals(-1, tree.firstOverlap(-10, 0));
+        assertEquals(20, start(tree, tree.firstOverlap(20, 21)));
+    }
+    
+    @Test
+    void emptyTreeHasNoOverlap() {
+        assertEquals(-1, IntervalTree.empty().firstOverlap(Long.MIN_VALUE, Long.MAX_VALUE));
+    }
+    
+    @Test
+    void matchesBruteForce() {
+        Random random = new Random(42);
+        for (int round = 0; round < 200; round++) {
+            int count = random.nextInt(40);
+            long[][] intervals = new long[count][];
+            for (int i = 0; i < count; i++) {
+                long start = random.nextInt(1000);
+                intervals[i] = new long[] {start, start + 1 + random.nextInt(random.nextBoolean() ? 20 : 300)};
+            }
+            IntervalTree tree = tree(intervals);
+            for (int query = 0; query < 50; query++) {
+                long from = random.nextInt(1200) - 100;
+                long to = from + 1 + random.nextInt(50);
+                long expected = -1;
+                for (long[] interval : intervals) {
+                    if (interval[0] < to && interval[1] > from && (expected < 0 || interval[0] < expected)) {
+                        expected = interval[0];
+                    }
+                }
+                assertEquals(expected, start(tree, tree.firstOverlap(from, to)), "query [" + from + ", " + to + ")");
+            }
+        }
+    }
+    
+    private static IntervalTree tree(long[][] intervals) {
+        long[] starts = new long[intervals.length];
+        long[] ends = new long[intervals.length];
+        String[] labels = new String[intervals.length];
+        for (int i = 0; i < intervals.length; i++) {
+            starts[i] = intervals[i][0];
+            ends[i] = intervals[i][1];
+            labels[i] = "meeting " + i;
+        }
+        return new IntervalTree(starts, ends, labels, intervals.length);
+    }
+    
+    private static long start(IntervalTree tree, int index) {
+        return index < 0 ? -1 : tree.getStart(index);
+    }
+}
@@ -0,0 +1,104 @@
+package com.gooddaytolearn;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Expansion of recurrence rules into occurrence start times.
+ */
+class RecurrenceRuleTest {
+    
+    private static final ZoneId BERLIN = ZoneId.of("Europe/Berlin");
+    
+    @Test
+    void skipsPeriodsBeforeTheWindow() {
+        ZonedDateTime start = at("2000-01-01T09:00");
+        RecurrenceRule rule = RecurrenceRule.parse("FREQ=DAILY;INTERVAL=3", BERLIN);
+        
+        // 2024-03-01 is day 8826 of the series, a multiple of 3, so it falls on Mar 1, 4 and 7
+        List<ZonedDateTime> occurrences = expand(rule, start, at("2024-03-01T00:00"), at("2024-03-08T00:00"));
+        assertEquals(Arrays.asList(at("2024-03-01T09:00"), at("2024-03-04T09:00"), at("2024-03-07T09:00")),
+            occurrences);
+    }
+    
+    @Test
+    void weeklyBydaySkipsToTheWindow() {
+        ZonedDateTime start = at("2010-01-04T10:00"); // A Monday
+        RecurrenceRule rule = RecurrenceRule.parse("FREQ=WEEKLY;BYDAY=MO,TH", BERLIN);
+        
+        List<ZonedDateTime> occurrences = expand(rule, start, at("2024-03-05T00:00"), at("2024-03-12T00:00"));
+        assertEquals(Arrays.asList(at("2024-03-07T10:00"), at("2024-03-11T10:00")), occurrences);
+    }
+    
+    @Test
+    void countLimitsFromTheSeriesStartNotTheWindow() {
+        ZonedDateTime start = at("2024-03-01T09:00");
+        RecurrenceRule rule = RecurrenceRule.parse("FREQ=DAILY;COUNT=3", BERLIN);
+        
+        assertEquals(Arrays.asList(at("2024-03-02T09:00"), at("2024-03-03T09:00")),
+            expand(rule, start, at("2024-03-02T00:00"), at("2024-03-10T00:00")));
+    }
+    
+    @Test
+    void untilIsInclusive() {
+        ZonedDateTime start = at("2024-03-01T09:00");
+        RecurrenceRule rule = RecurrenceRule.parse("FREQ=DAILY;UNTIL=20240303T080000Z", BERLIN);
+        
+        // 08:00 UTC is 09:00 in Berlin, the start of the third occurrence
+        assertEquals(Arrays.asList(at("2024-03-01T09:00"), at("2024-03-02T09:00"), at("2024-03-03T09:00")),
+            expand(rule, start, at("2024-02-01T00:00"), at("2024-04-01T00:00")));
+    }
+    
+    @Test
+    void earlierOfCountAndUntilWins() {
+        ZonedDateTime start = at("2024-03-01T09:00");
+        RecurrenceRule untilFirst = RecurrenceRule.parse("FREQ=DAILY;COUNT=10;UNTIL=20240302T235959Z", BERLIN);
+        RecurrenceRule countFirst = RecurrenceRule.parse("FREQ=DAILY;COUNT=2;UNTIL=20240310T000000Z", BERLIN);
+        
+        List<ZonedDateTime> expected = Arrays.asList(at("2024-03-01T09:00"), at("2024-03-02T09:00"));
+        assertEquals(expected, expand(untilFirst, start, at("2024-02-01T00:00"), at("2024-04-01T00:00")));
+        assertEquals(expected, expand(countFirst, start, at("2024-02-01T00:00"), at("2024-04-01T00:00")));
+    }
+    
+    @Test
+    void monthlyBydayWithOrdinals() {
+        ZonedDateTime start = at("2024-01-08T14:00"); // Second Monday of January
+        RecurrenceRule rule = RecurrenceRule.parse("FREQ=MONTHLY;BYDAY=2MO,-1FR", BERLIN);
+        
+        assertEquals(Arrays.asList(at("2024-01-08T14:00"), at("2024-01-26T14:00"), at("2024-02-12T14:00"),
+                at("2024-02-23T14:00"), at("2024-03-11T14:00"), at("2024-03-29T14:00")),
+            expand(rule, start, at("2024-01-01T00:00"), at("2024-04-01T00:00")));
+    }
+    
+    @Test
+    void keepsLocalTimeAcrossDaylightSavingChange() {
+        ZonedDateTime start = at("2024-03-25T09:00"); // Berlin moves to summer time on Mar 31
+        RecurrenceRule rule = RecurrenceRule.parse("FREQ=WEEKLY", BERLIN);
+        
+        List<ZonedDateTime> occurrences = expand(rule, start, at("2024-03-20T00:00"), at("2024-04-05T00:00"));
+        assertEquals(Arrays.asList(at("2024-03-25T09:00"), at("2024-04-01T09:00")), occurrences);
+        assertEquals(Duration.ofDays(7).minusHours(1), Duration.between(occurrences.get(0), occurrences.get(1)));
+    }
+    
+    private static ZonedDateTime at(String localDateTime) {
+        return LocalDateTime.parse(localDateTime).atZone(BERLIN);
+    }
+    
+    private static List<ZonedDateTime> expand(RecurrenceRule rule, ZonedDateTime start, ZonedDateTime from,
+                                              ZonedDateTime to) {
+        List<ZonedDateTime> occurrences = new ArrayList<>();
+        rule.expand(start, from.toInstant().toEpochMilli(), to.toInstant().toEpochMilli(),
+            millis -> occurrences.add(ZonedDateTime.ofInstant(Instant.ofEpochMilli(millis), BERLIN)));
+        return occurrences;
+    }
+}
@@ -0,0 +1,187 @@
+package com.gooddaytolearn;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Recovery of torn and corrupt journals, and the upgrade of version 1 files.
+ */
+class SessionJournalTest {
+    
+    private static final long MAGIC = 0x4744544C4A524E4CL;
+    private static final int V1_RECORD_SIZE = 34;
+    
+    @TempDir
+    Path dir;
+    
+    @Test
+    void tornTailIsTruncatedAndJournalKeepsAppending() throws Exception {
+        Path path = dir.resolve("sessions.journal");
+        writeJournal(path, 10);
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            file.write(ByteBuffer.wrap(new byte[SessionJournal.RECORD_SIZE / 2])); // Crash mid-record
+        }
+        
+        SessionJournal journal = new SessionJournal(path);
+        journal.open();
+        assertEquals(10, journal.getRecordCount());
+        assertEquals(SessionJournal.HEADER_SIZE + 10L * SessionJournal.RECORD_SIZE, Files.size(path));
+        journal.append(event(10));
+        assertTrue(journal.awaitRecordCount(11, 5000));
+        journal.close();
+        
+        List<PhaseEvent> events = readAll(path);
+        assertEquals(11, events.size());
+        for (int i = 0; i < events.size(); i++) {
+            assertSameEvent(event(i), events.get(i));
+        }
+    }
+    
+    @Test
+    void corruptTailRecordIsDropped() throws Exception {
+        Path path = dir.resolve("sessions.journal");
+        writeJournal(path, 10);
+        flipByte(path, SessionJournal.HEADER_SIZE + 9L * SessionJournal.RECORD_SIZE + 5);
+        
+        List<PhaseEvent> events = readAll(path);
+        assertEquals(9, events.size());
+        assertSameEvent(event(8), events.get(8));
+    }
+    
+    @Test
+    void corruptRecordStopsReplayBeforeIt() throws Exception {
+        Path path = dir.resolve("sessions.journal");
+        writeJournal(path, 10);
+        flipByte(path, SessionJournal.HEADER_SIZE + 4L * SessionJournal.RECORD_SIZE + 12);
+        
+        List<PhaseEvent> events = readAll(path);
+        assertEquals(4, events.size());
+        for (int i = 0; i < 4; i++) {
+            assertSameEvent(event(i), events.get(i));
+        }
+    }
+    
+    @Test
+    void version1JournalIsMigrated() throws Exception {
+        Path path = dir.resolve("sessions.journal");
+        writeVersion1(path, 5, -1);
+        
+        SessionJournal journal = new SessionJournal(path);
+        journal.open();
+        assertEquals(5, journal.getRecordCount());
+        journal.close();
+        assertEquals(SessionJournal.HEADER_SIZE + 5L * SessionJournal.RECORD_SIZE, Files.size(path));
+        
+        List<PhaseEvent> events = readAll(path);
+        assertEquals(5, events.size());
+        for (int i = 0; i < 5; i++) {
+            assertSameEvent(untracked(event(i)), events.get(i));
+        }
+    }
+    
+    @Test
+    void version1MigrationStopsAtCorruptRecord() throws Exception {
+        Path path = dir.resolve("sessions.journal");
+        writeVersion1(path, 6, 3);
+        
+        SessionJournal journal = new SessionJournal(path);
+        journal.open();
+        assertEquals(3, journal.getRecordCount());
+        journal.close();
+    }
+    
+    private static PhaseEvent event(int i) {
+        Phase phase = Phase.values()[i % Phase.values().length];
+        long start = 1_700_000_000_000L + i * 3_600_000L;
+        return new PhaseEvent(phase, start, start + 1_500_000L, 1500, 1400 + i, i % 3, i % 2 == 0, i % 4 == 3,
+            i % 5 == 0 ? Task.NONE : i);
+    }
+    
+    private static PhaseEvent untracked(PhaseEvent e) {
+        return new PhaseEvent(e.getPhase(), e.getStartMillis(), e.getEndMillis(), e.getPlannedSeconds(),
+            e.getActualSeconds(), e.getInterruptions(), e.isCompleted(), e.isCycleCompleted());
+    }
+    
+    private static void writeJournal(Path path, int count) throws Exception {
+        SessionJournal journal = new SessionJournal(path);
+        journal.open();
+        for (int i = 0; i < count; i++) {
+            journal.append(event(i));
+        }
+        assertTrue(journal.awaitRecordCount(count, 5000));
+        journal.close();
+    }
+    
+    /**
+     * Write a version 1 journal by hand, optionally with a bad checksum on one record.
+     */
+    private static void writeVersion1(Path path, int count, int corruptIndex) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SessionJournal.HEADER_SIZE + count * V1_RECORD_SIZE);
+        buffer.putLong(MAGIC).putInt(1).putInt(V1_RECORD_SIZE);
+        CRC32 crc = new CRC32();
+        for (int i = 0; i < count; i++) {
+            PhaseEvent e = event(i);
+            int start = buffer.position();
+            buffer.putLong(e.getStartMillis());
+            buffer.putLong(e.getEndMillis());
+            buffer.putInt(e.getPlannedSeconds());
+            buffer.putInt(e.getActualSeconds());
+            buffer.putInt(e.getInterruptions());
+            buffer.put((byte) e.getPhase().ordinal());
+            buffer.put((byte) ((e.isCompleted() ? 1 : 0) | (e.isCycleCompleted() ? 2 : 0)));
+            crc.reset();
+            crc.update(buffer.array(), start, V1_RECORD_SIZE - 4);
+            buffer.putInt((int) crc.getValue() ^ (i == corruptIndex ? 1 : 0));
+        }
+        Files.write(path, buffer.array());
+    }
+    
+    private static void flipByte(Path path, long position) throws IOException {
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer one = ByteBuffer.allocate(1);
+            file.read(one, position);
+            one.put(0, (byte) (one.get(0) ^ 0x40)).rewind();
+            file.write(one, position);
+        }
+    }
+    
+    /**
+     * Open the journal as the app does and replay every record.
+     */
+    private static List<PhaseEvent> readAll(Path path) throws IOException {
+        SessionJournal journal = new SessionJournal(path);
+        journal.open();
+        List<PhaseEvent> events = new ArrayList<>();
+        try {
+            journal.read(0, events::add);
+        } finally {
+            journal.close();
+        }
+        return events;
+    }
+    
+    private static void assertSameEvent(PhaseEvent expected, PhaseEvent actual) {
+        assertEquals(expected.getPhase(), actual.getPhase());
+        assertEquals(expected.getStartMillis(), actual.getStartMillis());
+        assertEquals(expected.getEndMillis(), actual.getEndMillis());
+        assertEquals(expected.getPlannedSeconds(), actual.getPlannedSeconds());
+        assertEquals(expected.getActualSeconds(), actual.getActualSeconds());
+        assertEquals(expected.getInterruptions(), actual.getInterruptions());
+        assertEquals(expected.isCompleted(), actual.isCompleted());
+        assertEquals(expected.isCycleCompleted(), actual.isCycleCompleted());
+        assertEquals(expected.getTaskId(), actual.getTaskId());
+    }
+}
@@ -0,0 +1,110 @@
+package com.gooddaytolearn;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.swing.JLabel;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Once warmed up, the per-tick text path must not allocate: formatting the time,
+ * updating the renderer and drawing it from the glyph atlas.
+ */
+class TimeRendererAllocationTest {
+    
+    private static final int WARMUP_ITERATIONS = 20_000;
+    private static final int MEASURED_ITERATIONS = 10_000;
+    
+    private final com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private final Font font = new Font(Font.MONOSPACED, Font.BOLD, 48);
+    private final Color color = Color.WHITE;
+    private BufferedImage image;
+    private Graphics2D g2d;
+    private JLabel component;
+    
+    @BeforeEach
+    void setUp() {
+        image = new BufferedImage(320, 120, BufferedImage.TYPE_INT_ARGB);
+        g2d = image.createGraphics();
+        component = new JLabel();
+        component.setSize(image.getWidth(), image.getHeight());
+    }
+    
+    @Test
+    void formatTimeDoesNotAllocate() {
+        char[] buffer = new char[16];
+        Runnable tick = new Runnable() {
+            int seconds;
+            
+            @Override
+            public void run() {
+                PomodoroTimer.formatTime(seconds++ % 7200, buffer, 0);
+            }
+        };
+        assertEquals(0, allocatedBy(tick));
+    }
+    
+    @Test
+    void countdownPaintDoesNotAllocate() {
+        TimeRenderer renderer = new TimeRenderer();
+        Runnable tick = new Runnable() {
+            int seconds;
+            
+            @Override
+            public void run() {
+                renderer.setCountdown(seconds++ % 7200);
+                renderer.paint(g2d, component, font, color);
+            }
+        };
+        assertEquals(0, allocatedBy(tick));
+    }
+    
+    @Test
+    void clockPaintDoesNotAllocate() {
+        TimeRenderer renderer = new TimeRenderer("Now ");
+        Runnable tick = new Runnable() {
+            long millis = 1_700_000_000_000L;
+            
+            @Override
+            public void run() {
+                renderer.setClock(millis += 1000);
+                renderer.paint(g2d, component, font, color);
+            }
+        };
+        assertEquals(0, allocatedBy(tick));
+    }
+    
+    @Test
+    void atlasLookupsDoNotAllocate() {
+        GlyphAtlas atlas = new GlyphAtlas(font, color, "0123456789:", 1.0);
+        char[] text = "25:00".toCharArray();
+        Runnable tick = () -> {
+            atlas.matches(font, color, 1.0);
+            atlas.draw(g2d, text, text.length, 10, 80 + atlas.measure(text, text.length) % 2);
+        };
+        assertEquals(0, allocatedBy(tick));
+    }
+    
+    /**
+     * Run the action until the JIT has compiled it, then count the bytes this thread
+     * allocates while running it again.
+     */
+    private long allocatedBy(Runnable action) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            action.run();
+        }
+        long thread = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            action.run();
+        }
+        return threads.getThreadAllocatedBytes(thread) - before;
+    }
+}